@@ -1,13 +1,25 @@
 package com.stl.api.controller;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.stl.api.mesh.QuoteStatusCodes;
 import com.stl.api.util.ServiceResponse;
 import com.stl.api.util.StatusCode;
 import com.stl.api.util.StatusCodeResponseFactory;
 import com.stl.api.util.StatusCodeToHttpCode;
+import com.stl.api.util.StatusCodeType;
+import com.stl.api.util.StatusCodes;
 import com.stl.common.models.EntityId;
 
 /**
@@ -22,6 +34,12 @@ import com.stl.common.models.EntityId;
 public abstract class BaseController {
     public static final String JSON_ACCEPT_HEADER = "application/json";
 
+    @Autowired
+    @Qualifier("meshComputeExecutor")
+    private AsyncTaskExecutor meshComputeExecutor;
+    @Value("${mesh.async.timeoutMillis}")
+    protected long asyncTimeoutMillis;
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     protected ResponseEntity respond(Object obj) {
         if(obj instanceof StatusCode) {
@@ -52,12 +70,57 @@ public abstract class BaseController {
     }
     
     protected ResponseEntity<StatusCode> respond(StatusCode code) {
+        StatusCode returnError = localize(code);
+        return new ResponseEntity<StatusCode>(
+                returnError, 
+                StatusCodeToHttpCode.resolveHttpStatus(returnError.getCode()));
+    }
+
+    /**
+     * Returns a copy of the status code with its message localized, for responses that embed
+     * status codes rather than being one.
+     */
+    protected StatusCode localize(StatusCode code) {
         Object[] args = code.getArguments();
         StatusCodeResponseFactory factory = new StatusCodeResponseFactory();
         StatusCode returnError = new StatusCode(code);
         returnError.setArguments(args);
-        return new ResponseEntity<StatusCode>(
-                factory.localizeError(returnError), 
-                StatusCodeToHttpCode.resolveHttpStatus(returnError.getCode()));
+        return factory.localizeError(returnError);
+    }
+
+    /**
+     * Runs the task on the compute executor so the container thread is released straight away.
+     */
+    @SuppressWarnings("rawtypes")
+    protected DeferredResult<ResponseEntity> respondAsync(final Callable<ResponseEntity> task) {
+        final DeferredResult<ResponseEntity> result = new DeferredResult<ResponseEntity>(
+                asyncTimeoutMillis, respond(StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY)));
+        //error messages are localized on the worker thread, so carry the request locale over
+        final Locale locale = LocaleContextHolder.getLocale();
+        try {
+            meshComputeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    LocaleContextHolder.setLocale(locale);
+                    try {
+                        result.setResult(task.call());
+                    } catch (Exception e) {
+                        result.setResult(respond(QuoteStatusCodes.getStatusCode(e)));
+                    } finally {
+                        LocaleContextHolder.resetLocaleContext();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setResult(respond(StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY)));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    protected DeferredResult<ResponseEntity> completed(ResponseEntity response) {
+        DeferredResult<ResponseEntity> result = new DeferredResult<ResponseEntity>();
+        result.setResult(response);
+        return result;
     }
 }
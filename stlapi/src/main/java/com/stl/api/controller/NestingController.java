@@ -0,0 +1,53 @@
+package com.stl.api.controller;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.stl.api.ApiConsts;
+import com.stl.api.nesting.InvalidNestingException;
+import com.stl.api.nesting.NestingService;
+import com.stl.api.util.StatusCodeType;
+import com.stl.api.util.StatusCodes;
+import com.stl.common.models.NestingRequest;
+import com.stl.common.models.NestingResult;
+import com.wordnik.swagger.annotations.ApiOperation;
+
+@Controller
+@RequestMapping(ApiConsts.API_V1_ENDPOINT + "/nesting")
+public class NestingController extends BaseController {
+
+    @Autowired
+    private NestingService nestingService;
+
+    @ApiOperation(
+            value = "Nest the parts of an order on build plates", 
+            notes = "Post the bounding boxes of quoted parts and the copies of each ordered, returns the build plates "
+                    + "needed with the placement of every copy and the share of each plate used, or an error code",
+            response = NestingResult.class)
+    @RequestMapping(
+            method = RequestMethod.POST, 
+            consumes = {JSON_ACCEPT_HEADER},
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody DeferredResult<ResponseEntity> nest(@RequestBody final NestingRequest request) {
+        return respondAsync(new Callable<ResponseEntity>() {
+            @Override
+            public ResponseEntity call() {
+                try {
+                    return respond(nestingService.nest(request));
+                } catch (InvalidNestingException e) {
+                    return respond(StatusCodes.getStatusCode(StatusCodeType.INVALID_NESTING, 
+                            new Object[] { e.getField(), String.valueOf(e.getValue()), nestingService.getMaxParts() }));
+                }
+            }
+        });
+    }
+}
@@ -1,54 +1,478 @@
 package com.stl.api.controller;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stl.api.ApiConsts;
-import com.stl.api.util.AdmeshUtils;
+import com.stl.api.mesh.ArchiveQuoteService;
+import com.stl.api.mesh.BatchQuoteService;
+import com.stl.api.mesh.MeshAnalysisService;
+import com.stl.api.mesh.MeshRepairService;
+import com.stl.api.mesh.QuoteJobService;
+import com.stl.api.mesh.QuoteStatusCodes;
+import com.stl.api.mesh.VoxelizationService;
+import com.stl.api.pricing.PricingService;
+import com.stl.api.pricing.QuotePricer;
 import com.stl.api.util.StatusCode;
+import com.stl.api.util.StatusCodeToHttpCode;
+import com.stl.api.util.StatusCodeType;
+import com.stl.api.util.StatusCodes;
+import com.stl.common.models.AssemblyQuote;
 import com.stl.common.models.EntityId;
 import com.stl.common.models.ModelQuote;
+import com.stl.common.models.QuoteJob;
+import com.stl.common.models.VoxelModel;
 import com.wordnik.swagger.annotations.ApiOperation;
 
 @Controller
 @RequestMapping(ApiConsts.API_V1_ENDPOINT + "/quotes")
 public class QuotesController extends BaseController {
+    public static final String NDJSON_ACCEPT_HEADER = "application/x-ndjson";
+    public static final String STL_CONTENT_TYPE = "application/sla";
+    //Time a streamed batch is given past its own deadline to write the remaining parts as busy
+    private static final long STREAM_TIMEOUT_GRACE_MILLIS = 10000L;
+
+    @Autowired
+    private MeshAnalysisService meshAnalysisService;
+
+    @Autowired
+    private QuoteJobService quoteJobService;
+
+    @Autowired
+    private BatchQuoteService batchQuoteService;
+
+    @Autowired
+    private ArchiveQuoteService archiveQuoteService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private MeshRepairService meshRepairService;
+
+    @Autowired
+    private VoxelizationService voxelizationService;
+
+    @Autowired
+    @Qualifier("meshStreamExecutor")
+    private AsyncTaskExecutor meshStreamExecutor;
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @ApiOperation(
             value = "Post a file upload to create a quote", 
-            notes = "Post a file upload, generates and returns a quote or an error code",
+            notes = "Post a file upload, generates and returns a quote or an error code. "
+                    + "Naming an alloy prices the quote for the quantity of parts ordered. "
+                    + "With repair=true the mesh is repaired first and the quote is for the repaired mesh, "
+                    + "which can then be downloaded by its repair ID",
             response = EntityId.class)
     @RequestMapping(
             method = RequestMethod.POST, 
             produces = {JSON_ACCEPT_HEADER})
     @SuppressWarnings("rawtypes")
-    public @ResponseBody ResponseEntity handleFileUpload(@RequestParam("file") MultipartFile file) {
-        if (!file.isEmpty()) {
-            try {
-                //create a temp file
-                byte[] bytes = file.getBytes();
-                File temp = File.createTempFile("tempfile", ".tmp");  
-                FileOutputStream fos = new FileOutputStream(temp);
-                fos.write(bytes);
-                fos.close();
-                
-                String absolutePath = temp.getAbsolutePath();
-                
-                BigDecimal vol = AdmeshUtils.getVolume(absolutePath);
-                return respond(new ModelQuote(vol.doubleValue()));
-            } catch (Exception e) {
-                return respond(new StatusCode(1000, "unable to read file upload"));
+    public @ResponseBody DeferredResult<ResponseEntity> handleFileUpload(@RequestParam("file") final MultipartFile file,
+            @RequestParam(value = "alloy", required = false) String alloy,
+            @RequestParam(value = "quantity", defaultValue = "1") int quantity,
+            @RequestParam(value = "repair", defaultValue = "false") final boolean repair) {
+        if (file.isEmpty()) {
+            return completed(respond(new StatusCode(1001, "empty file provided")));
+        }
+        final QuotePricer pricer = pricingService.getPricer(alloy, quantity);
+        StatusCode invalid = getPricingError(alloy, quantity, pricer);
+        if (null != invalid) {
+            return completed(respond(invalid));
+        }
+        return respondAsync(new Callable<ResponseEntity>() {
+            @Override
+            public ResponseEntity call() {
+                return quote(file, pricer, repair);
             }
-        } else {
+        });
+    }
+
+    @ApiOperation(
+            value = "Download a repaired mesh", 
+            notes = "Returns the binary STL of a mesh repaired when it was quoted, by the ID in the quote's repair report")
+    @RequestMapping(
+            value = "/repaired/{repairId}",
+            method = RequestMethod.GET)
+    public void getRepairedMesh(@PathVariable(value="repairId") String repairId, 
+            HttpServletResponse response) throws IOException {
+        File file = meshRepairService.getRepairedMesh(repairId);
+        if (null == file) {
+            response.setContentType(JSON_ACCEPT_HEADER);
+            writeStatus(response, StatusCodes.getStatusCode(StatusCodeType.MODEL_NOT_FOUND, new Object[] { "repaired mesh", repairId }));
+            return;
+        }
+        response.setContentType(STL_CONTENT_TYPE);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + repairId + ".stl\"");
+        response.setContentLengthLong(file.length());
+        Files.copy(file.toPath(), response.getOutputStream());
+    }
+
+    @ApiOperation(
+            value = "Post a file upload to voxelize it", 
+            notes = "Rasterizes the mesh with resolution voxels along its longest side, returns the voxel volume "
+                    + "next to the mesh volume and the footprint of the part on the build plate, or an error code",
+            response = VoxelModel.class)
+    @RequestMapping(
+            value = "/voxels",
+            method = RequestMethod.POST, 
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody DeferredResult<ResponseEntity> handleVoxelUpload(@RequestParam("file") final MultipartFile file,
+            @RequestParam(value = "resolution", defaultValue = "${mesh.voxel.defaultResolution}") final int resolution) {
+        if (file.isEmpty()) {
+            return completed(respond(new StatusCode(1001, "empty file provided")));
+        }
+        int maxResolution = voxelizationService.getMaxResolution();
+        if (resolution < 1 || resolution > maxResolution) {
+            return completed(respond(StatusCodes.getStatusCode(StatusCodeType.INVALID_RESOLUTION, 
+                    new Object[] { resolution, maxResolution })));
+        }
+        return respondAsync(new Callable<ResponseEntity>() {
+            @Override
+            public ResponseEntity call() throws Exception {
+                return respond(voxelizationService.voxelize(file, resolution));
+            }
+        });
+    }
+
+    @ApiOperation(
+            value = "Post a zip or 3MF archive to quote the assembly it holds", 
+            notes = "Post an archive of STL files or a 3MF package, returns a quote for each part and their total, or an error code",
+            response = AssemblyQuote.class)
+    @RequestMapping(
+            value = "/archive",
+            method = RequestMethod.POST, 
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody DeferredResult<ResponseEntity> handleArchiveUpload(@RequestParam("file") final MultipartFile file,
+            @RequestParam(value = "alloy", required = false) String alloy,
+            @RequestParam(value = "quantity", defaultValue = "1") int quantity) {
+        if (file.isEmpty()) {
+            return completed(respond(new StatusCode(1001, "empty file provided")));
+        }
+        final QuotePricer pricer = pricingService.getPricer(alloy, quantity);
+        StatusCode invalid = getPricingError(alloy, quantity, pricer);
+        if (null != invalid) {
+            return completed(respond(invalid));
+        }
+        return respondAsync(new Callable<ResponseEntity>() {
+            @Override
+            public ResponseEntity call() {
+                try {
+                    AssemblyQuote quote = archiveQuoteService.quote(file);
+                    pricer.price(quote);
+                    return respond(quote);
+                } catch (Exception e) {
+                    return respond(QuoteStatusCodes.getStatusCode(e));
+                }
+            }
+        });
+    }
+
+    @ApiOperation(
+            value = "Post the parts of an assembly to quote them in one request", 
+            notes = "Post several file uploads named files, returns a quote or an error code for each part in upload order",
+            response = ModelQuote.class,
+            responseContainer = "List")
+    @RequestMapping(
+            value = "/batch",
+            method = RequestMethod.POST, 
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody DeferredResult<ResponseEntity> handleBatchUpload(@RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "alloy", required = false) String alloy,
+            @RequestParam(value = "quantity", defaultValue = "1") int quantity) {
+        final QuotePricer pricer = pricingService.getPricer(alloy, quantity);
+        StatusCode invalid = getPricingError(alloy, quantity, pricer);
+        if (null != invalid) {
+            return completed(respond(invalid));
+        }
+        final DeferredResult<ResponseEntity> result = new DeferredResult<ResponseEntity>(
+                asyncTimeoutMillis, respond(StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY)));
+        final BatchQuoteService.Handle batch;
+        try {
+            batch = batchQuoteService.quote(files, new BatchQuoteService.Listener() {
+                @Override
+                public void itemCompleted(int index, Object quote) {
+                    //the list is returned once the whole batch is done
+                    price(quote, pricer);
+                }
+
+                @Override
+                public void batchCompleted(List<Object> quotes) {
+                    List<Object> body = new ArrayList<Object>(quotes.size());
+                    for (Object quote : quotes) {
+                        body.add(quote instanceof StatusCode ? localize((StatusCode) quote) : quote);
+                    }
+                    result.setResult(respond(body));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setResult(respond(StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY)));
+            return result;
+        }
+        //once the request times out or the client has gone, stop analyzing the parts left
+        Runnable cancel = new Runnable() {
+            @Override
+            public void run() {
+                batch.cancel();
+            }
+        };
+        result.onTimeout(cancel);
+        result.onCompletion(cancel);
+        return result;
+    }
+
+    @ApiOperation(
+            value = "Post the parts of an assembly and stream their quotes", 
+            notes = "Post several file uploads named files, writes one JSON line per part as soon as it is quoted, "
+                    + "holding the part's index and either its quote or an error code",
+            response = ModelQuote.class,
+            responseContainer = "List")
+    @RequestMapping(
+            value = "/batch",
+            method = RequestMethod.POST, 
+            produces = {NDJSON_ACCEPT_HEADER})
+    public WebAsyncTask<Void> streamBatchUpload(@RequestParam("files") final List<MultipartFile> files,
+            @RequestParam(value = "alloy", required = false) String alloy,
+            @RequestParam(value = "quantity", defaultValue = "1") int quantity, 
+            final HttpServletResponse response) throws IOException {
+        final BlockingQueue<BatchItem> completed = new LinkedBlockingQueue<BatchItem>();
+        response.setContentType(NDJSON_ACCEPT_HEADER);
+        final QuotePricer pricer = pricingService.getPricer(alloy, quantity);
+        StatusCode invalid = getPricingError(alloy, quantity, pricer);
+        if (null != invalid) {
+            writeStatus(response, invalid);
+            return null;
+        }
+        final BatchQuoteService.Handle batch;
+        try {
+            batch = batchQuoteService.quote(files, new BatchQuoteService.Listener() {
+                @Override
+                public void itemCompleted(int index, Object quote) {
+                    price(quote, pricer);
+                    completed.add(new BatchItem(index, quote));
+                }
+
+                @Override
+                public void batchCompleted(List<Object> quotes) {
+                    //every part has already been handed over by itemCompleted
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            writeStatus(response, StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY));
+            return null;
+        }
+        //the lines are written from the stream executor, which gives up on the batch before the container does
+        final long deadline = System.currentTimeMillis() + asyncTimeoutMillis;
+        final Locale locale = LocaleContextHolder.getLocale();
+        WebAsyncTask<Void> task = new WebAsyncTask<Void>(asyncTimeoutMillis + STREAM_TIMEOUT_GRACE_MILLIS, 
+                meshStreamExecutor, new Callable<Void>() {
+            @Override
+            public Void call() throws IOException, InterruptedException {
+                LocaleContextHolder.setLocale(locale);
+                try {
+                    writeLines(response, completed, files.size(), deadline);
+                } finally {
+                    //the parts left are reported busy or the client has gone, either way stop analyzing them
+                    batch.cancel();
+                    LocaleContextHolder.resetLocaleContext();
+                }
+                return null;
+            }
+        });
+        task.onTimeout(new Callable<Void>() {
+            @Override
+            public Void call() {
+                batch.cancel();
+                return null;
+            }
+        });
+        task.onCompletion(new Runnable() {
+            @Override
+            public void run() {
+                batch.cancel();
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Writes the parts of a streamed batch as they complete, each line is flushed as soon as
+     * its part is quoted and the parts are never held as a list.
+     */
+    private void writeLines(HttpServletResponse response, BlockingQueue<BatchItem> completed, int count, 
+            long deadline) throws IOException, InterruptedException {
+        boolean[] written = new boolean[count];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            //lines are terminated by writeLine rather than separated by the generator
+            generator.setRootValueSeparator(null);
+            for (int i = 0; i < written.length; i++) {
+                BatchItem item = completed.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                if (null == item) {
+                    //out of time, report the parts still being analyzed as busy
+                    StatusCode busy = StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY);
+                    for (int index = 0; index < written.length; index++) {
+                        if (!written[index]) {
+                            writeLine(generator, new BatchItem(index, busy));
+                        }
+                    }
+                    break;
+                }
+                written[item.index] = true;
+                writeLine(generator, item);
+            }
+        }
+    }
+
+    @ApiOperation(
+            value = "Post a file upload to create a background quote job", 
+            notes = "Queues the upload for analysis and returns the job ID, poll the job for progress and the quote",
+            response = EntityId.class)
+    @RequestMapping(
+            value = "/jobs",
+            method = RequestMethod.POST, 
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody ResponseEntity submitJob(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
             return respond(new StatusCode(1001, "empty file provided"));
         }
+        try {
+            return respond(new EntityId(quoteJobService.submit(file).getId()));
+        } catch (RejectedExecutionException e) {
+            return respond(StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY));
+        } catch (Exception e) {
+            return respond(new StatusCode(1000, "unable to read file upload"));
+        }
+    }
+
+    @ApiOperation(
+            value = "Get a quote job", 
+            notes = "Returns the job status, percentage of the mesh processed and, once complete, the quote",
+            response = QuoteJob.class)
+    @RequestMapping(
+            value = "/jobs/{jobId}",
+            method = RequestMethod.GET, 
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody ResponseEntity getJob(@PathVariable(value="jobId") Long jobId) {
+        return respondWithJob(jobId, quoteJobService.get(jobId));
+    }
+
+    @ApiOperation(
+            value = "Cancel a quote job", 
+            notes = "Stops the job if it has not finished and returns its state",
+            response = QuoteJob.class)
+    @RequestMapping(
+            value = "/jobs/{jobId}",
+            method = RequestMethod.DELETE, 
+            produces = {JSON_ACCEPT_HEADER})
+    @SuppressWarnings("rawtypes")
+    public @ResponseBody ResponseEntity cancelJob(@PathVariable(value="jobId") Long jobId) {
+        return respondWithJob(jobId, quoteJobService.cancel(jobId));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ResponseEntity respondWithJob(Long jobId, QuoteJob job) {
+        if (null == job) {
+            return respond(StatusCodes.getStatusCode(StatusCodeType.MODEL_NOT_FOUND, new Object[] { "quote job", jobId }));
+        }
+        return respond(job);
+    }
+
+    private void writeStatus(HttpServletResponse response, StatusCode code) throws IOException {
+        StatusCode localized = localize(code);
+        response.setStatus(StatusCodeToHttpCode.resolveHttpStatus(localized.getCode()).value());
+        objectMapper.writeValue(response.getOutputStream(), localized);
+    }
+
+    private void writeLine(JsonGenerator generator, BatchItem item) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("index", item.index);
+        if (item.result instanceof StatusCode) {
+            generator.writeObjectField("status", localize((StatusCode) item.result));
+        } else {
+            generator.writeObjectField("quote", item.result);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    /**
+     * A part of a streamed batch, handed from the thread that quoted it to the thread writing the stream.
+     */
+    private static class BatchItem {
+        private final int index;
+        private final Object result;
+
+        BatchItem(int index, Object result) {
+            this.index = index;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Returns the status code to respond with if the pricing parameters are invalid, or null.
+     */
+    private StatusCode getPricingError(String alloy, int quantity, QuotePricer pricer) {
+        if (quantity < 1) {
+            return StatusCodes.getStatusCode(StatusCodeType.INVALID_QUANTITY, new Object[] { quantity });
+        }
+        if (null == pricer) {
+            return StatusCodes.getStatusCode(StatusCodeType.UNSUPPORTED_ALLOY, 
+                    new Object[] { alloy, Arrays.toString(pricingService.getAlloys()) });
+        }
+        return null;
+    }
+
+    private static void price(Object quote, QuotePricer pricer) {
+        if (quote instanceof ModelQuote) {
+            pricer.price((ModelQuote) quote);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ResponseEntity quote(MultipartFile file, QuotePricer pricer, boolean repair) {
+        try {
+            ModelQuote quote = repair ? meshRepairService.quote(file) : meshAnalysisService.quote(file);
+            pricer.price(quote);
+            return respond(quote);
+        } catch (Exception e) {
+            return respond(QuoteStatusCodes.getStatusCode(e));
+        }
     }
 }
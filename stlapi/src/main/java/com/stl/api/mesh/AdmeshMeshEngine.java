@@ -0,0 +1,104 @@
+package com.stl.api.mesh;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+import com.stl.api.mesh.ExternalToolExecutor.ToolResult;
+import com.stl.api.util.AdmeshUtils;
+import com.stl.common.mesh.BinaryStlWriter;
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.TriangleSource;
+
+/**
+ * Delegates to the external admesh tool, run through the bounded {@link ExternalToolExecutor}
+ * so that concurrent quotes cannot fork an unbounded number of processes.  admesh can only read
+ * from a path, so streamed data is copied to a temp file that is removed once admesh exits;
+ * facets that are not read from STL are written to one as binary STL.
+ * The volume, facet count and bounds are scraped from admesh's output; admesh does not report
+ * the surface area or centroid, which are NaN.  Meshes are not validated.
+ */
+public class AdmeshMeshEngine implements MeshEngine {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String HEADER = "binary STL written by stlapi";
+
+    private final ExternalToolExecutor toolExecutor;
+
+    public AdmeshMeshEngine(ExternalToolExecutor toolExecutor) {
+        this.toolExecutor = toolExecutor;
+    }
+
+    @Override
+    public MeshMetrics analyze(InputStream in, long size) throws IOException {
+        File temp = File.createTempFile("admesh", ".stl");
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            return analyze(temp, null);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    @Override
+    public MeshMetrics analyze(TriangleSource source) throws IOException {
+        File temp = File.createTempFile("admesh", ".stl");
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), COPY_BUFFER_SIZE)) {
+                BinaryStlWriter.write(source, HEADER, out);
+            }
+            return analyze(temp, null);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    @Override
+    public MeshMetrics analyze(File file, MeshProgress progress) throws IOException {
+        ToolResult result = toolExecutor.run(AdmeshUtils.getCommand(file.getAbsolutePath()));
+        if (result.getExitCode() != 0) {
+            throw new IOException("admesh exited with code " + result.getExitCode() + " for " + file);
+        }
+        String output = result.getOutput();
+        BigDecimal volume = AdmeshUtils.parseVolume(output);
+        if (null == volume) {
+            throw new IOException("admesh did not report a volume for " + file);
+        }
+        if (null != progress) {
+            //admesh reports nothing until it finishes
+            progress.advance(file.length());
+        }
+        BigDecimal facets = AdmeshUtils.parseFacetCount(output);
+        return new MeshMetrics.Builder()
+                .volume(volume.doubleValue())
+                .triangleCount(null == facets ? 0 : facets.longValue())
+                .bounds(parseBound(output, "Min X"), parseBound(output, "Min Y"), parseBound(output, "Min Z"),
+                        parseBound(output, "Max X"), parseBound(output, "Max Y"), parseBound(output, "Max Z"))
+                .build();
+    }
+
+    private static float parseBound(String output, String bound) {
+        BigDecimal value = AdmeshUtils.parseBound(output, bound);
+        return null == value ? Float.NaN : value.floatValue();
+    }
+
+    @Override
+    public boolean prefersFile(long size) {
+        return true;
+    }
+
+    @Override
+    public String getFingerprint() {
+        return MeshEngines.ADMESH;
+    }
+}
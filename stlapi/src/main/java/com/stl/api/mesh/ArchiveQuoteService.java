@@ -0,0 +1,255 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stl.common.mesh.ThreeMfModelParser;
+import com.stl.common.mesh.TriangleSource;
+import com.stl.common.models.AssemblyQuote;
+import com.stl.common.models.ModelQuote;
+
+/**
+ * Quotes assemblies uploaded as a zip of STL files or as a 3MF package.  The archive is moved
+ * out of the container's multipart storage and read with {@link ZipFile}, which allows its
+ * entries to be streamed concurrently, so entries are never extracted and memory use depends
+ * on the number of entries being read rather than the size of the archive.  STL entries are
+ * analyzed like single uploads, including the cache.  Each build item of a 3MF model entry
+ * becomes a part, placed by its transforms and assembled from its components, see
+ * {@link ThreeMfModelParser}, and is run through the engine like an upload but without the
+ * cache.  Entries that cannot be read or parsed, or with a part that fails validation, are
+ * reported as unreadable.  Archives of more than maxParts parts, STL entries and build items
+ * together, are rejected, and any other failure stops the archive and is rethrown.
+ * <p>
+ * Entries are analyzed on the shared compute executor by at most parallelism runners.  The
+ * calling thread is one of them, so an archive quoted from a compute thread still completes
+ * when the executor is saturated.
+ */
+public class ArchiveQuoteService {
+    private static final String STL_SUFFIX = ".stl";
+    private static final String THREE_MF_MODEL_SUFFIX = ".model";
+    //resource forks added by the macOS archive utility
+    private static final String MAC_METADATA_PREFIX = "__MACOSX/";
+
+    private final MeshAnalysisService meshAnalysisService;
+    private final Executor executor;
+    private final int parallelism;
+    private final int maxParts;
+
+    /**
+     * @param maxParts The most parts an archive may hold
+     */
+    public ArchiveQuoteService(MeshAnalysisService meshAnalysisService, Executor executor, int parallelism, 
+            int maxParts) {
+        this.meshAnalysisService = meshAnalysisService;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.maxParts = maxParts;
+    }
+
+    /**
+     * Quotes the meshes in the uploaded archive.  The quote has no parts if the archive holds
+     * no STL or 3MF model entries.
+     *
+     * @throws java.util.zip.ZipException if the upload is not a zip archive
+     * @throws TooManyPartsException if the archive holds more than maxParts parts
+     */
+    public AssemblyQuote quote(MultipartFile upload) throws IOException {
+        File file = File.createTempFile("archive", ".zip");
+        try {
+            upload.transferTo(file);
+            try (ZipFile archive = new ZipFile(file)) {
+                AssemblyQuote quote = quote(archive);
+                quote.setName(upload.getOriginalFilename());
+                return quote;
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public AssemblyQuote quote(ZipFile archive) throws IOException {
+        List<ZipEntry> entries = getMeshEntries(archive);
+        Archive work = new Archive(archive, entries);
+        if (work.parts.get() > maxParts) {
+            throw new TooManyPartsException(maxParts);
+        }
+        for (int i = 1; i < Math.min(parallelism, entries.size()); i++) {
+            try {
+                executor.execute(work);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        work.run();
+        try {
+            work.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while quoting archive entries");
+        }
+        if (null != work.failure) {
+            throw work.failure;
+        }
+        if (work.tooManyParts) {
+            throw new TooManyPartsException(maxParts);
+        }
+
+        List<ModelQuote> parts = new ArrayList<ModelQuote>();
+        List<String> unreadable = new ArrayList<String>();
+        for (int i = 0; i < entries.size(); i++) {
+            List<ModelQuote> entryParts = work.results.get(i);
+            if (null == entryParts) {
+                unreadable.add(entries.get(i).getName());
+            } else {
+                parts.addAll(entryParts);
+            }
+        }
+        AssemblyQuote quote = new AssemblyQuote();
+        quote.setParts(parts);
+        quote.setTotal(getTotal(parts));
+        if (!unreadable.isEmpty()) {
+            quote.setUnreadableParts(unreadable);
+        }
+        return quote;
+    }
+
+    /**
+     * Sums the additive metrics of the parts.  The parts are not placed relative to each other,
+     * so the total has no bounding box or centroid.  If every part was sliced, the total is
+     * sliced as the parts built side by side: as many layers as the tallest part, scanning
+     * every part.
+     */
+    private static ModelQuote getTotal(List<ModelQuote> parts) {
+        BigDecimal volume = BigDecimal.ZERO;
+        BigDecimal surfaceArea = BigDecimal.ZERO;
+        long triangleCount = 0;
+        Integer layerCount = 0;
+        BigDecimal scanLength = BigDecimal.ZERO;
+        for (ModelQuote part : parts) {
+            volume = volume.add(BigDecimal.valueOf(part.getVolume()));
+            surfaceArea = null == surfaceArea || null == part.getSurfaceArea() 
+                    ? null : surfaceArea.add(BigDecimal.valueOf(part.getSurfaceArea()));
+            triangleCount += part.getTriangleCount();
+            layerCount = null == layerCount || null == part.getLayerCount() 
+                    ? null : Math.max(layerCount, part.getLayerCount());
+            scanLength = null == scanLength || null == part.getScanLength() 
+                    ? null : scanLength.add(BigDecimal.valueOf(part.getScanLength()));
+        }
+        ModelQuote total = new ModelQuote(volume.doubleValue());
+        total.setSurfaceArea(null == surfaceArea ? null : surfaceArea.doubleValue());
+        total.setTriangleCount(triangleCount);
+        if (null != layerCount && null != scanLength && !parts.isEmpty()) {
+            total.setLayerCount(layerCount);
+            total.setScanLength(scanLength.doubleValue());
+        }
+        return total;
+    }
+
+    private static boolean isStl(ZipEntry entry) {
+        return entry.getName().toLowerCase(Locale.ROOT).endsWith(STL_SUFFIX);
+    }
+
+    private static List<ZipEntry> getMeshEntries(ZipFile archive) {
+        List<ZipEntry> entries = new ArrayList<ZipEntry>();
+        Enumeration<? extends ZipEntry> all = archive.entries();
+        while (all.hasMoreElements()) {
+            ZipEntry entry = all.nextElement();
+            String name = entry.getName().toLowerCase(Locale.ROOT);
+            if (!entry.isDirectory() && !entry.getName().startsWith(MAC_METADATA_PREFIX)
+                    && (name.endsWith(STL_SUFFIX) || name.endsWith(THREE_MF_MODEL_SUFFIX))) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private class Archive implements Runnable {
+        private final ZipFile archive;
+        private final List<ZipEntry> entries;
+        //null until an entry is read, and for entries that could not be read
+        private final AtomicReferenceArray<List<ModelQuote>> results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final CountDownLatch done;
+        //STL entries are counted up front, build items as they are read
+        private final AtomicInteger parts;
+        private volatile boolean tooManyParts;
+        //the first failure that is not the fault of an entry, which stops the archive
+        private volatile RuntimeException failure;
+
+        Archive(ZipFile archive, List<ZipEntry> entries) {
+            this.archive = archive;
+            this.entries = entries;
+            this.results = new AtomicReferenceArray<List<ModelQuote>>(entries.size());
+            this.done = new CountDownLatch(entries.size());
+            int stlEntries = 0;
+            for (ZipEntry entry : entries) {
+                if (isStl(entry)) {
+                    stlEntries++;
+                }
+            }
+            this.parts = new AtomicInteger(stlEntries);
+        }
+
+        @Override
+        public void run() {
+            int index;
+            while ((index = next.getAndIncrement()) < entries.size()) {
+                try {
+                    //once the archive is rejected or has failed the remaining entries are skipped
+                    if (!tooManyParts && null == failure) {
+                        results.set(index, quote(entries.get(index)));
+                    }
+                } catch (TooManyPartsException e) {
+                    tooManyParts = true;
+                } catch (IOException e) {
+                    //unreadable, unparsable or invalid entries, including InvalidMeshException
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        private List<ModelQuote> quote(ZipEntry entry) throws IOException {
+            if (isStl(entry)) {
+                ModelQuote quote = meshAnalysisService.quote(archive, entry);
+                quote.setName(entry.getName());
+                return Collections.singletonList(quote);
+            }
+            final String entryName = entry.getName();
+            final List<ModelQuote> quotes = new ArrayList<ModelQuote>();
+            try (InputStream in = archive.getInputStream(entry)) {
+                ThreeMfModelParser.parse(in, null, new ThreeMfModelParser.Handler() {
+                    @Override
+                    public void item(String objectId, String name, TriangleSource part) throws IOException {
+                        if (parts.incrementAndGet() > maxParts || tooManyParts) {
+                            throw new TooManyPartsException(maxParts);
+                        }
+                        ModelQuote quote = meshAnalysisService.quote(part);
+                        quote.setName(null == name ? entryName + "#" + objectId : name);
+                        quotes.add(quote);
+                    }
+                });
+            }
+            return quotes;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.stl.api.mesh;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stl.api.util.StatusCode;
+
+/**
+ * Quotes the parts of an assembly uploaded in a single request.  The parts are analyzed
+ * concurrently on the shared compute executor by at most parallelism runners, each of which
+ * takes the next unclaimed part until none are left, so a large batch occupies a bounded
+ * share of the executor instead of flooding its queue.  Each result is either a
+ * {@link com.stl.common.models.ModelQuote} or the {@link StatusCode} explaining why the part
+ * could not be quoted, and the batch completes once the last part has been analyzed.  A
+ * batch whose client has gone can be cancelled, after which its runners finish the parts
+ * they hold and claim no more.
+ */
+public class BatchQuoteService {
+    private final MeshAnalysisService meshAnalysisService;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * Receives the results of a batch, on the thread that analyzed the part.
+     */
+    public interface Listener {
+        /**
+         * Called once for each part as soon as it has been analyzed.
+         */
+        void itemCompleted(int index, Object result);
+
+        /**
+         * Called once, after every part has been analyzed, with the results in upload order.
+         */
+        void batchCompleted(List<Object> results);
+    }
+
+    /**
+     * A batch that has been started.
+     */
+    public interface Handle {
+        /**
+         * Stops the runners claiming further parts; parts already being analyzed are still
+         * passed to the listener, the batch is never completed.
+         */
+        void cancel();
+    }
+
+    public BatchQuoteService(MeshAnalysisService meshAnalysisService, Executor executor, int parallelism) {
+        this.meshAnalysisService = meshAnalysisService;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Starts quoting the uploads and returns immediately; the listener is called as parts complete.
+     *
+     * @throws RejectedExecutionException if the executor cannot accept any work
+     */
+    public Handle quote(List<MultipartFile> uploads, Listener listener) {
+        Batch batch = new Batch(uploads, listener, LocaleContextHolder.getLocale());
+        if (uploads.isEmpty()) {
+            listener.batchCompleted(Arrays.asList(batch.results));
+            return batch;
+        }
+        int runners = Math.min(parallelism, uploads.size());
+        //the first runner alone can finish the batch, further ones only speed it up
+        executor.execute(batch);
+        for (int i = 1; i < runners; i++) {
+            try {
+                executor.execute(batch);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private class Batch implements Runnable, Handle {
+        private final List<MultipartFile> uploads;
+        private final Listener listener;
+        private final Locale locale;
+        private final Object[] results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private volatile boolean cancelled;
+
+        Batch(List<MultipartFile> uploads, Listener listener, Locale locale) {
+            this.uploads = uploads;
+            this.listener = listener;
+            this.locale = locale;
+            this.results = new Object[uploads.size()];
+            this.remaining = new AtomicInteger(uploads.size());
+        }
+
+        @Override
+        public void run() {
+            //status messages are localized by the listener, so carry the request locale over
+            LocaleContextHolder.setLocale(locale);
+            try {
+                int index;
+                while (!cancelled && (index = next.getAndIncrement()) < results.length) {
+                    Object result = quote(uploads.get(index));
+                    results[index] = result;
+                    listener.itemCompleted(index, result);
+                    //the decrement publishes every runner's writes to results to the last one
+                    if (0 == remaining.decrementAndGet()) {
+                        listener.batchCompleted(Arrays.asList(results));
+                    }
+                }
+            } finally {
+                LocaleContextHolder.resetLocaleContext();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private Object quote(MultipartFile upload) {
+            if (upload.isEmpty()) {
+                return new StatusCode(1001, "empty file provided");
+            }
+            try {
+                return meshAnalysisService.quote(upload);
+            } catch (Exception e) {
+                return QuoteStatusCodes.getStatusCode(e);
+            }
+        }
+    }
+}
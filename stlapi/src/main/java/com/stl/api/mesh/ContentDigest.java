@@ -0,0 +1,115 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The SHA-256 digest of an uploaded file, used to address cached analysis results by
+ * content so that re-uploads of the same part are recognized whatever they are named.  A
+ * digest may be scoped, see {@link #of(String, InputStream)}, so that the same content
+ * analyzed under different settings is addressed separately.
+ */
+public final class ContentDigest {
+    public static final String ALGORITHM = "SHA-256";
+    public static final int LENGTH = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final byte[] bytes;
+    private final int hash;
+
+    public ContentDigest(byte[] bytes) {
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException("Expected a " + LENGTH + " byte digest");
+        }
+        this.bytes = bytes.clone();
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Digests the remainder of the stream using a fixed size buffer.  The stream is not closed.
+     */
+    public static ContentDigest of(InputStream in) throws IOException {
+        return of(newMessageDigest(), in);
+    }
+
+    /**
+     * Digests the scope followed by the remainder of the stream.  The stream is not closed.
+     */
+    public static ContentDigest of(String scope, InputStream in) throws IOException {
+        return of(newMessageDigest(scope), in);
+    }
+
+    /**
+     * Digests the scope followed by the content.
+     */
+    public static ContentDigest of(String scope, byte[] content) {
+        MessageDigest digest = newMessageDigest(scope);
+        digest.update(content);
+        return new ContentDigest(digest.digest());
+    }
+
+    private static ContentDigest of(MessageDigest digest, InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            digest.update(buffer, 0, n);
+        }
+        return new ContentDigest(digest.digest());
+    }
+
+    /**
+     * Returns a digest that has already been updated with the scope, so that content read
+     * through a {@link java.security.DigestInputStream} can be digested as it is consumed.
+     */
+    public static MessageDigest newMessageDigest(String scope) {
+        MessageDigest digest = newMessageDigest();
+        digest.update(scope.getBytes(StandardCharsets.UTF_8));
+        //the separator keeps a scope that is a prefix of another from colliding with it
+        digest.update((byte) 0);
+        return digest;
+    }
+
+    public static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return Arrays.equals(this.bytes, ((ContentDigest) obj).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[LENGTH * 2];
+        for (int i = 0; i < LENGTH; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,240 @@
+package com.stl.api.mesh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs external mesh tools such as admesh with bounded concurrency.  At most maxConcurrency
+ * processes run at once and at most queueCapacity further calls wait for a slot; beyond that
+ * calls are rejected immediately with a {@link RejectedExecutionException} so that callers can
+ * shed load rather than queue without limit.  A queueCapacity of zero rejects every call that
+ * finds all slots busy.  Each process is killed if it runs longer than
+ * the timeout, and its merged stdout and stderr are drained while it runs so that a full pipe
+ * can never block it.  Queue depth, wait time and execution time are exported over JMX.
+ */
+@ManagedResource(objectName = "com.stl.api:type=ExternalToolExecutor", description = "External mesh tool processes")
+public class ExternalToolExecutor {
+    private static final int OUTPUT_BUFFER_SIZE = 4096;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService killer;
+    private final long timeoutMillis;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalExecNanos = new AtomicLong();
+    private final AtomicLong maxExecNanos = new AtomicLong();
+
+    public ExternalToolExecutor(int maxConcurrency, int queueCapacity, long timeoutSeconds) {
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Tool queue capacity must not be negative, was " + queueCapacity);
+        }
+        //a synchronous queue holds nothing, so calls are only accepted while a slot is free
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<Runnable>()
+                : new ArrayBlockingQueue<Runnable>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 
+                60L, TimeUnit.SECONDS, queue, new CustomizableThreadFactory("mesh-tool-"));
+        this.executor.allowCoreThreadTimeOut(true);
+        ScheduledThreadPoolExecutor killer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("mesh-tool-timeout-"));
+        killer.setRemoveOnCancelPolicy(true);
+        this.killer = killer;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    /**
+     * Runs the command once a slot is free and returns its output.
+     * 
+     * @throws RejectedExecutionException if every slot is busy and the wait queue is full
+     * @throws IOException if the process could not be started or was killed for running too long
+     */
+    public ToolResult run(String... command) throws IOException {
+        final List<String> commandLine = Arrays.asList(command);
+        final long queuedAt = System.nanoTime();
+        Future<ToolResult> future;
+        try {
+            future = executor.submit(new Callable<ToolResult>() {
+                @Override
+                public ToolResult call() throws IOException, InterruptedException {
+                    long startedAt = System.nanoTime();
+                    record(totalWaitNanos, maxWaitNanos, startedAt - queuedAt);
+                    try {
+                        return exec(commandLine);
+                    } finally {
+                        record(totalExecNanos, maxExecNanos, System.nanoTime() - startedAt);
+                        completed.incrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + commandLine, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to run " + commandLine, e.getCause());
+        }
+    }
+
+    private ToolResult exec(List<String> command) throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        final boolean[] killed = new boolean[1];
+        ScheduledFuture<?> kill = killer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (killed) {
+                    killed[0] = true;
+                }
+                process.destroy();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            //drain before waiting, the output reaches EOF when the process exits or is killed
+            String output = drain(process.getInputStream());
+            int exitCode = process.waitFor();
+            synchronized (killed) {
+                if (killed[0]) {
+                    timedOut.incrementAndGet();
+                    throw new IOException(command + " was killed after running for " + timeoutMillis + "ms");
+                }
+            }
+            return new ToolResult(exitCode, output);
+        } finally {
+            kill.cancel(false);
+            process.destroy();
+        }
+    }
+
+    private static String drain(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        try {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void record(AtomicLong total, AtomicLong max, long nanos) {
+        total.addAndGet(nanos);
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            //retry until the larger value sticks
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        killer.shutdownNow();
+    }
+
+    @ManagedAttribute(description = "Calls waiting for a free slot")
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Processes currently running")
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @ManagedAttribute(description = "Maximum number of concurrent processes")
+    public int getMaxConcurrency() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @ManagedAttribute(description = "Calls that ran to completion or failed")
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    @ManagedAttribute(description = "Calls rejected because the wait queue was full")
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @ManagedAttribute(description = "Processes killed for exceeding the timeout")
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    @ManagedAttribute(description = "Mean time calls waited for a slot, in milliseconds")
+    public double getMeanWaitMillis() {
+        return meanMillis(totalWaitNanos);
+    }
+
+    @ManagedAttribute(description = "Longest time a call waited for a slot, in milliseconds")
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    @ManagedAttribute(description = "Mean process run time, in milliseconds")
+    public double getMeanExecMillis() {
+        return meanMillis(totalExecNanos);
+    }
+
+    @ManagedAttribute(description = "Longest process run time, in milliseconds")
+    public double getMaxExecMillis() {
+        return maxExecNanos.get() / 1e6;
+    }
+
+    private double meanMillis(AtomicLong totalNanos) {
+        long n = completed.get();
+        return n == 0 ? 0.0 : totalNanos.get() / 1e6 / n;
+    }
+
+    /**
+     * The exit code and combined output of a finished process.
+     */
+    public static class ToolResult {
+        private final int exitCode;
+        private final String output;
+
+        public ToolResult(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+    }
+}
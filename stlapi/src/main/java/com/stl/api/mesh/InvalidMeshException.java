@@ -0,0 +1,22 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+
+import com.stl.common.mesh.MeshValidity;
+
+/**
+ * Thrown when a mesh is not a closed, consistently wound manifold, so it cannot be quoted.
+ */
+@SuppressWarnings("serial")
+public class InvalidMeshException extends IOException {
+    private final MeshValidity validity;
+
+    public InvalidMeshException(MeshValidity validity) {
+        super("The mesh is not a closed manifold: " + validity);
+        this.validity = validity;
+    }
+
+    public MeshValidity getValidity() {
+        return validity;
+    }
+}
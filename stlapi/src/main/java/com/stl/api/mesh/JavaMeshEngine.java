@@ -0,0 +1,388 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+import com.stl.common.mesh.BinaryStlParser;
+import com.stl.common.mesh.ConvexHull;
+import com.stl.common.mesh.IndexedMesh;
+import com.stl.common.mesh.IndexedMeshBuilder;
+import com.stl.common.mesh.MappedStlFile;
+import com.stl.common.mesh.MeshAccumulator;
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.MeshSlicer;
+import com.stl.common.mesh.MeshSlices;
+import com.stl.common.mesh.MeshValidator;
+import com.stl.common.mesh.OrientationOptimizer;
+import com.stl.common.mesh.OrientedBox;
+import com.stl.common.mesh.ParallelMeshReduction;
+import com.stl.common.mesh.StlParser;
+import com.stl.common.mesh.TeeSink;
+import com.stl.common.mesh.TriangleBuffer;
+import com.stl.common.mesh.TriangleSink;
+import com.stl.common.mesh.TriangleSource;
+import com.stl.common.mesh.WallThicknessSampler;
+
+/**
+ * Parses the STL data in-process rather than forking admesh for every quote.  Binary and
+ * ASCII files are both supported, see {@link StlParser}.<p/>
+ *
+ * Streamed facets are consumed as they are read, so memory use does not depend on the size
+ * of the upload.  Binary files on disk at or above the mapped threshold are memory mapped
+ * rather than streamed, see {@link MappedStlFile}, and reduced in parallel on the shared
+ * fork-join pool, see {@link ParallelMeshReduction}.  ASCII files above the threshold cannot
+ * be mapped, so their facets are first parsed into a {@link TriangleBuffer} backed by a
+ * scratch file next to them and reduced from there.<p/>
+ *
+ * The overhang area is measured in the main pass.  When validation is enabled the topology
+ * of the mesh is checked too, see {@link MeshValidator}; streamed facets are validated in
+ * the same pass, mapped and spooled files in a sequential pass after the reduction.  The
+ * validator's indexes take about 80 bytes per facet, so at most the configured number of
+ * meshes are validated at once and further analyses wait for one to finish.<p/>
+ *
+ * When the wall thickness budget is not zero the facets are also collected into an
+ * {@link IndexedMesh}, which is validated and sampled for the minimum wall thickness, see
+ * {@link WallThicknessSampler}.  The indexed mesh and its bounding volume hierarchy are on
+ * the heap, so only meshes of at most the configured number of facets are sampled; larger
+ * ones, and streams of unknown size, are validated without being indexed.<p/>
+ *
+ * When the layer height is not zero the mesh is sliced to estimate the length scanned to
+ * build it, see {@link MeshSlicer}.<p/>
+ *
+ * When hulls are enabled the convex hull of the mesh and the oriented box of least volume
+ * around it are computed, see {@link ConvexHull} and {@link OrientedBox}.<p/>
+ *
+ * When the orientation optimizer is enabled the orientation to print the mesh in is
+ * searched for, see {@link OrientationOptimizer}.<p/>
+ *
+ * Streamed facets are collected into an off-heap {@link TriangleBuffer} for the last three
+ * stages.  Meshes that fail validation are rejected without quotes, so every stage after
+ * validation is skipped for them.<p/>
+ *
+ * Analyses of files report their progress across the stages configured, each weighted by
+ * its rough cost relative to reading the file, and check for cancellation between stages
+ * and every few thousand facets within them, see {@link MeshProgress}.
+ */
+public class JavaMeshEngine implements MeshEngine {
+    //Corners closer than this are one hull point when no validation tolerance is configured
+    private static final double DEFAULT_HULL_TOLERANCE = 1e-5;
+    //Rough costs of the stages after the main pass relative to it, timed on a 2M facet sphere
+    private static final double INDEXING_WEIGHT = 2.0;
+    private static final double WALL_WEIGHT = 4.0;
+    private static final double SLICING_WEIGHT = 1.0;
+    private static final double HULL_WEIGHT = 8.0;
+    private static final double ORIENTATION_WEIGHT = 4.0;
+
+    private final long mappedThreshold;
+    private final ForkJoinPool pool;
+    private final boolean validate;
+    private final double tolerance;
+    //null when validations are not limited
+    private final Semaphore validations;
+    private final long wallBudgetMillis;
+    private final long wallMaxFacets;
+    private final double layerHeight;
+    private final double hatchSpacing;
+    private final boolean hull;
+    private final OrientationOptimizer orientationOptimizer;
+
+    public JavaMeshEngine(MeshEngineConfig config, ForkJoinPool pool) {
+        this.mappedThreshold = config.getMappedThreshold();
+        this.pool = pool;
+        this.validate = config.isValidate();
+        this.tolerance = config.getTolerance();
+        this.validations = config.getMaxConcurrentValidations() > 0
+                ? new Semaphore(config.getMaxConcurrentValidations(), true) : null;
+        this.wallBudgetMillis = config.getWallBudgetMillis();
+        this.wallMaxFacets = config.getWallMaxFacets();
+        this.layerHeight = config.getLayerHeight();
+        this.hatchSpacing = config.getHatchSpacing();
+        this.hull = config.isHull();
+        this.orientationOptimizer = config.getOrientationOptimizer();
+    }
+
+    @Override
+    public boolean prefersFile(long size) {
+        return size >= mappedThreshold;
+    }
+
+    /**
+     * The mapped threshold, pool and validation limit only change how a mesh is read, not its
+     * metrics, so they are left out.
+     */
+    @Override
+    public String getFingerprint() {
+        StringBuilder fingerprint = new StringBuilder(MeshEngines.JAVA)
+                .append(";validate=").append(validate)
+                .append(";tolerance=").append(tolerance)
+                .append(";wallBudgetMillis=").append(wallBudgetMillis)
+                .append(";wallMaxFacets=").append(wallMaxFacets)
+                .append(";layerHeight=").append(layerHeight)
+                .append(";hatchSpacing=").append(hatchSpacing)
+                .append(";hull=").append(hull);
+        if (isOptimizingOrientation()) {
+            fingerprint.append(";orientation=").append(orientationOptimizer.getSubdivisions())
+                    .append(',').append(orientationOptimizer.getFootprintWeight())
+                    .append(',').append(orientationOptimizer.getHeightWeight());
+        }
+        return fingerprint.toString();
+    }
+
+    @Override
+    public MeshMetrics analyze(InputStream in, long size) throws IOException {
+        return analyze(in, size, null);
+    }
+
+    /**
+     * @param progress The progress of the analysis, which in is already tracked by, or null
+     */
+    private MeshMetrics analyze(InputStream in, long size, MeshProgress progress) throws IOException {
+        MeshAccumulator accumulator = new MeshAccumulator();
+        TriangleSink sink = accumulator;
+        IndexedMeshBuilder builder = null;
+        MeshValidator validator = null;
+        boolean samplingWalls = size != StlParser.UNKNOWN_SIZE && isSamplingWalls(getExpectedFacets(size));
+        if (null != progress) {
+            //streamed facets are indexed or validated as they are read
+            progress.planStages(getStageWeight(false, samplingWalls));
+        }
+        if (samplingWalls) {
+            builder = new IndexedMeshBuilder(tolerance, getExpectedFacets(size));
+            sink = new TeeSink(sink, builder);
+        } else if (validate) {
+            acquireValidation();
+            validator = new MeshValidator(tolerance, getExpectedFacets(size));
+            sink = new TeeSink(sink, validator);
+        }
+        TriangleBuffer buffer = null;
+        try {
+            buffer = needsSource() ? new TriangleBuffer() : null;
+            StlParser.parse(in, size, null == buffer ? sink : new TeeSink(sink, buffer));
+            MeshMetrics metrics = accumulator.toMetrics();
+            if (null != builder) {
+                metrics = analyze(metrics, builder.build(), progress);
+            } else if (null != validator) {
+                metrics = metrics.withValidity(validator.getValidity());
+                validator = null;
+                releaseValidation();
+            }
+            return null == buffer || isRejected(metrics) ? metrics : analyzeSource(metrics, watch(buffer, progress), progress);
+        } finally {
+            if (null != validator) {
+                releaseValidation();
+            }
+            if (null != buffer) {
+                buffer.close();
+            }
+        }
+    }
+
+    @Override
+    public MeshMetrics analyze(File file, MeshProgress progress) throws IOException {
+        long size = file.length();
+        if (size < mappedThreshold) {
+            try (InputStream in = new FileInputStream(file)) {
+                return analyze(null == progress ? in : progress.track(in), size, progress);
+            }
+        }
+        if (isBinary(file, size)) {
+            try (MappedStlFile mapped = MappedStlFile.open(file)) {
+                if (null != progress) {
+                    progress.planStages(getStageWeight(true, isSamplingWalls(mapped.getFacetCount())));
+                }
+                return analyze(mapped, progress);
+            }
+        }
+        try (TriangleBuffer buffer = new TriangleBuffer(file.getAbsoluteFile().getParentFile());
+                InputStream in = new FileInputStream(file)) {
+            if (null != progress) {
+                //the facet count is not known until the file is parsed, the binary one bounds it
+                progress.planStages(getStageWeight(true, isSamplingWalls(getExpectedFacets(size))));
+            }
+            //progress is measured in bytes of the file, so parsing alone completes the main pass
+            StlParser.parse(null == progress ? in : progress.track(in), size, buffer);
+            return analyze(buffer, progress);
+        }
+    }
+
+    @Override
+    public MeshMetrics analyze(TriangleSource source) {
+        return analyze(source, null);
+    }
+
+    private MeshMetrics analyze(TriangleSource source, MeshProgress progress) {
+        MeshMetrics metrics = ParallelMeshReduction.reduce(source, pool, progress).toMetrics();
+        boolean samplingWalls = isSamplingWalls(source.getFacetCount());
+        if (!validate && !samplingWalls && !needsSource()) {
+            return metrics;
+        }
+        source = watch(source, progress);
+        if (samplingWalls) {
+            IndexedMeshBuilder builder = new IndexedMeshBuilder(tolerance, source.getFacetCount());
+            source.forEach(0, source.getFacetCount(), builder);
+            completeStage(progress, INDEXING_WEIGHT);
+            metrics = analyze(metrics, builder.build(), progress);
+        } else if (validate) {
+            acquireValidation();
+            try {
+                MeshValidator validator = new MeshValidator(tolerance, source.getFacetCount());
+                source.forEach(0, source.getFacetCount(), validator);
+                metrics = metrics.withValidity(validator.getValidity());
+            } finally {
+                releaseValidation();
+            }
+            completeStage(progress, INDEXING_WEIGHT);
+        }
+        return isRejected(metrics) ? metrics : analyzeSource(metrics, source, progress);
+    }
+
+    /**
+     * Waits until another mesh may be validated, see {@link MeshEngineConfig#getMaxConcurrentValidations}.
+     *
+     * @throws CancellationException if the thread is interrupted while waiting
+     */
+    private void acquireValidation() {
+        if (null != validations) {
+            try {
+                validations.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted waiting to validate the mesh");
+            }
+        }
+    }
+
+    private void releaseValidation() {
+        if (null != validations) {
+            validations.release();
+        }
+    }
+
+    /**
+     * Returns the weight of the stages run after the main pass, see {@link MeshProgress#planStages}.
+     *
+     * @param indexedAfter Whether facets are validated or indexed in a pass of their own
+     */
+    private double getStageWeight(boolean indexedAfter, boolean samplingWalls) {
+        double weight = 0.0;
+        if (indexedAfter && (validate || samplingWalls)) {
+            weight += INDEXING_WEIGHT;
+        }
+        if (samplingWalls) {
+            weight += WALL_WEIGHT;
+        }
+        if (layerHeight > 0) {
+            weight += SLICING_WEIGHT;
+        }
+        if (hull || isOptimizingOrientation()) {
+            weight += HULL_WEIGHT;
+        }
+        if (isOptimizingOrientation()) {
+            weight += ORIENTATION_WEIGHT;
+        }
+        return weight;
+    }
+
+    /**
+     * Returns whether the wall thickness of a mesh of the given number of facets is sampled.
+     */
+    private boolean isSamplingWalls(long facets) {
+        return wallBudgetMillis > 0 && facets <= wallMaxFacets;
+    }
+
+    /**
+     * Returns whether any metric is computed from the facets after the main pass.
+     */
+    private boolean needsSource() {
+        return layerHeight > 0 || hull || isOptimizingOrientation();
+    }
+
+    private boolean isOptimizingOrientation() {
+        return null != orientationOptimizer && orientationOptimizer.isEnabled();
+    }
+
+    /**
+     * Slices the facets, computes their hull and searches for their orientation, as configured.
+     */
+    private MeshMetrics analyzeSource(MeshMetrics metrics, TriangleSource source, MeshProgress progress) {
+        if (layerHeight > 0) {
+            MeshSlices slices = MeshSlicer.slice(source, layerHeight, pool);
+            metrics = metrics.withSlices(slices.getLayerCount(), slices.getScanLength(hatchSpacing));
+            completeStage(progress, SLICING_WEIGHT);
+        }
+        if (hull || isOptimizingOrientation()) {
+            //the vertex tolerance doubles as the hull's, corners closer than it are one point
+            ConvexHull convexHull = ConvexHull.of(source, tolerance > 0 ? tolerance : DEFAULT_HULL_TOLERANCE, pool);
+            if (null != convexHull && hull) {
+                OrientedBox box = OrientedBox.fit(convexHull, pool);
+                //a hull of too many corners is approximate, the box must still hold the mesh
+                metrics = metrics.withHull(convexHull.getVolume(), convexHull.getSlack() > 0 ? box.enclose(source) : box);
+            }
+            completeStage(progress, HULL_WEIGHT);
+            if (null != convexHull && isOptimizingOrientation()) {
+                metrics = metrics.withBuildOrientation(orientationOptimizer.optimize(source, convexHull, pool));
+            }
+            completeStage(progress, isOptimizingOrientation() ? ORIENTATION_WEIGHT : 0.0);
+        }
+        return metrics;
+    }
+
+    /**
+     * Validates the indexed mesh if validation is enabled and samples its wall thickness.
+     */
+    private MeshMetrics analyze(MeshMetrics metrics, IndexedMesh mesh, MeshProgress progress) {
+        if (validate) {
+            metrics = metrics.withValidity(MeshValidator.validate(mesh));
+        }
+        if (isRejected(metrics)) {
+            return metrics;
+        }
+        metrics = metrics.withMinWallThickness(WallThicknessSampler.sample(mesh, pool, wallBudgetMillis));
+        completeStage(progress, WALL_WEIGHT);
+        return metrics;
+    }
+
+    private static TriangleSource watch(TriangleSource source, MeshProgress progress) {
+        return null == progress ? source : progress.watch(source);
+    }
+
+    private static void completeStage(MeshProgress progress, double weight) {
+        if (null != progress) {
+            progress.completeStage(weight);
+        }
+    }
+
+    /**
+     * Returns whether the mesh failed validation, in which case it is not quoted and the
+     * later stages are skipped.
+     */
+    private static boolean isRejected(MeshMetrics metrics) {
+        return null != metrics.getValidity() && !metrics.getValidity().isValid();
+    }
+
+    /**
+     * Returns the facet count of a binary file of the given size, which sizes the validation
+     * indexes; an ASCII file of the same size has far fewer facets, so this is an upper bound.
+     */
+    private static long getExpectedFacets(long size) {
+        return size == StlParser.UNKNOWN_SIZE ? 0 : Math.max(0, (size - BinaryStlParser.PREAMBLE_SIZE) / BinaryStlParser.RECORD_SIZE);
+    }
+
+    private static boolean isBinary(File file, long size) throws IOException {
+        byte[] preamble = new byte[BinaryStlParser.PREAMBLE_SIZE];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while (length < preamble.length && (n = in.read(preamble, length, preamble.length - length)) >= 0) {
+                length += n;
+            }
+        }
+        return !StlParser.isAscii(preamble, length, size);
+    }
+}
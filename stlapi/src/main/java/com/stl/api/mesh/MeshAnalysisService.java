@@ -0,0 +1,308 @@
+package com.stl.api.mesh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stl.common.mesh.BuildOrientation;
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.MeshValidity;
+import com.stl.common.mesh.OrientedBox;
+import com.stl.common.mesh.TriangleSource;
+import com.stl.common.models.BoundingBox;
+import com.stl.common.models.ModelQuote;
+import com.stl.common.models.OrientedBoundingBox;
+import com.stl.common.models.Point3d;
+import com.stl.common.models.PrintOrientation;
+
+/**
+ * Produces quotes for uploaded meshes.  Each upload is first digested so that repeat 
+ * uploads of the same part are answered from the in-heap {@link MeshMetricsCache} or, after
+ * a restart, the on-disk {@link MeshMetricsStore}.  The digest is scoped to the engine's
+ * fingerprint, so switching engines or changing their settings never serves results
+ * computed under the old configuration, and results of both engines can be kept side by
+ * side.  Uploads not found are run through the
+ * configured {@link MeshEngine}, which either streams the upload or is
+ * handed a file on disk.  When a file is preferred the upload is moved out of the
+ * container's multipart temp storage with {@link MultipartFile#transferTo}, which is a
+ * rename for parts already spooled to disk.<p/>
+ *
+ * Streamed uploads and archive entries are read only once: they are digested as they are
+ * buffered in memory, or as they are copied to a temp file when larger than
+ * {@link #BUFFER_LIMIT}, and a cache miss is analyzed from that copy rather than by reading
+ * the upload, or inflating the entry, a second time.
+ */
+public class MeshAnalysisService {
+    //admesh prints the volume with printf's default %f precision, the other metrics follow suit
+    private static final int VOLUME_SCALE = 6;
+    //largest streamed upload held in memory between the digest and the analysis
+    static final int BUFFER_LIMIT = 16 * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final MeshEngine meshEngine;
+    private final MeshMetricsCache cache;
+    private final MeshMetricsStore store;
+    private final String fingerprint;
+
+    public MeshAnalysisService(MeshEngine meshEngine, MeshMetricsCache cache, MeshMetricsStore store) {
+        this.meshEngine = meshEngine;
+        this.cache = cache;
+        this.store = store;
+        this.fingerprint = meshEngine.getFingerprint();
+    }
+
+    /**
+     * @throws InvalidMeshException if the mesh was validated and is not a closed manifold
+     */
+    public ModelQuote quote(MultipartFile upload) throws IOException {
+        return toValidQuote(analyze(upload));
+    }
+
+    /**
+     * Quotes an STL file on disk, see {@link #analyze(File, MeshProgress)}.
+     *
+     * @throws InvalidMeshException if the mesh was validated and is not a closed manifold
+     */
+    public ModelQuote quote(File file, MeshProgress progress) throws IOException {
+        return toValidQuote(analyze(file, progress));
+    }
+
+    /**
+     * Quotes an STL entry of an archive, see {@link #analyze(ZipFile, ZipEntry)}.
+     *
+     * @throws InvalidMeshException if the mesh was validated and is not a closed manifold
+     */
+    public ModelQuote quote(ZipFile archive, ZipEntry entry) throws IOException {
+        return toValidQuote(analyze(archive, entry));
+    }
+
+    /**
+     * Quotes facets that are not read from an upload of their own, such as the parts of a 3MF
+     * model, see {@link MeshEngine#analyze(TriangleSource)}.  They are not cached, since there
+     * is no upload to digest.
+     *
+     * @throws InvalidMeshException if the mesh was validated and is not a closed manifold
+     */
+    public ModelQuote quote(TriangleSource source) throws IOException {
+        return toValidQuote(meshEngine.analyze(source));
+    }
+
+    public MeshMetrics analyze(MultipartFile upload) throws IOException {
+        long size = upload.getSize();
+        if (meshEngine.prefersFile(size)) {
+            File temp = File.createTempFile("upload", ".stl");
+            try {
+                upload.transferTo(temp);
+                return analyze(temp, null);
+            } finally {
+                temp.delete();
+            }
+        }
+        if (size <= BUFFER_LIMIT) {
+            return analyze(upload.getBytes());
+        }
+        try (InputStream in = upload.getInputStream()) {
+            return analyzeSpooled(in);
+        }
+    }
+
+    /**
+     * Analyzes an STL file on disk, reporting to progress (which may be null) as it is processed.
+     */
+    public MeshMetrics analyze(File file, MeshProgress progress) throws IOException {
+        ContentDigest digest;
+        try (InputStream in = new FileInputStream(file)) {
+            digest = ContentDigest.of(fingerprint, in);
+        }
+        MeshMetrics metrics = getCached(digest);
+        if (null == metrics) {
+            metrics = meshEngine.analyze(file, progress);
+            putCached(digest, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Analyzes an STL entry of an archive, which is inflated once whether or not its results
+     * are cached.
+     */
+    public MeshMetrics analyze(ZipFile archive, ZipEntry entry) throws IOException {
+        long size = entry.getSize();
+        try (InputStream in = archive.getInputStream(entry)) {
+            if (size >= 0 && size <= BUFFER_LIMIT && !meshEngine.prefersFile(size)) {
+                return analyze(readFully(in, (int) size));
+            }
+            return analyzeSpooled(in);
+        }
+    }
+
+    private MeshMetrics analyze(byte[] content) throws IOException {
+        ContentDigest digest = ContentDigest.of(fingerprint, content);
+        MeshMetrics metrics = getCached(digest);
+        if (null == metrics) {
+            metrics = meshEngine.analyze(new ByteArrayInputStream(content), content.length);
+            putCached(digest, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Copies the stream to a temp file, digesting it on the way, and analyzes the copy if the
+     * digest is not cached.
+     */
+    private MeshMetrics analyzeSpooled(InputStream in) throws IOException {
+        File temp = File.createTempFile("upload", ".stl");
+        try {
+            DigestInputStream digesting = new DigestInputStream(in, ContentDigest.newMessageDigest(fingerprint));
+            try (OutputStream out = new FileOutputStream(temp)) {
+                copy(digesting, out);
+            }
+            ContentDigest digest = new ContentDigest(digesting.getMessageDigest().digest());
+            MeshMetrics metrics = getCached(digest);
+            if (null == metrics) {
+                metrics = meshEngine.analyze(temp, null);
+                putCached(digest, metrics);
+            }
+            return metrics;
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Reads an entry of the given size, failing if it inflates to more than the archive claims.
+     */
+    private static byte[] readFully(InputStream in, int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            if (out.size() + n > size) {
+                throw new IOException("Archive entry is larger than its recorded size of " + size + " bytes");
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+    }
+
+    private MeshMetrics getCached(ContentDigest digest) throws IOException {
+        MeshMetrics metrics = cache.get(digest);
+        if (null == metrics) {
+            metrics = store.get(digest);
+            if (null != metrics) {
+                cache.put(digest, metrics);
+            }
+        }
+        return metrics;
+    }
+
+    private void putCached(ContentDigest digest, MeshMetrics metrics) throws IOException {
+        store.put(digest, metrics);
+        cache.put(digest, metrics);
+    }
+
+    private static ModelQuote toValidQuote(MeshMetrics metrics) throws InvalidMeshException {
+        MeshValidity validity = metrics.getValidity();
+        if (null != validity && !validity.isValid()) {
+            throw new InvalidMeshException(validity);
+        }
+        return toQuote(metrics);
+    }
+
+    /**
+     * Builds the quote for the metrics.  Metrics the engine did not compute, which are NaN or
+     * infinite, are left null.
+     */
+    public static ModelQuote toQuote(MeshMetrics metrics) {
+        ModelQuote quote = new ModelQuote(round(metrics.getVolume()));
+        quote.setSurfaceArea(round(metrics.getSurfaceArea()));
+        quote.setTriangleCount(metrics.getTriangleCount());
+        Point3d min = toPoint(metrics.getMinX(), metrics.getMinY(), metrics.getMinZ());
+        Point3d max = toPoint(metrics.getMaxX(), metrics.getMaxY(), metrics.getMaxZ());
+        if (null != min && null != max) {
+            quote.setBoundingBox(new BoundingBox(min, max));
+        }
+        quote.setCentroid(toPoint(metrics.getCentroidX(), metrics.getCentroidY(), metrics.getCentroidZ()));
+        quote.setOverhangArea(round(metrics.getOverhangArea()));
+        quote.setMinWallThickness(round(metrics.getMinWallThickness()));
+        if (metrics.getLayerCount() > 0) {
+            quote.setLayerCount(metrics.getLayerCount());
+            quote.setScanLength(round(metrics.getScanLength()));
+        }
+        quote.setHullVolume(round(metrics.getHullVolume()));
+        quote.setOrientedBoundingBox(toBox(metrics.getOrientedBox()));
+        quote.setOrientation(toOrientation(metrics.getBuildOrientation()));
+        return quote;
+    }
+
+    private static PrintOrientation toOrientation(BuildOrientation orientation) {
+        if (null == orientation) {
+            return null;
+        }
+        PrintOrientation result = new PrintOrientation();
+        result.setDirection(toPoint(orientation.getDirection(0), orientation.getDirection(1), orientation.getDirection(2)));
+        result.setRotationAxis(toPoint(orientation.getRotationAxis(0), orientation.getRotationAxis(1), 
+                orientation.getRotationAxis(2)));
+        result.setRotationAngle(round(orientation.getRotationAngle()));
+        result.setOverhangArea(round(orientation.getOverhangArea()));
+        result.setFootprintArea(round(orientation.getFootprintArea()));
+        result.setHeight(round(orientation.getHeight()));
+        return result;
+    }
+
+    private static OrientedBoundingBox toBox(OrientedBox box) {
+        if (null == box) {
+            return null;
+        }
+        OrientedBoundingBox result = new OrientedBoundingBox();
+        result.setCenter(toPoint(box.getCenter(0), box.getCenter(1), box.getCenter(2)));
+        List<Point3d> axes = new ArrayList<>();
+        List<Double> extents = new ArrayList<>();
+        for (int axis = 0; axis < 3; axis++) {
+            axes.add(toPoint(box.getAxis(axis, 0), box.getAxis(axis, 1), box.getAxis(axis, 2)));
+            extents.add(round(box.getExtent(axis)));
+        }
+        result.setAxes(axes);
+        result.setExtents(extents);
+        result.setVolume(round(box.getVolume()));
+        return result;
+    }
+
+    private static Point3d toPoint(double x, double y, double z) {
+        Double roundedX = round(x), roundedY = round(y), roundedZ = round(z);
+        if (null == roundedX || null == roundedY || null == roundedZ) {
+            return null;
+        }
+        return new Point3d(roundedX, roundedY, roundedZ);
+    }
+
+    static Double round(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+        return BigDecimal.valueOf(value).setScale(VOLUME_SCALE, RoundingMode.HALF_UP).doubleValue();
+    }
+}
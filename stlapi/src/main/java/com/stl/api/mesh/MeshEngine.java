@@ -0,0 +1,47 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.TriangleSource;
+
+/**
+ * Computes the geometry of an uploaded STL file.  Implementations are selected by the
+ * mesh.engine property in api.properties, see {@link MeshEngines}.
+ */
+public interface MeshEngine {
+
+    /**
+     * Analyzes the STL data read from the stream.  The size of the data in bytes may be 
+     * {@link com.stl.common.mesh.StlParser#UNKNOWN_SIZE}.  The stream is not closed.
+     */
+    public MeshMetrics analyze(InputStream in, long size) throws IOException;
+
+    /**
+     * Analyzes the STL file, reporting to progress (which may be null) as the file is processed.
+     * 
+     * @throws java.util.concurrent.CancellationException if progress is cancelled part way through
+     */
+    public MeshMetrics analyze(File file, MeshProgress progress) throws IOException;
+
+    /**
+     * Analyzes facets that are not read from STL, such as the parts of a 3MF model or a
+     * repaired mesh, with the same stages as an upload.
+     */
+    public MeshMetrics analyze(TriangleSource source) throws IOException;
+
+    /**
+     * Returns true if an upload of the given size is better analyzed from a file on disk than
+     * streamed, in which case callers should prefer {@link #analyze(File, MeshProgress)}.
+     */
+    public boolean prefersFile(long size);
+
+    /**
+     * Returns a string naming the engine and every setting that changes its results, so that
+     * results cached under one configuration are never served under another.
+     */
+    public String getFingerprint();
+}
@@ -0,0 +1,144 @@
+package com.stl.api.mesh;
+
+import com.stl.common.mesh.OrientationOptimizer;
+
+/**
+ * The mesh.* settings a {@link MeshEngine} is built from, see {@link MeshEngines}.  Every
+ * optional stage is off by default, so a new configuration only computes the metrics of
+ * the main pass.
+ */
+public class MeshEngineConfig {
+    private String engine = MeshEngines.JAVA;
+    private long mappedThreshold = Long.MAX_VALUE;
+    private boolean validate;
+    private double tolerance;
+    private int maxConcurrentValidations;
+    private long wallBudgetMillis;
+    private long wallMaxFacets = Long.MAX_VALUE;
+    private double layerHeight;
+    private double hatchSpacing;
+    private boolean hull;
+    private OrientationOptimizer orientationOptimizer;
+
+    /**
+     * Returns the engine name, "admesh" or "java".
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the size in bytes at or above which the java engine memory maps binary files.
+     */
+    public long getMappedThreshold() {
+        return mappedThreshold;
+    }
+
+    public void setMappedThreshold(long mappedThreshold) {
+        this.mappedThreshold = mappedThreshold;
+    }
+
+    /**
+     * Returns whether the java engine checks that meshes are closed manifolds.
+     */
+    public boolean isValidate() {
+        return validate;
+    }
+
+    public void setValidate(boolean validate) {
+        this.validate = validate;
+    }
+
+    /**
+     * Returns the distance below which the java engine considers corners the same vertex.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Returns how many meshes the java engine validates at once without indexing them, 0 for
+     * no limit.
+     */
+    public int getMaxConcurrentValidations() {
+        return maxConcurrentValidations;
+    }
+
+    public void setMaxConcurrentValidations(int maxConcurrentValidations) {
+        this.maxConcurrentValidations = maxConcurrentValidations;
+    }
+
+    /**
+     * Returns how long the java engine spends sampling wall thickness, 0 to skip it.
+     */
+    public long getWallBudgetMillis() {
+        return wallBudgetMillis;
+    }
+
+    public void setWallBudgetMillis(long wallBudgetMillis) {
+        this.wallBudgetMillis = wallBudgetMillis;
+    }
+
+    /**
+     * Returns the most facets a mesh may have for the java engine to sample its wall thickness.
+     */
+    public long getWallMaxFacets() {
+        return wallMaxFacets;
+    }
+
+    public void setWallMaxFacets(long wallMaxFacets) {
+        this.wallMaxFacets = wallMaxFacets;
+    }
+
+    /**
+     * Returns the height of the layers the java engine slices meshes into, 0 to skip slicing.
+     */
+    public double getLayerHeight() {
+        return layerHeight;
+    }
+
+    public void setLayerHeight(double layerHeight) {
+        this.layerHeight = layerHeight;
+    }
+
+    /**
+     * Returns the distance between the hatch lines the java engine fills layers with.
+     */
+    public double getHatchSpacing() {
+        return hatchSpacing;
+    }
+
+    public void setHatchSpacing(double hatchSpacing) {
+        this.hatchSpacing = hatchSpacing;
+    }
+
+    /**
+     * Returns whether the java engine computes the convex hull and oriented bounding box.
+     */
+    public boolean isHull() {
+        return hull;
+    }
+
+    public void setHull(boolean hull) {
+        this.hull = hull;
+    }
+
+    /**
+     * Returns the search for the orientation the java engine prints meshes in, null to skip it.
+     */
+    public OrientationOptimizer getOrientationOptimizer() {
+        return orientationOptimizer;
+    }
+
+    public void setOrientationOptimizer(OrientationOptimizer orientationOptimizer) {
+        this.orientationOptimizer = orientationOptimizer;
+    }
+}
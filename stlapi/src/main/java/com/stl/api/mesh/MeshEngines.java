@@ -0,0 +1,28 @@
+package com.stl.api.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Resolves the mesh.engine configuration switch to a {@link MeshEngine}.  Both engines
+ * can be deployed side by side so their results can be compared in production.
+ */
+public class MeshEngines {
+    public static final String ADMESH = "admesh";
+    public static final String JAVA = "java";
+
+    /**
+     * @param config The engine name and the settings of the java engine
+     * @param pool The pool the java engine reduces large meshes on
+     * @param toolExecutor The executor the admesh engine runs admesh processes on
+     */
+    public static MeshEngine forConfig(MeshEngineConfig config, ForkJoinPool pool, ExternalToolExecutor toolExecutor) {
+        String name = config.getEngine();
+        if(ADMESH.equalsIgnoreCase(name)) {
+            return new AdmeshMeshEngine(toolExecutor);
+        } else if(JAVA.equalsIgnoreCase(name)) {
+            return new JavaMeshEngine(config, pool);
+        }
+        throw new IllegalArgumentException("Unsupported mesh.engine \"" + name
+                + "\", supported engines are \"" + ADMESH + "\" and \"" + JAVA + "\"");
+    }
+}
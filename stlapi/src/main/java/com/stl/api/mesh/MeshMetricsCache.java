@@ -0,0 +1,150 @@
+package com.stl.api.mesh;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.stl.common.mesh.MeshMetrics;
+
+/**
+ * Bounded in-heap cache of mesh analysis results keyed by the {@link ContentDigest} of the
+ * uploaded file.  The least recently used entry is evicted once the cache is full and
+ * entries expire a fixed time after they were stored.  A maximum size of zero disables
+ * caching.  Hit, miss and eviction counts are exported over JMX.
+ */
+@ManagedResource(objectName = "com.stl.api:type=MeshMetricsCache", description = "Mesh analysis results keyed by upload content")
+public class MeshMetricsCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<ContentDigest, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public MeshMetricsCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        //access ordered, so iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<ContentDigest, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached metrics for the digest, or null if there are none or they have expired.
+     */
+    public MeshMetrics get(ContentDigest digest) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(digest);
+            if (null != entry && isExpired(entry, System.nanoTime())) {
+                entries.remove(digest);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (null == entry) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.metrics;
+    }
+
+    public void put(ContentDigest digest, MeshMetrics metrics) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(digest, new Entry(metrics, now));
+            if (entries.size() > maxEntries) {
+                evictOne(now);
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used entry, counting it as an expiration if it had outlived the TTL.
+     */
+    private void evictOne(long now) {
+        Iterator<Map.Entry<ContentDigest, Entry>> it = entries.entrySet().iterator();
+        Map.Entry<ContentDigest, Entry> eldest = it.next();
+        it.remove();
+        if (isExpired(eldest.getValue(), now)) {
+            expirations.incrementAndGet();
+        } else {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.storedAt > ttlNanos;
+    }
+
+    @ManagedOperation(description = "Removes every cached entry")
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of cached entries")
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute(description = "Maximum number of cached entries")
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @ManagedAttribute(description = "Seconds an entry is kept after it is stored")
+    public long getTtlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    @ManagedAttribute(description = "Lookups answered from the cache")
+    public long getHits() {
+        return hits.get();
+    }
+
+    @ManagedAttribute(description = "Lookups that had to analyze the mesh")
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @ManagedAttribute(description = "Fraction of lookups answered from the cache")
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @ManagedAttribute(description = "Entries removed to make room for newer entries")
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute(description = "Entries removed because they outlived the TTL")
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    private static class Entry {
+        private final MeshMetrics metrics;
+        private final long storedAt;
+
+        Entry(MeshMetrics metrics, long storedAt) {
+            this.metrics = metrics;
+            this.storedAt = storedAt;
+        }
+    }
+}
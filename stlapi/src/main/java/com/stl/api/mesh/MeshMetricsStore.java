@@ -0,0 +1,552 @@
+package com.stl.api.mesh;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.stl.common.mesh.BuildOrientation;
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshValidity;
+import com.stl.common.mesh.OrientedBox;
+
+/**
+ * Persists mesh analysis results on local disk, keyed by {@link ContentDigest}, so that a
+ * node answers repeat uploads without re-parsing even after a restart or redeploy.  Keys
+ * are scoped to the fingerprint of the engine that produced them, see
+ * {@link MeshEngine#getFingerprint()}, so results survive a restart only while the engine
+ * configuration is unchanged; those of other configurations are simply never looked up.<p/>
+ *
+ * Results are appended to a log of fixed size records, each carrying a CRC32 so that a
+ * record torn by a crash is detected and truncated away the next time the store is opened.
+ * The log is indexed by an open addressing hash table in a second file which is memory
+ * mapped on startup rather than read in; only log records written after the index was last
+ * updated are scanned.  The index is rebuilt from the log if it is missing, corrupt or
+ * full, and {@link #compact()} rewrites the log without superseded records.<p/>
+ *
+ * Both files are replaced wholesale when the record layout changes, since everything in
+ * the store can be recomputed.  An empty directory path disables the store.
+ */
+@ManagedResource(objectName = "com.stl.api:type=MeshMetricsStore", description = "Mesh analysis results persisted on local disk")
+public class MeshMetricsStore implements Closeable {
+    private static final String LOG_FILE = "metrics.log";
+    private static final String INDEX_FILE = "metrics.idx";
+    private static final int MAGIC = 0x53544C4D;
+    //Bump whenever the record layout changes, existing stores are then discarded
+    private static final int VERSION = 7;
+
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int PAYLOAD_SIZE = 8 + 8 + 8 + 6 * 4 + 3 * 8 + 2 * 8 + 4 + 8 + 4 + 4 * 8 + 8 + 15 * 8 + 6 * 8;
+    private static final int FLAG_VALIDATED = 1;
+    private static final int RECORD_SIZE = ContentDigest.LENGTH + PAYLOAD_SIZE + 4;
+
+    //magic, version, slot count, live entries, superseded records, indexed log length
+    private static final int INDEX_HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8;
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_SLOTS = 1024;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final double MAX_LOAD = 0.7;
+
+    private final File directory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RandomAccessFile log;
+    private FileChannel logChannel;
+    private FileLock directoryLock;
+    private long logLength;
+    private RandomAccessFile indexFile;
+    private MappedByteBuffer index;
+    private int slots;
+    private int liveEntries;
+    private long supersededRecords;
+
+    public MeshMetricsStore(String directory) {
+        this.directory = null == directory || directory.trim().isEmpty() ? null : new File(directory.trim());
+    }
+
+    /**
+     * Opens the store, recovering from any torn writes left by a crash.
+     */
+    public void open() throws IOException {
+        if (null == directory) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create mesh store directory " + directory);
+            }
+            openLog();
+            //left behind by a compaction interrupted before its rename
+            new File(directory, LOG_FILE + ".compact").delete();
+            if (!openIndex()) {
+                rebuildIndex(MIN_SLOTS);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return null != log;
+    }
+
+    /**
+     * Returns the stored metrics for the digest, or null if there are none.
+     */
+    public MeshMetrics get(ContentDigest digest) throws IOException {
+        byte[] key = digest.getBytes();
+        lock.readLock().lock();
+        try {
+            if (!isEnabled()) {
+                return null;
+            }
+            long offset = index.getLong(INDEX_HEADER_SIZE + find(key) * SLOT_SIZE + 8);
+            if (offset == 0) {
+                return null;
+            }
+            ByteBuffer record = readRecord(offset);
+            if (null == record || !hasKey(record, key)) {
+                return null;
+            }
+            return readPayload(record);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(ContentDigest digest, MeshMetrics metrics) throws IOException {
+        byte[] key = digest.getBytes();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.put(key);
+        writePayload(record, metrics);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, RECORD_SIZE - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        lock.writeLock().lock();
+        try {
+            if (!isEnabled() || (liveEntries >= slots - 1 && index.getLong(INDEX_HEADER_SIZE + find(key) * SLOT_SIZE + 8) == 0)) {
+                //closed, or the index is at its maximum size and full, see index()
+                return;
+            }
+            long offset = logLength;
+            writeFully(logChannel, record, offset);
+            logLength += RECORD_SIZE;
+            index(key, offset);
+            index.putLong(INDEX_HEADER_SIZE - 8, logLength);
+            if (liveEntries > slots * MAX_LOAD && slots < MAX_SLOTS) {
+                rebuildIndex(slots * 2);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log keeping only the latest record for each digest, then rebuilds the index.
+     * The new log is written beside the old one and renamed over it once it is on disk.  If
+     * the copy cannot be written or renamed it is deleted and the store carries on with the
+     * old log and index.
+     */
+    @ManagedOperation(description = "Rewrites the store without superseded records")
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!isEnabled()) {
+                return;
+            }
+            compactLog();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactLog() throws IOException {
+        File compacted = new File(directory, LOG_FILE + ".compact");
+        try {
+            try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+                out.setLength(0);
+                FileChannel outChannel = out.getChannel();
+                writeFully(outChannel, newLogHeader(), 0);
+                long outLength = LOG_HEADER_SIZE;
+                for (int slot = 0; slot < slots; slot++) {
+                    long offset = index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8);
+                    if (offset == 0) {
+                        continue;
+                    }
+                    ByteBuffer record = readRecord(offset);
+                    if (null != record) {
+                        record.rewind();
+                        writeFully(outChannel, record, outLength);
+                        outLength += RECORD_SIZE;
+                    }
+                }
+                outChannel.force(true);
+            }
+            index.force();
+            closeFiles();
+            boolean renamed = compacted.renameTo(new File(directory, LOG_FILE));
+            //either the compacted log or, if it could not be moved into place, the old one
+            openLog();
+            if (!renamed) {
+                if (!openIndex()) {
+                    rebuildIndex(MIN_SLOTS);
+                }
+                throw new IOException("Unable to replace " + LOG_FILE + " with its compacted copy");
+            }
+            rebuildIndex(slots);
+        } finally {
+            //gone after a successful rename, otherwise a partial or unused copy
+            compacted.delete();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (isEnabled()) {
+                index.force();
+                logChannel.force(true);
+                closeFiles();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of stored results")
+    public int getEntries() {
+        return liveEntries;
+    }
+
+    @ManagedAttribute(description = "Records in the log that a later record for the same content replaced")
+    public long getSupersededRecords() {
+        return supersededRecords;
+    }
+
+    @ManagedAttribute(description = "Size of the log in bytes")
+    public long getLogLength() {
+        return logLength;
+    }
+
+    private void openLog() throws IOException {
+        log = new RandomAccessFile(new File(directory, LOG_FILE), "rw");
+        logChannel = log.getChannel();
+        try {
+            directoryLock = logChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            directoryLock = null;
+        }
+        if (null == directoryLock) {
+            log.close();
+            log = null;
+            throw new IOException("Mesh store " + directory + " is in use by another process");
+        }
+        logLength = logChannel.size();
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        if (logLength < LOG_HEADER_SIZE || readFully(logChannel, header, 0) < LOG_HEADER_SIZE
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            //new store, or one written with a different record layout
+            logChannel.truncate(0);
+            writeFully(logChannel, newLogHeader(), 0);
+            logLength = LOG_HEADER_SIZE;
+        }
+        //a partial record at the tail was torn by a crash
+        long whole = LOG_HEADER_SIZE + (logLength - LOG_HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        if (whole != logLength) {
+            logChannel.truncate(whole);
+            logLength = whole;
+        }
+    }
+
+    /**
+     * Maps the existing index and indexes any records appended after it was last updated.
+     * Returns false if the index is unusable and must be rebuilt.
+     */
+    private boolean openIndex() throws IOException {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.isFile() || file.length() < INDEX_HEADER_SIZE) {
+            return false;
+        }
+        mapIndex(file, -1);
+        long indexedLength = index.getLong(INDEX_HEADER_SIZE - 8);
+        if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION || slots < MIN_SLOTS
+                || file.length() != INDEX_HEADER_SIZE + (long) slots * SLOT_SIZE
+                || indexedLength < LOG_HEADER_SIZE || indexedLength > logLength) {
+            closeIndex();
+            return false;
+        }
+        liveEntries = index.getInt(12);
+        supersededRecords = index.getLong(16);
+        indexTail(indexedLength);
+        return true;
+    }
+
+    /**
+     * Writes a fresh index of the given size covering the whole log, replacing the current one.
+     */
+    private void rebuildIndex(int slotCount) throws IOException {
+        long records = (logLength - LOG_HEADER_SIZE) / RECORD_SIZE;
+        while (slotCount < MAX_SLOTS && slotCount * MAX_LOAD < records) {
+            slotCount *= 2;
+        }
+        closeIndex();
+        File file = new File(directory, INDEX_FILE);
+        File rebuilt = new File(directory, INDEX_FILE + ".rebuild");
+        rebuilt.delete();
+        mapIndex(rebuilt, slotCount);
+        liveEntries = 0;
+        supersededRecords = 0;
+        indexTail(LOG_HEADER_SIZE);
+        index.force();
+        closeIndex();
+        if (!rebuilt.renameTo(file)) {
+            throw new IOException("Unable to replace " + INDEX_FILE + " with its rebuilt copy");
+        }
+        mapIndex(file, -1);
+    }
+
+    /**
+     * Indexes the records from the given log offset to the end of the log, truncating the
+     * log at the first record whose checksum does not match.
+     */
+    private void indexTail(long from) throws IOException {
+        long offset = from;
+        while (offset < logLength) {
+            ByteBuffer record = readRecord(offset);
+            if (null == record) {
+                logChannel.truncate(offset);
+                logLength = offset;
+                break;
+            }
+            byte[] key = new byte[ContentDigest.LENGTH];
+            record.position(0);
+            record.get(key);
+            index(key, offset);
+            offset += RECORD_SIZE;
+        }
+        index.putLong(INDEX_HEADER_SIZE - 8, logLength);
+    }
+
+    /**
+     * Maps the index file, creating it with slotCount empty slots if slotCount is positive.
+     */
+    private void mapIndex(File file, int slotCount) throws IOException {
+        indexFile = new RandomAccessFile(file, "rw");
+        if (slotCount > 0) {
+            indexFile.setLength(0);
+            indexFile.setLength(INDEX_HEADER_SIZE + (long) slotCount * SLOT_SIZE);
+        }
+        index = indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, indexFile.length());
+        if (slotCount > 0) {
+            index.putInt(0, MAGIC);
+            index.putInt(4, VERSION);
+            index.putInt(8, slotCount);
+        }
+        slots = index.getInt(8);
+    }
+
+    private void index(byte[] key, long offset) {
+        int slot = find(key);
+        int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+        if (index.getLong(position + 8) == 0) {
+            if (liveEntries >= slots - 1) {
+                //the index is at its maximum size, one slot is kept empty to terminate probing
+                return;
+            }
+            liveEntries++;
+            index.putInt(12, liveEntries);
+        } else {
+            supersededRecords++;
+            index.putLong(16, supersededRecords);
+        }
+        index.putLong(position, keyPrefix(key));
+        index.putLong(position + 8, offset);
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where it would be inserted.  Slots
+     * hold the first 8 bytes of the digest and the log offset of its record, with an offset
+     * of 0 marking an empty slot.
+     */
+    private int find(byte[] key) {
+        long prefix = keyPrefix(key);
+        int slot = (int) ((prefix & 0x7FFFFFFFFFFFFFFFL) % slots);
+        while (true) {
+            int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            if (index.getLong(position + 8) == 0 || index.getLong(position) == prefix) {
+                return slot;
+            }
+            slot = slot + 1 == slots ? 0 : slot + 1;
+        }
+    }
+
+    private static long keyPrefix(byte[] key) {
+        return ByteBuffer.wrap(key).getLong();
+    }
+
+    /**
+     * Reads the record at the offset, returning null if its checksum does not match.
+     */
+    private ByteBuffer readRecord(long offset) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        if (readFully(logChannel, record, offset) < RECORD_SIZE) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, RECORD_SIZE - 4);
+        if ((int) crc.getValue() != record.getInt(RECORD_SIZE - 4)) {
+            return null;
+        }
+        return record;
+    }
+
+    private static boolean hasKey(ByteBuffer record, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (record.get(i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writePayload(ByteBuffer record, MeshMetrics metrics) {
+        record.putDouble(metrics.getVolume());
+        record.putDouble(metrics.getSurfaceArea());
+        record.putLong(metrics.getTriangleCount());
+        record.putFloat(metrics.getMinX());
+        record.putFloat(metrics.getMinY());
+        record.putFloat(metrics.getMinZ());
+        record.putFloat(metrics.getMaxX());
+        record.putFloat(metrics.getMaxY());
+        record.putFloat(metrics.getMaxZ());
+        record.putDouble(metrics.getCentroidX());
+        record.putDouble(metrics.getCentroidY());
+        record.putDouble(metrics.getCentroidZ());
+        record.putDouble(metrics.getOverhangArea());
+        record.putDouble(metrics.getMinWallThickness());
+        record.putInt(metrics.getLayerCount());
+        record.putDouble(metrics.getScanLength());
+        MeshValidity validity = metrics.getValidity();
+        record.putInt(null == validity ? 0 : FLAG_VALIDATED);
+        record.putLong(null == validity ? 0 : validity.getOpenEdges());
+        record.putLong(null == validity ? 0 : validity.getNonManifoldEdges());
+        record.putLong(null == validity ? 0 : validity.getInconsistentEdges());
+        record.putLong(null == validity ? 0 : validity.getDegenerateFacets());
+        record.putDouble(metrics.getHullVolume());
+        //centre, axes and extents of the oriented box, NaN when there is none
+        OrientedBox box = metrics.getOrientedBox();
+        for (int k = 0; k < 3; k++) {
+            record.putDouble(null == box ? Double.NaN : box.getCenter(k));
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            for (int k = 0; k < 3; k++) {
+                record.putDouble(null == box ? Double.NaN : box.getAxis(axis, k));
+            }
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            record.putDouble(null == box ? Double.NaN : box.getExtent(axis));
+        }
+        //direction, overhang area, footprint and height of the build orientation, NaN when there is none
+        BuildOrientation orientation = metrics.getBuildOrientation();
+        for (int k = 0; k < 3; k++) {
+            record.putDouble(null == orientation ? Double.NaN : orientation.getDirection(k));
+        }
+        record.putDouble(null == orientation ? Double.NaN : orientation.getOverhangArea());
+        record.putDouble(null == orientation ? Double.NaN : orientation.getFootprintArea());
+        record.putDouble(null == orientation ? Double.NaN : orientation.getHeight());
+    }
+
+    private static MeshMetrics readPayload(ByteBuffer record) {
+        record.position(ContentDigest.LENGTH);
+        MeshMetrics.Builder metrics = new MeshMetrics.Builder()
+                .volume(record.getDouble())
+                .surfaceArea(record.getDouble())
+                .triangleCount(record.getLong())
+                .bounds(record.getFloat(), record.getFloat(), record.getFloat(),
+                        record.getFloat(), record.getFloat(), record.getFloat())
+                .centroid(record.getDouble(), record.getDouble(), record.getDouble())
+                .overhangArea(record.getDouble())
+                .minWallThickness(record.getDouble())
+                .slices(record.getInt(), record.getDouble());
+        int flags = record.getInt();
+        MeshValidity validity = new MeshValidity(record.getLong(), record.getLong(), record.getLong(), record.getLong());
+        if (0 != (flags & FLAG_VALIDATED)) {
+            metrics.validity(validity);
+        }
+        double hullVolume = record.getDouble();
+        double[] box = new double[15];
+        for (int i = 0; i < box.length; i++) {
+            box[i] = record.getDouble();
+        }
+        metrics.hull(hullVolume, Double.isNaN(box[0]) ? null : new OrientedBox(Arrays.copyOfRange(box, 0, 3), 
+                Arrays.copyOfRange(box, 3, 12), Arrays.copyOfRange(box, 12, 15)));
+        double[] orientation = new double[6];
+        for (int i = 0; i < orientation.length; i++) {
+            orientation[i] = record.getDouble();
+        }
+        if (!Double.isNaN(orientation[0])) {
+            metrics.buildOrientation(new BuildOrientation(
+                    orientation[0], orientation[1], orientation[2], orientation[3], orientation[4], orientation[5]));
+        }
+        return metrics.build();
+    }
+
+    private static ByteBuffer newLogHeader() {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+    }
+
+    private void closeIndex() throws IOException {
+        if (null != indexFile) {
+            indexFile.close();
+            indexFile = null;
+            index = null;
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        closeIndex();
+        if (null != log) {
+            directoryLock.release();
+            log.close();
+            log = null;
+            logChannel = null;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.stl.api.mesh;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stl.common.mesh.BinaryStlParser;
+import com.stl.common.mesh.BinaryStlWriter;
+import com.stl.common.mesh.IndexedMesh;
+import com.stl.common.mesh.IndexedMeshBuilder;
+import com.stl.common.mesh.MeshRepair;
+import com.stl.common.mesh.StlParser;
+import com.stl.common.mesh.TriangleBuffer;
+import com.stl.common.mesh.TriangleSource;
+import com.stl.common.models.ModelQuote;
+import com.stl.common.models.RepairReport;
+
+/**
+ * Repairs uploaded meshes in-process before quoting them, see {@link MeshRepair}, so that
+ * exports with flipped facets or small gaps can still be quoted.  The upload is streamed into
+ * an {@link IndexedMesh}, matching corners within the validation tolerance, and the repaired
+ * mesh is copied into a {@link TriangleBuffer} and quoted by the configured engine, see
+ * {@link MeshAnalysisService#quote(TriangleSource)}.  It is therefore validated again when
+ * validation is enabled, and its metrics come from the same stages as those of an upload.<p/>
+ *
+ * Each repaired mesh is written as binary STL to the repaired mesh directory under a random
+ * ID, reported in the quote, so that it can be downloaded; files are deleted once they are
+ * older than the retention period.  Repairs bypass the metrics cache, since cached metrics
+ * are those of the mesh as uploaded.
+ */
+@ManagedResource(objectName = "com.stl.api:type=MeshRepairService", description = "In-process mesh repair")
+public class MeshRepairService {
+    private static final String SUFFIX = ".stl";
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+    private static final String HEADER = "binary STL repaired by stlapi";
+
+    private final MeshAnalysisService meshAnalysisService;
+    private final ForkJoinPool pool;
+    private final double tolerance;
+    private final int maxHoleEdges;
+    private final File directory;
+    private final long retentionMillis;
+
+    /**
+     * @param meshAnalysisService The service repaired meshes are quoted by
+     * @param tolerance The distance below which corners are considered the same vertex
+     * @param maxHoleEdges The largest number of edges around a hole that is filled
+     * @param directory The directory repaired meshes are kept in for download
+     */
+    public MeshRepairService(MeshAnalysisService meshAnalysisService, ForkJoinPool pool, double tolerance, 
+            int maxHoleEdges, String directory, long retentionSeconds) {
+        this.meshAnalysisService = meshAnalysisService;
+        this.pool = pool;
+        this.tolerance = tolerance;
+        this.maxHoleEdges = maxHoleEdges;
+        this.directory = new File(directory.trim());
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(retentionSeconds);
+    }
+
+    /**
+     * Repairs and quotes an upload.
+     *
+     * @throws InvalidMeshException if validation is enabled and the repaired mesh is still not
+     *          a closed manifold, in which case it is not kept
+     */
+    public ModelQuote quote(MultipartFile upload) throws IOException {
+        long size = upload.getSize();
+        IndexedMeshBuilder builder = new IndexedMeshBuilder(tolerance, 
+                Math.max(0, (size - BinaryStlParser.PREAMBLE_SIZE) / BinaryStlParser.RECORD_SIZE));
+        try (InputStream in = upload.getInputStream()) {
+            StlParser.parse(in, size, builder);
+        }
+        MeshRepair repair = MeshRepair.repair(builder.build(), maxHoleEdges, pool);
+        IndexedMesh mesh = repair.getMesh();
+        ModelQuote quote;
+        try (TriangleBuffer buffer = new TriangleBuffer()) {
+            mesh.forEach(buffer);
+            quote = meshAnalysisService.quote(buffer);
+        }
+        RepairReport report = new RepairReport();
+        report.setId(save(mesh));
+        report.setDegenerateFacetsRemoved(repair.getDegenerateFacets());
+        report.setFacetsFlipped(repair.getFlippedFacets());
+        report.setHolesFilled(repair.getFilledHoles());
+        report.setHolesUnfilled(repair.getUnfilledHoles());
+        report.setFacetsAdded(repair.getAddedFacets());
+        quote.setRepair(report);
+        return quote;
+    }
+
+    /**
+     * Returns the repaired mesh with the given ID, or null if there is none or it has expired.
+     */
+    public File getRepairedMesh(String id) {
+        if (null == id || !ID_PATTERN.matcher(id).matches()) {
+            return null;
+        }
+        File file = new File(directory, id + SUFFIX);
+        return file.isFile() && !isExpired(file, System.currentTimeMillis() - retentionMillis) ? file : null;
+    }
+
+    private String save(IndexedMesh mesh) throws IOException {
+        removeExpired();
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Unable to create the repaired mesh directory " + directory);
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        //written under a temporary name and renamed, so a download never sees a partial file
+        File temp = File.createTempFile("repair", ".tmp", directory);
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+                BinaryStlWriter.write(mesh, HEADER, out);
+            }
+            if (!temp.renameTo(new File(directory, id + SUFFIX))) {
+                throw new IOException("Unable to store the repaired mesh " + id);
+            }
+        } finally {
+            temp.delete();
+        }
+        return id;
+    }
+
+    private void removeExpired() {
+        File[] files = directory.listFiles();
+        if (null == files) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (File file : files) {
+            if (isExpired(file, cutoff)) {
+                file.delete();
+            }
+        }
+    }
+
+    private static boolean isExpired(File file, long cutoff) {
+        return file.lastModified() < cutoff;
+    }
+
+    @ManagedAttribute(description = "Repaired meshes held for download, including expired ones not yet deleted")
+    public int getRepairedMeshes() {
+        String[] names = directory.list();
+        return null == names ? 0 : names.length;
+    }
+}
@@ -0,0 +1,266 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.models.ModelQuote;
+import com.stl.common.models.QuoteJob;
+import com.stl.common.models.QuoteJobStatus;
+
+/**
+ * Runs quotes for large uploads as background jobs that clients poll, so that no connection
+ * is held open while a big mesh is analyzed.  Each upload is moved into a job file and queued
+ * on a fixed pool of workers, and submissions are rejected once queueCapacity jobs are waiting.
+ * The queue is ordered by submission time pushed back by file size, a millisecond per kilobyte
+ * up to agingSeconds, so that small jobs are not stuck behind large ones while a large job
+ * is never passed by jobs submitted more than agingSeconds after it.
+ * A slot in the queue is reserved before the upload is copied and released when the job
+ * starts or is cancelled, so concurrent submissions cannot overfill it.<p/>
+ *
+ * Finished jobs are kept for the retention period so their results can be fetched, and are
+ * removed by a background sweep every tenth of it.
+ */
+@ManagedResource(objectName = "com.stl.api:type=QuoteJobService", description = "Background quote jobs")
+public class QuoteJobService {
+    private static final Log LOG = LogFactory.getLog(QuoteJobService.class);
+    private static final String UNREADABLE_UPLOAD = "unable to read file upload";
+    private static final String INTERNAL_ERROR = "unable to quote file upload";
+    //Bytes of upload that push a job back one millisecond in the queue
+    private static final long BYTES_PER_MILLI = 1024;
+    //Shortest time between sweeps for expired jobs
+    private static final long MIN_EXPIRY_PERIOD_MILLIS = 1000L;
+
+    private final MeshAnalysisService meshAnalysisService;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor expiry;
+    private final int queueCapacity;
+    private final long retentionMillis;
+    private final long agingMillis;
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ConcurrentHashMap<Long, Job> jobs = new ConcurrentHashMap<Long, Job>();
+
+    public QuoteJobService(MeshAnalysisService meshAnalysisService, int poolSize, int queueCapacity, 
+            long retentionSeconds, long agingSeconds) {
+        this.meshAnalysisService = meshAnalysisService;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, 
+                new PriorityBlockingQueue<Runnable>(), new CustomizableThreadFactory("quote-job-"));
+        this.queueCapacity = queueCapacity;
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(retentionSeconds);
+        this.agingMillis = TimeUnit.SECONDS.toMillis(agingSeconds);
+        this.expiry = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("quote-job-expiry-"));
+        long period = Math.max(MIN_EXPIRY_PERIOD_MILLIS, retentionMillis / 10);
+        expiry.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                removeExpired();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a job for the upload and returns its initial state.
+     * 
+     * @throws RejectedExecutionException if queueCapacity jobs are already waiting
+     */
+    public QuoteJob submit(MultipartFile upload) throws IOException {
+        reserveSlot();
+        File file = null;
+        try {
+            file = File.createTempFile("quote-job", ".stl");
+            upload.transferTo(file);
+        } catch (IOException | RuntimeException e) {
+            queued.decrementAndGet();
+            if (null != file) {
+                file.delete();
+            }
+            throw e;
+        }
+        Job job = new Job(ids.incrementAndGet(), upload.getOriginalFilename(), file);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            //the service is shutting down
+            queued.decrementAndGet();
+            jobs.remove(job.id);
+            file.delete();
+            throw e;
+        }
+        return job.toQuoteJob();
+    }
+
+    /**
+     * @throws RejectedExecutionException if queueCapacity jobs are already waiting
+     */
+    private void reserveSlot() {
+        while (true) {
+            int waiting = queued.get();
+            if (waiting >= queueCapacity) {
+                throw new RejectedExecutionException("The quote job queue is full");
+            }
+            if (queued.compareAndSet(waiting, waiting + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the current state of the job, or null if there is no such job.
+     */
+    public QuoteJob get(long id) {
+        Job job = jobs.get(id);
+        return null == job ? null : job.toQuoteJob();
+    }
+
+    /**
+     * Cancels the job if it has not finished and returns its state, or null if there is no such
+     * job.  A queued job is cancelled immediately; a running job stops at its next progress update.
+     */
+    public QuoteJob cancel(long id) {
+        Job job = jobs.get(id);
+        if (null == job) {
+            return null;
+        }
+        if (executor.remove(job)) {
+            queued.decrementAndGet();
+            job.finish(QuoteJobStatus.CANCELLED, null, null);
+        } else {
+            job.progress.cancel();
+        }
+        return job.toQuoteJob();
+    }
+
+    private void removeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        Iterator<Job> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            Job job = it.next();
+            if (job.isFinishedBefore(cutoff)) {
+                it.remove();
+            }
+        }
+    }
+
+    public void shutdown() {
+        expiry.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @ManagedAttribute(description = "Jobs waiting for a worker")
+    public int getQueuedJobs() {
+        return queued.get();
+    }
+
+    @ManagedAttribute(description = "Jobs being analyzed")
+    public int getRunningJobs() {
+        return executor.getActiveCount();
+    }
+
+    @ManagedAttribute(description = "Jobs whose state is held, including finished jobs within the retention period")
+    public int getRetainedJobs() {
+        return jobs.size();
+    }
+
+    private class Job implements Runnable, Comparable<Job> {
+        private final long id;
+        private final String name;
+        private final File file;
+        private final long size;
+        private final long rank;
+        private final MeshProgress progress;
+        private QuoteJobStatus status = QuoteJobStatus.QUEUED;
+        private ModelQuote quote;
+        private String error;
+        private long finishedAt;
+
+        Job(long id, String name, File file) {
+            this.id = id;
+            this.name = name;
+            this.file = file;
+            this.size = file.length();
+            this.rank = System.currentTimeMillis() + Math.min(agingMillis, size / BYTES_PER_MILLI);
+            this.progress = new MeshProgress(size);
+        }
+
+        @Override
+        public void run() {
+            //jobs removed from the queue by cancel never run, every other one releases its slot here
+            queued.decrementAndGet();
+            synchronized (this) {
+                if (status != QuoteJobStatus.QUEUED) {
+                    return;
+                }
+                status = QuoteJobStatus.RUNNING;
+            }
+            try {
+                if (progress.isCancelled()) {
+                    throw new CancellationException();
+                }
+                finish(QuoteJobStatus.COMPLETED, meshAnalysisService.quote(file, progress), null);
+            } catch (CancellationException e) {
+                finish(QuoteJobStatus.CANCELLED, null, null);
+            } catch (InvalidMeshException e) {
+                finish(QuoteJobStatus.FAILED, null, e.getMessage());
+            } catch (IOException e) {
+                finish(QuoteJobStatus.FAILED, null, UNREADABLE_UPLOAD);
+            } catch (RuntimeException e) {
+                LOG.error("Quote job " + id + " for " + name + " failed", e);
+                finish(QuoteJobStatus.FAILED, null, INTERNAL_ERROR);
+            }
+        }
+
+        synchronized void finish(QuoteJobStatus status, ModelQuote quote, String error) {
+            this.status = status;
+            this.quote = quote;
+            this.error = error;
+            this.finishedAt = System.currentTimeMillis();
+            file.delete();
+        }
+
+        synchronized boolean isFinishedBefore(long cutoff) {
+            return status.isFinished() && finishedAt < cutoff;
+        }
+
+        synchronized QuoteJob toQuoteJob() {
+            QuoteJob job = new QuoteJob();
+            job.setId(id);
+            job.setName(name);
+            job.setStatus(status);
+            job.setProgress(status == QuoteJobStatus.COMPLETED ? 100.0 : progress.getPercentComplete());
+            job.setQuote(quote);
+            job.setError(error);
+            return job;
+        }
+
+        /**
+         * Earlier submissions first, each pushed back by its size, then in order of submission.
+         * The rank is fixed when the job is created so the queue's ordering never changes.
+         */
+        @Override
+        public int compareTo(Job other) {
+            if (rank != other.rank) {
+                return rank < other.rank ? -1 : 1;
+            }
+            return id < other.id ? -1 : (id == other.id ? 0 : 1);
+        }
+    }
+}
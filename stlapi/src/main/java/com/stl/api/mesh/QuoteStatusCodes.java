@@ -0,0 +1,43 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.stl.api.util.StatusCode;
+import com.stl.api.util.StatusCodeType;
+import com.stl.api.util.StatusCodes;
+import com.stl.common.mesh.MeshValidity;
+
+/**
+ * Maps a failure to quote an upload to the status code reported to the client.  Uploads that
+ * cannot be read or parsed are the client's error; anything else is a fault of the service,
+ * which is logged and reported as an internal error.
+ */
+public class QuoteStatusCodes {
+    private static final Log LOG = LogFactory.getLog(QuoteStatusCodes.class);
+    private static final String UNREADABLE_UPLOAD = "unable to read file upload";
+
+    public static StatusCode getStatusCode(Exception e) {
+        if (e instanceof RejectedExecutionException) {
+            return StatusCodes.getStatusCode(StatusCodeType.SERVICE_BUSY);
+        }
+        if (e instanceof TooManyPartsException) {
+            return StatusCodes.getStatusCode(StatusCodeType.TOO_MANY_PARTS, 
+                    new Object[] { ((TooManyPartsException) e).getMaxParts() });
+        }
+        if (e instanceof InvalidMeshException) {
+            MeshValidity validity = ((InvalidMeshException) e).getValidity();
+            return StatusCodes.getStatusCode(StatusCodeType.INVALID_MESH, new Object[] { 
+                    validity.getOpenEdges(), validity.getNonManifoldEdges(), validity.getInconsistentEdges() });
+        }
+        if (e instanceof IOException) {
+            //includes StlFormatException, thrown for uploads that do not parse
+            return new StatusCode(StatusCodes.UNPARSABLE_REQUEST_CODE, UNREADABLE_UPLOAD);
+        }
+        LOG.error("Unable to quote upload", e);
+        return StatusCodes.getStatusCode(StatusCodeType.UNKNOWN_INTERNAL_SERVER_ERROR);
+    }
+}
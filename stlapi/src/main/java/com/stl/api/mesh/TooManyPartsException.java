@@ -0,0 +1,20 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an archive holds more parts than are quoted in one request.
+ */
+@SuppressWarnings("serial")
+public class TooManyPartsException extends IOException {
+    private final int maxParts;
+
+    public TooManyPartsException(int maxParts) {
+        super("The archive holds more than " + maxParts + " parts");
+        this.maxParts = maxParts;
+    }
+
+    public int getMaxParts() {
+        return maxParts;
+    }
+}
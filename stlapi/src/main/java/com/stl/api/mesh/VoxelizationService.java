@@ -0,0 +1,103 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.stl.common.mesh.MeshAccumulator;
+import com.stl.common.mesh.StlParser;
+import com.stl.common.mesh.TeeSink;
+import com.stl.common.mesh.TriangleBuffer;
+import com.stl.common.mesh.VoxelGrid;
+import com.stl.common.mesh.Voxelizer;
+import com.stl.common.models.Point3d;
+import com.stl.common.models.VoxelModel;
+
+/**
+ * Rasterizes uploaded meshes into voxels, see {@link Voxelizer}.  The upload is streamed
+ * into an off-heap {@link TriangleBuffer}, measuring the mesh volume on the way, and the
+ * layers of the grid are filled on the shared fork-join pool.
+ */
+public class VoxelizationService {
+    private final ForkJoinPool pool;
+    private final int maxResolution;
+
+    /**
+     * @param maxResolution The largest number of voxels allowed along the longest side of a mesh
+     */
+    public VoxelizationService(ForkJoinPool pool, int maxResolution) {
+        this.pool = pool;
+        this.maxResolution = maxResolution;
+    }
+
+    public int getMaxResolution() {
+        return maxResolution;
+    }
+
+    /**
+     * Voxelizes an upload with the given number of voxels along its longest side.
+     *
+     * @throws IllegalArgumentException if the resolution is not between 1 and the maximum
+     */
+    public VoxelModel voxelize(MultipartFile upload, int resolution) throws IOException {
+        if (resolution < 1 || resolution > maxResolution) {
+            throw new IllegalArgumentException("Invalid voxel resolution " + resolution);
+        }
+        MeshAccumulator accumulator = new MeshAccumulator();
+        VoxelGrid grid;
+        try (TriangleBuffer buffer = new TriangleBuffer()) {
+            try (InputStream in = upload.getInputStream()) {
+                StlParser.parse(in, upload.getSize(), new TeeSink(buffer, accumulator));
+            }
+            grid = Voxelizer.voxelize(buffer, resolution, pool);
+        }
+        double voxelSize = grid.getVoxelSize();
+        int[][] footprint = getFootprint(grid);
+        long footprintCells = 0;
+        for (int[] row : footprint) {
+            for (int i = 0; i < row.length; i += 2) {
+                footprintCells += row[i + 1] - row[i];
+            }
+        }
+        VoxelModel model = new VoxelModel();
+        model.setResolution(resolution);
+        model.setVoxelSize(voxelSize);
+        model.setSizeX(grid.getSizeX());
+        model.setSizeY(grid.getSizeY());
+        model.setSizeZ(grid.getSizeZ());
+        model.setOrigin(new Point3d(grid.getOriginX(), grid.getOriginY(), grid.getOriginZ()));
+        model.setVoxelCount(grid.getVoxelCount());
+        model.setVoxelVolume(MeshAnalysisService.round(grid.getVolume()));
+        model.setMeshVolume(MeshAnalysisService.round(accumulator.getVolume()));
+        model.setFootprintArea(MeshAnalysisService.round(footprintCells * voxelSize * voxelSize));
+        model.setFootprint(footprint);
+        return model;
+    }
+
+    /**
+     * Returns the occupied spans of each row of the grid's footprint.
+     */
+    private static int[][] getFootprint(VoxelGrid grid) {
+        long[] bits = grid.getFootprint();
+        int sizeX = grid.getSizeX();
+        int[][] rows = new int[grid.getSizeY()][];
+        int[] spans = new int[sizeX + 1];
+        for (int y = 0; y < rows.length; y++) {
+            int count = 0;
+            boolean occupied = false;
+            for (int x = 0; x <= sizeX; x++) {
+                long bit = (long) sizeX * y + x;
+                boolean set = x < sizeX && 0 != (bits[(int) (bit >>> 6)] & (1L << bit));
+                if (set != occupied) {
+                    spans[count++] = x;
+                    occupied = set;
+                }
+            }
+            rows[y] = Arrays.copyOf(spans, count);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,27 @@
+package com.stl.api.nesting;
+
+/**
+ * Thrown when a field of a nesting request has a value parts cannot be nested with.
+ */
+@SuppressWarnings("serial")
+public class InvalidNestingException extends IllegalArgumentException {
+    private final String field;
+    private final Object value;
+
+    public InvalidNestingException(String field, Object value) {
+        super("Invalid nesting request field " + field + ": " + value);
+        this.field = field;
+        this.value = value;
+    }
+
+    /**
+     * Returns the path of the field in the request, such as parts[2].quantity.
+     */
+    public String getField() {
+        return field;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+}
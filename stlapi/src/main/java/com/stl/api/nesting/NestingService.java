@@ -0,0 +1,358 @@
+package com.stl.api.nesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.stl.common.models.BoundingBox;
+import com.stl.common.models.BuildPlate;
+import com.stl.common.models.NestingPart;
+import com.stl.common.models.NestingRequest;
+import com.stl.common.models.NestingResult;
+import com.stl.common.models.PartPlacement;
+import com.stl.common.models.Point3d;
+
+/**
+ * Nests the parts of an order on build plates to work out how many build jobs it needs,
+ * see {@link PlateNester}.  Parts are placed by their bounding boxes, standing as quoted and
+ * optionally turned about Z.<p/>
+ *
+ * Packings depend on the order parts are placed in, so orderings are searched until the time
+ * budget is spent or a packing needs no more plates than the parts' total area does.  The
+ * parts are sorted largest first by area, longest side, perimeter, width and depth, and the
+ * sorts are shared between one search per worker of the nesting pool, which is kept apart
+ * from the pool meshes are analyzed on.  Each search starts from the best of its sorts and
+ * then swaps parts at random, keeping the swaps that do not make the packing worse.  The
+ * best packing of all the searches is returned.
+ */
+public class NestingService {
+    private static final int MIN_SWAPS = 1;
+    private static final int MAX_SWAPS = 3;
+    private static final int SORTS = 5;
+    private static final double HUNDREDTHS = 100.0;
+    //Slack in the area bound, so rounding does not lift an exact fit onto another plate
+    private static final double EPSILON = 1e-9;
+
+    private final ForkJoinPool pool;
+    private final double plateWidth;
+    private final double plateDepth;
+    private final double plateHeight;
+    private final double spacing;
+    private final int maxParts;
+    private final long budgetNanos;
+
+    /**
+     * @param plateWidth The size of the build plate along X, used unless a request gives one
+     * @param spacing The distance kept between parts, used unless a request gives one
+     * @param maxParts The most copies of parts a request may nest
+     * @param budgetMillis How long to search for better packings
+     */
+    public NestingService(ForkJoinPool pool, double plateWidth, double plateDepth, double plateHeight, 
+            double spacing, int maxParts, long budgetMillis) {
+        this.pool = pool;
+        this.plateWidth = plateWidth;
+        this.plateDepth = plateDepth;
+        this.plateHeight = plateHeight;
+        this.spacing = spacing;
+        this.maxParts = maxParts;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    public int getMaxParts() {
+        return maxParts;
+    }
+
+    /**
+     * @throws InvalidNestingException if the request has no parts or too many, or a part or
+     *          the plate has no valid size
+     */
+    public NestingResult nest(NestingRequest request) {
+        long deadline = System.nanoTime() + budgetNanos;
+        double width = getSize("plateWidth", request.getPlateWidth(), plateWidth);
+        double depth = getSize("plateDepth", request.getPlateDepth(), plateDepth);
+        double height = getSize("plateHeight", request.getPlateHeight(), plateHeight);
+        double gap = null == request.getSpacing() ? spacing : request.getSpacing();
+        if (!(gap >= 0) || Double.isInfinite(gap)) {
+            throw new InvalidNestingException("spacing", gap);
+        }
+        if (null == request.getParts() || request.getParts().isEmpty()) {
+            throw new InvalidNestingException("parts", request.getParts());
+        }
+        //copies are nested as parts of their own, which refer back to the requested part
+        List<Integer> source = new ArrayList<Integer>();
+        List<Integer> copy = new ArrayList<Integer>();
+        List<String> unplaced = new ArrayList<String>();
+        for (int i = 0; i < request.getParts().size(); i++) {
+            NestingPart part = request.getParts().get(i);
+            int quantity = null == part.getQuantity() ? 1 : part.getQuantity();
+            if (quantity < 1) {
+                throw new InvalidNestingException("parts[" + i + "].quantity", quantity);
+            }
+            double[] size = getSize(part.getBoundingBox());
+            if (null == size) {
+                throw new InvalidNestingException("parts[" + i + "].boundingBox", describe(part.getBoundingBox()));
+            }
+            if (size[2] > height || !PlateNester.fits(width, depth, size[0], size[1])) {
+                unplaced.add(part.getName());
+                continue;
+            }
+            if (source.size() + (long) quantity > maxParts) {
+                throw new InvalidNestingException("parts[" + i + "].quantity", quantity);
+            }
+            for (int c = 0; c < quantity; c++) {
+                source.add(i);
+                copy.add(c);
+            }
+        }
+        NestingResult result = new NestingResult();
+        if (!unplaced.isEmpty()) {
+            result.setUnplacedParts(unplaced);
+        }
+        if (source.isEmpty()) {
+            result.setPlates(new ArrayList<BuildPlate>());
+            result.setPlateCount(0);
+            result.setCandidates(0L);
+            return result;
+        }
+        //parts and plates grow by the spacing, so neighbours keep it between them but not the plate edge
+        double[] partWidth = new double[source.size()], partDepth = new double[source.size()];
+        for (int p = 0; p < partWidth.length; p++) {
+            double[] size = getSize(request.getParts().get(source.get(p)).getBoundingBox());
+            partWidth[p] = size[0] + gap;
+            partDepth[p] = size[1] + gap;
+        }
+        PlateNester nester = new PlateNester(width + gap, depth + gap, partWidth, partDepth);
+        int searches = Math.min(SORTS, null == pool ? 1 : pool.getParallelism());
+        Search search = new Search(nester, partWidth, partDepth, deadline,
+                getLowerBound(partWidth, partDepth, (width + gap) * (depth + gap)), searches);
+        SearchTask task = new SearchTask(search, 0, searches);
+        PlateNester.Packing best = null == pool ? task.compute() : pool.invoke(task);
+        return toResult(result, request, best, source, copy, gap, width * depth, search.candidates.get());
+    }
+
+    private static double getSize(String field, Double requested, double configured) {
+        double size = null == requested ? configured : requested;
+        if (!(size > 0) || Double.isInfinite(size)) {
+            throw new InvalidNestingException(field, size);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the fewest plates the parts could fit on going by their area alone.
+     */
+    private static int getLowerBound(double[] partWidth, double[] partDepth, double plateArea) {
+        double area = 0;
+        for (int p = 0; p < partWidth.length; p++) {
+            area += partWidth[p] * partDepth[p];
+        }
+        return Math.max(1, (int) Math.ceil(area / plateArea - EPSILON));
+    }
+
+    /**
+     * Returns the width, depth and height of the box, or null if it is missing or not a box.
+     */
+    private static double[] getSize(BoundingBox box) {
+        if (null == box || null == box.getMin() || null == box.getMax()) {
+            return null;
+        }
+        double[] size = new double[3];
+        Double[] min = { box.getMin().getX(), box.getMin().getY(), box.getMin().getZ() };
+        Double[] max = { box.getMax().getX(), box.getMax().getY(), box.getMax().getZ() };
+        for (int k = 0; k < 3; k++) {
+            if (null == min[k] || null == max[k]) {
+                return null;
+            }
+            size[k] = max[k] - min[k];
+            if (!(size[k] >= 0) || Double.isInfinite(size[k])) {
+                return null;
+            }
+        }
+        return size;
+    }
+
+    private static String describe(BoundingBox box) {
+        return null == box ? null : describe(box.getMin()) + " to " + describe(box.getMax());
+    }
+
+    private static String describe(Point3d point) {
+        return null == point ? null : "(" + point.getX() + ", " + point.getY() + ", " + point.getZ() + ")";
+    }
+
+    private static NestingResult toResult(NestingResult result, NestingRequest request, PlateNester.Packing packing, 
+            List<Integer> source, List<Integer> copy, double gap, double plateArea, long candidates) {
+        List<BuildPlate> plates = new ArrayList<BuildPlate>(packing.plateCount);
+        double[] used = new double[packing.plateCount];
+        for (int p = 0; p < packing.plateCount; p++) {
+            BuildPlate plate = new BuildPlate();
+            plate.setPlacements(new ArrayList<PartPlacement>());
+            plates.add(plate);
+        }
+        double total = 0;
+        for (int p = 0; p < source.size(); p++) {
+            NestingPart part = request.getParts().get(source.get(p));
+            double[] size = getSize(part.getBoundingBox());
+            PartPlacement placement = new PartPlacement();
+            placement.setName(part.getName());
+            placement.setCopy(copy.get(p));
+            placement.setX(packing.x[p]);
+            placement.setY(packing.y[p]);
+            placement.setRotated(packing.rotated[p]);
+            plates.get(packing.plate[p]).getPlacements().add(placement);
+            used[packing.plate[p]] += size[0] * size[1];
+            total += size[0] * size[1];
+        }
+        for (int p = 0; p < plates.size(); p++) {
+            plates.get(p).setUtilization(round(used[p] / plateArea));
+        }
+        result.setPlates(plates);
+        result.setPlateCount(plates.size());
+        result.setUtilization(round(total / (plateArea * plates.size())));
+        result.setCandidates(candidates);
+        return result;
+    }
+
+    private static double round(double share) {
+        return Math.round(share * HUNDREDTHS) / HUNDREDTHS;
+    }
+
+    /**
+     * The parts and limits shared by the searches of one request.
+     */
+    private static class Search {
+        private final PlateNester nester;
+        private final double[] width;
+        private final double[] depth;
+        private final long deadline;
+        private final int lowerBound;
+        private final int searches;
+        private final AtomicLong candidates = new AtomicLong();
+        //set once any search reaches the lower bound, which no packing can beat
+        private volatile boolean optimal;
+
+        Search(PlateNester nester, double[] width, double[] depth, long deadline, int lowerBound, int searches) {
+            this.nester = nester;
+            this.width = width;
+            this.depth = depth;
+            this.deadline = deadline;
+            this.lowerBound = lowerBound;
+            this.searches = searches;
+        }
+
+        /**
+         * Runs the given search, which starts from the best of the sorts search, search +
+         * searches and so on.
+         */
+        PlateNester.Packing run(int search) {
+            int[] order = null;
+            PlateNester.Packing best = null;
+            for (int sort = search; sort < SORTS; sort += searches) {
+                int[] sorted = getSortedOrder(sort);
+                PlateNester.Packing packing = nester.pack(sorted);
+                candidates.incrementAndGet();
+                if (packing.isBetterThan(best)) {
+                    best = packing;
+                    order = sorted;
+                }
+            }
+            Random random = new Random(search);
+            int[] candidate = new int[order.length];
+            while (order.length > 1 && !isDone(best)) {
+                System.arraycopy(order, 0, candidate, 0, order.length);
+                int swaps = MIN_SWAPS + random.nextInt(MAX_SWAPS - MIN_SWAPS + 1);
+                for (int s = 0; s < swaps; s++) {
+                    int i = random.nextInt(order.length), j = random.nextInt(order.length);
+                    int swap = candidate[i];
+                    candidate[i] = candidate[j];
+                    candidate[j] = swap;
+                }
+                PlateNester.Packing packing = nester.pack(candidate);
+                candidates.incrementAndGet();
+                //ties are kept too, so the search can drift across plateaus
+                if (!best.isBetterThan(packing)) {
+                    best = packing;
+                    int[] swap = order;
+                    order = candidate;
+                    candidate = swap;
+                }
+            }
+            return best;
+        }
+
+        private boolean isDone(PlateNester.Packing best) {
+            if (best.plateCount <= lowerBound) {
+                optimal = true;
+            }
+            return optimal || System.nanoTime() >= deadline;
+        }
+
+        private int[] getSortedOrder(final int sort) {
+            Integer[] parts = new Integer[width.length];
+            for (int p = 0; p < parts.length; p++) {
+                parts[p] = p;
+            }
+            Arrays.sort(parts, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    int byKey = Double.compare(getKey(b), getKey(a));
+                    return 0 != byKey ? byKey : Integer.compare(a, b);
+                }
+
+                private double getKey(int part) {
+                    switch (sort) {
+                        case 0:
+                            return width[part] * depth[part];
+                        case 1:
+                            return Math.max(width[part], depth[part]);
+                        case 2:
+                            return width[part] + depth[part];
+                        case 3:
+                            return width[part];
+                        default:
+                            return depth[part];
+                    }
+                }
+            });
+            int[] order = new int[parts.length];
+            for (int p = 0; p < order.length; p++) {
+                order[p] = parts[p];
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Runs searches [from, to) and returns the best of their packings.
+     */
+    @SuppressWarnings("serial")
+    private static class SearchTask extends RecursiveTask<PlateNester.Packing> {
+        private final Search search;
+        private final int from;
+        private final int to;
+
+        SearchTask(Search search, int from, int to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PlateNester.Packing compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                SearchTask right = new SearchTask(search, middle, to);
+                right.fork();
+                PlateNester.Packing left = new SearchTask(search, from, middle).compute();
+                PlateNester.Packing other = right.join();
+                return other.isBetterThan(left) ? other : left;
+            }
+            return search.run(from);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.stl.api.nesting;
+
+import java.util.Arrays;
+
+/**
+ * Packs rectangles onto as few plates as possible, in a given order, by the MaxRects
+ * heuristic: each plate keeps the maximal free rectangles left between the parts placed on
+ * it, and each part goes on the first plate with room for it, into the free rectangle that
+ * leaves the shortest side over, turned a quarter turn if that fits better.  Spacing is
+ * applied by the caller, by growing parts and plates alike.  A nester holds no state
+ * between packings, so candidates can be packed on several threads at once.
+ */
+class PlateNester {
+    private static final double EPSILON = 1e-9;
+
+    private final double plateWidth;
+    private final double plateDepth;
+    private final double[] width;
+    private final double[] depth;
+
+    /**
+     * @param width The width of each part; every part must fit on an empty plate
+     */
+    PlateNester(double plateWidth, double plateDepth, double[] width, double[] depth) {
+        this.plateWidth = plateWidth;
+        this.plateDepth = plateDepth;
+        this.width = width;
+        this.depth = depth;
+    }
+
+    /**
+     * Returns whether a part of the given size fits on an empty plate either way round.
+     */
+    static boolean fits(double plateWidth, double plateDepth, double width, double depth) {
+        return (width <= plateWidth + EPSILON && depth <= plateDepth + EPSILON)
+                || (depth <= plateWidth + EPSILON && width <= plateDepth + EPSILON);
+    }
+
+    double getArea(int part) {
+        return width[part] * depth[part];
+    }
+
+    /**
+     * Packs the parts in the given order, which lists each part once.
+     */
+    Packing pack(int[] order) {
+        Packing packing = new Packing(width.length);
+        FreeRectangles[] plates = new FreeRectangles[4];
+        int plateCount = 0;
+        for (int part : order) {
+            int plate = 0;
+            while (plate < plateCount && !plates[plate].place(part, packing)) {
+                plate++;
+            }
+            if (plate == plateCount) {
+                if (plateCount == plates.length) {
+                    plates = Arrays.copyOf(plates, 2 * plateCount);
+                }
+                plates[plateCount++] = new FreeRectangles(plate);
+                plates[plate].place(part, packing);
+            }
+            packing.plateArea[plate] += getArea(part);
+        }
+        packing.plateCount = plateCount;
+        return packing;
+    }
+
+    /**
+     * The placements of one packing, by part.
+     */
+    static class Packing {
+        int plateCount;
+        final int[] plate;
+        final double[] x;
+        final double[] y;
+        final boolean[] rotated;
+        //area of the parts on each plate, indexed by plate
+        final double[] plateArea;
+
+        Packing(int parts) {
+            plate = new int[parts];
+            x = new double[parts];
+            y = new double[parts];
+            rotated = new boolean[parts];
+            plateArea = new double[parts];
+        }
+
+        /**
+         * Returns whether this packing needs fewer plates than the other or, on as many
+         * plates, concentrates more of the parts on the fullest plates, which leaves the
+         * emptiest plate closest to being emptied altogether.
+         */
+        boolean isBetterThan(Packing other) {
+            if (null == other || plateCount != other.plateCount) {
+                return null == other || plateCount < other.plateCount;
+            }
+            return getConcentration() > other.getConcentration() + EPSILON;
+        }
+
+        private double getConcentration() {
+            double sum = 0;
+            for (int p = 0; p < plateCount; p++) {
+                sum += plateArea[p] * plateArea[p];
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * The maximal free rectangles of a plate.
+     */
+    private class FreeRectangles {
+        private final int plate;
+        private double[] x = new double[16];
+        private double[] y = new double[16];
+        private double[] w = new double[16];
+        private double[] h = new double[16];
+        private int count;
+
+        FreeRectangles(int plate) {
+            this.plate = plate;
+            add(0, 0, plateWidth, plateDepth);
+        }
+
+        /**
+         * Places the part if it fits anywhere on the plate, by best short side fit.
+         */
+        boolean place(int part, Packing packing) {
+            int best = -1;
+            boolean bestRotated = false;
+            double bestShort = Double.MAX_VALUE, bestLong = Double.MAX_VALUE;
+            for (int r = 0; r < count; r++) {
+                for (int turn = 0; turn < 2; turn++) {
+                    double pw = 0 == turn ? width[part] : depth[part];
+                    double pd = 0 == turn ? depth[part] : width[part];
+                    if (pw > w[r] + EPSILON || pd > h[r] + EPSILON) {
+                        continue;
+                    }
+                    double leftW = w[r] - pw, leftH = h[r] - pd;
+                    double shortSide = Math.min(leftW, leftH), longSide = Math.max(leftW, leftH);
+                    if (shortSide < bestShort || (shortSide == bestShort && longSide < bestLong)) {
+                        best = r;
+                        bestRotated = 1 == turn;
+                        bestShort = shortSide;
+                        bestLong = longSide;
+                    }
+                }
+            }
+            if (best < 0) {
+                return false;
+            }
+            double px = x[best], py = y[best];
+            double pw = bestRotated ? depth[part] : width[part];
+            double pd = bestRotated ? width[part] : depth[part];
+            packing.plate[part] = plate;
+            packing.x[part] = px;
+            packing.y[part] = py;
+            packing.rotated[part] = bestRotated;
+            split(px, py, pw, pd);
+            prune();
+            return true;
+        }
+
+        /**
+         * Replaces each free rectangle the placed part overlaps by the up to four maximal
+         * rectangles of it left around the part.
+         */
+        private void split(double px, double py, double pw, double pd) {
+            int initial = count;
+            for (int r = 0; r < initial; r++) {
+                if (px >= x[r] + w[r] - EPSILON || px + pw <= x[r] + EPSILON 
+                        || py >= y[r] + h[r] - EPSILON || py + pd <= y[r] + EPSILON) {
+                    continue;
+                }
+                if (px > x[r] + EPSILON) {
+                    add(x[r], y[r], px - x[r], h[r]);
+                }
+                if (px + pw < x[r] + w[r] - EPSILON) {
+                    add(px + pw, y[r], x[r] + w[r] - px - pw, h[r]);
+                }
+                if (py > y[r] + EPSILON) {
+                    add(x[r], y[r], w[r], py - y[r]);
+                }
+                if (py + pd < y[r] + h[r] - EPSILON) {
+                    add(x[r], py + pd, w[r], y[r] + h[r] - py - pd);
+                }
+                //marked for removal by prune
+                w[r] = -1;
+            }
+        }
+
+        /**
+         * Removes the split rectangles and those contained in another free rectangle.
+         */
+        private void prune() {
+            //containment is transitive, so rectangles can be dropped as they are found
+            for (int r = 0; r < count; r++) {
+                for (int o = 0; o < count && w[r] >= 0; o++) {
+                    if (o != r && w[o] >= 0 && contains(o, r) && (!contains(r, o) || o < r)) {
+                        w[r] = -1;
+                    }
+                }
+            }
+            int kept = 0;
+            for (int r = 0; r < count; r++) {
+                if (w[r] >= 0) {
+                    x[kept] = x[r];
+                    y[kept] = y[r];
+                    w[kept] = w[r];
+                    h[kept] = h[r];
+                    kept++;
+                }
+            }
+            count = kept;
+        }
+
+        private boolean contains(int outer, int inner) {
+            return x[inner] >= x[outer] - EPSILON && y[inner] >= y[outer] - EPSILON
+                    && x[inner] + w[inner] <= x[outer] + w[outer] + EPSILON
+                    && y[inner] + h[inner] <= y[outer] + h[outer] + EPSILON;
+        }
+
+        private void add(double rx, double ry, double rw, double rh) {
+            if (count == x.length) {
+                x = Arrays.copyOf(x, 2 * count);
+                y = Arrays.copyOf(y, 2 * count);
+                w = Arrays.copyOf(w, 2 * count);
+                h = Arrays.copyOf(h, 2 * count);
+            }
+            x[count] = rx;
+            y[count] = ry;
+            w[count] = rw;
+            h[count] = rh;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.stl.api.pricing;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import com.stl.common.models.ModelQuote;
+
+/**
+ * The alloys offered for printing and what they cost, see alloys.properties.  A catalog is
+ * immutable once loaded: alloys are kept in a sorted name table with their properties in
+ * parallel primitive arrays, so looking an alloy up is a binary search and pricing a quote
+ * is arithmetic on doubles, neither of which allocates or locks.<p/>
+ *
+ * An order of quantity parts is priced as the setup cost, plus the cost of each part's
+ * material, plus the cost of the machine time needed to build the order.  Sliced parts of
+ * an order are built together, so recoating their layers takes time once per order while
+ * the laser scans every part, at the alloy's scan speed.  Parts that were not sliced are
+ * assumed to build at the alloy's build rate.<p/>
+ *
+ * Which of the two models prices a part depends on how it was analyzed, not on the part.
+ * Only the java engine slices, and only when mesh.slicing.layerHeight is set; parts
+ * analyzed by admesh are not sliced.  The build rate must therefore be kept calibrated
+ * against the scan speed and layer time, or the same part is priced differently depending
+ * on the engine configured.
+ */
+public class AlloyCatalog {
+    private static final double CUBIC_MM_PER_CM3 = 1000.0;
+    private static final double HUNDREDTHS = 100.0;
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    private final String[] names;
+    private final double[] density;
+    private final double[] materialCost;
+    private final double[] machineRate;
+    private final double[] buildRate;
+    private final double[] scanSpeed;
+    private final double[] layerTime;
+    private final double[] setupCost;
+
+    private AlloyCatalog(String[] names) {
+        this.names = names;
+        this.density = new double[names.length];
+        this.materialCost = new double[names.length];
+        this.machineRate = new double[names.length];
+        this.buildRate = new double[names.length];
+        this.scanSpeed = new double[names.length];
+        this.layerTime = new double[names.length];
+        this.setupCost = new double[names.length];
+    }
+
+    /**
+     * Builds a catalog from properties in the format of alloys.properties.
+     *
+     * @throws IllegalArgumentException if a property is missing or invalid
+     */
+    public static AlloyCatalog load(Properties properties) {
+        String list = properties.getProperty("alloys", "").trim();
+        String[] names = list.isEmpty() ? new String[0] : list.split("\\s*,\\s*");
+        Arrays.sort(names);
+        AlloyCatalog catalog = new AlloyCatalog(names);
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0 && names[i].equals(names[i - 1])) {
+                throw new IllegalArgumentException("Alloy " + names[i] + " is listed twice");
+            }
+            catalog.density[i] = getNumber(properties, names[i], "density");
+            catalog.materialCost[i] = getNumber(properties, names[i], "materialCost");
+            catalog.machineRate[i] = getNumber(properties, names[i], "machineRate");
+            catalog.buildRate[i] = getNumber(properties, names[i], "buildRate");
+            catalog.scanSpeed[i] = getNumber(properties, names[i], "scanSpeed");
+            catalog.layerTime[i] = getNumber(properties, names[i], "layerTime");
+            catalog.setupCost[i] = getNumber(properties, names[i], "setupCost");
+            if (0 == catalog.buildRate[i]) {
+                throw new IllegalArgumentException("Alloy " + names[i] + " has no build rate");
+            }
+            if (0 == catalog.scanSpeed[i]) {
+                throw new IllegalArgumentException("Alloy " + names[i] + " has no scan speed");
+            }
+        }
+        return catalog;
+    }
+
+    private static double getNumber(Properties properties, String alloy, String property) {
+        String key = "alloy." + alloy + "." + property;
+        String value = properties.getProperty(key);
+        try {
+            double parsed = Double.parseDouble(value);
+            if (parsed >= 0 && !Double.isInfinite(parsed)) {
+                return parsed;
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            //reported below
+        }
+        throw new IllegalArgumentException("Invalid alloy property " + key + ": " + value);
+    }
+
+    /**
+     * Returns the index of the named alloy, or -1 if the catalog does not offer it.
+     */
+    public int indexOf(String alloy) {
+        int index = Arrays.binarySearch(names, alloy);
+        return index < 0 ? -1 : index;
+    }
+
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Returns the mass in grams of a part of the alloy with the given volume in mm3.
+     */
+    public double getMass(int alloy, double volume) {
+        return volume / CUBIC_MM_PER_CM3 * density[alloy];
+    }
+
+    /**
+     * Returns the machine hours to build quantity parts of the alloy with the given volume
+     * in mm3 at the alloy's build rate.
+     */
+    public double getMachineHours(int alloy, double volume, int quantity) {
+        return quantity * volume / CUBIC_MM_PER_CM3 / buildRate[alloy];
+    }
+
+    /**
+     * Returns the machine hours to build quantity parts of the alloy together, each sliced
+     * into layerCount layers with the given total scan length in mm.
+     */
+    public double getMachineHours(int alloy, int layerCount, double scanLength, int quantity) {
+        return (layerCount * layerTime[alloy] + quantity * scanLength / scanSpeed[alloy]) / SECONDS_PER_HOUR;
+    }
+
+    /**
+     * Returns the price of an order of quantity parts of the alloy, each with the given
+     * volume in mm3, that takes the given machine hours to build, rounded to hundredths of
+     * the currency.
+     */
+    public double getPrice(int alloy, double volume, double machineHours, int quantity) {
+        double material = quantity * volume / CUBIC_MM_PER_CM3 * materialCost[alloy];
+        return Math.round((setupCost[alloy] + material + machineHours * machineRate[alloy]) * HUNDREDTHS) / HUNDREDTHS;
+    }
+
+    /**
+     * Returns the price of an order of quantity parts of the alloy, each with the given
+     * volume in mm3 and built at the alloy's build rate, rounded to hundredths of the currency.
+     */
+    public double getPrice(int alloy, double volume, int quantity) {
+        return getPrice(alloy, volume, getMachineHours(alloy, volume, quantity), quantity);
+    }
+
+    /**
+     * Sets the mass of a single part, and the machine hours and price of quantity parts, on a
+     * quote that has a volume, using the slicing results if the quote has them.  The mass is
+     * rounded to hundredths of a gram and the machine hours to hundredths of an hour.
+     */
+    public void price(ModelQuote quote, int alloy, int quantity) {
+        double volume = quote.getVolume();
+        double machineHours = null == quote.getLayerCount() || null == quote.getScanLength() 
+                ? getMachineHours(alloy, volume, quantity) 
+                : getMachineHours(alloy, quote.getLayerCount(), quote.getScanLength(), quantity);
+        quote.setMass(Math.round(getMass(alloy, volume) * HUNDREDTHS) / HUNDREDTHS);
+        quote.setMachineHours(Math.round(machineHours * HUNDREDTHS) / HUNDREDTHS);
+        quote.setPrice(getPrice(alloy, volume, machineHours, quantity));
+    }
+}
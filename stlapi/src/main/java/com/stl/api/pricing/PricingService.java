@@ -0,0 +1,63 @@
+package com.stl.api.pricing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Properties;
+
+import org.springframework.core.io.Resource;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Holds the current {@link AlloyCatalog}.  The catalog is read when the service starts and
+ * whenever {@link #reload()} is invoked over JMX; a reloaded catalog replaces the previous
+ * one with a single volatile write, so requests never lock and always see a complete catalog.
+ * If the reloaded file is invalid the previous catalog stays in use.
+ */
+@ManagedResource(objectName = "com.stl.api:type=PricingService", description = "Alloy catalog used to price quotes")
+public class PricingService {
+    private final Resource catalogResource;
+    private volatile AlloyCatalog catalog;
+    private volatile long loadedAt;
+
+    public PricingService(Resource catalogResource) throws IOException {
+        this.catalogResource = catalogResource;
+        reload();
+    }
+
+    @ManagedOperation(description = "Reloads the alloy catalog, keeping the current one if the file is invalid")
+    public void reload() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = catalogResource.getInputStream()) {
+            properties.load(in);
+        }
+        AlloyCatalog loaded = AlloyCatalog.load(properties);
+        catalog = loaded;
+        loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns a pricer for quantity parts of the named alloy, or null if the alloy is not
+     * offered.  A null alloy returns {@link QuotePricer#NONE}.
+     */
+    public QuotePricer getPricer(String alloy, int quantity) {
+        if (null == alloy) {
+            return QuotePricer.NONE;
+        }
+        AlloyCatalog current = catalog;
+        int index = current.indexOf(alloy);
+        return index < 0 ? null : new QuotePricer(current, index, quantity);
+    }
+
+    @ManagedAttribute(description = "Names of the alloys offered")
+    public String[] getAlloys() {
+        return catalog.getNames();
+    }
+
+    @ManagedAttribute(description = "Time the catalog was last loaded")
+    public Date getLoadedAt() {
+        return new Date(loadedAt);
+    }
+}
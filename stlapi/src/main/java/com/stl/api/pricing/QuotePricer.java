@@ -0,0 +1,41 @@
+package com.stl.api.pricing;
+
+import com.stl.common.models.AssemblyQuote;
+import com.stl.common.models.ModelQuote;
+
+/**
+ * Prices the quotes of one request against the catalog that was current when the request
+ * arrived, so that every part of a batch is priced alike even if the catalog is reloaded
+ * while the batch is analyzed.  {@link #NONE} leaves quotes unpriced, for requests that do
+ * not name an alloy.
+ */
+public class QuotePricer {
+    public static final QuotePricer NONE = new QuotePricer(null, -1, 0);
+
+    private final AlloyCatalog catalog;
+    private final int alloy;
+    private final int quantity;
+
+    QuotePricer(AlloyCatalog catalog, int alloy, int quantity) {
+        this.catalog = catalog;
+        this.alloy = alloy;
+        this.quantity = quantity;
+    }
+
+    public void price(ModelQuote quote) {
+        if (null != catalog && null != quote.getVolume()) {
+            catalog.price(quote, alloy, quantity);
+        }
+    }
+
+    /**
+     * Prices each part as if ordered alone, and the total as a single order of all of them,
+     * which pays the setup cost once.
+     */
+    public void price(AssemblyQuote quote) {
+        for (ModelQuote part : quote.getParts()) {
+            price(part);
+        }
+        price(quote.getTotal());
+    }
+}
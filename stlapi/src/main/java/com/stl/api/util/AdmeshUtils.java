@@ -1,67 +1,67 @@
 package com.stl.api.util;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 
+/**
+ * Builds admesh command lines and scrapes results from admesh's report.  Processes are
+ * run through {@link com.stl.api.mesh.ExternalToolExecutor}, which bounds how many run at once.
+ */
 public class AdmeshUtils {
+    private static final String VOLUME_LABEL = "Volume   :";
+    private static final String FACETS_LABEL = "Number of facets  ";
+    private static final String HEADER_LABEL = "Header ";
 
-//    public static void main(String[] args) {
-//        BigDecimal volume = getVolume("testfile.stl");
-//        if (volume != null) {
-//            System.out.println("got result string: " + volume.toPlainString());
-//        }
-//    }
+    public static String[] getCommand(String absolutePath) {
+        return new String[] { "admesh", absolutePath };
+    }
 
-    public static BigDecimal getVolume(String absolutePath) {
-        BigDecimal volume = null;
-        
-        ProcessBuilder pb = new ProcessBuilder("admesh", absolutePath);
-        Process p = null;
-        try {
-            p = pb.start();
-            int returnValue = p.waitFor();
-            String resultString = slurp(p.getInputStream(), 512);
+    /**
+     * Returns the volume from admesh's report, or null if the report does not include one.
+     */
+    public static BigDecimal parseVolume(String resultString) {
+        return parseValue(resultString, VOLUME_LABEL);
+    }
 
-            String currentDir = System.getProperty("user.dir");
-            System.out.println("currentDir= " + currentDir);
-            System.out.println("Returned without exception. Return code: " + returnValue);
-            // TODO parse return code, need 0... 1 means failure
-//            System.out.println("got result string: " + resultString);
-            int indexOfVolume = resultString.indexOf("Volume   :  ");
-            if (indexOfVolume > 0) {
-                //System.out.println("index of volume: " + indexOfVolume);
-//                System.out.println("Volume:" + resultString.substring(indexOfVolume+12, indexOfVolume+21) );
-                String volumeString = resultString.substring(indexOfVolume+12, indexOfVolume+21);
-                volume = new BigDecimal(volumeString);
-            }
-        } catch (IOException|InterruptedException e) {
-            e.printStackTrace();
-            System.out.println("Critical error - IO error or interrupted...");
-        }
-        return volume;
+    /**
+     * Returns the number of facets read, the first column of the facet status table, or null if
+     * the report does not include one.
+     */
+    public static BigDecimal parseFacetCount(String resultString) {
+        return parseValue(resultString, FACETS_LABEL);
     }
-    
-    private static String slurp(final InputStream is, final int bufferSize) {
-        final char[] buffer = new char[bufferSize];
-        final StringBuilder out = new StringBuilder();
-        try (Reader in = new InputStreamReader(is, "UTF-8")) {
-            for (;;) {
-                int rsz = in.read(buffer, 0, buffer.length);
-                if (rsz < 0)
-                    break;
-                out.append(buffer, 0, rsz);
-            }
+
+    /**
+     * Returns a bound from the size section of admesh's report, or null if the report does not
+     * include it.  The bound is named as in the report, for example "Min X" or "Max Z".
+     */
+    public static BigDecimal parseBound(String resultString, String bound) {
+        return parseValue(resultString, bound + " =");
+    }
+
+    /**
+     * Parses the number following the first occurrence of the label, which admesh separates
+     * from its value with spaces and a colon or equals sign.  admesh echoes the STL header,
+     * which is arbitrary text, so the search starts on the line after it.
+     */
+    private static BigDecimal parseValue(String resultString, String label) {
+        int header = resultString.indexOf(HEADER_LABEL);
+        int from = header < 0 ? 0 : resultString.indexOf('\n', header);
+        int index = from < 0 ? -1 : resultString.indexOf(label, from);
+        if (index < 0) {
+            return null;
         }
-        catch (UnsupportedEncodingException ex) {
-            /* ... */
+        int start = index + label.length();
+        while (start < resultString.length() && " \t:=".indexOf(resultString.charAt(start)) >= 0) {
+            start++;
         }
-        catch (IOException ex) {
-            /* ... */
+        int end = start;
+        while (end < resultString.length() && "+-.0123456789eE".indexOf(resultString.charAt(end)) >= 0) {
+            end++;
+        }
+        try {
+            return new BigDecimal(resultString.substring(start, end));
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return out.toString();
     }
 }
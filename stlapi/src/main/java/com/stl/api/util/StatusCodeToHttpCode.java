@@ -29,6 +29,12 @@ public class StatusCodeToHttpCode {
             case StatusCodes.UNKNOWN_INTERNAL_ERROR_CODE:
                 status = HttpStatus.INTERNAL_SERVER_ERROR;
                 break;
+            case StatusCodes.INVALID_MESH_CODE:
+                status = HttpStatus.UNPROCESSABLE_ENTITY;
+                break;
+            case StatusCodes.SERVICE_BUSY_CODE:
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+                break;
             default:
                 break;   
         }
@@ -8,10 +8,17 @@ package com.stl.api.util;
 public enum StatusCodeType {
     OK(StatusCodes.OK_ERROR_CODE, null),
     UNKNOWN_INTERNAL_SERVER_ERROR(StatusCodes.UNKNOWN_INTERNAL_ERROR_CODE, "warehouse.api.error.unknown"),
+    SERVICE_BUSY(StatusCodes.SERVICE_BUSY_CODE, "warehouse.api.error.busy"),
     BAD_REQUEST_CANNOT_PARSE_BODY(StatusCodes.UNPARSABLE_REQUEST_CODE, "warehouse.api.error.bodyunparsable"),
     MODEL_NOT_FOUND(StatusCodes.ENTITY_NOT_FOUND_CODE, "warehouse.api.error.model.notfound"),
     UNSUPPORTED_ASSIGNMENT_TYPE(StatusCodes.UNSUPPORTED_VALUE_CODE, ""),
-    ENTITY_INVALID_IN_CONTEXT(StatusCodes.INVALID_ENTITY, "warehouse.api.error.invalidcontext");
+    UNSUPPORTED_ALLOY(StatusCodes.UNSUPPORTED_VALUE_CODE, "warehouse.api.error.alloy.unsupported"),
+    INVALID_QUANTITY(StatusCodes.UNSUPPORTED_VALUE_CODE, "warehouse.api.error.quantity.invalid"),
+    INVALID_RESOLUTION(StatusCodes.UNSUPPORTED_VALUE_CODE, "warehouse.api.error.resolution.invalid"),
+    INVALID_NESTING(StatusCodes.UNSUPPORTED_VALUE_CODE, "warehouse.api.error.nesting.invalid"),
+    TOO_MANY_PARTS(StatusCodes.UNSUPPORTED_VALUE_CODE, "warehouse.api.error.archive.toomanyparts"),
+    ENTITY_INVALID_IN_CONTEXT(StatusCodes.INVALID_ENTITY, "warehouse.api.error.invalidcontext"),
+    INVALID_MESH(StatusCodes.INVALID_MESH_CODE, "warehouse.api.error.mesh.invalid");
 
     private int code;
     private String key;
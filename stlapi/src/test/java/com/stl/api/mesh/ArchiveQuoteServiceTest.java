@@ -0,0 +1,173 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.TriangleSource;
+import com.stl.common.models.AssemblyQuote;
+
+@Test(groups = { "unit" })
+public class ArchiveQuoteServiceTest {
+    private static final double[] CUBE_VERTICES = { 0, 0, 0, 10, 0, 0, 0, 10, 0, 10, 10, 0, 
+        0, 0, 10, 10, 0, 10, 0, 10, 10, 10, 10, 10 };
+
+    private ExecutorService executor;
+    private File file;
+
+    @BeforeMethod
+    public void createExecutor() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        file = File.createTempFile("archive", ".zip");
+    }
+
+    @AfterMethod
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+        file.delete();
+    }
+
+    public void testStlEntriesAndBuildItems() throws IOException {
+        byte[] cube = JavaMeshEngineTest.toBinary(JavaMeshEngineTest.cube(0, 0, 0, 10));
+        //a component object placing the cube twice, and the cube itself mirrored
+        String model = model(
+                "<object id=\"1\" name=\"cube\" type=\"model\">" + cubeMesh() + "</object>"
+                + "<object id=\"2\" name=\"pair\"><components><component objectid=\"1\"/>"
+                + "<component objectid=\"1\" transform=\"1 0 0 0 1 0 0 0 1 20 0 0\"/></components></object>",
+                "<item objectid=\"2\"/><item objectid=\"1\" transform=\"-1 0 0 0 1 0 0 0 1 0 0 0\"/>");
+        writeArchive("part.stl", cube, "3D/3dmodel.model", model.getBytes(StandardCharsets.UTF_8));
+        AssemblyQuote quote = quote(javaEngine(), 16);
+        Assert.assertEquals(quote.getParts().size(), 3);
+        Assert.assertEquals(quote.getParts().get(0).getName(), "part.stl");
+        Assert.assertEquals(quote.getParts().get(1).getName(), "pair");
+        Assert.assertEquals(quote.getParts().get(1).getVolume(), 2000.0, 1e-6);
+        Assert.assertEquals(quote.getParts().get(2).getName(), "cube");
+        Assert.assertEquals(quote.getParts().get(2).getVolume(), 1000.0, 1e-6);
+        Assert.assertEquals(quote.getTotal().getVolume(), 4000.0, 1e-6);
+        Assert.assertNull(quote.getUnreadableParts());
+    }
+
+    public void testCorruptEntryIsReportedUnreadable() throws IOException {
+        byte[] cube = JavaMeshEngineTest.toBinary(JavaMeshEngineTest.cube(0, 0, 0, 10));
+        byte[] truncated = Arrays.copyOf(cube, cube.length - 20);
+        writeArchive("good.stl", cube, "bad.stl", truncated, "bad.model", "<model><build>".getBytes(StandardCharsets.UTF_8));
+        AssemblyQuote quote = quote(javaEngine(), 16);
+        Assert.assertEquals(quote.getParts().size(), 1);
+        Assert.assertEquals(quote.getParts().get(0).getName(), "good.stl");
+        Assert.assertEquals(quote.getUnreadableParts(), Arrays.asList("bad.stl", "bad.model"));
+    }
+
+    @Test(expectedExceptions = TooManyPartsException.class)
+    public void testStlEntriesOverTheCapAreRejected() throws IOException {
+        byte[] cube = JavaMeshEngineTest.toBinary(JavaMeshEngineTest.cube(0, 0, 0, 10));
+        writeArchive("a.stl", cube, "b.stl", cube, "c.stl", cube);
+        quote(javaEngine(), 2);
+    }
+
+    @Test(expectedExceptions = TooManyPartsException.class)
+    public void testBuildItemsCountTowardsTheCap() throws IOException {
+        byte[] cube = JavaMeshEngineTest.toBinary(JavaMeshEngineTest.cube(0, 0, 0, 10));
+        String model = model("<object id=\"1\">" + cubeMesh() + "</object>", 
+                "<item objectid=\"1\"/><item objectid=\"1\" transform=\"1 0 0 0 1 0 0 0 1 20 0 0\"/>");
+        writeArchive("a.stl", cube, "3D/3dmodel.model", model.getBytes(StandardCharsets.UTF_8));
+        quote(javaEngine(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnexpectedFailuresArePropagated() throws IOException {
+        byte[] cube = JavaMeshEngineTest.toBinary(JavaMeshEngineTest.cube(0, 0, 0, 10));
+        writeArchive("a.stl", cube, "b.stl", cube);
+        quote(new FailingEngine(), 16);
+    }
+
+    private AssemblyQuote quote(MeshEngine engine, int maxParts) throws IOException {
+        MeshAnalysisService analysis = new MeshAnalysisService(engine, new MeshMetricsCache(0, 0), new MeshMetricsStore(null));
+        try (ZipFile archive = new ZipFile(file)) {
+            return new ArchiveQuoteService(analysis, executor, 2, maxParts).quote(archive);
+        }
+    }
+
+    private static MeshEngine javaEngine() {
+        return new JavaMeshEngine(new MeshEngineConfig(), null);
+    }
+
+    /**
+     * Writes entries given as alternating names and contents.
+     */
+    private void writeArchive(Object... entries) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                out.putNextEntry(new ZipEntry((String) entries[i]));
+                out.write((byte[]) entries[i + 1]);
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static String model(String resources, String build) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<model unit=\"millimeter\" xmlns=\"http://schemas.microsoft.com/3dmanufacturing/core/2015/02\">"
+                + "<resources>" + resources + "</resources><build>" + build + "</build></model>";
+    }
+
+    private static String cubeMesh() {
+        StringBuilder mesh = new StringBuilder("<mesh><vertices>");
+        for (int i = 0; i < CUBE_VERTICES.length; i += 3) {
+            mesh.append("<vertex x=\"").append(CUBE_VERTICES[i]).append("\" y=\"").append(CUBE_VERTICES[i + 1])
+                    .append("\" z=\"").append(CUBE_VERTICES[i + 2]).append("\"/>");
+        }
+        mesh.append("</vertices><triangles>");
+        for (int[] face : JavaMeshEngineTest.CUBE_FACES) {
+            for (int k = 1; k < 3; k++) {
+                mesh.append("<triangle v1=\"").append(face[0]).append("\" v2=\"").append(face[k])
+                        .append("\" v3=\"").append(face[k + 1]).append("\"/>");
+            }
+        }
+        return mesh.append("</triangles></mesh>").toString();
+    }
+
+    /**
+     * An engine with a bug, failing every analysis with an unchecked exception.
+     */
+    private static class FailingEngine implements MeshEngine {
+        @Override
+        public MeshMetrics analyze(InputStream in, long size) {
+            throw new IllegalStateException("Engine failure");
+        }
+
+        @Override
+        public MeshMetrics analyze(File file, MeshProgress progress) {
+            throw new IllegalStateException("Engine failure");
+        }
+
+        @Override
+        public MeshMetrics analyze(TriangleSource source) {
+            throw new IllegalStateException("Engine failure");
+        }
+
+        @Override
+        public boolean prefersFile(long size) {
+            return false;
+        }
+
+        @Override
+        public String getFingerprint() {
+            return "failing";
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class ExternalToolExecutorTest {
+
+    public void testOutputAndExitCode() throws IOException {
+        ExternalToolExecutor executor = new ExternalToolExecutor(2, 2, 10);
+        try {
+            ExternalToolExecutor.ToolResult result = executor.run("sh", "-c", "echo out; echo err >&2; exit 3");
+            Assert.assertEquals(result.getExitCode(), 3);
+            Assert.assertTrue(result.getOutput().contains("out"));
+            Assert.assertTrue(result.getOutput().contains("err"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testWaitAndExecStats() throws IOException {
+        ExternalToolExecutor executor = new ExternalToolExecutor(1, 2, 10);
+        try {
+            executor.run("sleep", "0.2");
+            executor.run("true");
+            Assert.assertEquals(executor.getCompleted(), 2);
+            Assert.assertTrue(executor.getMaxExecMillis() >= 200, String.valueOf(executor.getMaxExecMillis()));
+            Assert.assertTrue(executor.getMeanExecMillis() >= 100 && executor.getMeanExecMillis() <= executor.getMaxExecMillis());
+            Assert.assertTrue(executor.getMaxWaitMillis() >= executor.getMeanWaitMillis());
+            Assert.assertEquals(executor.getRejected(), 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testBusyCallsWaitInTheQueue() throws Exception {
+        ExternalToolExecutor executor = new ExternalToolExecutor(1, 1, 10);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<ExternalToolExecutor.ToolResult> running = callers.submit(call(executor, "sleep", "0.5"));
+            awaitActive(executor);
+            Future<ExternalToolExecutor.ToolResult> queued = callers.submit(call(executor, "true"));
+            awaitQueued(executor);
+            try {
+                executor.run("true");
+                Assert.fail("a call beyond the queue capacity was accepted");
+            } catch (RejectedExecutionException e) {
+                Assert.assertEquals(executor.getRejected(), 1);
+            }
+            Assert.assertEquals(running.get().getExitCode(), 0);
+            Assert.assertEquals(queued.get().getExitCode(), 0);
+            //the queued call waited for the running one
+            Assert.assertTrue(executor.getMaxWaitMillis() >= 100, String.valueOf(executor.getMaxWaitMillis()));
+        } finally {
+            callers.shutdownNow();
+            executor.shutdown();
+        }
+    }
+
+    public void testZeroCapacityRejectsWhileBusy() throws Exception {
+        ExternalToolExecutor executor = new ExternalToolExecutor(1, 0, 10);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<ExternalToolExecutor.ToolResult> running = callers.submit(call(executor, "sleep", "0.5"));
+            awaitActive(executor);
+            try {
+                executor.run("true");
+                Assert.fail("a call was queued with a queue capacity of zero");
+            } catch (RejectedExecutionException e) {
+                Assert.assertEquals(executor.getRejected(), 1);
+            }
+            Assert.assertEquals(running.get().getExitCode(), 0);
+            //once the worker is back waiting for work calls run again
+            awaitIdle(executor);
+            Assert.assertEquals(executor.run("true").getExitCode(), 0);
+        } finally {
+            callers.shutdownNow();
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCapacityIsRejected() {
+        new ExternalToolExecutor(1, -1, 10);
+    }
+
+    public void testLongRunningProcessIsKilled() throws IOException {
+        ExternalToolExecutor executor = new ExternalToolExecutor(1, 1, 1);
+        try {
+            long start = System.nanoTime();
+            try {
+                executor.run("sleep", "30");
+                Assert.fail("the process outlived its timeout");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("killed"), e.getMessage());
+            }
+            Assert.assertTrue(System.nanoTime() - start < 10000000000L);
+            Assert.assertEquals(executor.getTimedOut(), 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Callable<ExternalToolExecutor.ToolResult> call(final ExternalToolExecutor executor, final String... command) {
+        return new Callable<ExternalToolExecutor.ToolResult>() {
+            @Override
+            public ExternalToolExecutor.ToolResult call() throws IOException {
+                return executor.run(command);
+            }
+        };
+    }
+
+    private static void awaitActive(ExternalToolExecutor executor) throws InterruptedException {
+        while (executor.getActiveCount() == 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitIdle(ExternalToolExecutor executor) throws InterruptedException {
+        while (executor.getActiveCount() > 0) {
+            Thread.sleep(5);
+        }
+        //the worker goes back to the queue just after it stops counting as active
+        Thread.sleep(50);
+    }
+
+    private static void awaitQueued(ExternalToolExecutor executor) throws InterruptedException {
+        while (executor.getQueueDepth() == 0) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.stl.api.mesh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.stl.common.mesh.BinaryStlWriter;
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.TriangleBuffer;
+
+@Test(groups = { "unit" })
+public class JavaMeshEngineTest {
+    //corners of each face of a cube, by bit: 1 for high x, 2 for high y, 4 for high z
+    static final int[][] CUBE_FACES = {
+        { 0, 2, 3, 1 }, { 4, 5, 7, 6 }, { 0, 1, 5, 4 }, { 2, 6, 7, 3 }, { 0, 4, 6, 2 }, { 1, 3, 7, 5 } };
+
+    public void testBinaryCubeVolume() throws IOException {
+        byte[] stl = toBinary(cube(10, 20, 0, 10));
+        MeshMetrics metrics = new JavaMeshEngine(new MeshEngineConfig(), null).analyze(new ByteArrayInputStream(stl), stl.length);
+        Assert.assertEquals(metrics.getVolume(), 1000.0, 1e-9);
+        Assert.assertEquals(metrics.getTriangleCount(), 12);
+        Assert.assertEquals(metrics.getMinX(), 10f);
+        Assert.assertEquals(metrics.getMaxY(), 30f);
+        Assert.assertEquals(metrics.getMaxZ(), 10f);
+    }
+
+    public void testVolumeDoesNotDependOnPosition() throws IOException {
+        byte[] stl = toBinary(cube(1000, 2000, -500, 10));
+        MeshMetrics metrics = new JavaMeshEngine(new MeshEngineConfig(), null).analyze(new ByteArrayInputStream(stl), stl.length);
+        Assert.assertEquals(metrics.getVolume(), 1000.0, 1e-6);
+    }
+
+    public void testMappedFileMatchesTheStream() throws IOException {
+        byte[] stl = toBinary(cube(10, 20, 0, 10));
+        File file = File.createTempFile("cube", ".stl");
+        try {
+            Files.write(file.toPath(), stl);
+            MeshEngineConfig streaming = new MeshEngineConfig();
+            streaming.setMappedThreshold(Long.MAX_VALUE);
+            MeshEngineConfig mapping = new MeshEngineConfig();
+            mapping.setMappedThreshold(0);
+            MeshMetrics streamed = new JavaMeshEngine(streaming, null).analyze(file, null);
+            Assert.assertEquals(streamed, new JavaMeshEngine(streaming, null).analyze(new ByteArrayInputStream(stl), stl.length));
+            Assert.assertEquals(new JavaMeshEngine(mapping, null).analyze(file, null), streamed);
+            Assert.assertEquals(streamed.getSurfaceArea(), 600.0, 1e-9);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testValidationSlotIsReleased() throws IOException {
+        //the default tolerance of 0 matches corners exactly
+        byte[] stl = toBinary(cube(10, 20, 0, 10));
+        File file = File.createTempFile("cube", ".stl");
+        try {
+            Files.write(file.toPath(), stl);
+            MeshEngineConfig config = new MeshEngineConfig();
+            config.setValidate(true);
+            config.setMaxConcurrentValidations(1);
+            config.setMappedThreshold(stl.length);
+            JavaMeshEngine engine = new JavaMeshEngine(config, null);
+            for (int i = 0; i < 3; i++) {
+                MeshMetrics streamed = engine.analyze(new ByteArrayInputStream(stl), stl.length);
+                Assert.assertTrue(streamed.getValidity().isValid(), streamed.getValidity().toString());
+                MeshMetrics mapped = engine.analyze(file, null);
+                Assert.assertTrue(mapped.getValidity().isValid(), mapped.getValidity().toString());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testEngineSwitch() {
+        MeshEngineConfig config = new MeshEngineConfig();
+        Assert.assertTrue(MeshEngines.forConfig(config, null, null) instanceof JavaMeshEngine);
+        config.setEngine("ADMESH");
+        Assert.assertTrue(MeshEngines.forConfig(config, null, null) instanceof AdmeshMeshEngine);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownEngineIsRejected() {
+        MeshEngineConfig config = new MeshEngineConfig();
+        config.setEngine("netfabb");
+        MeshEngines.forConfig(config, null, null);
+    }
+
+    static TriangleBuffer cube(double x, double y, double z, double side) {
+        TriangleBuffer buffer = new TriangleBuffer();
+        float[][] corners = new float[8][];
+        for (int i = 0; i < 8; i++) {
+            corners[i] = new float[] { (float) (0 == (i & 1) ? x : x + side), (float) (0 == (i & 2) ? y : y + side),
+                (float) (0 == (i & 4) ? z : z + side) };
+        }
+        for (int[] face : CUBE_FACES) {
+            for (int k = 1; k < 3; k++) {
+                float[] a = corners[face[0]], b = corners[face[k]], c = corners[face[k + 1]];
+                buffer.triangle(a[0], a[1], a[2], b[0], b[1], b[2], c[0], c[1], c[2]);
+            }
+        }
+        return buffer;
+    }
+
+    static byte[] toBinary(TriangleBuffer mesh) throws IOException {
+        try (TriangleBuffer closed = mesh) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryStlWriter.write(closed, "cube", out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.TriangleSource;
+
+@Test(groups = { "unit" })
+public class MeshAnalysisServiceTest {
+    private File archive;
+
+    @BeforeMethod
+    public void writeArchive() throws IOException {
+        archive = File.createTempFile("parts", ".zip");
+        byte[] cube = JavaMeshEngineTest.toBinary(JavaMeshEngineTest.cube(0, 0, 0, 10));
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (String name : new String[] { "a.stl", "b.stl" }) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(cube);
+                out.closeEntry();
+            }
+        }
+    }
+
+    @AfterMethod
+    public void deleteArchive() {
+        archive.delete();
+    }
+
+    public void testBufferedEntryIsAnalyzedOnce() throws IOException {
+        CountingEngine engine = new CountingEngine(false);
+        MeshAnalysisService service = new MeshAnalysisService(engine, new MeshMetricsCache(16, 3600), new MeshMetricsStore(null));
+        try (ZipFile zip = new ZipFile(archive)) {
+            MeshMetrics first = service.analyze(zip, zip.getEntry("a.stl"));
+            //the same content under another name is answered from the cache
+            Assert.assertEquals(service.analyze(zip, zip.getEntry("b.stl")), first);
+            Assert.assertEquals(first.getVolume(), 1000.0, 1e-9);
+        }
+        Assert.assertEquals(engine.streamed, 1);
+        Assert.assertEquals(engine.files, 0);
+    }
+
+    public void testSpooledEntryIsAnalyzedOnce() throws IOException {
+        CountingEngine engine = new CountingEngine(true);
+        MeshAnalysisService service = new MeshAnalysisService(engine, new MeshMetricsCache(16, 3600), new MeshMetricsStore(null));
+        try (ZipFile zip = new ZipFile(archive)) {
+            MeshMetrics first = service.analyze(zip, zip.getEntry("a.stl"));
+            Assert.assertEquals(service.analyze(zip, zip.getEntry("b.stl")), first);
+            Assert.assertEquals(first.getVolume(), 1000.0, 1e-9);
+        }
+        Assert.assertEquals(engine.streamed, 0);
+        Assert.assertEquals(engine.files, 1);
+    }
+
+    /**
+     * The java engine, counting the analyses it is asked for and preferring files or streams as told.
+     */
+    private static class CountingEngine implements MeshEngine {
+        private final JavaMeshEngine engine = new JavaMeshEngine(new MeshEngineConfig(), null);
+        private final boolean prefersFile;
+        private int streamed;
+        private int files;
+
+        CountingEngine(boolean prefersFile) {
+            this.prefersFile = prefersFile;
+        }
+
+        @Override
+        public MeshMetrics analyze(InputStream in, long size) throws IOException {
+            streamed++;
+            return engine.analyze(in, size);
+        }
+
+        @Override
+        public MeshMetrics analyze(File file, MeshProgress progress) throws IOException {
+            files++;
+            return engine.analyze(file, progress);
+        }
+
+        @Override
+        public MeshMetrics analyze(TriangleSource source) throws IOException {
+            return engine.analyze(source);
+        }
+
+        @Override
+        public boolean prefersFile(long size) {
+            return prefersFile;
+        }
+
+        @Override
+        public String getFingerprint() {
+            return engine.getFingerprint();
+        }
+    }
+}
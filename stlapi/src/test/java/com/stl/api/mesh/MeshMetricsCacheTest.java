@@ -0,0 +1,57 @@
+package com.stl.api.mesh;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.stl.common.mesh.MeshMetrics;
+
+@Test(groups = { "unit" })
+public class MeshMetricsCacheTest {
+
+    public void testLeastRecentlyUsedIsEvicted() throws IOException {
+        MeshMetricsCache cache = new MeshMetricsCache(2, 3600);
+        ContentDigest a = digest("a"), b = digest("b"), c = digest("c");
+        cache.put(a, metrics(1));
+        cache.put(b, metrics(2));
+        //reading a makes b the least recently used
+        Assert.assertEquals(cache.get(a).getVolume(), 1.0);
+        cache.put(c, metrics(3));
+        Assert.assertNull(cache.get(b));
+        Assert.assertEquals(cache.get(a).getVolume(), 1.0);
+        Assert.assertEquals(cache.get(c).getVolume(), 3.0);
+        Assert.assertEquals(cache.getSize(), 2);
+        Assert.assertEquals(cache.getEvictions(), 1);
+        Assert.assertEquals(cache.getHits(), 3);
+        Assert.assertEquals(cache.getMisses(), 1);
+    }
+
+    public void testEntriesExpire() throws Exception {
+        MeshMetricsCache cache = new MeshMetricsCache(2, 0);
+        ContentDigest a = digest("a");
+        cache.put(a, metrics(1));
+        Thread.sleep(2);
+        Assert.assertNull(cache.get(a));
+        Assert.assertEquals(cache.getSize(), 0);
+        Assert.assertEquals(cache.getExpirations(), 1);
+        Assert.assertEquals(cache.getEvictions(), 0);
+    }
+
+    public void testZeroEntriesDisablesCaching() throws IOException {
+        MeshMetricsCache cache = new MeshMetricsCache(0, 3600);
+        ContentDigest a = digest("a");
+        cache.put(a, metrics(1));
+        Assert.assertNull(cache.get(a));
+    }
+
+    static ContentDigest digest(String content) throws IOException {
+        return ContentDigest.of(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static MeshMetrics metrics(double volume) {
+        return new MeshMetrics.Builder().volume(volume).triangleCount(12).build();
+    }
+}
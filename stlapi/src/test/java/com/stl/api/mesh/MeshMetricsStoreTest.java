@@ -0,0 +1,179 @@
+package com.stl.api.mesh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshValidity;
+
+@Test(groups = { "unit" })
+public class MeshMetricsStoreTest {
+    private File directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("store").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    public void testResultsSurviveReopening() throws IOException {
+        MeshMetrics metrics = new MeshMetrics.Builder().volume(1000).surfaceArea(600).triangleCount(12)
+                .bounds(0, 0, 0, 10, 10, 10).validity(new MeshValidity(0, 0, 0, 0)).build();
+        try (MeshMetricsStore store = open()) {
+            store.put(digest(0), metrics);
+            Assert.assertEquals(store.get(digest(0)), metrics);
+        }
+        try (MeshMetricsStore store = open()) {
+            Assert.assertEquals(store.get(digest(0)), metrics);
+            Assert.assertNull(store.get(digest(1)));
+            Assert.assertEquals(store.getEntries(), 1);
+        }
+    }
+
+    public void testTornTailIsTruncated() throws IOException {
+        long length;
+        try (MeshMetricsStore store = open()) {
+            store.put(digest(0), metrics(1));
+            store.put(digest(1), metrics(2));
+            length = store.getLogLength();
+        }
+        //part of a third record, as left by a crash during the write
+        try (RandomAccessFile log = new RandomAccessFile(new File(directory, "metrics.log"), "rw")) {
+            log.seek(length);
+            log.write(new byte[17]);
+        }
+        try (MeshMetricsStore store = open()) {
+            Assert.assertEquals(store.getLogLength(), length);
+            Assert.assertEquals(store.get(digest(0)), metrics(1));
+            Assert.assertEquals(store.get(digest(1)), metrics(2));
+        }
+    }
+
+    public void testLogIsTruncatedAtAChecksumMismatch() throws IOException {
+        long empty, recordSize;
+        try (MeshMetricsStore store = open()) {
+            empty = store.getLogLength();
+            store.put(digest(0), metrics(1));
+            recordSize = store.getLogLength() - empty;
+            store.put(digest(1), metrics(2));
+            store.put(digest(2), metrics(3));
+        }
+        //flip a byte in the payload of the second record and drop the index, so the log is scanned
+        try (RandomAccessFile log = new RandomAccessFile(new File(directory, "metrics.log"), "rw")) {
+            long position = empty + recordSize + 40;
+            log.seek(position);
+            int b = log.read();
+            log.seek(position);
+            log.write(b ^ 0xFF);
+        }
+        Assert.assertTrue(new File(directory, "metrics.idx").delete());
+        try (MeshMetricsStore store = open()) {
+            Assert.assertEquals(store.getLogLength(), empty + recordSize);
+            Assert.assertEquals(store.get(digest(0)), metrics(1));
+            Assert.assertNull(store.get(digest(1)));
+            Assert.assertNull(store.get(digest(2)));
+            Assert.assertEquals(store.getEntries(), 1);
+        }
+    }
+
+    public void testIndexGrowsAndIsRebuilt() throws IOException {
+        //more entries than the initial index holds at its maximum load
+        int count = 2000;
+        long indexLength;
+        try (MeshMetricsStore store = open()) {
+            long initial = new File(directory, "metrics.idx").length();
+            for (int i = 0; i < count; i++) {
+                store.put(digest(i), metrics(i));
+            }
+            Assert.assertEquals(store.getEntries(), count);
+            indexLength = new File(directory, "metrics.idx").length();
+            Assert.assertTrue(indexLength > initial);
+        }
+        //a truncated index is discarded and rebuilt from the log at a size that holds every entry
+        try (RandomAccessFile index = new RandomAccessFile(new File(directory, "metrics.idx"), "rw")) {
+            index.setLength(index.length() / 2);
+        }
+        try (MeshMetricsStore store = open()) {
+            Assert.assertEquals(store.getEntries(), count);
+            Assert.assertEquals(new File(directory, "metrics.idx").length(), indexLength);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(store.get(digest(i)), metrics(i));
+            }
+        }
+    }
+
+    public void testCompactionKeepsTheLatestRecords() throws IOException {
+        long compactedLength;
+        try (MeshMetricsStore store = open()) {
+            store.put(digest(0), metrics(1));
+            store.put(digest(1), metrics(2));
+            long twoRecords = store.getLogLength();
+            store.put(digest(0), metrics(3));
+            store.put(digest(0), metrics(4));
+            Assert.assertEquals(store.getSupersededRecords(), 2);
+
+            store.compact();
+            compactedLength = store.getLogLength();
+            Assert.assertEquals(compactedLength, twoRecords);
+            Assert.assertEquals(store.getSupersededRecords(), 0);
+            Assert.assertEquals(store.get(digest(0)), metrics(4));
+            Assert.assertEquals(store.get(digest(1)), metrics(2));
+            Assert.assertFalse(new File(directory, "metrics.log.compact").exists());
+            //the store is still writable after the files were swapped
+            store.put(digest(2), metrics(5));
+        }
+        try (MeshMetricsStore store = open()) {
+            Assert.assertEquals(store.getEntries(), 3);
+            Assert.assertTrue(store.getLogLength() > compactedLength);
+            Assert.assertEquals(store.get(digest(0)), metrics(4));
+            Assert.assertEquals(store.get(digest(1)), metrics(2));
+            Assert.assertEquals(store.get(digest(2)), metrics(5));
+        }
+    }
+
+    public void testLeftoverCompactionIsDeleted() throws IOException {
+        File leftover = new File(directory, "metrics.log.compact");
+        Assert.assertTrue(leftover.createNewFile());
+        try (MeshMetricsStore store = open()) {
+            Assert.assertTrue(store.isEnabled());
+            Assert.assertFalse(leftover.exists());
+        }
+    }
+
+    public void testEmptyDirectoryDisablesTheStore() throws IOException {
+        try (MeshMetricsStore store = new MeshMetricsStore(" ")) {
+            store.open();
+            store.put(digest(0), metrics(1));
+            Assert.assertFalse(store.isEnabled());
+            Assert.assertNull(store.get(digest(0)));
+        }
+    }
+
+    private MeshMetricsStore open() throws IOException {
+        MeshMetricsStore store = new MeshMetricsStore(directory.getPath());
+        store.open();
+        return store;
+    }
+
+    private static ContentDigest digest(int i) throws IOException {
+        return MeshMetricsCacheTest.digest("part " + i);
+    }
+
+    private static MeshMetrics metrics(double volume) {
+        return MeshMetricsCacheTest.metrics(volume);
+    }
+}
@@ -0,0 +1,284 @@
+package com.stl.api.mesh;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.web.multipart.MultipartFile;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.stl.common.mesh.MeshMetrics;
+import com.stl.common.mesh.MeshProgress;
+import com.stl.common.mesh.StlFormatException;
+import com.stl.common.mesh.TriangleSource;
+import com.stl.common.models.QuoteJob;
+import com.stl.common.models.QuoteJobStatus;
+
+@Test(groups = { "unit" })
+public class QuoteJobServiceTest {
+
+    public void testConcurrentSubmissionsNeverOverfillTheQueue() throws Exception {
+        final GatedEngine engine = new GatedEngine();
+        final QuoteJobService service = newService(engine, 3, 3600, 60);
+        try {
+            service.submit(new Upload(1));
+            engine.started.acquire();
+            final int submitters = 16;
+            final CountDownLatch go = new CountDownLatch(1);
+            final AtomicInteger accepted = new AtomicInteger();
+            final AtomicInteger rejected = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < submitters; i++) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            go.await();
+                            service.submit(new Upload(1));
+                            accepted.incrementAndGet();
+                        } catch (RejectedExecutionException e) {
+                            rejected.incrementAndGet();
+                        } catch (IOException | InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            go.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals(accepted.get(), 3);
+            Assert.assertEquals(rejected.get(), submitters - 3);
+            Assert.assertEquals(service.getQueuedJobs(), 3);
+            engine.gate.countDown();
+            for (long id = 1; id <= 4; id++) {
+                Assert.assertEquals(await(service, id, QuoteJobStatus.COMPLETED).getStatus(), QuoteJobStatus.COMPLETED);
+            }
+            Assert.assertEquals(service.getQueuedJobs(), 0);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public void testCancelQueuedAndRunningJobs() throws Exception {
+        GatedEngine engine = new GatedEngine();
+        QuoteJobService service = newService(engine, 2, 3600, 60);
+        try {
+            QuoteJob running = service.submit(new Upload(1));
+            engine.started.acquire();
+            QuoteJob queued = service.submit(new Upload(2));
+            Assert.assertEquals(service.getQueuedJobs(), 1);
+
+            Assert.assertEquals(service.cancel(queued.getId()).getStatus(), QuoteJobStatus.CANCELLED);
+            Assert.assertEquals(service.getQueuedJobs(), 0);
+            //a running job only stops at its next progress check
+            Assert.assertEquals(service.cancel(running.getId()).getStatus(), QuoteJobStatus.RUNNING);
+            engine.gate.countDown();
+            await(service, running.getId(), QuoteJobStatus.CANCELLED);
+            Assert.assertEquals(engine.order, Arrays.asList(1L));
+            Assert.assertNull(service.cancel(99));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public void testUnreadableAndUnexpectedFailures() throws Exception {
+        GatedEngine engine = new GatedEngine();
+        engine.gate.countDown();
+        QuoteJobService service = newService(engine, 2, 3600, 60);
+        try {
+            QuoteJob unreadable = await(service, service.submit(new Upload(1, GatedEngine.UNREADABLE)).getId(), QuoteJobStatus.FAILED);
+            Assert.assertEquals(unreadable.getError(), "unable to read file upload");
+            QuoteJob broken = await(service, service.submit(new Upload(1, GatedEngine.BROKEN)).getId(), QuoteJobStatus.FAILED);
+            Assert.assertEquals(broken.getError(), "unable to quote file upload");
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public void testSmallJobsOvertakeLargeOnesWithinTheAgingPeriod() throws Exception {
+        Assert.assertEquals(runBehindBlocker(60), Arrays.asList(1L, 100L, 300 * 1024L));
+    }
+
+    public void testAgedJobsKeepTheirPlace() throws Exception {
+        Assert.assertEquals(runBehindBlocker(0), Arrays.asList(1L, 300 * 1024L, 100L));
+    }
+
+    public void testFinishedJobsExpire() throws Exception {
+        GatedEngine engine = new GatedEngine();
+        engine.gate.countDown();
+        QuoteJobService service = newService(engine, 2, 0, 60);
+        try {
+            long id = service.submit(new Upload(1)).getId();
+            await(service, id, QuoteJobStatus.COMPLETED);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (null != service.get(id) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertNull(service.get(id));
+            Assert.assertEquals(service.getRetainedJobs(), 0);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Queues a large upload and then a small one while a worker is busy and returns the sizes
+     * of the uploads in the order they were analyzed.
+     */
+    private static List<Long> runBehindBlocker(long agingSeconds) throws Exception {
+        GatedEngine engine = new GatedEngine();
+        QuoteJobService service = newService(engine, 2, 3600, agingSeconds);
+        try {
+            service.submit(new Upload(1));
+            engine.started.acquire();
+            long large = service.submit(new Upload(300 * 1024)).getId();
+            long small = service.submit(new Upload(100)).getId();
+            engine.gate.countDown();
+            await(service, large, QuoteJobStatus.COMPLETED);
+            await(service, small, QuoteJobStatus.COMPLETED);
+            return engine.order;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static QuoteJobService newService(MeshEngine engine, int queueCapacity, long retentionSeconds, long agingSeconds) {
+        MeshAnalysisService analysis = new MeshAnalysisService(engine, new MeshMetricsCache(0, 0), new MeshMetricsStore(null));
+        return new QuoteJobService(analysis, 1, queueCapacity, retentionSeconds, agingSeconds);
+    }
+
+    private static QuoteJob await(QuoteJobService service, long id, QuoteJobStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        QuoteJob job = service.get(id);
+        while (job.getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = service.get(id);
+        }
+        Assert.assertEquals(job.getStatus(), status);
+        return job;
+    }
+
+    /**
+     * Holds every analysis until the gate opens and records the size of each file it is given.
+     * Files starting with {@link #UNREADABLE} fail to parse and those starting with
+     * {@link #BROKEN} fail with an unexpected exception.
+     */
+    private static class GatedEngine implements MeshEngine {
+        static final byte UNREADABLE = 'u';
+        static final byte BROKEN = 'b';
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final Semaphore started = new Semaphore(0);
+        private final List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+
+        @Override
+        public MeshMetrics analyze(File file, MeshProgress progress) throws IOException {
+            order.add(file.length());
+            started.release();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            progress.checkCancelled();
+            byte first = Files.readAllBytes(file.toPath())[0];
+            if (first == UNREADABLE) {
+                throw new StlFormatException("Not an STL file");
+            }
+            if (first == BROKEN) {
+                throw new IllegalStateException("Engine failure");
+            }
+            return MeshMetricsCacheTest.metrics(file.length());
+        }
+
+        @Override
+        public MeshMetrics analyze(InputStream in, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MeshMetrics analyze(TriangleSource source) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean prefersFile(long size) {
+            return true;
+        }
+
+        @Override
+        public String getFingerprint() {
+            return "gated";
+        }
+    }
+
+    /**
+     * An upload of the given size, filled with a marker byte.
+     */
+    private static class Upload implements MultipartFile {
+        private final byte[] content;
+
+        Upload(int size) {
+            this(size, (byte) 's');
+        }
+
+        Upload(int size, byte marker) {
+            content = new byte[size];
+            Arrays.fill(content, marker);
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "part.stl";
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/sla";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content.clone();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), content);
+        }
+    }
+}
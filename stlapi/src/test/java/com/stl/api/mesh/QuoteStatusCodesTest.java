@@ -0,0 +1,41 @@
+package com.stl.api.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.stl.api.util.StatusCode;
+import com.stl.api.util.StatusCodes;
+import com.stl.common.mesh.MeshValidity;
+import com.stl.common.mesh.StlFormatException;
+
+@Test(groups = { "unit" })
+public class QuoteStatusCodesTest {
+
+    public void testUnreadableUploadsAreClientErrors() {
+        Assert.assertEquals(QuoteStatusCodes.getStatusCode(new IOException("truncated")).getCode(), 
+                StatusCodes.UNPARSABLE_REQUEST_CODE);
+        Assert.assertEquals(QuoteStatusCodes.getStatusCode(new StlFormatException("Invalid STL coordinate")).getCode(), 
+                StatusCodes.UNPARSABLE_REQUEST_CODE);
+    }
+
+    public void testQuoteFailuresKeepTheirCodes() {
+        StatusCode invalid = QuoteStatusCodes.getStatusCode(new InvalidMeshException(new MeshValidity(3, 1, 2, 0)));
+        Assert.assertEquals(invalid.getCode(), StatusCodes.INVALID_MESH_CODE);
+        Assert.assertEquals(invalid.getArguments(), new Object[] { 3L, 1L, 2L });
+        StatusCode tooMany = QuoteStatusCodes.getStatusCode(new TooManyPartsException(256));
+        Assert.assertEquals(tooMany.getCode(), StatusCodes.UNSUPPORTED_VALUE_CODE);
+        Assert.assertEquals(tooMany.getArguments(), new Object[] { 256 });
+        Assert.assertEquals(QuoteStatusCodes.getStatusCode(new RejectedExecutionException()).getCode(), 
+                StatusCodes.SERVICE_BUSY_CODE);
+    }
+
+    public void testOtherFailuresAreInternalErrors() {
+        Assert.assertEquals(QuoteStatusCodes.getStatusCode(new IllegalStateException("bug")).getCode(), 
+                StatusCodes.UNKNOWN_INTERNAL_ERROR_CODE);
+        Assert.assertEquals(QuoteStatusCodes.getStatusCode(new NullPointerException()).getCode(), 
+                StatusCodes.UNKNOWN_INTERNAL_ERROR_CODE);
+    }
+}
@@ -0,0 +1,119 @@
+package com.stl.api.nesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.stl.common.models.BoundingBox;
+import com.stl.common.models.BuildPlate;
+import com.stl.common.models.NestingPart;
+import com.stl.common.models.NestingRequest;
+import com.stl.common.models.NestingResult;
+import com.stl.common.models.PartPlacement;
+import com.stl.common.models.Point3d;
+
+@Test(groups = { "unit" })
+public class NestingServiceTest {
+    //the sorts each search starts from, all packed by the one search run without a pool
+    private static final long SORTS = 5;
+
+    public void testPlateCount() {
+        NestingService service = new NestingService(null, 100, 100, 100, 0, 100, 0);
+        NestingResult full = service.nest(request(part("square", 50, 50, 4)));
+        Assert.assertEquals(full.getPlateCount(), Integer.valueOf(1));
+        Assert.assertEquals(full.getPlates().get(0).getPlacements().size(), 4);
+        Assert.assertEquals(full.getUtilization(), 1.0);
+        Assert.assertNull(full.getUnplacedParts());
+
+        NestingResult over = service.nest(request(part("square", 50, 50, 5)));
+        Assert.assertEquals(over.getPlateCount(), Integer.valueOf(2));
+        Assert.assertEquals(over.getPlates().get(0).getUtilization(), 1.0);
+        Assert.assertEquals(over.getPlates().get(1).getUtilization(), 0.25);
+    }
+
+    public void testSpacingIsKeptBetweenParts() {
+        NestingService service = new NestingService(null, 100, 100, 100, 0, 100, 0);
+        NestingRequest request = request(part("square", 49, 49, 4));
+        request.setSpacing(2.0);
+        Assert.assertEquals(service.nest(request).getPlateCount(), Integer.valueOf(1));
+        request.setSpacing(3.0);
+        Assert.assertEquals(service.nest(request).getPlateCount(), Integer.valueOf(4));
+    }
+
+    public void testOversizedPartsAreUnplaced() {
+        NestingService service = new NestingService(null, 100, 100, 50, 0, 100, 0);
+        NestingResult result = service.nest(request(part("long", 150, 10, 2), part("tall", 10, 10, 1, 60),
+                part("turned", 10, 100, 1)));
+        Assert.assertEquals(result.getUnplacedParts(), Arrays.asList("long", "tall"));
+        Assert.assertEquals(result.getPlateCount(), Integer.valueOf(1));
+        Assert.assertEquals(result.getPlates().get(0).getPlacements().get(0).getName(), "turned");
+
+        NestingResult none = service.nest(request(part("long", 150, 10, 1)));
+        Assert.assertEquals(none.getPlateCount(), Integer.valueOf(0));
+        Assert.assertTrue(none.getPlates().isEmpty());
+        Assert.assertEquals(none.getUnplacedParts(), Arrays.asList("long"));
+    }
+
+    public void testQuantityIsExpandedIntoCopies() {
+        NestingService service = new NestingService(null, 100, 100, 100, 0, 100, 0);
+        NestingResult result = service.nest(request(part("bracket", 20, 10, 3), part("plate", 30, 30, null)));
+        List<String> placed = new ArrayList<String>();
+        for (BuildPlate plate : result.getPlates()) {
+            for (PartPlacement placement : plate.getPlacements()) {
+                placed.add(placement.getName() + "#" + placement.getCopy());
+            }
+        }
+        Assert.assertEquals(placed.size(), 4);
+        Assert.assertTrue(placed.containsAll(Arrays.asList("bracket#0", "bracket#1", "bracket#2", "plate#0")), placed.toString());
+    }
+
+    public void testTooManyParts() {
+        NestingService service = new NestingService(null, 100, 100, 100, 0, 5, 0);
+        Assert.assertEquals(service.nest(request(part("a", 10, 10, 5))).getPlateCount(), Integer.valueOf(1));
+        try {
+            service.nest(request(part("a", 10, 10, 3), part("b", 10, 10, 3)));
+            Assert.fail("nested more than maxParts copies");
+        } catch (InvalidNestingException e) {
+            Assert.assertEquals(e.getField(), "parts[1].quantity");
+            Assert.assertEquals(e.getValue(), 3);
+        }
+        //parts that cannot be placed do not count
+        Assert.assertEquals(service.nest(request(part("a", 10, 10, 5), part("long", 150, 10, 3)))
+                .getUnplacedParts(), Arrays.asList("long"));
+    }
+
+    @Test(expectedExceptions = InvalidNestingException.class)
+    public void testNonPositiveQuantityIsRejected() {
+        new NestingService(null, 100, 100, 100, 0, 100, 0).nest(request(part("a", 10, 10, 0)));
+    }
+
+    @Test(timeOut = 10000)
+    public void testSearchStopsAtTheAreaBound() {
+        //the budget is never spent: the first sort already needs no more plates than the area
+        NestingService service = new NestingService(null, 100, 100, 100, 0, 100, 60000);
+        NestingResult result = service.nest(request(part("square", 50, 50, 6), part("strip", 100, 25, 2)));
+        Assert.assertEquals(result.getPlateCount(), Integer.valueOf(2));
+        Assert.assertEquals(result.getCandidates(), Long.valueOf(SORTS));
+    }
+
+    private static NestingRequest request(NestingPart... parts) {
+        NestingRequest request = new NestingRequest();
+        request.setParts(Arrays.asList(parts));
+        return request;
+    }
+
+    private static NestingPart part(String name, double width, double depth, Integer quantity) {
+        return part(name, width, depth, quantity, 10);
+    }
+
+    private static NestingPart part(String name, double width, double depth, Integer quantity, double height) {
+        NestingPart part = new NestingPart();
+        part.setName(name);
+        part.setQuantity(quantity);
+        part.setBoundingBox(new BoundingBox(new Point3d(5.0, -5.0, 0.0), new Point3d(5 + width, depth - 5, height)));
+        return part;
+    }
+}
@@ -0,0 +1,33 @@
+package com.stl.api.util;
+
+import java.math.BigDecimal;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class AdmeshUtilsTest {
+    //the parts of an admesh report the quote reads, with a header that mentions a volume itself
+    private static final String REPORT = "ADMesh version 0.98.2\n"
+            + "Input file         : /tmp/part.stl\n"
+            + "File type          : Binary STL file\n"
+            + "Header             : Volume   : 1.0 Min X = 5\n"
+            + "============== Size ==============\n"
+            + "Min X = -5.000000, Max X = 5.000000\n"
+            + "Min Y = -2.500000, Max Y = 2.500000\n"
+            + "Min Z =  0.000000, Max Z = 10.000000\n"
+            + "========= Facet Status ========== Original ============ Final ====\n"
+            + "Number of facets                 :    12                12\n"
+            + "Volume   :  500.000000\n";
+
+    public void testParsesValuesAfterTheHeader() {
+        Assert.assertEquals(AdmeshUtils.parseVolume(REPORT), new BigDecimal("500.000000"));
+        Assert.assertEquals(AdmeshUtils.parseFacetCount(REPORT), new BigDecimal("12"));
+        Assert.assertEquals(AdmeshUtils.parseBound(REPORT, "Min X"), new BigDecimal("-5.000000"));
+        Assert.assertEquals(AdmeshUtils.parseBound(REPORT, "Max Z"), new BigDecimal("10.000000"));
+    }
+
+    public void testMissingVolumeIsNull() {
+        Assert.assertNull(AdmeshUtils.parseVolume("Header : part\nNumber of facets : 12\n"));
+    }
+}
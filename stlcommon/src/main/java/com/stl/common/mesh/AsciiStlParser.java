@@ -0,0 +1,274 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the facets of an ASCII STL file into a {@link TriangleSink}.  The input is
+ * tokenized directly from a fixed size byte buffer and coordinates are parsed in place,
+ * so no String or Double is created per token and memory use does not grow with the
+ * size of the file.<p/>
+ * 
+ * Only vertex coordinates are significant; facet normals, loop markers and solid names
+ * are skipped.  Every three vertex lines form one facet.
+ */
+public class AsciiStlParser {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] SOLID = ascii("solid");
+    private static final byte[] ENDSOLID = ascii("endsolid");
+    private static final byte[] VERTEX = ascii("vertex");
+    //Powers of ten that are exactly representable as doubles
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+    }
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean eof;
+
+    private AsciiStlParser(InputStream in, byte[] prefix, int prefixLength) {
+        this.in = in;
+        this.buffer = new byte[Math.max(BUFFER_SIZE, prefixLength)];
+        System.arraycopy(prefix, 0, buffer, 0, prefixLength);
+        this.limit = prefixLength;
+    }
+
+    /**
+     * Reads every facet from the stream, returning the number of facets read.  The stream is not closed.
+     */
+    public static long parse(InputStream in, TriangleSink sink) throws IOException {
+        return parse(new byte[0], 0, in, sink);
+    }
+
+    /**
+     * Parses an ASCII STL whose first prefixLength bytes have already been read from the stream
+     * into prefix, for example while sniffing the format.
+     */
+    public static long parse(byte[] prefix, int prefixLength, InputStream in, TriangleSink sink) throws IOException {
+        return new AsciiStlParser(in, prefix, prefixLength).parseFacets(sink);
+    }
+
+    private long parseFacets(TriangleSink sink) throws IOException {
+        float[] v = new float[9];
+        int vertices = 0;
+        long facets = 0;
+        while (nextToken()) {
+            if (tokenEquals(VERTEX)) {
+                int base = vertices * 3;
+                for (int i = 0; i < 3; i++) {
+                    if (!nextToken()) {
+                        throw new StlFormatException("Unexpected end of STL data in vertex");
+                    }
+                    v[base + i] = parseFloat();
+                }
+                if (++vertices == 3) {
+                    sink.triangle(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8]);
+                    vertices = 0;
+                    facets++;
+                }
+            } else if (tokenEquals(SOLID) || tokenEquals(ENDSOLID)) {
+                //solid names are free text and may contain keywords
+                skipLine();
+            }
+        }
+        if (vertices != 0) {
+            throw new StlFormatException("STL data ended part way through a facet");
+        }
+        return facets;
+    }
+
+    /**
+     * Advances to the next whitespace delimited token, leaving it contiguous in the buffer
+     * between tokenStart and tokenEnd.  Returns false at end of input.
+     */
+    private boolean nextToken() throws IOException {
+        while (true) {
+            while (position < limit && isWhitespace(buffer[position])) {
+                position++;
+            }
+            if (position < limit) {
+                break;
+            }
+            tokenStart = position;
+            if (!fill()) {
+                return false;
+            }
+        }
+        tokenStart = position;
+        while (true) {
+            while (position < limit && !isWhitespace(buffer[position])) {
+                position++;
+            }
+            if (position < limit || !fill()) {
+                break;
+            }
+        }
+        tokenEnd = position;
+        return true;
+    }
+
+    private void skipLine() throws IOException {
+        while (true) {
+            while (position < limit) {
+                if (buffer[position++] == '\n') {
+                    return;
+                }
+            }
+            tokenStart = position;
+            if (!fill()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads more input, first moving the token being scanned (if any) to the front of the
+     * buffer so that it stays contiguous.  Returns false at end of input.
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int keep = position > tokenStart ? position - tokenStart : 0;
+        if (keep == buffer.length) {
+            throw new StlFormatException("STL token exceeds " + buffer.length + " bytes");
+        }
+        if (keep > 0) {
+            System.arraycopy(buffer, tokenStart, buffer, 0, keep);
+        }
+        tokenStart = 0;
+        position = keep;
+        limit = keep;
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private boolean tokenEquals(byte[] keyword) {
+        int length = tokenEnd - tokenStart;
+        if (length != keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            //keywords are case insensitive in files seen in the wild
+            if ((buffer[tokenStart + i] | 0x20) != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current token as a decimal floating point number without allocating.
+     * Tokens that are not plain decimal numbers fall back to Float.parseFloat; coordinates that
+     * are not finite (nan, inf, NaN, Infinity) are rejected, since no volume can be quoted from them.
+     */
+    private float parseFloat() throws StlFormatException {
+        int i = tokenStart;
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < tokenEnd; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (seenPoint) {
+                        exponent--;
+                    }
+                } else if (!seenPoint) {
+                    //digits beyond long precision only scale the value
+                    exponent++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (i < tokenEnd && seenDigit && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < tokenEnd && (buffer[i] == '-' || buffer[i] == '+')) {
+                negativeExponent = buffer[i] == '-';
+                i++;
+            }
+            int explicitExponent = 0;
+            int exponentStart = i;
+            for (; i < tokenEnd && buffer[i] >= '0' && buffer[i] <= '9'; i++) {
+                if (explicitExponent < 10000) {
+                    explicitExponent = explicitExponent * 10 + (buffer[i] - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return parseFloatSlow();
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (!seenDigit || i != tokenEnd) {
+            return parseFloatSlow();
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exponent >= 0 && exponent < POW10.length) {
+            value = mantissa * POW10[exponent];
+        } else if (exponent < 0 && -exponent < POW10.length) {
+            value = mantissa / POW10[-exponent];
+        } else {
+            value = mantissa * Math.pow(10.0, exponent);
+        }
+        float result = (float) (negative ? -value : value);
+        if (Float.isInfinite(result)) {
+            //out of float range, rejected like any other coordinate that is not finite
+            return parseFloatSlow();
+        }
+        return result;
+    }
+
+    private float parseFloatSlow() throws StlFormatException {
+        String token = new String(buffer, tokenStart, tokenEnd - tokenStart, StandardCharsets.US_ASCII);
+        float value;
+        try {
+            value = Float.parseFloat(token);
+        } catch (NumberFormatException e) {
+            throw new StlFormatException("Invalid STL coordinate \"" + token + "\"");
+        }
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            throw new StlFormatException("Invalid STL coordinate \"" + token + "\"");
+        }
+        return value;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,88 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams the facets of a binary STL file into a {@link TriangleSink}.  The format is an
+ * 80 byte header, a little-endian unsigned 32 bit facet count and then one 50 byte record
+ * per facet: a normal and three vertices as little-endian floats followed by a 2 byte
+ * attribute field.  The facet normal is ignored since it is frequently wrong in files
+ * exported by CAD tools; the winding order of the vertices is authoritative.
+ */
+public class BinaryStlParser {
+    public static final int HEADER_SIZE = 80;
+    public static final int PREAMBLE_SIZE = HEADER_SIZE + 4;
+    public static final int RECORD_SIZE = 50;
+    //Records decoded per read from the underlying stream
+    private static final int RECORDS_PER_BUFFER = 1024;
+
+    /**
+     * Reads the header and every facet from the stream, returning the number of facets read.
+     * The stream is not closed.
+     */
+    public static long parse(InputStream in, TriangleSink sink) throws IOException {
+        byte[] preamble = new byte[PREAMBLE_SIZE];
+        readFully(in, preamble, PREAMBLE_SIZE);
+        return parseFacets(in, getFacetCount(preamble), sink);
+    }
+
+    /**
+     * Returns the facet count declared by the 84 byte header and count field at the start of a
+     * binary STL file.
+     */
+    public static long getFacetCount(byte[] preamble) {
+        return readInt(preamble, HEADER_SIZE) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the size in bytes of a well-formed binary STL file holding the given number of facets.
+     */
+    public static long getExpectedSize(long facetCount) {
+        return PREAMBLE_SIZE + facetCount * RECORD_SIZE;
+    }
+
+    /**
+     * Reads facetCount records from a stream positioned just past the header and count field.
+     */
+    public static long parseFacets(InputStream in, long facetCount, TriangleSink sink) throws IOException {
+        byte[] buffer = new byte[RECORD_SIZE * RECORDS_PER_BUFFER];
+        long remaining = facetCount;
+        while (remaining > 0) {
+            int records = (int) Math.min(remaining, RECORDS_PER_BUFFER);
+            readFully(in, buffer, records * RECORD_SIZE);
+            for (int offset = 0, end = records * RECORD_SIZE; offset < end; offset += RECORD_SIZE) {
+                //skip the 12 byte normal
+                int v = offset + 12;
+                sink.triangle(
+                        readFloat(buffer, v), readFloat(buffer, v + 4), readFloat(buffer, v + 8),
+                        readFloat(buffer, v + 12), readFloat(buffer, v + 16), readFloat(buffer, v + 20),
+                        readFloat(buffer, v + 24), readFloat(buffer, v + 28), readFloat(buffer, v + 32));
+            }
+            remaining -= records;
+        }
+        return facetCount;
+    }
+
+    static float readFloat(byte[] buffer, int offset) {
+        return Float.intBitsToFloat(readInt(buffer, offset));
+    }
+
+    static int readInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF)
+                | (buffer[offset + 1] & 0xFF) << 8
+                | (buffer[offset + 2] & 0xFF) << 16
+                | (buffer[offset + 3] & 0xFF) << 24;
+    }
+
+    static void readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, read, length - read);
+            if (n < 0) {
+                throw new StlFormatException("Unexpected end of STL data");
+            }
+            read += n;
+        }
+    }
+}
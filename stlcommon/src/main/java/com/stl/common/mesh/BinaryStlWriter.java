@@ -0,0 +1,95 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes an {@link IndexedMesh} or a {@link TriangleSource} as binary STL, see
+ * {@link BinaryStlParser} for the format.  Facet normals are computed from the winding order,
+ * and records are encoded into a fixed buffer a batch at a time, so writing allocates
+ * nothing per facet.
+ */
+public class BinaryStlWriter {
+    //Records encoded per write to the underlying stream
+    private static final int RECORDS_PER_BUFFER = 1024;
+    //The facet count is an unsigned 32 bit integer
+    private static final long MAX_FACETS = 0xFFFFFFFFL;
+
+    /**
+     * Writes the mesh to the stream, which is not closed.  The header text is truncated to
+     * fit the 80 byte header; it must not begin with "solid", which would make the file
+     * look like ASCII STL to some readers.
+     */
+    public static void write(IndexedMesh mesh, String header, OutputStream out) throws IOException {
+        ByteBuffer buffer = writeHeader(mesh.getTriangleCount(), header, out);
+        for (int t = 0; t < mesh.getTriangleCount(); t++) {
+            int a = mesh.getCorner(t, 0), b = mesh.getCorner(t, 1), c = mesh.getCorner(t, 2);
+            putRecord(buffer, mesh.getX(a), mesh.getY(a), mesh.getZ(a), mesh.getX(b), mesh.getY(b), mesh.getZ(b), 
+                    mesh.getX(c), mesh.getY(c), mesh.getZ(c));
+            if (!buffer.hasRemaining()) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Writes the facets of the source to the stream, see {@link #write(IndexedMesh, String, OutputStream)}.
+     *
+     * @throws IllegalArgumentException if the source has more facets than binary STL can count
+     */
+    public static void write(TriangleSource source, String header, OutputStream out) throws IOException {
+        if (source.getFacetCount() > MAX_FACETS) {
+            throw new IllegalArgumentException("Too many facets for binary STL: " + source.getFacetCount());
+        }
+        ByteBuffer buffer = writeHeader(source.getFacetCount(), header, out);
+        TriangleCursor cursor = source.cursor();
+        while (cursor.next()) {
+            putRecord(buffer, cursor.getX(0), cursor.getY(0), cursor.getZ(0), cursor.getX(1), cursor.getY(1), 
+                    cursor.getZ(1), cursor.getX(2), cursor.getY(2), cursor.getZ(2));
+            if (!buffer.hasRemaining()) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Writes the header and facet count, and returns the cleared buffer records are encoded into.
+     */
+    private static ByteBuffer writeHeader(long facetCount, String header, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_BUFFER * BinaryStlParser.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] text = header.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(text, 0, Math.min(text.length, BinaryStlParser.HEADER_SIZE));
+        buffer.position(BinaryStlParser.HEADER_SIZE);
+        buffer.putInt((int) facetCount);
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void putRecord(ByteBuffer buffer, 
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz) {
+        double ux = bx - ax, uy = by - ay, uz = bz - az;
+        double vx = cx - ax, vy = cy - ay, vz = cz - az;
+        double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length > 0) {
+            nx /= length;
+            ny /= length;
+            nz /= length;
+        }
+        buffer.putFloat((float) nx).putFloat((float) ny).putFloat((float) nz)
+                .putFloat(ax).putFloat(ay).putFloat(az)
+                .putFloat(bx).putFloat(by).putFloat(bz)
+                .putFloat(cx).putFloat(cy).putFloat(cz)
+                .putShort((short) 0);
+    }
+}
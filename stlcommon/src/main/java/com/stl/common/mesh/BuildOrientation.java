@@ -0,0 +1,87 @@
+package com.stl.common.mesh;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An orientation to print a mesh in, chosen by {@link OrientationOptimizer}: the build
+ * direction, a unit vector in the mesh's own coordinates that is turned to face +Z, with
+ * the overhang area needing support, the area of the part's shadow on the build plate and
+ * the build height in that orientation.
+ */
+@SuppressWarnings("serial")
+public class BuildOrientation implements Serializable {
+    private final double[] direction;
+    private final double overhangArea;
+    private final double footprintArea;
+    private final double height;
+
+    public BuildOrientation(double directionX, double directionY, double directionZ, 
+            double overhangArea, double footprintArea, double height) {
+        this.direction = new double[] { directionX, directionY, directionZ };
+        this.overhangArea = overhangArea;
+        this.footprintArea = footprintArea;
+        this.height = height;
+    }
+
+    /**
+     * Returns coordinate 0, 1 or 2 of the build direction.
+     */
+    public double getDirection(int coordinate) {
+        return direction[coordinate];
+    }
+
+    public double getOverhangArea() {
+        return overhangArea;
+    }
+
+    public double getFootprintArea() {
+        return footprintArea;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns coordinate 0, 1 or 2 of the unit axis of the least rotation that turns the
+     * build direction to +Z, which is the X axis if no turn or a half turn is needed.
+     */
+    public double getRotationAxis(int coordinate) {
+        //direction x (0, 0, 1)
+        double x = direction[1], y = -direction[0];
+        double length = Math.sqrt(x * x + y * y);
+        if (!(length > 0)) {
+            return 0 == coordinate ? 1 : 0;
+        }
+        return 0 == coordinate ? x / length : 1 == coordinate ? y / length : 0;
+    }
+
+    /**
+     * Returns the angle of that rotation, in degrees.
+     */
+    public double getRotationAngle() {
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, direction[2]))));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final BuildOrientation other = (BuildOrientation) obj;
+        return Arrays.equals(this.direction, other.direction)
+                && Double.compare(this.overhangArea, other.overhangArea) == 0
+                && Double.compare(this.footprintArea, other.footprintArea) == 0
+                && Double.compare(this.height, other.height) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(direction) + Objects.hash(overhangArea, footprintArea, height);
+    }
+}
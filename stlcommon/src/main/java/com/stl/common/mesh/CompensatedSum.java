@@ -0,0 +1,33 @@
+package com.stl.common.mesh;
+
+/**
+ * A running double sum using Neumaier's variant of Kahan summation, which tracks the
+ * low order bits lost by each addition so that summing millions of small facet
+ * contributions does not accumulate rounding error.
+ */
+public class CompensatedSum {
+    private double sum;
+    private double compensation;
+
+    public void add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    /**
+     * Adds the total of another sum, carrying over its compensation.
+     */
+    public void add(CompensatedSum other) {
+        add(other.sum);
+        add(other.compensation);
+    }
+
+    public double getValue() {
+        return sum + compensation;
+    }
+}
@@ -0,0 +1,480 @@
+package com.stl.common.mesh;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The convex hull of a mesh, as triangles wound counter-clockwise seen from outside over the
+ * hull's own vertices.  Coplanar hull faces are split into triangles.<p/>
+ *
+ * Most corners of a mesh are nowhere near its hull, so they are filtered first, after Akl
+ * and Toussaint: the points of the mesh extreme along 26 directions span a polytope inside
+ * the hull, and corners strictly inside it cannot be hull vertices.  The remaining corners
+ * are deduplicated with a {@link VertexIndex}, first within each range of facets filtered
+ * in parallel and then across them.  The distinct points are hulled with quickhull, see
+ * {@link QuickHull}; many points are first split into chunks hulled in parallel on the
+ * fork-join pool, and only the vertices of the chunk hulls are hulled together.<p/>
+ *
+ * Every vertex of a finely tessellated rounded part lies on its hull, so the filter cannot
+ * bound the points kept.  When more than a fixed number survive, the grid they are
+ * deduplicated on is coarsened until they fit, keeping one corner per cell; the hull of
+ * those is then an approximation, and {@link #getSlack()} says how far the mesh may reach
+ * outside it.
+ */
+public class ConvexHull {
+    //Facets filtered by each leaf task
+    private static final long LEAF_FACETS = 64 * 1024;
+    //Points hulled sequentially by each leaf task
+    private static final int LEAF_POINTS = 64 * 1024;
+    //Distinct corners kept by the filter at most, beyond which its grid is coarsened
+    private static final int MAX_SURVIVORS = 256 * 1024;
+    //Corners this close to the extreme polytope, relative to its extent, are kept
+    private static final double RELATIVE_EPSILON = 1e-9;
+    //Axes, face diagonals and space diagonals of a cube, each giving two opposite directions
+    private static final int[][] DIRECTIONS = {
+        { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 },
+        { 1, 1, 0 }, { 1, -1, 0 }, { 1, 0, 1 }, { 1, 0, -1 }, { 0, 1, 1 }, { 0, 1, -1 },
+        { 1, 1, 1 }, { 1, 1, -1 }, { 1, -1, 1 }, { 1, -1, -1 } };
+
+    private final double[] vertices;
+    private final int[] faces;
+    private final double slack;
+
+    ConvexHull(double[] vertices, int[] faces, double slack) {
+        this.vertices = vertices;
+        this.faces = faces;
+        this.slack = slack;
+    }
+
+    /**
+     * Returns the convex hull of the corners of the source's facets, or null if they do not
+     * span a solid.
+     *
+     * @param tolerance The distance below which corners are considered the same vertex
+     * @param pool The pool the hull is computed on, or null to compute it on the calling thread
+     */
+    public static ConvexHull of(TriangleSource source, double tolerance, ForkJoinPool pool) {
+        long facets = source.getFacetCount();
+        boolean parallel = null != pool && facets > LEAF_FACETS;
+        ExtremesTask extremesTask = new ExtremesTask(source, 0, facets);
+        Extremes extremes = parallel ? pool.invoke(extremesTask) : extremesTask.compute();
+        if (!extremes.isEmpty()) {
+            double[] points = new double[extremes.points.length];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = extremes.points[i];
+            }
+            int[] polytope = new QuickHull(points, identity(points.length / 3), points.length / 3).build();
+            if (null != polytope) {
+                FilterTask filterTask = new FilterTask(source, getPlanes(points, polytope), tolerance, 0, facets);
+                Survivors survivors = parallel ? pool.invoke(filterTask) : filterTask.compute();
+                return of(survivors.toPoints(), survivors.getSlack(tolerance), pool);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the convex hull of the points, x, y and z of each, or null if they do not span
+     * a solid.
+     */
+    static ConvexHull of(double[] points, ForkJoinPool pool) {
+        return of(points, 0, pool);
+    }
+
+    private static ConvexHull of(double[] points, double slack, ForkJoinPool pool) {
+        int count = points.length / 3;
+        int[] candidates = identity(count);
+        //chunking only pays off when chunks are hulled at the same time
+        if (null != pool && pool.getParallelism() > 1 && count > LEAF_POINTS) {
+            candidates = pool.invoke(new HullTask(points, candidates, 0, count));
+        }
+        int[] faces = new QuickHull(points, candidates, candidates.length).build();
+        if (null == faces) {
+            return null;
+        }
+        //renumber the hull's vertices densely
+        int[] ids = new int[count];
+        Arrays.fill(ids, -1);
+        double[] vertices = new double[3 * count];
+        int vertexCount = 0;
+        for (int i = 0; i < faces.length; i++) {
+            int p = faces[i];
+            if (ids[p] < 0) {
+                ids[p] = vertexCount;
+                System.arraycopy(points, 3 * p, vertices, 3 * vertexCount++, 3);
+            }
+            faces[i] = ids[p];
+        }
+        return new ConvexHull(Arrays.copyOf(vertices, 3 * vertexCount), faces, slack);
+    }
+
+    /**
+     * Returns how far a corner of the mesh may lie outside the hull, 0 unless the corners
+     * were too many to hull exactly.
+     */
+    public double getSlack() {
+        return slack;
+    }
+
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    public double getX(int vertex) {
+        return vertices[3 * vertex];
+    }
+
+    public double getY(int vertex) {
+        return vertices[3 * vertex + 1];
+    }
+
+    public double getZ(int vertex) {
+        return vertices[3 * vertex + 2];
+    }
+
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Returns the vertex at corner 0, 1 or 2 of the face.
+     */
+    public int getVertex(int face, int corner) {
+        return faces[3 * face + corner];
+    }
+
+    /**
+     * Returns the volume enclosed by the hull, summed over tetrahedra from its first vertex.
+     */
+    public double getVolume() {
+        CompensatedSum volume = new CompensatedSum();
+        for (int f = 0; f < faces.length; f += 3) {
+            double[] u = subtract(faces[f + 1], 0), v = subtract(faces[f + 2], 0), w = subtract(faces[f], 0);
+            volume.add(w[0] * (u[1] * v[2] - u[2] * v[1]) + w[1] * (u[2] * v[0] - u[0] * v[2]) 
+                    + w[2] * (u[0] * v[1] - u[1] * v[0]));
+        }
+        return volume.getValue() / 6;
+    }
+
+    /**
+     * Returns the surface area of the hull.
+     */
+    public double getArea() {
+        CompensatedSum area = new CompensatedSum();
+        for (int f = 0; f < faces.length; f += 3) {
+            double[] u = subtract(faces[f + 1], faces[f]), v = subtract(faces[f + 2], faces[f]);
+            double x = u[1] * v[2] - u[2] * v[1], y = u[2] * v[0] - u[0] * v[2], z = u[0] * v[1] - u[1] * v[0];
+            area.add(Math.sqrt(x * x + y * y + z * z));
+        }
+        return area.getValue() / 2;
+    }
+
+    private double[] subtract(int a, int b) {
+        return new double[] { vertices[3 * a] - vertices[3 * b], vertices[3 * a + 1] - vertices[3 * b + 1], 
+                vertices[3 * a + 2] - vertices[3 * b + 2] };
+    }
+
+    private static int[] identity(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the outward unit normal and offset of each face, widened by the epsilon so
+     * that corners on a face count as outside it.
+     */
+    private static double[] getPlanes(double[] points, int[] faces) {
+        double extent = 0;
+        for (double coordinate : points) {
+            extent = Math.max(extent, Math.abs(coordinate));
+        }
+        double[] planes = new double[4 * faces.length / 3];
+        for (int f = 0; f < faces.length / 3; f++) {
+            int a = 3 * faces[3 * f], b = 3 * faces[3 * f + 1], c = 3 * faces[3 * f + 2];
+            double ux = points[b] - points[a], uy = points[b + 1] - points[a + 1], uz = points[b + 2] - points[a + 2];
+            double vx = points[c] - points[a], vy = points[c + 1] - points[a + 1], vz = points[c + 2] - points[a + 2];
+            double x = uy * vz - uz * vy, y = uz * vx - ux * vz, z = ux * vy - uy * vx;
+            double length = Math.sqrt(x * x + y * y + z * z);
+            if (length > 0) {
+                planes[4 * f] = x / length;
+                planes[4 * f + 1] = y / length;
+                planes[4 * f + 2] = z / length;
+                planes[4 * f + 3] = (x * points[a] + y * points[a + 1] + z * points[a + 2]) / length 
+                        - 3 * extent * RELATIVE_EPSILON;
+            }
+        }
+        return planes;
+    }
+
+    /**
+     * The corner of the facets farthest along each direction and its opposite.
+     */
+    private static class Extremes implements TriangleSink {
+        private final float[] points = new float[3 * 2 * DIRECTIONS.length];
+        private final double[] reach = new double[2 * DIRECTIONS.length];
+        private boolean empty = true;
+
+        Extremes() {
+            Arrays.fill(reach, Double.NEGATIVE_INFINITY);
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        @Override
+        public void triangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+            corner(ax, ay, az);
+            corner(bx, by, bz);
+            corner(cx, cy, cz);
+        }
+
+        private void corner(float x, float y, float z) {
+            empty = false;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                double along = DIRECTIONS[d][0] * (double) x + DIRECTIONS[d][1] * (double) y + DIRECTIONS[d][2] * (double) z;
+                if (along > reach[2 * d]) {
+                    set(2 * d, along, x, y, z);
+                }
+                if (-along > reach[2 * d + 1]) {
+                    set(2 * d + 1, -along, x, y, z);
+                }
+            }
+        }
+
+        private void set(int direction, double along, float x, float y, float z) {
+            reach[direction] = along;
+            points[3 * direction] = x;
+            points[3 * direction + 1] = y;
+            points[3 * direction + 2] = z;
+        }
+
+        void merge(Extremes other) {
+            empty &= other.empty;
+            for (int d = 0; d < reach.length; d++) {
+                if (other.reach[d] > reach[d]) {
+                    set(d, other.reach[d], other.points[3 * d], other.points[3 * d + 1], other.points[3 * d + 2]);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class ExtremesTask extends RecursiveTask<Extremes> {
+        private final TriangleSource source;
+        private final long from;
+        private final long to;
+
+        ExtremesTask(TriangleSource source, long from, long to) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Extremes compute() {
+            if (to - from <= LEAF_FACETS) {
+                Extremes extremes = new Extremes();
+                source.forEach(from, to, extremes);
+                return extremes;
+            }
+            long mid = (from + to) >>> 1;
+            ExtremesTask left = new ExtremesTask(source, from, mid);
+            left.fork();
+            Extremes result = new ExtremesTask(source, mid, to).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * The distinct corners of some facets that are not strictly inside the extreme polytope,
+     * one per cell of a grid that is coarsened whenever more than the maximum survive.
+     */
+    private static class Survivors implements TriangleSink {
+        private final double[] planes;
+        private double spacing;
+        private VertexIndex index;
+        private float[] points = new float[3 * 1024];
+        private int count;
+
+        Survivors(double[] planes, double tolerance, int expectedVertices) {
+            this.planes = planes;
+            this.spacing = tolerance;
+            this.index = new VertexIndex(tolerance, Math.min(expectedVertices, MAX_SURVIVORS));
+        }
+
+        @Override
+        public void triangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+            corner(ax, ay, az);
+            corner(bx, by, bz);
+            corner(cx, cy, cz);
+        }
+
+        private void corner(float x, float y, float z) {
+            for (int f = 0; f < planes.length; f += 4) {
+                if (planes[f] * x + planes[f + 1] * y + planes[f + 2] * z > planes[f + 3]) {
+                    add(x, y, z);
+                    return;
+                }
+            }
+        }
+
+        private void add(float x, float y, float z) {
+            if (index.indexOf(x, y, z) == count) {
+                if (3 * count == points.length) {
+                    points = Arrays.copyOf(points, 2 * points.length);
+                }
+                points[3 * count] = x;
+                points[3 * count + 1] = y;
+                points[3 * count + 2] = z;
+                count++;
+                if (count > MAX_SURVIVORS) {
+                    coarsen();
+                }
+            }
+        }
+
+        /**
+         * Doubles the grid spacing until at most half the maximum points survive, so that
+         * coarsening is rare.
+         */
+        private void coarsen() {
+            do {
+                spacing *= 2;
+                deduplicate();
+            } while (count > MAX_SURVIVORS / 2);
+        }
+
+        /**
+         * Keeps the first point in each cell of the grid, rebuilding the index over them.
+         */
+        private void deduplicate() {
+            index = new VertexIndex(spacing, count);
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (index.indexOf(points[3 * i], points[3 * i + 1], points[3 * i + 2]) == n) {
+                    System.arraycopy(points, 3 * i, points, 3 * n++, 3);
+                }
+            }
+            count = n;
+        }
+
+        /**
+         * Returns how far a corner may lie from the point kept for its cell, 0 if the grid
+         * was never coarsened beyond the vertex tolerance.
+         */
+        double getSlack(double tolerance) {
+            return spacing > tolerance ? Math.sqrt(3) * spacing : 0;
+        }
+
+        double[] toPoints() {
+            double[] result = new double[3 * count];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = points[i];
+            }
+            return result;
+        }
+
+        /**
+         * Adds the other range's points, deduplicated across both on the coarser grid.
+         */
+        void merge(Survivors other) {
+            points = Arrays.copyOf(points, 3 * (count + other.count));
+            System.arraycopy(other.points, 0, points, 3 * count, 3 * other.count);
+            count += other.count;
+            spacing = Math.max(spacing, other.spacing);
+            deduplicate();
+            if (count > MAX_SURVIVORS) {
+                coarsen();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class FilterTask extends RecursiveTask<Survivors> {
+        private final TriangleSource source;
+        private final double[] planes;
+        private final double tolerance;
+        private final long from;
+        private final long to;
+
+        FilterTask(TriangleSource source, double[] planes, double tolerance, long from, long to) {
+            this.source = source;
+            this.planes = planes;
+            this.tolerance = tolerance;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Survivors compute() {
+            if (to - from <= LEAF_FACETS) {
+                //a closed mesh has about half as many vertices as facets
+                Survivors survivors = new Survivors(planes, tolerance, (int) ((to - from) / 2));
+                source.forEach(from, to, survivors);
+                return survivors;
+            }
+            long mid = (from + to) >>> 1;
+            FilterTask left = new FilterTask(source, planes, tolerance, from, mid);
+            left.fork();
+            Survivors right = new FilterTask(source, planes, tolerance, mid, to).compute();
+            Survivors result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+
+    /**
+     * Returns the ids of the points in [from, to) that may be vertices of their hull: the
+     * vertices of each leaf's hull, or all of its points if they do not span a solid.
+     */
+    @SuppressWarnings("serial")
+    private static class HullTask extends RecursiveTask<int[]> {
+        private final double[] points;
+        private final int[] ids;
+        private final int from;
+        private final int to;
+
+        HullTask(double[] points, int[] ids, int from, int to) {
+            this.points = points;
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= LEAF_POINTS) {
+                int[] subset = Arrays.copyOfRange(ids, from, to);
+                int[] faces = new QuickHull(points, subset, subset.length).build();
+                return null == faces ? subset : distinct(faces);
+            }
+            int mid = (from + to) >>> 1;
+            HullTask left = new HullTask(points, ids, from, mid);
+            left.fork();
+            int[] right = new HullTask(points, ids, mid, to).compute();
+            int[] merged = left.join();
+            int leftCount = merged.length;
+            merged = Arrays.copyOf(merged, leftCount + right.length);
+            System.arraycopy(right, 0, merged, leftCount, right.length);
+            return merged;
+        }
+
+        private static int[] distinct(int[] faces) {
+            int[] sorted = faces.clone();
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (0 == i || sorted[i] != sorted[i - 1]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, n);
+        }
+    }
+}
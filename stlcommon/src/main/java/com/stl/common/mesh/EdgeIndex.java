@@ -0,0 +1,130 @@
+package com.stl.common.mesh;
+
+/**
+ * Counts how often each undirected edge of a mesh is used, and in which direction.  Each
+ * slot of the open addressing table is a single long holding the two vertex ids of the edge,
+ * lower id first, and a saturating two bit count of its uses in each direction; a closed,
+ * consistently wound manifold uses every edge exactly once each way.  Packing the counts into
+ * the key keeps the table at eight bytes a slot, so the edges of a ten million triangle mesh
+ * fit in a few hundred megabytes.
+ */
+public class EdgeIndex {
+    /** Vertex ids must be below this bound to be packed into a slot. */
+    public static final int MAX_VERTICES = 1 << 30;
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int ID_BITS = 30;
+    private static final int COUNT_BITS = 4;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int COUNT_LIMIT = 3;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedEdges The number of distinct edges to size the table for
+     */
+    public EdgeIndex(long expectedEdges) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * expectedEdges && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        slots = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Records a use of the edge from vertex u to vertex v.  Edges that start and end at the
+     * same vertex are ignored.
+     */
+    public void add(int u, int v) {
+        if (u == v) {
+            return;
+        }
+        boolean forward = u < v;
+        long key = forward ? pack(u, v) : pack(v, u);
+        int slot = hash(key) & mask;
+        long current;
+        while (0 != (current = slots[slot]) && (current & ~COUNT_MASK) != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (0 == current) {
+            current = key;
+            if (++size > (mask + 1) >> 1) {
+                slots[slot] = increment(current, forward);
+                grow();
+                return;
+            }
+        }
+        slots[slot] = increment(current, forward);
+    }
+
+    /**
+     * Classifies every edge, see {@link MeshValidity}.
+     */
+    public MeshValidity getValidity(long degenerateFacets) {
+        long open = 0, nonManifold = 0, inconsistent = 0;
+        for (long slot : slots) {
+            if (0 == slot) {
+                continue;
+            }
+            int forward = (int) (slot >>> 2) & COUNT_LIMIT;
+            int backward = (int) slot & COUNT_LIMIT;
+            int uses = forward + backward;
+            if (1 == uses) {
+                open++;
+            } else if (uses > 2) {
+                nonManifold++;
+            } else if (forward != backward) {
+                inconsistent++;
+            }
+        }
+        return new MeshValidity(open, nonManifold, inconsistent, degenerateFacets);
+    }
+
+    /**
+     * Returns the number of distinct edges recorded.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static long pack(int low, int high) {
+        if (high >= MAX_VERTICES) {
+            throw new IllegalStateException("Too many vertices to index edges");
+        }
+        return ((long) low << (ID_BITS + COUNT_BITS)) | ((long) high << COUNT_BITS);
+    }
+
+    private static long increment(long slot, boolean forward) {
+        int shift = forward ? 2 : 0;
+        if (((slot >>> shift) & COUNT_LIMIT) < COUNT_LIMIT) {
+            slot += 1L << shift;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        if (mask + 1 >= 1 << 30) {
+            throw new IllegalStateException("Too many edges to index");
+        }
+        long[] old = slots;
+        slots = new long[2 * old.length];
+        mask = slots.length - 1;
+        for (long slot : old) {
+            if (0 != slot) {
+                int index = hash(slot & ~COUNT_MASK) & mask;
+                while (0 != slots[index]) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = slot;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,75 @@
+package com.stl.common.mesh;
+
+/**
+ * A mesh stored as a pool of distinct vertices and an index of triangles referring to them,
+ * rather than as STL's three independent corners per facet.  Shared corners are held once,
+ * so a closed mesh takes about 18 bytes per facet instead of 36, and passes that walk the
+ * mesh repeatedly, such as validation, repair and slicing, read two compact primitive arrays.
+ * Meshes are built from a stream of facets by {@link IndexedMeshBuilder}.
+ */
+public class IndexedMesh {
+    final float[] vertices;
+    final int[] triangles;
+    private final int vertexCount;
+    private final int triangleCount;
+
+    /**
+     * @param vertices x, y and z of each vertex in turn
+     * @param triangles The ids of the three corners of each triangle in turn, counter-clockwise
+     *          seen from outside
+     */
+    public IndexedMesh(float[] vertices, int vertexCount, int[] triangles, int triangleCount) {
+        this.vertices = vertices;
+        this.triangles = triangles;
+        this.vertexCount = vertexCount;
+        this.triangleCount = triangleCount;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    public float getX(int vertex) {
+        return vertices[3 * vertex];
+    }
+
+    public float getY(int vertex) {
+        return vertices[3 * vertex + 1];
+    }
+
+    public float getZ(int vertex) {
+        return vertices[3 * vertex + 2];
+    }
+
+    /**
+     * Returns the id of corner 0, 1 or 2 of the triangle.
+     */
+    public int getCorner(int triangle, int corner) {
+        return triangles[3 * triangle + corner];
+    }
+
+    /**
+     * Passes every triangle to the sink, in order.
+     */
+    public void forEach(TriangleSink sink) {
+        forEach(0, triangleCount, sink);
+    }
+
+    /**
+     * Passes triangles from (inclusive) to to (exclusive) to the sink.  The mesh is not
+     * modified, so disjoint ranges may be walked concurrently.
+     */
+    public void forEach(int from, int to, TriangleSink sink) {
+        for (int t = 3 * from, end = 3 * to; t < end; t += 3) {
+            int a = 3 * triangles[t], b = 3 * triangles[t + 1], c = 3 * triangles[t + 2];
+            sink.triangle(
+                    vertices[a], vertices[a + 1], vertices[a + 2],
+                    vertices[b], vertices[b + 1], vertices[b + 2],
+                    vertices[c], vertices[c + 1], vertices[c + 2]);
+        }
+    }
+}
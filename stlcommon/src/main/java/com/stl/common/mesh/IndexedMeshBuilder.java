@@ -0,0 +1,73 @@
+package com.stl.common.mesh;
+
+import java.util.Arrays;
+
+/**
+ * Builds an {@link IndexedMesh} from a stream of facets in a single pass.  Each corner is
+ * looked up in a {@link VertexIndex}, so corners within the tolerance of each other share a
+ * vertex, which keeps the coordinates of its first occurrence.  Facets are kept in stream
+ * order, including degenerate ones.
+ */
+public class IndexedMeshBuilder implements TriangleSink {
+    private static final int MIN_CAPACITY = 1024;
+
+    private final VertexIndex index;
+    private float[] vertices;
+    private int[] triangles;
+    private int triangleCount;
+
+    /**
+     * @param tolerance The distance below which corners are considered the same vertex
+     * @param expectedFacets The number of facets to size the mesh for, or 0 if unknown
+     */
+    public IndexedMeshBuilder(double tolerance, long expectedFacets) {
+        int facets = (int) Math.max(MIN_CAPACITY, Math.min(expectedFacets, Integer.MAX_VALUE / 3));
+        this.index = new VertexIndex(tolerance, facets / 2);
+        this.vertices = new float[3 * (facets / 2)];
+        this.triangles = new int[3 * facets];
+    }
+
+    @Override
+    public void triangle(
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz) {
+        if (triangles.length < 3 * (triangleCount + 1)) {
+            triangles = Arrays.copyOf(triangles, grow(triangles.length));
+        }
+        int base = 3 * triangleCount++;
+        triangles[base] = corner(ax, ay, az);
+        triangles[base + 1] = corner(bx, by, bz);
+        triangles[base + 2] = corner(cx, cy, cz);
+    }
+
+    private int corner(float x, float y, float z) {
+        int vertexCount = index.size();
+        int id = index.indexOf(x, y, z);
+        if (id == vertexCount) {
+            if (vertices.length < 3 * (id + 1)) {
+                vertices = Arrays.copyOf(vertices, grow(vertices.length));
+            }
+            vertices[3 * id] = x;
+            vertices[3 * id + 1] = y;
+            vertices[3 * id + 2] = z;
+        }
+        return id;
+    }
+
+    private static int grow(int length) {
+        if (length >= Integer.MAX_VALUE / 2) {
+            throw new IllegalStateException("Too many facets to index");
+        }
+        return Math.max(3 * MIN_CAPACITY, 2 * length);
+    }
+
+    /**
+     * Returns the mesh built so far, with its arrays trimmed to size.
+     */
+    public IndexedMesh build() {
+        int vertexCount = index.size();
+        return new IndexedMesh(Arrays.copyOf(vertices, 3 * vertexCount), vertexCount,
+                Arrays.copyOf(triangles, 3 * triangleCount), triangleCount);
+    }
+}
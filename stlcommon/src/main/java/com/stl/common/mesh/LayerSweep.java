@@ -0,0 +1,183 @@
+package com.stl.common.mesh;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The facets of a mesh sorted by the lowest horizontal plane they cross, so layers can be
+ * swept from the bottom up keeping a list of the facets crossing the current one.  Layer k
+ * is cut by the plane through its centre, at k + 0.5 layer heights above the origin, and a
+ * facet crosses it if some corner is strictly above the plane and some is not.  Callers
+ * cutting facets must use {@link #toLayerZ(float)} and the same rule, so every facet is cut
+ * in exactly the layers it is swept through.<p/>
+ *
+ * Each facet is held once, with its first and last layer, so memory grows with the facet
+ * count alone however many layers a facet spans.  A sweep can start at any layer, which
+ * lets disjoint ranges of layers be swept in parallel; starting one scans the facets of the
+ * layers below it, so ranges should be few, see {@link #getLeafLayers}.
+ */
+class LayerSweep {
+    private static final int MIN_CAPACITY = 1024;
+    //Ranges of layers per worker that parallel sweeps are split into
+    private static final int RANGES_PER_WORKER = 4;
+
+    private final double originZ;
+    private final double layerHeight;
+    private final int layerCount;
+    //facets first crossing layer k are order[start[k]] to order[start[k + 1]]
+    private final int[] start;
+    private final int[] order;
+    //the last layer crossed by order[i]
+    private final int[] last;
+
+    /**
+     * @throws IllegalArgumentException if the facets cannot be indexed by int
+     */
+    LayerSweep(TriangleSource source, double originZ, double layerHeight, int layerCount) {
+        if (source.getFacetCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many facets to sweep: " + source.getFacetCount());
+        }
+        this.originZ = originZ;
+        this.layerHeight = layerHeight;
+        this.layerCount = layerCount;
+        this.start = new int[layerCount + 1];
+        TriangleCursor cursor = source.cursor();
+        int total = 0;
+        while (cursor.next()) {
+            int first = getFirstLayer(cursor);
+            if (first <= getLastLayer(cursor)) {
+                start[first + 1]++;
+                total++;
+            }
+        }
+        for (int k = 0; k < layerCount; k++) {
+            start[k + 1] += start[k];
+        }
+        this.order = new int[total];
+        this.last = new int[total];
+        int[] next = Arrays.copyOf(start, layerCount);
+        cursor.seek(0);
+        while (cursor.next()) {
+            int first = getFirstLayer(cursor), to = getLastLayer(cursor);
+            if (first <= to) {
+                int i = next[first]++;
+                order[i] = (int) cursor.getIndex();
+                last[i] = to;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of layers ranges swept in parallel should hold, so that the pool's
+     * workers get a few ranges each but no range holds fewer than the given minimum.
+     */
+    static int getLeafLayers(int layerCount, ForkJoinPool pool, int minimum) {
+        int ranges = null == pool ? 1 : RANGES_PER_WORKER * pool.getParallelism();
+        return Math.max(minimum, (layerCount + ranges - 1) / ranges);
+    }
+
+    /**
+     * Returns the height above the origin in layers, so that layer k is cut at k + 0.5.
+     */
+    double toLayerZ(float z) {
+        return (z - originZ) / layerHeight;
+    }
+
+    int getLayerCount() {
+        return layerCount;
+    }
+
+    /**
+     * Returns a sweep positioned below the given layer; {@link Active#advance()} moves it there.
+     */
+    Active sweepFrom(int layer) {
+        return new Active(layer);
+    }
+
+    /**
+     * The facets crossing the current layer of one sweep.  Not thread safe.
+     */
+    class Active {
+        private int[] entries = new int[MIN_CAPACITY];
+        private int size;
+        private int layer;
+
+        private Active(int from) {
+            //facets starting below the first layer that reach up to it
+            for (int i = 0; i < start[from]; i++) {
+                if (last[i] >= from) {
+                    add(i);
+                }
+            }
+            this.layer = from - 1;
+        }
+
+        /**
+         * Moves to the next layer, dropping the facets that end below it and adding the ones
+         * that start in it, and returns the layer.
+         */
+        int advance() {
+            layer++;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (last[entries[i]] >= layer) {
+                    entries[kept++] = entries[i];
+                }
+            }
+            size = kept;
+            for (int i = start[layer]; i < start[layer + 1]; i++) {
+                add(i);
+            }
+            return layer;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the index in the source of the i-th facet crossing the current layer.
+         */
+        int getFacet(int i) {
+            return order[entries[i]];
+        }
+
+        private void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, 2 * size);
+            }
+            entries[size++] = entry;
+        }
+    }
+
+    /**
+     * Returns the lowest layer whose plane is at or above the lowest corner.
+     */
+    private int getFirstLayer(TriangleCursor cursor) {
+        double low = toLayerZ(Math.min(cursor.getZ(0), Math.min(cursor.getZ(1), cursor.getZ(2))));
+        int k = Math.max(0, (int) Math.ceil(low - 0.5));
+        //the estimate can be a layer out where low falls on a plane, settle it by comparison
+        while (k > 0 && low <= k - 0.5) {
+            k--;
+        }
+        while (k < layerCount && low > k + 0.5) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the highest layer whose plane is below the highest corner.
+     */
+    private int getLastLayer(TriangleCursor cursor) {
+        double high = toLayerZ(Math.max(cursor.getZ(0), Math.max(cursor.getZ(1), cursor.getZ(2))));
+        int k = Math.min(layerCount - 1, (int) Math.ceil(high - 0.5) - 1);
+        while (k >= 0 && k + 0.5 >= high) {
+            k--;
+        }
+        while (k < layerCount - 1 && k + 1.5 < high) {
+            k++;
+        }
+        return k;
+    }
+}
@@ -0,0 +1,100 @@
+package com.stl.common.mesh;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A binary STL file mapped into memory with {@link FileChannel#map}.  Facet records are read
+ * directly out of the mapped pages, so even very large files are decoded without copying
+ * them onto the heap.  A single mapping is limited to 2GB, so the file is mapped as a
+ * series of regions that each hold a whole number of 50 byte records.<p/>
+ * 
+ * Any range of facets can be visited independently, which lets callers split the file
+ * into chunks and process them concurrently.
+ */
+public class MappedStlFile implements TriangleSource, Closeable {
+    //Records per mapped region, 800MB of facet data
+    private static final int REGION_RECORDS = 1 << 24;
+
+    //skip the 12 byte normal at the start of each record
+    private static final int VERTEX_OFFSET = 12;
+
+    private final RandomAccessFile file;
+    private final RecordRegions layout;
+    private final long facetCount;
+
+    private MappedStlFile(RandomAccessFile file, MappedByteBuffer[] regions, long facetCount) {
+        this.file = file;
+        this.layout = new RecordRegions(regions, REGION_RECORDS, BinaryStlParser.RECORD_SIZE, VERTEX_OFFSET);
+        this.facetCount = facetCount;
+    }
+
+    /**
+     * Maps a binary STL file.  The file must be at least as long as the facet count in its
+     * header requires; trailing bytes are ignored.
+     */
+    public static MappedStlFile open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() < BinaryStlParser.PREAMBLE_SIZE) {
+                throw new StlFormatException("STL data is too short to contain a header");
+            }
+            MappedByteBuffer preamble = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryStlParser.PREAMBLE_SIZE);
+            long facetCount = preamble.order(ByteOrder.LITTLE_ENDIAN).getInt(BinaryStlParser.HEADER_SIZE) & 0xFFFFFFFFL;
+            if (channel.size() < BinaryStlParser.getExpectedSize(facetCount)) {
+                throw new StlFormatException("STL data is shorter than its facet count of " + facetCount);
+            }
+            int regionCount = (int) ((facetCount + REGION_RECORDS - 1) / REGION_RECORDS);
+            MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+            for (int i = 0; i < regionCount; i++) {
+                long firstFacet = (long) i * REGION_RECORDS;
+                long records = Math.min(REGION_RECORDS, facetCount - firstFacet);
+                long offset = BinaryStlParser.PREAMBLE_SIZE + firstFacet * BinaryStlParser.RECORD_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, records * BinaryStlParser.RECORD_SIZE);
+                regions[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedStlFile(file, regions, facetCount);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long getFacetCount() {
+        return facetCount;
+    }
+
+    /**
+     * Feeds every facet in the file to the sink.
+     */
+    public void forEach(TriangleSink sink) {
+        forEach(0, facetCount, sink);
+    }
+
+    /**
+     * Feeds the facets in [fromFacet, toFacet) to the sink.  Safe to call from multiple threads
+     * at once, since only absolute reads are made against the mapped regions.
+     */
+    @Override
+    public void forEach(long fromFacet, long toFacet, TriangleSink sink) {
+        layout.forEach(fromFacet, toFacet, sink);
+    }
+
+    @Override
+    public TriangleCursor cursor() {
+        return new TriangleCursor(layout, facetCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        //the mapped regions stay valid until collected, closing only releases the descriptor
+        file.close();
+    }
+}
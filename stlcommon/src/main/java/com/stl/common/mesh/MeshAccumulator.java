@@ -0,0 +1,169 @@
+package com.stl.common.mesh;
+
+/**
+ * Accumulates the geometry of a mesh as its triangles stream past.  Each facet contributes
+ * the signed volume of the tetrahedron it forms with the origin (the divergence theorem),
+ * so the running total is the volume of a closed mesh regardless of where it sits in space.
+ * Surface area, the axis aligned bounds and the first moments of the volume, which locate
+ * its centroid, are gathered in the same pass.  Sums are
+ * compensated, see {@link CompensatedSum}, and accumulators over separate ranges of facets
+ * can be combined with {@link #merge}.<p/>
+ *
+ * The pass also measures the overhang area for printing along +Z: facets facing down at
+ * less than the self-supporting angle to the build plate need support, except those lying
+ * flat on the bottom of the part, which rest on the plate.  Down and up facing areas, and
+ * both of their flat areas at the lowest Z seen so far, are kept, so that a mesh wound
+ * inside-out, whose normals point in, gets the same overhang area.
+ */
+public class MeshAccumulator implements TriangleSink {
+    //Facets within this angle of facing straight down need support
+    public static final double SELF_SUPPORTING_ANGLE = 45.0;
+    private static final double OVERHANG_COSINE = Math.cos(Math.toRadians(SELF_SUPPORTING_ANGLE));
+    //Distance from the lowest Z within which a flat facet rests on the build plate
+    private static final float FLAT_TOLERANCE = 1e-3f;
+
+    private final CompensatedSum signedVolume = new CompensatedSum();
+    private final CompensatedSum surfaceArea = new CompensatedSum();
+    private final CompensatedSum momentX = new CompensatedSum();
+    private final CompensatedSum momentY = new CompensatedSum();
+    private final CompensatedSum momentZ = new CompensatedSum();
+    private final CompensatedSum downArea = new CompensatedSum();
+    private final CompensatedSum upArea = new CompensatedSum();
+    private CompensatedSum downBottomArea = new CompensatedSum();
+    private CompensatedSum upBottomArea = new CompensatedSum();
+    private long triangleCount;
+    private float minX = Float.POSITIVE_INFINITY;
+    private float minY = Float.POSITIVE_INFINITY;
+    private float minZ = Float.POSITIVE_INFINITY;
+    private float maxX = Float.NEGATIVE_INFINITY;
+    private float maxY = Float.NEGATIVE_INFINITY;
+    private float maxZ = Float.NEGATIVE_INFINITY;
+
+    @Override
+    public void triangle(
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz) {
+        //a . (b x c) is six times the signed volume of the tetrahedron (0, a, b, c)
+        double crossX = (double) by * cz - (double) bz * cy;
+        double crossY = (double) bz * cx - (double) bx * cz;
+        double crossZ = (double) bx * cy - (double) by * cx;
+        double volume = (ax * crossX + ay * crossY + az * crossZ) / 6.0;
+        signedVolume.add(volume);
+
+        //the tetrahedron's centroid is (0 + a + b + c) / 4, weighted by its signed volume
+        double weight = volume / 4.0;
+        momentX.add(weight * ((double) ax + bx + cx));
+        momentY.add(weight * ((double) ay + by + cy));
+        momentZ.add(weight * ((double) az + bz + cz));
+
+        //|(b - a) x (c - a)| is twice the facet area
+        double ux = (double) bx - ax, uy = (double) by - ay, uz = (double) bz - az;
+        double vx = (double) cx - ax, vy = (double) cy - ay, vz = (double) cz - az;
+        double nx = uy * vz - uz * vy;
+        double ny = uz * vx - ux * vz;
+        double nz = ux * vy - uy * vx;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        double area = length / 2.0;
+        surfaceArea.add(area);
+
+        float lowZ = Math.min(az, Math.min(bz, cz));
+        float highZ = Math.max(az, Math.max(bz, cz));
+        if (lowZ < minZ - FLAT_TOLERANCE) {
+            downBottomArea = new CompensatedSum();
+            upBottomArea = new CompensatedSum();
+        }
+        minX = Math.min(minX, Math.min(ax, Math.min(bx, cx)));
+        minY = Math.min(minY, Math.min(ay, Math.min(by, cy)));
+        minZ = Math.min(minZ, lowZ);
+        maxX = Math.max(maxX, Math.max(ax, Math.max(bx, cx)));
+        maxY = Math.max(maxY, Math.max(ay, Math.max(by, cy)));
+        maxZ = Math.max(maxZ, highZ);
+        boolean bottom = highZ <= minZ + FLAT_TOLERANCE;
+        if (nz < -OVERHANG_COSINE * length) {
+            downArea.add(area);
+            if (bottom) {
+                downBottomArea.add(area);
+            }
+        } else if (nz > OVERHANG_COSINE * length) {
+            upArea.add(area);
+            if (bottom) {
+                upBottomArea.add(area);
+            }
+        }
+        triangleCount++;
+    }
+
+    /**
+     * Folds in the totals of an accumulator that covered a different range of facets.
+     * Merging the same ranges in the same order always produces the same result.
+     */
+    public void merge(MeshAccumulator other) {
+        signedVolume.add(other.signedVolume);
+        surfaceArea.add(other.surfaceArea);
+        momentX.add(other.momentX);
+        momentY.add(other.momentY);
+        momentZ.add(other.momentZ);
+        downArea.add(other.downArea);
+        upArea.add(other.upArea);
+        //only the flat areas at the overall lowest Z rest on the plate
+        if (other.minZ < minZ - FLAT_TOLERANCE) {
+            downBottomArea = new CompensatedSum();
+            upBottomArea = new CompensatedSum();
+        }
+        if (other.minZ <= minZ + FLAT_TOLERANCE) {
+            downBottomArea.add(other.downBottomArea);
+            upBottomArea.add(other.upBottomArea);
+        }
+        triangleCount += other.triangleCount;
+        minX = Math.min(minX, other.minX);
+        minY = Math.min(minY, other.minY);
+        minZ = Math.min(minZ, other.minZ);
+        maxX = Math.max(maxX, other.maxX);
+        maxY = Math.max(maxY, other.maxY);
+        maxZ = Math.max(maxZ, other.maxZ);
+    }
+
+    /**
+     * Returns the enclosed volume.  Meshes wound inside-out produce a negative signed
+     * volume; like admesh, the magnitude is reported.
+     */
+    public double getVolume() {
+        return Math.abs(signedVolume.getValue());
+    }
+
+    public double getSignedVolume() {
+        return signedVolume.getValue();
+    }
+
+    public long getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Returns the area of facets that need support when printing along +Z, see above.
+     */
+    public double getOverhangArea() {
+        if (signedVolume.getValue() < 0) {
+            return upArea.getValue() - upBottomArea.getValue();
+        }
+        return downArea.getValue() - downBottomArea.getValue();
+    }
+
+    /**
+     * Returns an immutable snapshot of the geometry accumulated so far.
+     */
+    public MeshMetrics toMetrics() {
+        //the moments carry the sign of the volume, so inside-out meshes have the same centroid
+        double volume = signedVolume.getValue();
+        double scale = 0.0 == volume ? Double.NaN : 1.0 / volume;
+        return new MeshMetrics.Builder()
+                .volume(Math.abs(volume))
+                .surfaceArea(surfaceArea.getValue())
+                .triangleCount(triangleCount)
+                .bounds(minX, minY, minZ, maxX, maxY, maxZ)
+                .centroid(momentX.getValue() * scale, momentY.getValue() * scale, momentZ.getValue() * scale)
+                .overhangArea(getOverhangArea())
+                .build();
+    }
+}
@@ -0,0 +1,349 @@
+package com.stl.common.mesh;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Immutable summary of the geometry of a mesh: enclosed volume, surface area, facet count,
+ * axis aligned bounds and the centroid of the enclosed volume.  Bounds are infinite for a mesh
+ * with no facets and the centroid is NaN for a mesh enclosing no volume.<p/>
+ *
+ * For printing it carries the overhang area, the minimum wall thickness, and the layer count
+ * and scan length of the mesh sliced for building.<p/>
+ *
+ * For packing it carries the volume of the convex hull, the oriented box of least volume
+ * around it, and the orientation found best to print it in.<p/>
+ *
+ * Metrics that were not computed are NaN or null, the layer count is 0 if the mesh was not
+ * sliced, and the validity is null if the mesh was not validated.  Instances are made with a
+ * {@link Builder}.
+ */
+@SuppressWarnings("serial")
+public class MeshMetrics implements Serializable {
+    private final double volume;
+    private final double surfaceArea;
+    private final long triangleCount;
+    private final float minX;
+    private final float minY;
+    private final float minZ;
+    private final float maxX;
+    private final float maxY;
+    private final float maxZ;
+    private final double centroidX;
+    private final double centroidY;
+    private final double centroidZ;
+    private final double overhangArea;
+    private final double minWallThickness;
+    private final int layerCount;
+    private final double scanLength;
+    private final double hullVolume;
+    private final OrientedBox orientedBox;
+    private final BuildOrientation buildOrientation;
+    private final MeshValidity validity;
+
+    private MeshMetrics(Builder builder) {
+        this.volume = builder.volume;
+        this.surfaceArea = builder.surfaceArea;
+        this.triangleCount = builder.triangleCount;
+        this.minX = builder.minX;
+        this.minY = builder.minY;
+        this.minZ = builder.minZ;
+        this.maxX = builder.maxX;
+        this.maxY = builder.maxY;
+        this.maxZ = builder.maxZ;
+        this.centroidX = builder.centroidX;
+        this.centroidY = builder.centroidY;
+        this.centroidZ = builder.centroidZ;
+        this.overhangArea = builder.overhangArea;
+        this.minWallThickness = builder.minWallThickness;
+        this.layerCount = builder.layerCount;
+        this.scanLength = builder.scanLength;
+        this.hullVolume = builder.hullVolume;
+        this.orientedBox = builder.orientedBox;
+        this.buildOrientation = builder.buildOrientation;
+        this.validity = builder.validity;
+    }
+
+    /**
+     * Returns a builder initialized with these metrics.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .volume(volume)
+                .surfaceArea(surfaceArea)
+                .triangleCount(triangleCount)
+                .bounds(minX, minY, minZ, maxX, maxY, maxZ)
+                .centroid(centroidX, centroidY, centroidZ)
+                .overhangArea(overhangArea)
+                .minWallThickness(minWallThickness)
+                .slices(layerCount, scanLength)
+                .hull(hullVolume, orientedBox)
+                .buildOrientation(buildOrientation)
+                .validity(validity);
+    }
+
+    /**
+     * Returns a copy of these metrics with the given validity.
+     */
+    public MeshMetrics withValidity(MeshValidity validity) {
+        return toBuilder().validity(validity).build();
+    }
+
+    /**
+     * Returns a copy of these metrics with the given minimum wall thickness.
+     */
+    public MeshMetrics withMinWallThickness(double minWallThickness) {
+        return toBuilder().minWallThickness(minWallThickness).build();
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public double getSurfaceArea() {
+        return surfaceArea;
+    }
+
+    public long getTriangleCount() {
+        return triangleCount;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMinZ() {
+        return minZ;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+
+    public float getMaxZ() {
+        return maxZ;
+    }
+
+    public double getCentroidX() {
+        return centroidX;
+    }
+
+    public double getCentroidY() {
+        return centroidY;
+    }
+
+    public double getCentroidZ() {
+        return centroidZ;
+    }
+
+    /**
+     * Returns the area of facets that need support when printed along +Z, see {@link MeshAccumulator}.
+     */
+    public double getOverhangArea() {
+        return overhangArea;
+    }
+
+    /**
+     * Returns the estimated minimum wall thickness, see {@link WallThicknessSampler}.
+     */
+    public double getMinWallThickness() {
+        return minWallThickness;
+    }
+
+    /**
+     * Returns a copy of these metrics with the given slicing results, see {@link MeshSlicer}.
+     */
+    public MeshMetrics withSlices(int layerCount, double scanLength) {
+        return toBuilder().slices(layerCount, scanLength).build();
+    }
+
+    /**
+     * Returns the number of layers the mesh is built in, see {@link MeshSlices}.
+     */
+    public int getLayerCount() {
+        return layerCount;
+    }
+
+    /**
+     * Returns the length scanned to build every layer, see {@link MeshSlices#getScanLength(double)}.
+     */
+    public double getScanLength() {
+        return scanLength;
+    }
+
+    /**
+     * Returns a copy of these metrics with the given convex hull results, see {@link ConvexHull}.
+     */
+    public MeshMetrics withHull(double hullVolume, OrientedBox orientedBox) {
+        return toBuilder().hull(hullVolume, orientedBox).build();
+    }
+
+    /**
+     * Returns the volume enclosed by the convex hull of the mesh.
+     */
+    public double getHullVolume() {
+        return hullVolume;
+    }
+
+    /**
+     * Returns the oriented box of least volume around the mesh, see {@link OrientedBox}.
+     */
+    public OrientedBox getOrientedBox() {
+        return orientedBox;
+    }
+
+    /**
+     * Returns a copy of these metrics with the given orientation, see {@link OrientationOptimizer}.
+     */
+    public MeshMetrics withBuildOrientation(BuildOrientation buildOrientation) {
+        return toBuilder().buildOrientation(buildOrientation).build();
+    }
+
+    public BuildOrientation getBuildOrientation() {
+        return buildOrientation;
+    }
+
+    public MeshValidity getValidity() {
+        return validity;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final MeshMetrics other = (MeshMetrics) obj;
+        return Double.compare(this.volume, other.volume) == 0
+                && Double.compare(this.surfaceArea, other.surfaceArea) == 0
+                && this.triangleCount == other.triangleCount
+                && Float.compare(this.minX, other.minX) == 0
+                && Float.compare(this.minY, other.minY) == 0
+                && Float.compare(this.minZ, other.minZ) == 0
+                && Float.compare(this.maxX, other.maxX) == 0
+                && Float.compare(this.maxY, other.maxY) == 0
+                && Float.compare(this.maxZ, other.maxZ) == 0
+                && Double.compare(this.centroidX, other.centroidX) == 0
+                && Double.compare(this.centroidY, other.centroidY) == 0
+                && Double.compare(this.centroidZ, other.centroidZ) == 0
+                && Double.compare(this.overhangArea, other.overhangArea) == 0
+                && Double.compare(this.minWallThickness, other.minWallThickness) == 0
+                && this.layerCount == other.layerCount
+                && Double.compare(this.scanLength, other.scanLength) == 0
+                && Double.compare(this.hullVolume, other.hullVolume) == 0
+                && Objects.equals(this.orientedBox, other.orientedBox)
+                && Objects.equals(this.buildOrientation, other.buildOrientation)
+                && Objects.equals(this.validity, other.validity);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(volume, surfaceArea, triangleCount, minX, minY, minZ, maxX, maxY, maxZ,
+                centroidX, centroidY, centroidZ, overhangArea, minWallThickness, layerCount, scanLength, 
+                hullVolume, orientedBox, buildOrientation, validity);
+    }
+
+    /**
+     * Builds {@link MeshMetrics}; metrics that are not set are NaN, null or 0.
+     */
+    public static class Builder {
+        private double volume = Double.NaN;
+        private double surfaceArea = Double.NaN;
+        private long triangleCount;
+        private float minX = Float.NaN;
+        private float minY = Float.NaN;
+        private float minZ = Float.NaN;
+        private float maxX = Float.NaN;
+        private float maxY = Float.NaN;
+        private float maxZ = Float.NaN;
+        private double centroidX = Double.NaN;
+        private double centroidY = Double.NaN;
+        private double centroidZ = Double.NaN;
+        private double overhangArea = Double.NaN;
+        private double minWallThickness = Double.NaN;
+        private int layerCount;
+        private double scanLength = Double.NaN;
+        private double hullVolume = Double.NaN;
+        private OrientedBox orientedBox;
+        private BuildOrientation buildOrientation;
+        private MeshValidity validity;
+
+        public Builder volume(double volume) {
+            this.volume = volume;
+            return this;
+        }
+
+        public Builder surfaceArea(double surfaceArea) {
+            this.surfaceArea = surfaceArea;
+            return this;
+        }
+
+        public Builder triangleCount(long triangleCount) {
+            this.triangleCount = triangleCount;
+            return this;
+        }
+
+        public Builder bounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            return this;
+        }
+
+        public Builder centroid(double centroidX, double centroidY, double centroidZ) {
+            this.centroidX = centroidX;
+            this.centroidY = centroidY;
+            this.centroidZ = centroidZ;
+            return this;
+        }
+
+        public Builder overhangArea(double overhangArea) {
+            this.overhangArea = overhangArea;
+            return this;
+        }
+
+        public Builder minWallThickness(double minWallThickness) {
+            this.minWallThickness = minWallThickness;
+            return this;
+        }
+
+        public Builder slices(int layerCount, double scanLength) {
+            this.layerCount = layerCount;
+            this.scanLength = scanLength;
+            return this;
+        }
+
+        public Builder hull(double hullVolume, OrientedBox orientedBox) {
+            this.hullVolume = hullVolume;
+            this.orientedBox = orientedBox;
+            return this;
+        }
+
+        public Builder buildOrientation(BuildOrientation buildOrientation) {
+            this.buildOrientation = buildOrientation;
+            return this;
+        }
+
+        public Builder validity(MeshValidity validity) {
+            this.validity = validity;
+            return this;
+        }
+
+        public MeshMetrics build() {
+            return new MeshMetrics(this);
+        }
+    }
+}
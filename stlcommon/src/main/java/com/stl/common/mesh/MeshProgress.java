@@ -0,0 +1,172 @@
+package com.stl.common.mesh;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how much of a mesh has been analyzed and lets the analysis be cancelled from
+ * another thread.  Reading the input is measured in bytes of STL, which for binary files is
+ * exactly proportional to the number of triangles processed.  Analyses that go on to run
+ * further stages over the facets plan them with {@link #planStages(double)}, weighted
+ * relative to reading, and complete each with {@link #completeStage(double)}, so the
+ * percentage keeps moving after the input is consumed.<p/>
+ *
+ * Once {@link #cancel()} is called the next progress update throws a
+ * {@link CancellationException}, which unwinds the parser or parallel reduction doing the
+ * work.  Later stages see it through {@link #watch(TriangleSource)}, which checks every few
+ * thousand facets from inside their leaf tasks.
+ */
+public class MeshProgress {
+    //Triangles a sink processes between progress updates
+    private static final int SINK_BATCH = 4096;
+
+    private final long total;
+    private final AtomicLong processed = new AtomicLong();
+    private volatile boolean cancelled;
+    //the share of the percentage reading the input makes up, and that of the stages completed
+    private volatile double readShare = 1;
+    private volatile double completedShare;
+
+    /**
+     * @param total The size of the input in bytes
+     */
+    public MeshProgress(long total) {
+        this.total = total;
+    }
+
+    public void advance(long bytes) {
+        processed.addAndGet(bytes);
+        checkCancelled();
+    }
+
+    /**
+     * Plans stages run after the input is read, of the given total weight relative to
+     * reading it.  Must be called before the input is read.
+     */
+    public void planStages(double weight) {
+        readShare = 1 / (1 + weight);
+    }
+
+    /**
+     * Completes a planned stage of the given weight.  Stages are completed by the thread
+     * running the analysis, one at a time.
+     *
+     * @throws CancellationException if the analysis was cancelled
+     */
+    public void completeStage(double weight) {
+        completedShare += weight * readShare;
+        checkCancelled();
+    }
+
+    /**
+     * @throws CancellationException if the analysis was cancelled
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Mesh analysis was cancelled");
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the percentage of the analysis done so far, between 0 and 100.
+     */
+    public double getPercentComplete() {
+        double read = total <= 0 ? 0.0 : Math.min(1.0, (double) processed.get() / total);
+        return Math.min(100.0, (read * readShare + completedShare) * 100.0);
+    }
+
+    /**
+     * Wraps a stream so that progress advances as bytes are read from it.
+     */
+    public InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    advance(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    advance(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Wraps a sink so that progress advances by one binary record per triangle.  The returned
+     * sink is not thread safe; wrap the sink of each concurrent task separately.
+     */
+    public TriangleSink track(final TriangleSink sink) {
+        return new TriangleSink() {
+            private int pending;
+
+            @Override
+            public void triangle(
+                    float ax, float ay, float az,
+                    float bx, float by, float bz,
+                    float cx, float cy, float cz) {
+                sink.triangle(ax, ay, az, bx, by, bz, cx, cy, cz);
+                if (++pending == SINK_BATCH) {
+                    advance((long) pending * BinaryStlParser.RECORD_SIZE);
+                    pending = 0;
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a source so that its cursors and passes throw a {@link CancellationException}
+     * within a few thousand facets of the analysis being cancelled.
+     */
+    public TriangleSource watch(final TriangleSource source) {
+        return new TriangleSource() {
+            @Override
+            public long getFacetCount() {
+                return source.getFacetCount();
+            }
+
+            @Override
+            public void forEach(long fromFacet, long toFacet, final TriangleSink sink) {
+                source.forEach(fromFacet, toFacet, new TriangleSink() {
+                    private int pending;
+
+                    @Override
+                    public void triangle(
+                            float ax, float ay, float az,
+                            float bx, float by, float bz,
+                            float cx, float cy, float cz) {
+                        sink.triangle(ax, ay, az, bx, by, bz, cx, cy, cz);
+                        if (++pending == SINK_BATCH) {
+                            checkCancelled();
+                            pending = 0;
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public TriangleCursor cursor() {
+                return source.cursor().watch(MeshProgress.this);
+            }
+        };
+    }
+}
@@ -0,0 +1,373 @@
+package com.stl.common.mesh;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Repairs the common defects of exported meshes in a few linear passes over an
+ * {@link IndexedMesh}, in the spirit of admesh's repair options:
+ * <ol>
+ * <li>Degenerate facets, whose corners coincide or are collinear, are removed.</li>
+ * <li>Winding is unified by walking each connected patch of facets across its manifold
+ * edges, flipping neighbours that disagree, and then flipping whole patches whose enclosed
+ * volume is negative so that normals face outwards.</li>
+ * <li>Holes bounded by at most maxHoleEdges edges are closed with a fan of facets around a
+ * vertex added at the centre of the hole; holes of three edges get a single facet.</li>
+ * </ol>
+ * Finding the neighbours of every facet, the costliest pass, is split across the fork-join
+ * pool; the others are sequential walks over primitive arrays.  Non-manifold edges are left
+ * alone, and winding is not propagated across them.
+ */
+public class MeshRepair {
+    //Facets whose neighbours are found sequentially by each leaf task
+    private static final int LEAF_TRIANGLES = 64 * 1024;
+    private static final int BOUNDARY = -1;
+    private static final int NON_MANIFOLD = -2;
+    private static final int VISITED = -3;
+
+    private final IndexedMesh mesh;
+    private final int degenerateFacets;
+    private final int flippedFacets;
+    private final int filledHoles;
+    private final int unfilledHoles;
+    private final int addedFacets;
+
+    private MeshRepair(IndexedMesh mesh, int degenerateFacets, int flippedFacets, int filledHoles,
+            int unfilledHoles, int addedFacets) {
+        this.mesh = mesh;
+        this.degenerateFacets = degenerateFacets;
+        this.flippedFacets = flippedFacets;
+        this.filledHoles = filledHoles;
+        this.unfilledHoles = unfilledHoles;
+        this.addedFacets = addedFacets;
+    }
+
+    /**
+     * Repairs a mesh, which is left unchanged.
+     *
+     * @param maxHoleEdges The largest number of edges around a hole that is filled
+     * @param pool The pool the neighbour search runs on, or null to run it on the calling thread
+     */
+    public static MeshRepair repair(IndexedMesh mesh, int maxHoleEdges, ForkJoinPool pool) {
+        float[] vertices = mesh.vertices;
+        int vertexCount = mesh.getVertexCount();
+        int[] triangles = removeDegenerate(mesh);
+        int count = triangles.length / 3;
+        int[] neighbors = findNeighbors(triangles, vertexCount, pool);
+        boolean[] flip = orient(vertices, triangles, neighbors);
+
+        //each open edge of the oriented mesh is walked the other way round its hole
+        int[] holeNext = new int[vertexCount];
+        Arrays.fill(holeNext, BOUNDARY);
+        for (int t = 0; t < count; t++) {
+            for (int k = 0; k < 3; k++) {
+                if (neighbors[3 * t + k] != BOUNDARY) {
+                    continue;
+                }
+                int a = triangles[3 * t + k], b = triangles[3 * t + (k + 1) % 3];
+                int from = flip[t] ? a : b, to = flip[t] ? b : a;
+                //a vertex where two holes touch has no single way on, so neither is filled
+                holeNext[from] = holeNext[from] == BOUNDARY ? to : NON_MANIFOLD;
+            }
+        }
+        int flipped = 0;
+        for (int t = 0; t < count; t++) {
+            if (flip[t]) {
+                int swap = triangles[3 * t + 1];
+                triangles[3 * t + 1] = triangles[3 * t + 2];
+                triangles[3 * t + 2] = swap;
+                flipped++;
+            }
+        }
+
+        HoleFiller filler = new HoleFiller(vertices, vertexCount, triangles, count);
+        int filled = 0, unfilled = 0;
+        int[] loop = new int[16];
+        for (int v = 0; v < vertexCount; v++) {
+            if (holeNext[v] < 0) {
+                continue;
+            }
+            int length = 0;
+            boolean closed = false;
+            for (int u = v; ; ) {
+                int next = holeNext[u];
+                if (next < 0) {
+                    break;
+                }
+                if (length == loop.length) {
+                    loop = Arrays.copyOf(loop, 2 * length);
+                }
+                loop[length++] = u;
+                holeNext[u] = VISITED;
+                u = next;
+                if (u == v) {
+                    closed = true;
+                    break;
+                }
+            }
+            if (closed && length >= 3 && length <= maxHoleEdges) {
+                filler.fill(loop, length);
+                filled++;
+            } else {
+                unfilled++;
+            }
+        }
+        return new MeshRepair(filler.build(), mesh.getTriangleCount() - count, flipped, filled, unfilled,
+                filler.triangleCount - count);
+    }
+
+    private static int[] removeDegenerate(IndexedMesh mesh) {
+        int[] source = mesh.triangles;
+        int[] kept = new int[3 * mesh.getTriangleCount()];
+        int length = 0;
+        for (int t = 0, end = 3 * mesh.getTriangleCount(); t < end; t += 3) {
+            int a = source[t], b = source[t + 1], c = source[t + 2];
+            if (a == b || b == c || c == a || isCollinear(mesh, a, b, c)) {
+                continue;
+            }
+            kept[length++] = a;
+            kept[length++] = b;
+            kept[length++] = c;
+        }
+        return length == kept.length ? kept : Arrays.copyOf(kept, length);
+    }
+
+    private static boolean isCollinear(IndexedMesh mesh, int a, int b, int c) {
+        double ux = mesh.getX(b) - (double) mesh.getX(a), uy = mesh.getY(b) - (double) mesh.getY(a), uz = mesh.getZ(b) - (double) mesh.getZ(a);
+        double vx = mesh.getX(c) - (double) mesh.getX(a), vy = mesh.getY(c) - (double) mesh.getY(a), vz = mesh.getZ(c) - (double) mesh.getZ(a);
+        return uy * vz - uz * vy == 0 && uz * vx - ux * vz == 0 && ux * vy - uy * vx == 0;
+    }
+
+    /**
+     * Returns, for corner k of each facet, the facet across the edge from that corner to the
+     * next, or BOUNDARY if there is none and NON_MANIFOLD if there are several.
+     */
+    private static int[] findNeighbors(int[] triangles, int vertexCount, ForkJoinPool pool) {
+        //the facets around each vertex, as offsets into a single array
+        int[] start = new int[vertexCount + 1];
+        for (int corner : triangles) {
+            start[corner + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] incident = new int[triangles.length];
+        int[] fill = Arrays.copyOf(start, vertexCount);
+        for (int i = 0; i < triangles.length; i++) {
+            incident[fill[triangles[i]]++] = i / 3;
+        }
+        int[] neighbors = new int[triangles.length];
+        NeighborTask task = new NeighborTask(triangles, start, incident, neighbors, 0, triangles.length / 3);
+        if (null == pool || triangles.length / 3 <= LEAF_TRIANGLES) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return neighbors;
+    }
+
+    @SuppressWarnings("serial")
+    private static class NeighborTask extends RecursiveAction {
+        private final int[] triangles;
+        private final int[] start;
+        private final int[] incident;
+        private final int[] neighbors;
+        private final int from;
+        private final int to;
+
+        NeighborTask(int[] triangles, int[] start, int[] incident, int[] neighbors, int from, int to) {
+            this.triangles = triangles;
+            this.start = start;
+            this.incident = incident;
+            this.neighbors = neighbors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_TRIANGLES) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new NeighborTask(triangles, start, incident, neighbors, from, mid),
+                        new NeighborTask(triangles, start, incident, neighbors, mid, to));
+                return;
+            }
+            for (int t = from; t < to; t++) {
+                for (int k = 0; k < 3; k++) {
+                    int a = triangles[3 * t + k], b = triangles[3 * t + (k + 1) % 3];
+                    int found = BOUNDARY;
+                    for (int i = start[a]; i < start[a + 1]; i++) {
+                        int u = incident[i];
+                        if (u != t && (triangles[3 * u] == b || triangles[3 * u + 1] == b || triangles[3 * u + 2] == b)) {
+                            if (found != BOUNDARY) {
+                                found = NON_MANIFOLD;
+                                break;
+                            }
+                            found = u;
+                        }
+                    }
+                    neighbors[3 * t + k] = found;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns which facets to flip so that neighbours agree and each patch encloses a positive volume.
+     */
+    private static boolean[] orient(float[] vertices, int[] triangles, int[] neighbors) {
+        int count = triangles.length / 3;
+        boolean[] flip = new boolean[count];
+        boolean[] seen = new boolean[count];
+        int[] queue = new int[count];
+        int head = 0, tail = 0;
+        for (int seed = 0; seed < count; seed++) {
+            if (seen[seed]) {
+                continue;
+            }
+            int patchStart = tail;
+            seen[seed] = true;
+            queue[tail++] = seed;
+            while (head < tail) {
+                int t = queue[head++];
+                for (int k = 0; k < 3; k++) {
+                    int u = neighbors[3 * t + k];
+                    if (u < 0 || seen[u]) {
+                        continue;
+                    }
+                    //as stored, neighbours agree if they run along the shared edge in opposite directions
+                    int a = triangles[3 * t + k], b = triangles[3 * t + (k + 1) % 3];
+                    flip[u] = runsFrom(triangles, u, a, b) != flip[t];
+                    seen[u] = true;
+                    queue[tail++] = u;
+                }
+            }
+            double volume = 0;
+            for (int i = patchStart; i < tail; i++) {
+                int t = queue[i];
+                double v = signedVolume(vertices, triangles, t);
+                volume += flip[t] ? -v : v;
+            }
+            if (volume < 0) {
+                for (int i = patchStart; i < tail; i++) {
+                    flip[queue[i]] = !flip[queue[i]];
+                }
+            }
+        }
+        return flip;
+    }
+
+    private static boolean runsFrom(int[] triangles, int t, int a, int b) {
+        for (int k = 0; k < 3; k++) {
+            if (triangles[3 * t + k] == a) {
+                return triangles[3 * t + (k + 1) % 3] == b;
+            }
+        }
+        return false;
+    }
+
+    private static double signedVolume(float[] vertices, int[] triangles, int t) {
+        int a = 3 * triangles[3 * t], b = 3 * triangles[3 * t + 1], c = 3 * triangles[3 * t + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double bx = vertices[b], by = vertices[b + 1], bz = vertices[b + 2];
+        double cx = vertices[c], cy = vertices[c + 1], cz = vertices[c + 2];
+        return (ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx)) / 6.0;
+    }
+
+    /**
+     * Appends the facets and centre vertices that close holes to the repaired mesh.
+     */
+    private static class HoleFiller {
+        private float[] vertices;
+        private boolean copied;
+        private int vertexCount;
+        private int[] triangles;
+        private int triangleCount;
+
+        HoleFiller(float[] vertices, int vertexCount, int[] triangles, int triangleCount) {
+            this.vertices = vertices;
+            this.vertexCount = vertexCount;
+            this.triangles = triangles;
+            this.triangleCount = triangleCount;
+        }
+
+        /**
+         * Closes a hole given by its vertices in the order it is walked, which is the winding
+         * the new facets take.
+         */
+        void fill(int[] loop, int length) {
+            if (length == 3) {
+                addTriangle(loop[0], loop[1], loop[2]);
+                return;
+            }
+            double x = 0, y = 0, z = 0;
+            for (int i = 0; i < length; i++) {
+                x += vertices[3 * loop[i]];
+                y += vertices[3 * loop[i] + 1];
+                z += vertices[3 * loop[i] + 2];
+            }
+            int centre = addVertex((float) (x / length), (float) (y / length), (float) (z / length));
+            for (int i = 0; i < length; i++) {
+                addTriangle(loop[i], loop[(i + 1) % length], centre);
+            }
+        }
+
+        private int addVertex(float x, float y, float z) {
+            if (!copied || 3 * (vertexCount + 1) > vertices.length) {
+                //the source mesh's pool is copied on first write, never modified
+                vertices = Arrays.copyOf(vertices, Math.max(3 * (vertexCount + 1), vertices.length + vertices.length / 2));
+                copied = true;
+            }
+            vertices[3 * vertexCount] = x;
+            vertices[3 * vertexCount + 1] = y;
+            vertices[3 * vertexCount + 2] = z;
+            return vertexCount++;
+        }
+
+        private void addTriangle(int a, int b, int c) {
+            if (3 * (triangleCount + 1) > triangles.length) {
+                triangles = Arrays.copyOf(triangles, Math.max(3 * (triangleCount + 1), triangles.length + triangles.length / 2));
+            }
+            triangles[3 * triangleCount] = a;
+            triangles[3 * triangleCount + 1] = b;
+            triangles[3 * triangleCount + 2] = c;
+            triangleCount++;
+        }
+
+        IndexedMesh build() {
+            return new IndexedMesh(vertices, vertexCount, triangles, triangleCount);
+        }
+    }
+
+    /**
+     * Returns the repaired mesh.
+     */
+    public IndexedMesh getMesh() {
+        return mesh;
+    }
+
+    public int getDegenerateFacets() {
+        return degenerateFacets;
+    }
+
+    public int getFlippedFacets() {
+        return flippedFacets;
+    }
+
+    public int getFilledHoles() {
+        return filledHoles;
+    }
+
+    /**
+     * Returns the number of holes left open because they were too large, or because they
+     * touch other holes or non-manifold edges.
+     */
+    public int getUnfilledHoles() {
+        return unfilledHoles;
+    }
+
+    public int getAddedFacets() {
+        return addedFacets;
+    }
+}
@@ -0,0 +1,157 @@
+package com.stl.common.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Slices a mesh into layers of a given height, as a powder bed printer builds it, and
+ * measures the contour of each layer, see {@link MeshSlices}.  Layers start at the lowest
+ * point of the mesh and each is cut through its centre plane.<p/>
+ *
+ * Facets are first sorted by the lowest layer they cross, see {@link LayerSweep}, so cutting
+ * a layer touches only its own facets, and ranges of layers are swept in parallel on the
+ * fork-join pool.
+ * Each facet a plane cuts contributes one segment of the contour, directed by the facet's
+ * normal so that outlines run counter-clockwise and holes clockwise seen from above; the
+ * layer's area is then the shoelace sum of its segments and needs no contour to be traced.
+ */
+public class MeshSlicer {
+    //Fewest layers cut sequentially by each leaf task
+    private static final int LEAF_LAYERS = 16;
+    //Slack for heights that are a whole number of layers up to rounding
+    private static final double LAYER_ROUNDING = 1e-6;
+
+    /**
+     * @param layerHeight The height of a layer, in mesh units
+     * @param pool The pool layers are cut on, or null to cut them on the calling thread
+     * @throws IllegalArgumentException if the layer height is not positive or the mesh has
+     *          too many facets to sweep
+     */
+    public static MeshSlices slice(TriangleSource source, double layerHeight, ForkJoinPool pool) {
+        if (!(layerHeight > 0) || Double.isInfinite(layerHeight)) {
+            throw new IllegalArgumentException("Invalid layer height " + layerHeight);
+        }
+        float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE };
+        TriangleCursor cursor = source.cursor();
+        while (cursor.next()) {
+            for (int k = 0; k < 3; k++) {
+                bounds[0] = Math.min(bounds[0], cursor.getX(k));
+                bounds[1] = Math.min(bounds[1], cursor.getY(k));
+                bounds[2] = Math.min(bounds[2], cursor.getZ(k));
+                bounds[3] = Math.max(bounds[3], cursor.getZ(k));
+            }
+        }
+        double height = (double) bounds[3] - bounds[2];
+        if (!(height > 0)) {
+            return new MeshSlices(layerHeight, new double[0], new double[0]);
+        }
+        double layers = Math.ceil(height / layerHeight - LAYER_ROUNDING);
+        if (layers > Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("Too many layers of height " + layerHeight);
+        }
+        int layerCount = (int) Math.max(1, layers);
+        int leafLayers = LayerSweep.getLeafLayers(layerCount, pool, LEAF_LAYERS);
+        SliceTask task = new SliceTask(new LayerSweep(source, bounds[2], layerHeight, layerCount), source, 
+                bounds[0], bounds[1], new double[layerCount], new double[layerCount], leafLayers, 0, layerCount);
+        if (null == pool || layerCount <= leafLayers) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return new MeshSlices(layerHeight, task.area, task.perimeter);
+    }
+
+    @SuppressWarnings("serial")
+    private static class SliceTask extends RecursiveAction {
+        private final LayerSweep sweep;
+        private final TriangleSource source;
+        //Contours are measured relative to the low corner of the mesh, which keeps the
+        //shoelace sum from cancelling away the precision of far off meshes
+        private final float originX;
+        private final float originY;
+        private final double[] area;
+        private final double[] perimeter;
+        private final int leafLayers;
+        private final int from;
+        private final int to;
+
+        SliceTask(LayerSweep sweep, TriangleSource source, float originX, float originY, 
+                double[] area, double[] perimeter, int leafLayers, int from, int to) {
+            this.sweep = sweep;
+            this.source = source;
+            this.originX = originX;
+            this.originY = originY;
+            this.area = area;
+            this.perimeter = perimeter;
+            this.leafLayers = leafLayers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafLayers) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SliceTask(sweep, source, originX, originY, area, perimeter, leafLayers, from, middle), 
+                        new SliceTask(sweep, source, originX, originY, area, perimeter, leafLayers, middle, to));
+                return;
+            }
+            TriangleCursor cursor = source.cursor();
+            LayerSweep.Active active = sweep.sweepFrom(from);
+            double[] x = new double[3], y = new double[3], z = new double[3];
+            double[] cut = new double[4];
+            for (int layer = from; layer < to; layer++) {
+                active.advance();
+                double plane = layer + 0.5;
+                double twiceArea = 0, length = 0;
+                for (int i = 0; i < active.size(); i++) {
+                    cursor.seek(active.getFacet(i));
+                    cursor.next();
+                    for (int k = 0; k < 3; k++) {
+                        x[k] = cursor.getX(k) - originX;
+                        y[k] = cursor.getY(k) - originY;
+                        z[k] = sweep.toLayerZ(cursor.getZ(k));
+                    }
+                    if (!cut(x, y, z, plane, cut)) {
+                        continue;
+                    }
+                    //x and y of the facet normal; the contour runs along normal x up
+                    double normalX = (y[1] - y[0]) * (z[2] - z[0]) - (z[1] - z[0]) * (y[2] - y[0]);
+                    double normalY = (z[1] - z[0]) * (x[2] - x[0]) - (x[1] - x[0]) * (z[2] - z[0]);
+                    double dx = cut[2] - cut[0], dy = cut[3] - cut[1];
+                    double cross = cut[0] * cut[3] - cut[2] * cut[1];
+                    twiceArea += dx * -normalY + dy * normalX >= 0 ? cross : -cross;
+                    length += Math.sqrt(dx * dx + dy * dy);
+                }
+                //inside-out meshes run the other way round
+                area[layer] = Math.abs(twiceArea) / 2;
+                perimeter[layer] = length;
+            }
+        }
+
+        /**
+         * Cuts the facet with the plane into cut, a corner above it only if strictly above,
+         * and returns whether the plane crosses the facet.  Each point is interpolated from
+         * below to above along its edge, so the facets sharing the edge compute the same point.
+         */
+        private static boolean cut(double[] x, double[] y, double[] z, double plane, double[] cut) {
+            int found = 0;
+            for (int k = 0; k < 3; k++) {
+                int a = k, b = (k + 1) % 3;
+                boolean aboveA = z[a] > plane, aboveB = z[b] > plane;
+                if (aboveA == aboveB) {
+                    continue;
+                }
+                if (aboveA) {
+                    a = b;
+                    b = k;
+                }
+                double t = (plane - z[a]) / (z[b] - z[a]);
+                cut[2 * found] = x[a] + t * (x[b] - x[a]);
+                cut[2 * found + 1] = y[a] + t * (y[b] - y[a]);
+                found++;
+            }
+            return 2 == found;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.stl.common.mesh;
+
+/**
+ * The layers of a sliced mesh, see {@link MeshSlicer}: for each layer from the bottom, the
+ * area of its cross section and the length of its contours, in mesh units.
+ */
+public class MeshSlices {
+    private final double layerHeight;
+    private final double[] area;
+    private final double[] perimeter;
+
+    MeshSlices(double layerHeight, double[] area, double[] perimeter) {
+        this.layerHeight = layerHeight;
+        this.area = area;
+        this.perimeter = perimeter;
+    }
+
+    public double getLayerHeight() {
+        return layerHeight;
+    }
+
+    public int getLayerCount() {
+        return area.length;
+    }
+
+    public double getArea(int layer) {
+        return area[layer];
+    }
+
+    public double getPerimeter(int layer) {
+        return perimeter[layer];
+    }
+
+    /**
+     * Returns the area of every layer added up.
+     */
+    public double getTotalArea() {
+        CompensatedSum sum = new CompensatedSum();
+        for (double layer : area) {
+            sum.add(layer);
+        }
+        return sum.getValue();
+    }
+
+    public double getTotalPerimeter() {
+        CompensatedSum sum = new CompensatedSum();
+        for (double layer : perimeter) {
+            sum.add(layer);
+        }
+        return sum.getValue();
+    }
+
+    /**
+     * Returns the length the laser travels to build every layer: each contour once, and the
+     * inside of the cross section filled by hatch lines the given distance apart.
+     */
+    public double getScanLength(double hatchSpacing) {
+        return getTotalPerimeter() + getTotalArea() / hatchSpacing;
+    }
+}
@@ -0,0 +1,72 @@
+package com.stl.common.mesh;
+
+/**
+ * Checks the topology of a mesh, see {@link MeshValidity}, either of an {@link IndexedMesh}
+ * or as triangles stream past.  Streamed corners are matched through a {@link VertexIndex};
+ * either way every edge of every facet is recorded in an {@link EdgeIndex}.  Both are
+ * primitive hash tables, so validation is linear in the number of facets, and streaming
+ * validation does not keep the mesh.  Both are sized up front from the expected facet count
+ * and kept at most half full: a closed mesh has about half a vertex per facet, each taking
+ * two 32 byte vertex slots, and one and a half edges per facet, each taking two 8 byte edge
+ * slots, so streaming validation needs about 56 bytes per facet and up to twice that once
+ * the tables are rounded up to powers of two, roughly 80 bytes per facet on average.
+ */
+public class MeshValidator implements TriangleSink {
+    //a closed manifold has about half as many vertices and one and a half times as many edges as facets
+    private static final int VERTICES_PER_FACET_DIVISOR = 2;
+    private static final int EDGES_PER_TWO_FACETS = 3;
+
+    private final VertexIndex vertices;
+    private final EdgeIndex edges;
+    private long degenerateFacets;
+
+    /**
+     * @param tolerance The distance below which corners are considered the same vertex
+     * @param expectedFacets The number of facets to size the indexes for, or 0 if unknown
+     */
+    public MeshValidator(double tolerance, long expectedFacets) {
+        long facets = Math.max(0, Math.min(expectedFacets, EdgeIndex.MAX_VERTICES));
+        this.vertices = new VertexIndex(tolerance, (int) (facets / VERTICES_PER_FACET_DIVISOR));
+        this.edges = new EdgeIndex(facets * EDGES_PER_TWO_FACETS / 2);
+    }
+
+    private MeshValidator(long facets) {
+        this.vertices = null;
+        this.edges = new EdgeIndex(facets * EDGES_PER_TWO_FACETS / 2);
+    }
+
+    /**
+     * Validates a mesh whose corners have already been matched.
+     */
+    public static MeshValidity validate(IndexedMesh mesh) {
+        MeshValidator validator = new MeshValidator(mesh.getTriangleCount());
+        int[] triangles = mesh.triangles;
+        for (int t = 0, end = 3 * mesh.getTriangleCount(); t < end; t += 3) {
+            validator.facet(triangles[t], triangles[t + 1], triangles[t + 2]);
+        }
+        return validator.getValidity();
+    }
+
+    @Override
+    public void triangle(
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz) {
+        facet(vertices.indexOf(ax, ay, az), vertices.indexOf(bx, by, bz), vertices.indexOf(cx, cy, cz));
+    }
+
+    private void facet(int a, int b, int c) {
+        if (a == b || b == c || c == a) {
+            //collapsed facets have no area and are left out of the edge count
+            degenerateFacets++;
+            return;
+        }
+        edges.add(a, b);
+        edges.add(b, c);
+        edges.add(c, a);
+    }
+
+    public MeshValidity getValidity() {
+        return edges.getValidity(degenerateFacets);
+    }
+}
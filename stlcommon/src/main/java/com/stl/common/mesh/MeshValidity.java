@@ -0,0 +1,72 @@
+package com.stl.common.mesh;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The outcome of checking that a mesh is a closed, consistently wound manifold, which it must
+ * be for its volume to mean anything.  Open edges are used by a single facet and leave holes;
+ * non-manifold edges are shared by more than two facets; inconsistent edges are shared by two
+ * facets that traverse them in the same direction, so one of the facets is flipped.
+ * Degenerate facets, whose corners coincide, are counted but do not make a mesh invalid.
+ */
+@SuppressWarnings("serial")
+public class MeshValidity implements Serializable {
+    private final long openEdges;
+    private final long nonManifoldEdges;
+    private final long inconsistentEdges;
+    private final long degenerateFacets;
+
+    public MeshValidity(long openEdges, long nonManifoldEdges, long inconsistentEdges, long degenerateFacets) {
+        this.openEdges = openEdges;
+        this.nonManifoldEdges = nonManifoldEdges;
+        this.inconsistentEdges = inconsistentEdges;
+        this.degenerateFacets = degenerateFacets;
+    }
+
+    public boolean isValid() {
+        return 0 == openEdges && 0 == nonManifoldEdges && 0 == inconsistentEdges;
+    }
+
+    public long getOpenEdges() {
+        return openEdges;
+    }
+
+    public long getNonManifoldEdges() {
+        return nonManifoldEdges;
+    }
+
+    public long getInconsistentEdges() {
+        return inconsistentEdges;
+    }
+
+    public long getDegenerateFacets() {
+        return degenerateFacets;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final MeshValidity other = (MeshValidity) obj;
+        return this.openEdges == other.openEdges
+                && this.nonManifoldEdges == other.nonManifoldEdges
+                && this.inconsistentEdges == other.inconsistentEdges
+                && this.degenerateFacets == other.degenerateFacets;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(openEdges, nonManifoldEdges, inconsistentEdges, degenerateFacets);
+    }
+
+    @Override
+    public String toString() {
+        return openEdges + " open edges, " + nonManifoldEdges + " non-manifold edges, "
+                + inconsistentEdges + " inconsistently wound edges";
+    }
+}
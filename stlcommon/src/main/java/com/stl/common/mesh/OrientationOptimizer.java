@@ -0,0 +1,705 @@
+package com.stl.common.mesh;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Searches for the orientation to print a mesh in, see {@link BuildOrientation}.  Candidate
+ * build directions are the coordinate axes both ways, the directions that rest the part on
+ * one of the largest faces of its {@link ConvexHull}, and the vertices of a geodesic sphere.
+ * Each is scored as its overhang area plus the footprint and the height, weighted by the
+ * configured square millimetres per square millimetre of footprint and per millimetre of
+ * height; the lowest score wins, and of equal scores the one turned least from the uploaded
+ * orientation.<p/>
+ *
+ * Like {@link MeshAccumulator} does along +Z, facets flat on the lowest plane of the part
+ * stand on the build plate rather than needing support, for every candidate.  That plane
+ * holds facets only where the hull is flat along it, so candidates are first checked against
+ * the hull vertex lowest along them, and those with a flat bottom get a contact plane.  The
+ * facets are then visited once, in parallel over ranges on the fork-join pool, to sum their
+ * areas into bins by normal direction, each bin keeping the area weighted sum of its
+ * normals, and to measure the area of the facets flat on each contact plane, looking only at
+ * the planes whose normal falls in or near the facet's bin.  The hull's faces are binned
+ * likewise.  Candidates are then scored in parallel from the bins alone: a bin overhangs if
+ * its mean normal faces down more steeply than the self-supporting angle, see
+ * {@link MeshAccumulator}, the footprint is the shadow of the hull, half the sum of its
+ * face areas times the absolute cosine to the build direction, and the height is the extent
+ * of the hull along it, found by climbing the hull's vertices from those of the previous
+ * candidate.  As with the overhang area of the uploaded orientation,
+ * a mesh wound inside-out is scored as if it were not.
+ */
+public class OrientationOptimizer {
+    //Normal bins per side of the octahedral map of directions, about 1.4 degrees each
+    private static final int BINS_PER_SIDE = 128;
+    private static final int BIN_COUNT = BINS_PER_SIDE * BINS_PER_SIDE;
+    private static final int MAX_SUBDIVISIONS = 6;
+    //Largest hull faces tried as the face the part rests on
+    private static final int MAX_RESTING_FACES = 64;
+    //Facets scored sequentially by each leaf task, and candidates
+    private static final long LEAF_FACETS = 64 * 1024;
+    private static final int LEAF_CANDIDATES = 16;
+    //Directions closer than this to a resting face or axis are not tried again
+    private static final double SAME_DIRECTION = 1 - 1e-9;
+    //Facets within about a tenth of a degree of a contact plane and this close to it lie on it
+    private static final double FLAT_COSINE = 1 - 1e-6;
+    private static final double FLAT_TOLERANCE = 1e-3;
+    //Directions around a contact plane's normal whose bins it is looked up in, at twice the
+    //flat angle so that they enclose every direction within it
+    private static final int CONTACT_SAMPLES = 12;
+    private static final double CONTACT_SAMPLE_ANGLE = 2 * Math.acos(FLAT_COSINE);
+    //Scores this close, relative to their size, are equal
+    private static final double SCORE_ROUNDING = 1e-9;
+    private static final double OVERHANG_COSINE = Math.cos(Math.toRadians(MeshAccumulator.SELF_SUPPORTING_ANGLE));
+
+    private final boolean enabled;
+    private final int subdivisions;
+    private final double footprintWeight;
+    private final double heightWeight;
+
+    /**
+     * @param enabled Whether quotes search for an orientation
+     * @param subdivisions How often the icosahedron is subdivided into the geodesic sphere of
+     *          directions, which has 10 * 4^subdivisions + 2 vertices
+     * @param footprintWeight The score of a square millimetre of footprint
+     * @param heightWeight The score of a millimetre of height
+     * @throws IllegalArgumentException if the subdivisions are out of range
+     */
+    public OrientationOptimizer(boolean enabled, int subdivisions, double footprintWeight, double heightWeight) {
+        if (subdivisions < 0 || subdivisions > MAX_SUBDIVISIONS) {
+            throw new IllegalArgumentException("Subdivisions must be between 0 and " + MAX_SUBDIVISIONS);
+        }
+        this.enabled = enabled;
+        this.subdivisions = subdivisions;
+        this.footprintWeight = footprintWeight;
+        this.heightWeight = heightWeight;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSubdivisions() {
+        return subdivisions;
+    }
+
+    public double getFootprintWeight() {
+        return footprintWeight;
+    }
+
+    public double getHeightWeight() {
+        return heightWeight;
+    }
+
+    /**
+     * Returns the best orientation for the facets of the source, whose hull is given.
+     *
+     * @param pool The pool the search runs on, or null to run it on the calling thread
+     */
+    public BuildOrientation optimize(TriangleSource source, ConvexHull hull, ForkJoinPool pool) {
+        Support support = new Support(hull);
+        double[] candidates = getCandidates(getRestingFaces(hull));
+        int[] contactPlane = new int[candidates.length / 3];
+        ContactPlanes planes = getContactPlanes(candidates, support, contactPlane);
+
+        long facets = source.getFacetCount();
+        FacetTask facetTask = new FacetTask(source, planes, 0, facets);
+        FacetBins mesh = null == pool || facets <= LEAF_FACETS ? facetTask.compute() : pool.invoke(facetTask);
+        double[] contact = mesh.signedVolume < 0 ? mesh.inwardContact : mesh.outwardContact;
+        double[] meshBins = mesh.compact(mesh.signedVolume < 0 ? -1 : 1);
+        FacetBins hullFaces = new FacetBins(null);
+        for (int f = 0; f < hull.getFaceCount(); f++) {
+            int a = hull.getVertex(f, 0), b = hull.getVertex(f, 1), c = hull.getVertex(f, 2);
+            hullFaces.add(hull.getX(b) - hull.getX(a), hull.getY(b) - hull.getY(a), hull.getZ(b) - hull.getZ(a),
+                    hull.getX(c) - hull.getX(a), hull.getY(c) - hull.getY(a), hull.getZ(c) - hull.getZ(a));
+        }
+        double[] hullBins = hullFaces.compact(1);
+
+        ScoreTask scoreTask = new ScoreTask(this, candidates, contactPlane, contact, meshBins, hullBins, 
+                support, 0, candidates.length / 3);
+        double[] best = null == pool || candidates.length / 3 <= LEAF_CANDIDATES ? scoreTask.compute() : pool.invoke(scoreTask);
+        return new BuildOrientation(best[1], best[2], best[3], best[4], best[5], best[6]);
+    }
+
+    /**
+     * Returns the outward unit normals of the largest hull faces with distinct normals, at
+     * most {@link #MAX_RESTING_FACES}.
+     */
+    private static double[] getRestingFaces(ConvexHull hull) {
+        int faceCount = hull.getFaceCount();
+        long[] byArea = new long[faceCount];
+        for (int f = 0; f < faceCount; f++) {
+            double[] normal = getNormal(hull, f);
+            //non-negative floats sort as their bits, the complement puts the largest first
+            byArea[f] = (long) ~Float.floatToIntBits((float) normal[3]) << 32 | f;
+        }
+        Arrays.sort(byArea);
+        double[] normals = new double[3 * Math.min(faceCount, MAX_RESTING_FACES)];
+        int count = 0;
+        for (int i = 0; i < faceCount && count < MAX_RESTING_FACES; i++) {
+            double[] normal = getNormal(hull, (int) byArea[i]);
+            if (normal[3] > 0 && !isTaken(normals, count, normal[0], normal[1], normal[2])) {
+                System.arraycopy(normal, 0, normals, 3 * count++, 3);
+            }
+        }
+        return Arrays.copyOf(normals, 3 * count);
+    }
+
+    /**
+     * Returns the unit normal of the hull face and its length before normalizing.
+     */
+    private static double[] getNormal(ConvexHull hull, int face) {
+        int a = hull.getVertex(face, 0), b = hull.getVertex(face, 1), c = hull.getVertex(face, 2);
+        double ux = hull.getX(b) - hull.getX(a), uy = hull.getY(b) - hull.getY(a), uz = hull.getZ(b) - hull.getZ(a);
+        double vx = hull.getX(c) - hull.getX(a), vy = hull.getY(c) - hull.getY(a), vz = hull.getZ(c) - hull.getZ(a);
+        double x = uy * vz - uz * vy, y = uz * vx - ux * vz, z = ux * vy - uy * vx;
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return length > 0 ? new double[] { x / length, y / length, z / length, length } : new double[4];
+    }
+
+    private static boolean isTaken(double[] directions, int count, double x, double y, double z) {
+        for (int i = 0; i < count; i++) {
+            if (x * directions[3 * i] + y * directions[3 * i + 1] + z * directions[3 * i + 2] > SAME_DIRECTION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the build directions to try, those resting the part on each resting face
+     * first, in their order, then the axes and the geodesic sphere.  Axes and sphere
+     * vertices are only checked against the resting faces and axes taken before them, the
+     * sphere's vertices being distinct already.
+     */
+    private double[] getCandidates(double[] resting) {
+        double[] sphere = getGeodesicSphere(subdivisions);
+        double[] candidates = new double[resting.length + 3 * 6 + sphere.length];
+        int count = 0;
+        for (int i = 0; i < resting.length; i += 3) {
+            //resting on a face turns its outward normal to face down
+            candidates[3 * count] = -resting[i];
+            candidates[3 * count + 1] = -resting[i + 1];
+            candidates[3 * count + 2] = -resting[i + 2];
+            count++;
+        }
+        double[] axes = { 0, 0, 1, 0, 0, -1, 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1, 0 };
+        for (int i = 0; i < axes.length; i += 3) {
+            if (!isTaken(candidates, count, axes[i], axes[i + 1], axes[i + 2])) {
+                System.arraycopy(axes, i, candidates, 3 * count++, 3);
+            }
+        }
+        int fixed = count;
+        for (int i = 0; i < sphere.length; i += 3) {
+            if (!isTaken(candidates, fixed, sphere[i], sphere[i + 1], sphere[i + 2])) {
+                System.arraycopy(sphere, i, candidates, 3 * count++, 3);
+            }
+        }
+        return Arrays.copyOf(candidates, 3 * count);
+    }
+
+    /**
+     * Returns the contact planes of the candidates that have a flat bottom, setting the
+     * index of each candidate's plane, or -1 if it has none.  The bottom is flat if at least
+     * two hull edges from the lowest vertex lie along the plane, to within the tolerance.
+     */
+    private static ContactPlanes getContactPlanes(double[] candidates, Support support, int[] contactPlane) {
+        double[] planes = new double[4 * 16];
+        int count = 0;
+        int lowest = 0;
+        for (int i = 0; i < contactPlane.length; i++) {
+            double dx = candidates[3 * i], dy = candidates[3 * i + 1], dz = candidates[3 * i + 2];
+            lowest = support.getExtreme(lowest, -dx, -dy, -dz);
+            double bottom = support.along(lowest, dx, dy, dz);
+            contactPlane[i] = -1;
+            if (support.countNeighboursWithin(lowest, dx, dy, dz, bottom + FLAT_TOLERANCE) < 2) {
+                continue;
+            }
+            if (planes.length == 4 * count) {
+                planes = Arrays.copyOf(planes, 2 * planes.length);
+            }
+            //the plane's outward normal faces down, its offset is how far the hull reaches along it
+            planes[4 * count] = -dx;
+            planes[4 * count + 1] = -dy;
+            planes[4 * count + 2] = -dz;
+            planes[4 * count + 3] = -bottom;
+            contactPlane[i] = count++;
+        }
+        return new ContactPlanes(Arrays.copyOf(planes, 4 * count));
+    }
+
+    /**
+     * Returns the unit vertices of an icosahedron whose faces were split into four the given
+     * number of times, new vertices pushed out onto the sphere.
+     */
+    static double[] getGeodesicSphere(int subdivisions) {
+        double t = (1 + Math.sqrt(5)) / 2;
+        double[] vertices = new double[3 * (10 * (1 << 2 * subdivisions) + 2)];
+        double[] icosahedron = { -1, t, 0, 1, t, 0, -1, -t, 0, 1, -t, 0, 0, -1, t, 0, 1, t, 0, -1, -t, 0, 1, -t,
+            t, 0, -1, t, 0, 1, -t, 0, -1, -t, 0, 1 };
+        int count = 0;
+        for (int i = 0; i < icosahedron.length; i += 3) {
+            count = addUnit(vertices, count, icosahedron[i], icosahedron[i + 1], icosahedron[i + 2]);
+        }
+        int[] faces = { 0, 11, 5, 0, 5, 1, 0, 1, 7, 0, 7, 10, 0, 10, 11, 1, 5, 9, 5, 11, 4, 11, 10, 2, 10, 7, 6,
+            7, 1, 8, 3, 9, 4, 3, 4, 2, 3, 2, 6, 3, 6, 8, 3, 8, 9, 4, 9, 5, 2, 4, 11, 6, 2, 10, 8, 6, 7, 9, 8, 1 };
+        for (int level = 0; level < subdivisions; level++) {
+            //edges are shared by two faces, which must share the midpoint too
+            Map<Long, Integer> midpoints = new HashMap<>();
+            int[] split = new int[4 * faces.length];
+            for (int f = 0; f < faces.length; f += 3) {
+                int[] middle = new int[3];
+                for (int k = 0; k < 3; k++) {
+                    int a = faces[f + k], b = faces[f + (k + 1) % 3];
+                    Long edge = (long) Math.min(a, b) << 32 | Math.max(a, b);
+                    Integer midpoint = midpoints.get(edge);
+                    if (null == midpoint) {
+                        midpoint = count / 3;
+                        count = addUnit(vertices, count, vertices[3 * a] + vertices[3 * b], 
+                                vertices[3 * a + 1] + vertices[3 * b + 1], vertices[3 * a + 2] + vertices[3 * b + 2]);
+                        midpoints.put(edge, midpoint);
+                    }
+                    middle[k] = midpoint;
+                }
+                int[] children = { faces[f], middle[0], middle[2], faces[f + 1], middle[1], middle[0], 
+                    faces[f + 2], middle[2], middle[1], middle[0], middle[1], middle[2] };
+                System.arraycopy(children, 0, split, 4 * f, children.length);
+            }
+            faces = split;
+        }
+        return vertices;
+    }
+
+    private static int addUnit(double[] vertices, int count, double x, double y, double z) {
+        double length = Math.sqrt(x * x + y * y + z * z);
+        vertices[count] = x / length;
+        vertices[count + 1] = y / length;
+        vertices[count + 2] = z / length;
+        return count + 3;
+    }
+
+    /**
+     * Returns the octahedral map bin of the direction, which need not be a unit vector.
+     */
+    private static int getBin(double x, double y, double z) {
+        double sum = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        double u = x / sum, v = y / sum;
+        if (z < 0) {
+            //fold the lower half over the diagonals of the square
+            double foldedU = (1 - Math.abs(v)) * (u < 0 ? -1 : 1);
+            v = (1 - Math.abs(u)) * (v < 0 ? -1 : 1);
+            u = foldedU;
+        }
+        int i = Math.min(BINS_PER_SIDE - 1, (int) ((u + 1) / 2 * BINS_PER_SIDE));
+        int j = Math.min(BINS_PER_SIDE - 1, (int) ((v + 1) / 2 * BINS_PER_SIDE));
+        return j * BINS_PER_SIDE + i;
+    }
+
+    /**
+     * Contact planes, each an outward unit normal and offset, indexed by the normal bins of
+     * the facets that can lie flat on them, wound either way.
+     */
+    private static class ContactPlanes {
+        private final double[] planes;
+        //facets in bin b can lie on the planes index[start[b]] to index[start[b + 1] - 1]
+        private final int[] start = new int[BIN_COUNT + 1];
+        private final int[] index;
+
+        ContactPlanes(double[] planes) {
+            this.planes = planes;
+            int[][] bins = new int[planes.length / 4][];
+            for (int p = 0; p < bins.length; p++) {
+                bins[p] = getBins(planes[4 * p], planes[4 * p + 1], planes[4 * p + 2]);
+                for (int bin : bins[p]) {
+                    start[bin + 1]++;
+                }
+            }
+            for (int b = 0; b < BIN_COUNT; b++) {
+                start[b + 1] += start[b];
+            }
+            index = new int[start[BIN_COUNT]];
+            int[] next = Arrays.copyOf(start, BIN_COUNT);
+            for (int p = 0; p < bins.length; p++) {
+                for (int bin : bins[p]) {
+                    index[next[bin]++] = p;
+                }
+            }
+        }
+
+        int size() {
+            return planes.length / 4;
+        }
+
+        /**
+         * Returns the distinct bins of the unit normal, of directions around it at the sample
+         * angle, and of their opposites.
+         */
+        private static int[] getBins(double x, double y, double z) {
+            //two unit vectors at right angles to the normal and to each other
+            double ax = Math.abs(x) < 0.9 ? 1 : 0, ay = 1 - ax;
+            double ux = -z * ay, uy = z * ax, uz = x * ay - y * ax;
+            double length = Math.sqrt(ux * ux + uy * uy + uz * uz);
+            ux /= length;
+            uy /= length;
+            uz /= length;
+            double vx = y * uz - z * uy, vy = z * ux - x * uz, vz = x * uy - y * ux;
+            double cos = Math.cos(CONTACT_SAMPLE_ANGLE), sin = Math.sin(CONTACT_SAMPLE_ANGLE);
+            int[] bins = new int[2 * (CONTACT_SAMPLES + 1)];
+            bins[0] = getBin(x, y, z);
+            bins[1] = getBin(-x, -y, -z);
+            for (int k = 0; k < CONTACT_SAMPLES; k++) {
+                double angle = 2 * Math.PI * k / CONTACT_SAMPLES;
+                double tx = Math.cos(angle) * ux + Math.sin(angle) * vx;
+                double ty = Math.cos(angle) * uy + Math.sin(angle) * vy;
+                double tz = Math.cos(angle) * uz + Math.sin(angle) * vz;
+                bins[2 * k + 2] = getBin(cos * x + sin * tx, cos * y + sin * ty, cos * z + sin * tz);
+                bins[2 * k + 3] = getBin(-cos * x - sin * tx, -cos * y - sin * ty, -cos * z - sin * tz);
+            }
+            Arrays.sort(bins);
+            int distinct = 1;
+            for (int i = 1; i < bins.length; i++) {
+                if (bins[i] != bins[distinct - 1]) {
+                    bins[distinct++] = bins[i];
+                }
+            }
+            return Arrays.copyOf(bins, distinct);
+        }
+    }
+
+    /**
+     * Facet areas and area weighted normals summed by normal bin, with the signed volume to
+     * tell the winding and the area flat on each contact plane, wound either way.
+     */
+    private static class FacetBins implements TriangleSink {
+        private final ContactPlanes contact;
+        private final double[] bins = new double[4 * BIN_COUNT];
+        private final double[] outwardContact;
+        private final double[] inwardContact;
+        private double signedVolume;
+
+        /**
+         * @param contact The contact planes to measure, or null for none
+         */
+        FacetBins(ContactPlanes contact) {
+            this.contact = contact;
+            this.outwardContact = new double[null == contact ? 0 : contact.size()];
+            this.inwardContact = new double[outwardContact.length];
+        }
+
+        @Override
+        public void triangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+            double ux = (double) bx - ax, uy = (double) by - ay, uz = (double) bz - az;
+            double vx = (double) cx - ax, vy = (double) cy - ay, vz = (double) cz - az;
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (!(length > 0)) {
+                return;
+            }
+            int bin = getBin(nx, ny, nz);
+            add(bin, length, nx, ny, nz);
+            signedVolume += ax * ((double) by * cz - (double) bz * cy) + ay * ((double) bz * cx - (double) bx * cz) 
+                    + az * ((double) bx * cy - (double) by * cx);
+            double[] planes = contact.planes;
+            for (int i = contact.start[bin], end = contact.start[bin + 1]; i < end; i++) {
+                int k = 4 * contact.index[i];
+                double cosine = (nx * planes[k] + ny * planes[k + 1] + nz * planes[k + 2]) / length;
+                if (Math.abs(cosine) > FLAT_COSINE && isOn(k, ax, ay, az) && isOn(k, bx, by, bz) && isOn(k, cx, cy, cz)) {
+                    (cosine > 0 ? outwardContact : inwardContact)[k / 4] += length / 2;
+                }
+            }
+        }
+
+        private boolean isOn(int plane, float x, float y, float z) {
+            double[] planes = contact.planes;
+            return planes[plane] * x + planes[plane + 1] * y + planes[plane + 2] * z >= planes[plane + 3] - FLAT_TOLERANCE;
+        }
+
+        /**
+         * Bins the facet spanned by the two edges.
+         */
+        void add(double ux, double uy, double uz, double vx, double vy, double vz) {
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                add(getBin(nx, ny, nz), length, nx, ny, nz);
+            }
+        }
+
+        private void add(int bin, double length, double nx, double ny, double nz) {
+            bins[4 * bin] += length / 2;
+            bins[4 * bin + 1] += nx / 2;
+            bins[4 * bin + 2] += ny / 2;
+            bins[4 * bin + 3] += nz / 2;
+        }
+
+        void merge(FacetBins other) {
+            for (int i = 0; i < bins.length; i++) {
+                bins[i] += other.bins[i];
+            }
+            for (int k = 0; k < outwardContact.length; k++) {
+                outwardContact[k] += other.outwardContact[k];
+                inwardContact[k] += other.inwardContact[k];
+            }
+            signedVolume += other.signedVolume;
+        }
+
+        /**
+         * Returns the area and area weighted normal of the bins that are not empty, the
+         * normals multiplied by the sign.
+         */
+        double[] compact(double sign) {
+            double[] compacted = new double[bins.length];
+            int n = 0;
+            for (int i = 0; i < bins.length; i += 4) {
+                if (bins[i] > 0) {
+                    compacted[n++] = bins[i];
+                    compacted[n++] = sign * bins[i + 1];
+                    compacted[n++] = sign * bins[i + 2];
+                    compacted[n++] = sign * bins[i + 3];
+                }
+            }
+            return Arrays.copyOf(compacted, n);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class FacetTask extends RecursiveTask<FacetBins> {
+        private final TriangleSource source;
+        private final ContactPlanes contact;
+        private final long from;
+        private final long to;
+
+        FacetTask(TriangleSource source, ContactPlanes contact, long from, long to) {
+            this.source = source;
+            this.contact = contact;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected FacetBins compute() {
+            if (to - from <= LEAF_FACETS) {
+                FacetBins bins = new FacetBins(contact);
+                source.forEach(from, to, bins);
+                return bins;
+            }
+            long mid = (from + to) >>> 1;
+            FacetTask left = new FacetTask(source, contact, from, mid);
+            left.fork();
+            FacetBins right = new FacetTask(source, contact, mid, to).compute();
+            FacetBins result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+
+    /**
+     * Finds the hull vertex farthest along a direction by climbing from vertex to neighbour;
+     * on a convex polytope a vertex no neighbour of which is farther is farthest of all, and
+     * the climb from the extreme of a nearby direction is short.  Hull faces can be split
+     * around vertices lying inside them, so where the climb stalls it carries on across the
+     * vertices about as far as the last one.
+     */
+    private static class Support {
+        private final ConvexHull hull;
+        //neighbours of vertex v are neighbours[first[v]] to neighbours[first[v + 1] - 1]
+        private final int[] first;
+        private final int[] neighbours;
+
+        Support(ConvexHull hull) {
+            this.hull = hull;
+            int vertexCount = hull.getVertexCount();
+            first = new int[vertexCount + 1];
+            //each edge of a closed hull is a directed face edge once each way
+            for (int f = 0; f < hull.getFaceCount(); f++) {
+                for (int k = 0; k < 3; k++) {
+                    first[hull.getVertex(f, k) + 1]++;
+                }
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                first[v + 1] += first[v];
+            }
+            neighbours = new int[first[vertexCount]];
+            int[] next = Arrays.copyOf(first, vertexCount);
+            for (int f = 0; f < hull.getFaceCount(); f++) {
+                for (int k = 0; k < 3; k++) {
+                    neighbours[next[hull.getVertex(f, k)]++] = hull.getVertex(f, (k + 1) % 3);
+                }
+            }
+        }
+
+        int getExtreme(int start, double dx, double dy, double dz) {
+            int vertex = start;
+            double reach = along(vertex, dx, dy, dz);
+            boolean climbed = true;
+            while (climbed) {
+                climbed = false;
+                for (int i = first[vertex], end = first[vertex + 1]; i < end; i++) {
+                    double neighbourReach = along(neighbours[i], dx, dy, dz);
+                    if (neighbourReach > reach) {
+                        reach = neighbourReach;
+                        vertex = neighbours[i];
+                        climbed = true;
+                        break;
+                    }
+                }
+                if (!climbed) {
+                    int farther = searchPlateau(vertex, reach, dx, dy, dz);
+                    if (farther >= 0) {
+                        reach = along(farther, dx, dy, dz);
+                        vertex = farther;
+                        climbed = true;
+                    }
+                }
+            }
+            return vertex;
+        }
+
+        /**
+         * Returns a vertex farther along the direction than the given reach, found through the
+         * vertices connected to the given one that are within the flat tolerance of it, or -1
+         * if there is none.
+         */
+        private int searchPlateau(int vertex, double reach, double dx, double dy, double dz) {
+            Set<Integer> seen = null;
+            Deque<Integer> open = null;
+            int current = vertex;
+            while (true) {
+                for (int i = first[current], end = first[current + 1]; i < end; i++) {
+                    double neighbourReach = along(neighbours[i], dx, dy, dz);
+                    if (neighbourReach > reach) {
+                        return neighbours[i];
+                    } else if (neighbourReach >= reach - FLAT_TOLERANCE) {
+                        if (null == seen) {
+                            seen = new HashSet<>();
+                            seen.add(vertex);
+                            open = new ArrayDeque<>();
+                        }
+                        if (seen.add(neighbours[i])) {
+                            open.add(neighbours[i]);
+                        }
+                    }
+                }
+                if (null == open || open.isEmpty()) {
+                    return -1;
+                }
+                current = open.poll();
+            }
+        }
+
+        /**
+         * Returns how many neighbours of the vertex reach no further than the limit along the direction.
+         */
+        int countNeighboursWithin(int vertex, double dx, double dy, double dz, double limit) {
+            int count = 0;
+            for (int i = first[vertex], end = first[vertex + 1]; i < end; i++) {
+                if (along(neighbours[i], dx, dy, dz) <= limit) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        double along(int vertex, double dx, double dy, double dz) {
+            return hull.getX(vertex) * dx + hull.getY(vertex) * dy + hull.getZ(vertex) * dz;
+        }
+    }
+
+    /**
+     * Scores candidates [from, to), returning the best as its score, direction, overhang
+     * area, footprint and height.
+     */
+    @SuppressWarnings("serial")
+    private static class ScoreTask extends RecursiveTask<double[]> {
+        private final OrientationOptimizer optimizer;
+        private final double[] candidates;
+        private final int[] contactPlane;
+        private final double[] contact;
+        private final double[] meshBins;
+        private final double[] hullBins;
+        private final Support support;
+        private final int from;
+        private final int to;
+
+        ScoreTask(OrientationOptimizer optimizer, double[] candidates, int[] contactPlane, double[] contact, 
+                double[] meshBins, double[] hullBins, Support support, int from, int to) {
+            this.optimizer = optimizer;
+            this.candidates = candidates;
+            this.contactPlane = contactPlane;
+            this.contact = contact;
+            this.meshBins = meshBins;
+            this.hullBins = hullBins;
+            this.support = support;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= LEAF_CANDIDATES) {
+                double[] best = null;
+                int start = 0;
+                for (int i = from; i < to; i++) {
+                    double[] scored = score(i, start);
+                    start = (int) scored[7];
+                    if (null == best || isBetter(scored, best)) {
+                        best = scored;
+                    }
+                }
+                return best;
+            }
+            int mid = (from + to) >>> 1;
+            ScoreTask left = new ScoreTask(optimizer, candidates, contactPlane, contact, meshBins, hullBins, support, from, mid);
+            left.fork();
+            double[] right = new ScoreTask(optimizer, candidates, contactPlane, contact, meshBins, hullBins, support, mid, to).compute();
+            double[] best = left.join();
+            return isBetter(right, best) ? right : best;
+        }
+
+        /**
+         * Returns whether the scored candidate beats the other, scores equal up to rounding
+         * going to the one turned least from the uploaded orientation.
+         */
+        private static boolean isBetter(double[] scored, double[] other) {
+            double slack = SCORE_ROUNDING * Math.max(Math.abs(scored[0]), Math.abs(other[0]));
+            if (Math.abs(scored[0] - other[0]) > slack) {
+                return scored[0] < other[0];
+            }
+            return scored[3] > other[3];
+        }
+
+        /**
+         * Scores the candidate, returning its score, direction, overhang area, footprint,
+         * height and the hull vertex lowest along it, from which the next search starts.
+         */
+        private double[] score(int candidate, int start) {
+            double dx = candidates[3 * candidate], dy = candidates[3 * candidate + 1], dz = candidates[3 * candidate + 2];
+            double overhang = 0;
+            for (int b = 0; b < meshBins.length; b += 4) {
+                double x = meshBins[b + 1], y = meshBins[b + 2], z = meshBins[b + 3];
+                if (x * dx + y * dy + z * dz < -OVERHANG_COSINE * Math.sqrt(x * x + y * y + z * z)) {
+                    overhang += meshBins[b];
+                }
+            }
+            if (contactPlane[candidate] >= 0) {
+                overhang = Math.max(0, overhang - contact[contactPlane[candidate]]);
+            }
+            double footprint = 0;
+            for (int b = 0; b < hullBins.length; b += 4) {
+                footprint += Math.abs(hullBins[b + 1] * dx + hullBins[b + 2] * dy + hullBins[b + 3] * dz);
+            }
+            footprint /= 2;
+            int lowest = support.getExtreme(start, -dx, -dy, -dz);
+            int highest = support.getExtreme(lowest, dx, dy, dz);
+            double height = support.along(highest, dx, dy, dz) - support.along(lowest, dx, dy, dz);
+            double score = overhang + optimizer.footprintWeight * footprint + optimizer.heightWeight * height;
+            return new double[] { score, dx, dy, dz, overhang, footprint, height, lowest };
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.stl.common.mesh;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A box of least volume enclosing a mesh, in any orientation, fitted to the mesh's
+ * {@link ConvexHull}.  The axes are unit vectors, ordered by descending extent, and the
+ * extents are the full edge lengths of the box along them.<p/>
+ *
+ * A minimal box has a face flush with a face of the hull, except in rare cases where it is
+ * only flush with hull edges, so each distinct hull face normal, largest faces first, and
+ * the coordinate axes are tried as one axis of the box.  The hull is projected onto the
+ * plane across that axis and the rectangle of least area around the projection found by
+ * rotating calipers around its 2D hull; the rectangle and the hull's extent along the axis
+ * give the box.  The number of normals tried is capped so that the work is bounded for
+ * hulls with many vertices, and normals are tried in parallel on the fork-join pool.  A
+ * box fitted to an approximate hull, see {@link ConvexHull#getSlack()}, is made to enclose
+ * the mesh with {@link #enclose(TriangleSource)}.
+ */
+@SuppressWarnings("serial")
+public class OrientedBox implements Serializable {
+    //Normals tried at most, and projected hull vertices at most over all of them
+    private static final int MAX_CANDIDATES = 1024;
+    private static final long MAX_PROJECTIONS = 8L * 1024 * 1024;
+    //Normals tried sequentially by each leaf task
+    private static final int LEAF_CANDIDATES = 4;
+    //Normals closer than this to one already taken are not tried again
+    private static final double SAME_DIRECTION = 1 - 1e-9;
+
+    private final double[] center;
+    private final double[] axes;
+    private final double[] extents;
+
+    /**
+     * @param center x, y and z of the centre
+     * @param axes x, y and z of each of the three axes
+     * @param extents The edge length along each axis
+     */
+    public OrientedBox(double[] center, double[] axes, double[] extents) {
+        this.center = center.clone();
+        this.axes = axes.clone();
+        this.extents = extents.clone();
+    }
+
+    /**
+     * Returns the box of least volume found around the hull.
+     *
+     * @param pool The pool normals are tried on, or null to try them on the calling thread
+     */
+    public static OrientedBox fit(ConvexHull hull, ForkJoinPool pool) {
+        double[] candidates = getCandidates(hull);
+        FitTask task = new FitTask(hull, candidates, 0, candidates.length / 3);
+        double[] best = null == pool || candidates.length / 3 <= LEAF_CANDIDATES ? task.compute() : pool.invoke(task);
+        //order the axes by descending extent, each pointing to its positive side
+        Integer[] order = { 0, 1, 2 };
+        final double[] fitted = best;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(fitted[13 + b], fitted[13 + a]);
+            }
+        });
+        double[] axes = new double[9];
+        double[] extents = new double[3];
+        for (int i = 0; i < 3; i++) {
+            int axis = order[i];
+            double[] direction = Arrays.copyOfRange(best, 4 + 3 * axis, 7 + 3 * axis);
+            int largest = 0;
+            for (int k = 1; k < 3; k++) {
+                if (Math.abs(direction[k]) > Math.abs(direction[largest])) {
+                    largest = k;
+                }
+            }
+            double sign = direction[largest] < 0 ? -1 : 1;
+            for (int k = 0; k < 3; k++) {
+                axes[3 * i + k] = sign * direction[k];
+            }
+            extents[i] = best[13 + axis];
+        }
+        return new OrientedBox(Arrays.copyOfRange(best, 1, 4), axes, extents);
+    }
+
+    public double getCenter(int coordinate) {
+        return center[coordinate];
+    }
+
+    /**
+     * Returns coordinate 0, 1 or 2 of axis 0, 1 or 2.
+     */
+    public double getAxis(int axis, int coordinate) {
+        return axes[3 * axis + coordinate];
+    }
+
+    public double getExtent(int axis) {
+        return extents[axis];
+    }
+
+    public double getVolume() {
+        return extents[0] * extents[1] * extents[2];
+    }
+
+    /**
+     * Returns the box with the same axes that just encloses the corners of the source's
+     * facets, in one sequential pass over them.
+     */
+    public OrientedBox enclose(TriangleSource source) {
+        double[] low = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        double[] high = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        TriangleCursor cursor = source.cursor();
+        while (cursor.next()) {
+            for (int k = 0; k < 3; k++) {
+                //relative to the centre, which keeps the precision of far off meshes
+                double x = cursor.getX(k) - center[0], y = cursor.getY(k) - center[1], z = cursor.getZ(k) - center[2];
+                for (int axis = 0; axis < 3; axis++) {
+                    double along = x * axes[3 * axis] + y * axes[3 * axis + 1] + z * axes[3 * axis + 2];
+                    low[axis] = Math.min(low[axis], along);
+                    high[axis] = Math.max(high[axis], along);
+                }
+            }
+        }
+        if (low[0] > high[0]) {
+            return this;
+        }
+        double[] enclosingCenter = center.clone();
+        double[] enclosingExtents = new double[3];
+        for (int axis = 0; axis < 3; axis++) {
+            double middle = (low[axis] + high[axis]) / 2;
+            for (int k = 0; k < 3; k++) {
+                enclosingCenter[k] += middle * axes[3 * axis + k];
+            }
+            enclosingExtents[axis] = high[axis] - low[axis];
+        }
+        return new OrientedBox(enclosingCenter, axes, enclosingExtents);
+    }
+
+    /**
+     * Returns the coordinate axes followed by the distinct face normals of the hull, largest
+     * faces first, as many as the budget allows.
+     */
+    private static double[] getCandidates(ConvexHull hull) {
+        int faceCount = hull.getFaceCount();
+        long[] byArea = new long[faceCount];
+        double[] normals = new double[3 * faceCount];
+        for (int f = 0; f < faceCount; f++) {
+            int a = hull.getVertex(f, 0), b = hull.getVertex(f, 1), c = hull.getVertex(f, 2);
+            double ux = hull.getX(b) - hull.getX(a), uy = hull.getY(b) - hull.getY(a), uz = hull.getZ(b) - hull.getZ(a);
+            double vx = hull.getX(c) - hull.getX(a), vy = hull.getY(c) - hull.getY(a), vz = hull.getZ(c) - hull.getZ(a);
+            double x = uy * vz - uz * vy, y = uz * vx - ux * vz, z = ux * vy - uy * vx;
+            double length = Math.sqrt(x * x + y * y + z * z);
+            if (length > 0) {
+                normals[3 * f] = x / length;
+                normals[3 * f + 1] = y / length;
+                normals[3 * f + 2] = z / length;
+            }
+            //non-negative floats sort as their bits, the complement puts the largest first
+            byArea[f] = (long) ~Float.floatToIntBits((float) length) << 32 | f;
+        }
+        Arrays.sort(byArea);
+        int limit = (int) Math.max(3, Math.min(MAX_CANDIDATES, MAX_PROJECTIONS / Math.max(1, hull.getVertexCount())));
+        double[] candidates = new double[3 * limit];
+        int count = 0;
+        for (int i = -3; i < faceCount && count < limit; i++) {
+            double x, y, z;
+            if (i < 0) {
+                x = i == -3 ? 1 : 0;
+                y = i == -2 ? 1 : 0;
+                z = i == -1 ? 1 : 0;
+            } else {
+                int f = (int) byArea[i];
+                x = normals[3 * f];
+                y = normals[3 * f + 1];
+                z = normals[3 * f + 2];
+                if (x == 0 && y == 0 && z == 0) {
+                    continue;
+                }
+            }
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = Math.abs(x * candidates[3 * j] + y * candidates[3 * j + 1] + z * candidates[3 * j + 2]) > SAME_DIRECTION;
+            }
+            if (!seen) {
+                candidates[3 * count] = x;
+                candidates[3 * count + 1] = y;
+                candidates[3 * count + 2] = z;
+                count++;
+            }
+        }
+        return Arrays.copyOf(candidates, 3 * count);
+    }
+
+    /**
+     * Tries normals [from, to), returning the best box as its volume, centre, three axes and
+     * three extents.  On equal volumes the earlier normal wins, so the result does not
+     * depend on scheduling.
+     */
+    private static class FitTask extends RecursiveTask<double[]> {
+        private final ConvexHull hull;
+        private final double[] candidates;
+        private final int from;
+        private final int to;
+
+        FitTask(ConvexHull hull, double[] candidates, int from, int to) {
+            this.hull = hull;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= LEAF_CANDIDATES) {
+                Projection projection = new Projection(hull);
+                double[] best = null;
+                for (int i = from; i < to; i++) {
+                    double[] box = projection.fit(candidates[3 * i], candidates[3 * i + 1], candidates[3 * i + 2]);
+                    if (null == best || box[0] < best[0]) {
+                        best = box;
+                    }
+                }
+                return best;
+            }
+            int mid = (from + to) >>> 1;
+            FitTask left = new FitTask(hull, candidates, from, mid);
+            left.fork();
+            double[] right = new FitTask(hull, candidates, mid, to).compute();
+            double[] best = left.join();
+            return right[0] < best[0] ? right : best;
+        }
+    }
+
+    /**
+     * Scratch space for projecting the hull onto planes, one per thread.
+     */
+    private static class Projection {
+        private final ConvexHull hull;
+        private final double[] x;
+        private final double[] y;
+        private final int[] order;
+        private final double[] outlineX;
+        private final double[] outlineY;
+
+        Projection(ConvexHull hull) {
+            this.hull = hull;
+            int n = hull.getVertexCount();
+            this.x = new double[n];
+            this.y = new double[n];
+            this.order = new int[n];
+            //the chains under construction may briefly hold a point twice
+            this.outlineX = new double[2 * n + 2];
+            this.outlineY = new double[2 * n + 2];
+        }
+
+        /**
+         * Returns the box with one axis along the unit normal.
+         */
+        double[] fit(double nx, double ny, double nz) {
+            //u and v span the plane across the normal, u avoiding the normal's largest component
+            double ax = 0, ay = 0, az = 0;
+            if (Math.abs(nx) <= Math.abs(ny) && Math.abs(nx) <= Math.abs(nz)) {
+                ax = 1;
+            } else if (Math.abs(ny) <= Math.abs(nz)) {
+                ay = 1;
+            } else {
+                az = 1;
+            }
+            double ux = ny * az - nz * ay, uy = nz * ax - nx * az, uz = nx * ay - ny * ax;
+            double length = Math.sqrt(ux * ux + uy * uy + uz * uz);
+            ux /= length;
+            uy /= length;
+            uz /= length;
+            double vx = ny * uz - nz * uy, vy = nz * ux - nx * uz, vz = nx * uy - ny * ux;
+            int n = hull.getVertexCount();
+            double low = Double.POSITIVE_INFINITY, high = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                double px = hull.getX(i), py = hull.getY(i), pz = hull.getZ(i);
+                x[i] = ux * px + uy * py + uz * pz;
+                y[i] = vx * px + vy * py + vz * pz;
+                double w = nx * px + ny * py + nz * pz;
+                low = Math.min(low, w);
+                high = Math.max(high, w);
+                order[i] = i;
+            }
+            double[] rectangle = getMinimumRectangle(outline(n));
+            //the rectangle's axes and centre in the plane, back in mesh coordinates
+            double ex = rectangle[1], ey = rectangle[2];
+            double cu = ex * rectangle[3] - ey * rectangle[4], cv = ey * rectangle[3] + ex * rectangle[4];
+            double cw = (low + high) / 2;
+            double depth = high - low;
+            return new double[] { rectangle[0] * depth,
+                cu * ux + cv * vx + cw * nx, cu * uy + cv * vy + cw * ny, cu * uz + cv * vz + cw * nz,
+                ex * ux + ey * vx, ex * uy + ey * vy, ex * uz + ey * vz,
+                -ey * ux + ex * vx, -ey * uy + ex * vy, -ey * uz + ex * vz,
+                nx, ny, nz,
+                rectangle[5], rectangle[6], depth };
+        }
+
+        /**
+         * Writes the 2D convex hull of the projected points counter-clockwise into the outline
+         * arrays by Andrew's monotone chain, returning its size.
+         */
+        private int outline(int n) {
+            sort(0, n - 1);
+            int size = 0;
+            for (int pass = 0; pass < 2; pass++) {
+                int floor = size;
+                for (int k = 0; k < n; k++) {
+                    int p = order[0 == pass ? k : n - 1 - k];
+                    while (size >= floor + 2 && turn(size - 2, size - 1, x[p], y[p]) <= 0) {
+                        size--;
+                    }
+                    outlineX[size] = x[p];
+                    outlineY[size] = y[p];
+                    size++;
+                }
+                //the last point of each chain is the first of the other
+                size--;
+            }
+            return Math.max(size, 1);
+        }
+
+        private double turn(int a, int b, double px, double py) {
+            return (outlineX[b] - outlineX[a]) * (py - outlineY[a]) - (outlineY[b] - outlineY[a]) * (px - outlineX[a]);
+        }
+
+        /**
+         * Returns the area of the least rectangle around the outline, its unit direction, its
+         * centre along that direction and across it, and its length and width.
+         */
+        private double[] getMinimumRectangle(int size) {
+            double[] best = { Double.POSITIVE_INFINITY, 1, 0, 0, 0, 0, 0 };
+            int right = 0, top = 0, left = 0;
+            for (int i = 0; i < size; i++) {
+                int j = (i + 1) % size;
+                double ex = outlineX[j] - outlineX[i], ey = outlineY[j] - outlineY[i];
+                double length = Math.sqrt(ex * ex + ey * ey);
+                if (!(length > 0)) {
+                    continue;
+                }
+                ex /= length;
+                ey /= length;
+                if (0 == i) {
+                    for (int k = 1; k < size; k++) {
+                        if (along(k, ex, ey) > along(right, ex, ey)) {
+                            right = k;
+                        }
+                        if (across(k, ex, ey) > across(top, ex, ey)) {
+                            top = k;
+                        }
+                        if (along(k, ex, ey) < along(left, ex, ey)) {
+                            left = k;
+                        }
+                    }
+                } else {
+                    //the calipers only ever turn forward around the outline
+                    for (int k = 0; k < size && along((right + 1) % size, ex, ey) >= along(right, ex, ey); k++) {
+                        right = (right + 1) % size;
+                    }
+                    for (int k = 0; k < size && across((top + 1) % size, ex, ey) >= across(top, ex, ey); k++) {
+                        top = (top + 1) % size;
+                    }
+                    for (int k = 0; k < size && along((left + 1) % size, ex, ey) <= along(left, ex, ey); k++) {
+                        left = (left + 1) % size;
+                    }
+                }
+                double low = along(left, ex, ey), high = along(right, ex, ey);
+                double base = across(i, ex, ey), height = across(top, ex, ey) - base;
+                double area = (high - low) * height;
+                if (area < best[0]) {
+                    best = new double[] { area, ex, ey, (low + high) / 2, base + height / 2, high - low, height };
+                }
+            }
+            if (Double.isInfinite(best[0])) {
+                //all points coincide
+                best = new double[] { 0, 1, 0, outlineX[0], outlineY[0], 0, 0 };
+            }
+            return best;
+        }
+
+        private double along(int k, double ex, double ey) {
+            return outlineX[k] * ex + outlineY[k] * ey;
+        }
+
+        private double across(int k, double ex, double ey) {
+            return outlineY[k] * ex - outlineX[k] * ey;
+        }
+
+        /**
+         * Sorts order[lo..hi] by x, then y, by quicksort.
+         */
+        private void sort(int lo, int hi) {
+            while (hi - lo > 16) {
+                int pivot = order[(lo + hi) >>> 1];
+                double px = x[pivot], py = y[pivot];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (less(order[i], px, py)) {
+                        i++;
+                    }
+                    while (less(px, py, order[j])) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        int swap = order[i];
+                        order[i++] = order[j];
+                        order[j--] = swap;
+                    }
+                }
+                //recurse into the smaller side so the stack stays logarithmic
+                if (j - lo < hi - i) {
+                    sort(lo, j);
+                    lo = i;
+                } else {
+                    sort(i, hi);
+                    hi = j;
+                }
+            }
+            for (int i = lo + 1; i <= hi; i++) {
+                int p = order[i];
+                int j = i - 1;
+                while (j >= lo && less(p, x[order[j]], y[order[j]])) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = p;
+            }
+        }
+
+        private boolean less(int p, double qx, double qy) {
+            return x[p] < qx || (x[p] == qx && y[p] < qy);
+        }
+
+        private boolean less(double px, double py, int q) {
+            return px < x[q] || (px == x[q] && py < y[q]);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final OrientedBox other = (OrientedBox) obj;
+        return Arrays.equals(this.center, other.center)
+                && Arrays.equals(this.axes, other.axes)
+                && Arrays.equals(this.extents, other.extents);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(center) + Arrays.hashCode(axes)) + Arrays.hashCode(extents);
+    }
+}
@@ -0,0 +1,82 @@
+package com.stl.common.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reduces the facets of a {@link TriangleSource}, such as a {@link MappedStlFile} or a
+ * {@link TriangleBuffer}, to a {@link MeshAccumulator}, splitting the source into ranges
+ * that are accumulated concurrently on a {@link ForkJoinPool}.<p/>
+ * 
+ * The split points depend only on the facet count, and partial results are always
+ * merged in the same tree order, so a file produces bit-for-bit the same totals on
+ * every run, however the work is scheduled.  Files below the parallel threshold walk
+ * the same tree on the calling thread to avoid the cost of forking.
+ */
+public class ParallelMeshReduction {
+    //Facets accumulated sequentially by each leaf of the reduction tree
+    static final long LEAF_FACETS = 64 * 1024;
+    //Files with fewer facets than this are reduced on the calling thread
+    public static final long PARALLEL_THRESHOLD = 4 * LEAF_FACETS;
+
+    public static MeshAccumulator reduce(TriangleSource file, ForkJoinPool pool) {
+        return reduce(file, pool, null);
+    }
+
+    /**
+     * Reduces the file, reporting to progress (which may be null) as facets are processed.
+     * 
+     * @throws java.util.concurrent.CancellationException if progress is cancelled part way through
+     */
+    public static MeshAccumulator reduce(TriangleSource file, ForkJoinPool pool, MeshProgress progress) {
+        ReduceTask task = new ReduceTask(file, 0, file.getFacetCount(), 
+                file.getFacetCount() >= PARALLEL_THRESHOLD, progress);
+        return task.isParallel() ? pool.invoke(task) : task.compute();
+    }
+
+    @SuppressWarnings("serial")
+    private static class ReduceTask extends RecursiveTask<MeshAccumulator> {
+        private final TriangleSource file;
+        private final long from;
+        private final long to;
+        private final boolean parallel;
+        private final MeshProgress progress;
+
+        ReduceTask(TriangleSource file, long from, long to, boolean parallel, MeshProgress progress) {
+            this.file = file;
+            this.from = from;
+            this.to = to;
+            this.parallel = parallel;
+            this.progress = progress;
+        }
+
+        boolean isParallel() {
+            return parallel;
+        }
+
+        @Override
+        protected MeshAccumulator compute() {
+            long leaves = (to - from + LEAF_FACETS - 1) / LEAF_FACETS;
+            if (leaves <= 1) {
+                MeshAccumulator accumulator = new MeshAccumulator();
+                file.forEach(from, to, null == progress ? accumulator : progress.track(accumulator));
+                return accumulator;
+            }
+            //split on a leaf boundary so the tree shape is fixed by the facet count
+            long mid = from + (leaves / 2) * LEAF_FACETS;
+            ReduceTask left = new ReduceTask(file, from, mid, parallel, progress);
+            ReduceTask right = new ReduceTask(file, mid, to, parallel, progress);
+            MeshAccumulator result;
+            if (parallel) {
+                left.fork();
+                MeshAccumulator rightResult = right.compute();
+                result = left.join();
+                result.merge(rightResult);
+            } else {
+                result = left.compute();
+                result.merge(right.compute());
+            }
+            return result;
+        }
+    }
+}
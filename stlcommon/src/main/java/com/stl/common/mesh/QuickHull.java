@@ -0,0 +1,419 @@
+package com.stl.common.mesh;
+
+import java.util.Arrays;
+
+/**
+ * The quickhull algorithm over a set of points, see {@link ConvexHull}.  Faces are triangles
+ * wound counter-clockwise seen from outside, each with its plane and its three neighbours,
+ * the face across edge k from corner k to corner k + 1.  Points not yet known to be inside
+ * hang in a list on a face they are above.  Each step takes the point farthest above some
+ * face, walks the faces it can see to find their horizon, and replaces them by a fan of new
+ * faces from the horizon to the point, handing the orphaned points to the new faces.
+ * Points within a distance tolerance of a face count as on it, so coplanar points end up
+ * inside rather than as slivers.  The points hulled are copied and numbered locally, so the
+ * memory used grows with their number and not with the set they are taken from.
+ */
+class QuickHull {
+    //Points this close to a face, relative to the extent of the points, are on it
+    private static final double RELATIVE_EPSILON = 1e-10;
+    private static final int MIN_FACES = 64;
+
+    //x, y and z of each point hulled, in the order of ids
+    private final double[] points;
+    private final int[] ids;
+    private final int count;
+    private double epsilon;
+
+    //per face: corners, neighbours, plane as normal and offset, outside list head, liveness
+    private int[] corners = new int[3 * MIN_FACES];
+    private int[] neighbours = new int[3 * MIN_FACES];
+    private double[] planes = new double[4 * MIN_FACES];
+    private int[] outside = new int[MIN_FACES];
+    private boolean[] alive = new boolean[MIN_FACES];
+    private int faceCount;
+    //outside list links, by local point
+    private final int[] next;
+
+    //scratch for each step: faces seen from the apex, horizon edges, the new fan
+    private int[] visited = new int[MIN_FACES];
+    private int stamp;
+    private int[] visible = new int[MIN_FACES];
+    private int visibleCount;
+    private int[] horizonFace = new int[MIN_FACES];
+    private int[] horizonEdge = new int[MIN_FACES];
+    private int horizonCount;
+    private int[] stackFace = new int[MIN_FACES];
+    private int[] stackEdge = new int[MIN_FACES];
+    private int[] stackStep = new int[MIN_FACES];
+    private int[] pending = new int[MIN_FACES];
+    private int pendingCount;
+
+    /**
+     * @param points x, y and z of each point
+     * @param ids The points to take the hull of
+     */
+    QuickHull(double[] points, int[] ids, int count) {
+        this.points = new double[3 * count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(points, 3 * ids[i], this.points, 3 * i, 3);
+        }
+        this.ids = ids;
+        this.count = count;
+        this.next = new int[count];
+    }
+
+    /**
+     * Returns the faces of the hull as three point ids each, or null if the points do not
+     * span a solid.
+     */
+    int[] build() {
+        if (!start()) {
+            return null;
+        }
+        while (pendingCount > 0) {
+            int face = pending[--pendingCount];
+            if (!alive[face] || outside[face] < 0) {
+                continue;
+            }
+            int apex = outside[face];
+            double farthest = distance(face, apex);
+            for (int p = next[apex]; p >= 0; p = next[p]) {
+                double d = distance(face, p);
+                if (d > farthest) {
+                    farthest = d;
+                    apex = p;
+                }
+            }
+            if (!addPoint(face, apex)) {
+                //the horizon did not close up, a rounding artefact; leave the point out
+                unlink(face, apex);
+                push(face);
+            }
+        }
+        int faces = 0;
+        for (int f = 0; f < faceCount; f++) {
+            if (alive[f]) {
+                faces++;
+            }
+        }
+        int[] hull = new int[3 * faces];
+        int i = 0;
+        for (int f = 0; f < faceCount; f++) {
+            if (alive[f]) {
+                for (int k = 0; k < 3; k++) {
+                    hull[i++] = ids[corners[3 * f + k]];
+                }
+            }
+        }
+        return hull;
+    }
+
+    /**
+     * Builds the initial tetrahedron from extreme points and hands every other point to a
+     * face it is above.
+     */
+    private boolean start() {
+        if (count < 4) {
+            return false;
+        }
+        //local ids of the lowest and highest point along each axis
+        int[] extremes = new int[6];
+        double extent = 0;
+        for (int p = 0; p < count; p++) {
+            for (int axis = 0; axis < 3; axis++) {
+                if (points[3 * p + axis] < points[3 * extremes[2 * axis] + axis]) {
+                    extremes[2 * axis] = p;
+                }
+                if (points[3 * p + axis] > points[3 * extremes[2 * axis + 1] + axis]) {
+                    extremes[2 * axis + 1] = p;
+                }
+                extent = Math.max(extent, Math.abs(points[3 * p + axis]));
+            }
+        }
+        epsilon = 3 * extent * RELATIVE_EPSILON;
+        //the two extremes farthest apart, the point farthest from their line, from their plane
+        int a = extremes[0], b = extremes[1];
+        double widest = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double d = squaredDistance(extremes[2 * axis], extremes[2 * axis + 1]);
+            if (d > widest) {
+                widest = d;
+                a = extremes[2 * axis];
+                b = extremes[2 * axis + 1];
+            }
+        }
+        if (Math.sqrt(widest) <= epsilon) {
+            return false;
+        }
+        int c = -1;
+        double farthest = epsilon;
+        double[] ab = subtract(b, a);
+        for (int i = 0; i < count; i++) {
+            double[] cross = cross(ab, subtract(i, a));
+            double d = Math.sqrt(dot(cross, cross) / dot(ab, ab));
+            if (d > farthest) {
+                farthest = d;
+                c = i;
+            }
+        }
+        if (c < 0) {
+            return false;
+        }
+        double[] normal = cross(ab, subtract(c, a));
+        double length = Math.sqrt(dot(normal, normal));
+        int d = -1;
+        farthest = epsilon;
+        for (int i = 0; i < count; i++) {
+            double height = Math.abs(dot(normal, subtract(i, a))) / length;
+            if (height > farthest) {
+                farthest = height;
+                d = i;
+            }
+        }
+        if (d < 0) {
+            return false;
+        }
+        if (dot(normal, subtract(d, a)) > 0) {
+            int swap = b;
+            b = c;
+            c = swap;
+        }
+        addFace(a, b, c);
+        addFace(a, d, b);
+        addFace(b, d, c);
+        addFace(c, d, a);
+        for (int f = 0; f < 4; f++) {
+            for (int k = 0; k < 3; k++) {
+                int u = corners[3 * f + k], v = corners[3 * f + (k + 1) % 3];
+                for (int g = 0; g < 4; g++) {
+                    if (g != f && contains(g, v, u)) {
+                        neighbours[3 * f + k] = g;
+                    }
+                }
+            }
+        }
+        for (int p = 0; p < count; p++) {
+            if (p != a && p != b && p != c && p != d) {
+                assign(p, 0, 4);
+            }
+        }
+        for (int f = 0; f < 4; f++) {
+            push(f);
+        }
+        return true;
+    }
+
+    private boolean contains(int face, int u, int v) {
+        for (int k = 0; k < 3; k++) {
+            if (corners[3 * face + k] == u && corners[3 * face + (k + 1) % 3] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the faces the apex sees by a fan from their horizon to the apex.  Returns
+     * false, changing nothing, if the horizon is not a single loop.
+     */
+    private boolean addPoint(int face, int apex) {
+        findHorizon(face, apex);
+        for (int h = 0; h < horizonCount; h++) {
+            int from = horizonFace[h], edge = horizonEdge[h];
+            int following = (h + 1) % horizonCount;
+            int end = corners[3 * from + (edge + 1) % 3];
+            if (end != corners[3 * horizonFace[following] + horizonEdge[following]]) {
+                return false;
+            }
+        }
+        int first = faceCount;
+        for (int h = 0; h < horizonCount; h++) {
+            int from = horizonFace[h], edge = horizonEdge[h];
+            int u = corners[3 * from + edge], v = corners[3 * from + (edge + 1) % 3];
+            int opposite = neighbours[3 * from + edge];
+            int created = addFace(u, v, apex);
+            neighbours[3 * created] = opposite;
+            for (int k = 0; k < 3; k++) {
+                if (neighbours[3 * opposite + k] == from) {
+                    neighbours[3 * opposite + k] = created;
+                }
+            }
+            neighbours[3 * created + 1] = first + (h + 1) % horizonCount;
+            neighbours[3 * created + 2] = first + (h + horizonCount - 1) % horizonCount;
+        }
+        unlink(face, apex);
+        for (int i = 0; i < visibleCount; i++) {
+            int f = visible[i];
+            alive[f] = false;
+            int p = outside[f];
+            outside[f] = -1;
+            while (p >= 0) {
+                int following = next[p];
+                assign(p, first, faceCount);
+                p = following;
+            }
+        }
+        for (int f = first; f < faceCount; f++) {
+            push(f);
+        }
+        return true;
+    }
+
+    /**
+     * Walks the faces visible from the apex depth first, crossing each face's edges in
+     * winding order from the one it was entered by, which lists the horizon as a loop.
+     */
+    private void findHorizon(int face, int apex) {
+        stamp++;
+        visibleCount = 0;
+        horizonCount = 0;
+        int depth = 0;
+        visit(face);
+        stackFace[0] = face;
+        stackEdge[0] = 0;
+        stackStep[0] = 0;
+        depth = 1;
+        while (depth > 0) {
+            int top = depth - 1;
+            int f = stackFace[top];
+            //the seed crosses all three edges, others skip the edge they were entered by
+            int steps = 0 == top ? 3 : 2;
+            if (stackStep[top] == steps) {
+                depth--;
+                continue;
+            }
+            int edge = (stackEdge[top] + stackStep[top]++ + (0 == top ? 0 : 1)) % 3;
+            int n = neighbours[3 * f + edge];
+            if (visited[n] == stamp) {
+                continue;
+            }
+            if (visited[n] != -stamp && distance(n, apex) > epsilon) {
+                visit(n);
+                if (depth == stackFace.length) {
+                    stackFace = Arrays.copyOf(stackFace, 2 * depth);
+                    stackEdge = Arrays.copyOf(stackEdge, 2 * depth);
+                    stackStep = Arrays.copyOf(stackStep, 2 * depth);
+                }
+                int entry = 0;
+                while (neighbours[3 * n + entry] != f) {
+                    entry++;
+                }
+                stackFace[depth] = n;
+                stackEdge[depth] = entry;
+                stackStep[depth] = 0;
+                depth++;
+            } else {
+                visited[n] = -stamp;
+                if (horizonCount == horizonFace.length) {
+                    horizonFace = Arrays.copyOf(horizonFace, 2 * horizonCount);
+                    horizonEdge = Arrays.copyOf(horizonEdge, 2 * horizonCount);
+                }
+                horizonFace[horizonCount] = f;
+                horizonEdge[horizonCount++] = edge;
+            }
+        }
+    }
+
+    private void visit(int face) {
+        visited[face] = stamp;
+        if (visibleCount == visible.length) {
+            visible = Arrays.copyOf(visible, 2 * visibleCount);
+        }
+        visible[visibleCount++] = face;
+    }
+
+    /**
+     * Hangs the point on whichever of faces [from, to) it is farthest above, or drops it if
+     * it is above none.
+     */
+    private void assign(int point, int from, int to) {
+        int best = -1;
+        double farthest = epsilon;
+        for (int f = from; f < to; f++) {
+            double d = distance(f, point);
+            if (d > farthest) {
+                farthest = d;
+                best = f;
+            }
+        }
+        if (best >= 0) {
+            next[point] = outside[best];
+            outside[best] = point;
+        }
+    }
+
+    private void unlink(int face, int point) {
+        if (outside[face] == point) {
+            outside[face] = next[point];
+            return;
+        }
+        int p = outside[face];
+        while (next[p] != point) {
+            p = next[p];
+        }
+        next[p] = next[point];
+    }
+
+    private void push(int face) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, 2 * pendingCount);
+        }
+        pending[pendingCount++] = face;
+    }
+
+    private int addFace(int a, int b, int c) {
+        if (faceCount == alive.length) {
+            int capacity = 2 * faceCount;
+            corners = Arrays.copyOf(corners, 3 * capacity);
+            neighbours = Arrays.copyOf(neighbours, 3 * capacity);
+            planes = Arrays.copyOf(planes, 4 * capacity);
+            outside = Arrays.copyOf(outside, capacity);
+            alive = Arrays.copyOf(alive, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        int f = faceCount++;
+        corners[3 * f] = a;
+        corners[3 * f + 1] = b;
+        corners[3 * f + 2] = c;
+        double ux = points[3 * b] - points[3 * a], uy = points[3 * b + 1] - points[3 * a + 1], uz = points[3 * b + 2] - points[3 * a + 2];
+        double vx = points[3 * c] - points[3 * a], vy = points[3 * c + 1] - points[3 * a + 1], vz = points[3 * c + 2] - points[3 * a + 2];
+        double x = uy * vz - uz * vy, y = uz * vx - ux * vz, z = ux * vy - uy * vx;
+        double length = Math.sqrt(x * x + y * y + z * z);
+        if (length > 0) {
+            x /= length;
+            y /= length;
+            z /= length;
+        }
+        planes[4 * f] = x;
+        planes[4 * f + 1] = y;
+        planes[4 * f + 2] = z;
+        planes[4 * f + 3] = x * points[3 * a] + y * points[3 * a + 1] + z * points[3 * a + 2];
+        outside[f] = -1;
+        alive[f] = true;
+        visited[f] = 0;
+        return f;
+    }
+
+    private double distance(int face, int point) {
+        return planes[4 * face] * points[3 * point] + planes[4 * face + 1] * points[3 * point + 1] 
+                + planes[4 * face + 2] * points[3 * point + 2] - planes[4 * face + 3];
+    }
+
+    private double squaredDistance(int a, int b) {
+        double[] d = subtract(a, b);
+        return dot(d, d);
+    }
+
+    private double[] subtract(int a, int b) {
+        return new double[] { points[3 * a] - points[3 * b], points[3 * a + 1] - points[3 * b + 1], 
+                points[3 * a + 2] - points[3 * b + 2] };
+    }
+
+    private static double[] cross(double[] u, double[] v) {
+        return new double[] { u[1] * v[2] - u[2] * v[1], u[2] * v[0] - u[0] * v[2], u[0] * v[1] - u[1] * v[0] };
+    }
+
+    private static double dot(double[] u, double[] v) {
+        return u[0] * v[0] + u[1] * v[1] + u[2] * v[2];
+    }
+}
@@ -0,0 +1,44 @@
+package com.stl.common.mesh;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed size facet records laid out back to back in a series of equally sized buffers,
+ * with the nine vertex coordinates of each record stored contiguously at the same offset.
+ * Shared by the mapped STL file and the off-heap triangle buffer, whose records differ only
+ * in size and in where the vertices start.
+ */
+class RecordRegions {
+    final ByteBuffer[] regions;
+    final int regionRecords;
+    final int recordSize;
+    final int vertexOffset;
+
+    RecordRegions(ByteBuffer[] regions, int regionRecords, int recordSize, int vertexOffset) {
+        this.regions = regions;
+        this.regionRecords = regionRecords;
+        this.recordSize = recordSize;
+        this.vertexOffset = vertexOffset;
+    }
+
+    /**
+     * Feeds the facets in [fromFacet, toFacet) to the sink.  Safe to call from multiple threads
+     * at once, since only absolute reads are made against the regions.
+     */
+    void forEach(long fromFacet, long toFacet, TriangleSink sink) {
+        long facet = fromFacet;
+        while (facet < toFacet) {
+            ByteBuffer region = regions[(int) (facet / regionRecords)];
+            int first = (int) (facet % regionRecords);
+            int last = (int) Math.min(regionRecords, first + (toFacet - facet));
+            for (int i = first; i < last; i++) {
+                int v = i * recordSize + vertexOffset;
+                sink.triangle(
+                        region.getFloat(v), region.getFloat(v + 4), region.getFloat(v + 8),
+                        region.getFloat(v + 12), region.getFloat(v + 16), region.getFloat(v + 20),
+                        region.getFloat(v + 24), region.getFloat(v + 28), region.getFloat(v + 32));
+            }
+            facet += last - first;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an STL stream is truncated or otherwise cannot be decoded as a mesh.
+ */
+@SuppressWarnings("serial")
+public class StlFormatException extends IOException {
+
+    public StlFormatException(String msg) {
+        super(msg);
+    }
+}
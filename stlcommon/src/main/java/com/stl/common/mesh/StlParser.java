@@ -0,0 +1,68 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entry point for reading STL data of either encoding.  The format is detected from the
+ * first 84 bytes of the stream and, when it is known, the total size: a binary file's size
+ * is fully determined by its facet count, and an ASCII file begins with "solid" followed by
+ * printable text.  Binary files whose free-form header happens to begin with "solid" are
+ * common, which is why the size is checked first.
+ */
+public class StlParser {
+    public static final long UNKNOWN_SIZE = -1;
+
+    /**
+     * Reads every facet from the stream into the sink, returning the number of facets read.
+     * Pass {@link #UNKNOWN_SIZE} when the size of the stream is not known.  The stream is not closed.
+     */
+    public static long parse(InputStream in, long size, TriangleSink sink) throws IOException {
+        byte[] preamble = new byte[BinaryStlParser.PREAMBLE_SIZE];
+        int length = readUpTo(in, preamble);
+        if (isAscii(preamble, length, size)) {
+            return AsciiStlParser.parse(preamble, length, in, sink);
+        }
+        if (length < preamble.length) {
+            throw new StlFormatException("STL data is too short to contain a header");
+        }
+        return BinaryStlParser.parseFacets(in, BinaryStlParser.getFacetCount(preamble), sink);
+    }
+
+    /**
+     * Returns true if the preamble (the first length bytes of the file) and size indicate ASCII STL.
+     */
+    public static boolean isAscii(byte[] preamble, int length, long size) {
+        if (length == BinaryStlParser.PREAMBLE_SIZE && size != UNKNOWN_SIZE
+                && size == BinaryStlParser.getExpectedSize(BinaryStlParser.getFacetCount(preamble))) {
+            return false;
+        }
+        int i = 0;
+        while (i < length && Character.isWhitespace(preamble[i])) {
+            i++;
+        }
+        if (length - i < 5 || !"solid".equalsIgnoreCase(new String(preamble, i, 5, StandardCharsets.US_ASCII))) {
+            return false;
+        }
+        for (; i < length; i++) {
+            int b = preamble[i] & 0xFF;
+            if (b >= 0x7F || (b < 0x20 && !Character.isWhitespace(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readUpTo(InputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int n = in.read(buffer, read, buffer.length - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+}
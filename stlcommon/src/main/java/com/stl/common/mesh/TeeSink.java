@@ -0,0 +1,24 @@
+package com.stl.common.mesh;
+
+/**
+ * Passes each triangle to two sinks, so that independent computations share a single
+ * pass over the mesh.
+ */
+public class TeeSink implements TriangleSink {
+    private final TriangleSink first;
+    private final TriangleSink second;
+
+    public TeeSink(TriangleSink first, TriangleSink second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public void triangle(
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz) {
+        first.triangle(ax, ay, az, bx, by, bz, cx, cy, cz);
+        second.triangle(ax, ay, az, bx, by, bz, cx, cy, cz);
+    }
+}
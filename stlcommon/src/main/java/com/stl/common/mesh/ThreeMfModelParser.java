@@ -0,0 +1,334 @@
+package com.stl.common.mesh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the parts of a 3MF model part, the 3D/3dmodel.model XML document inside a 3MF
+ * package.  Each item of the build section is a part: the mesh of the object it refers to
+ * and the meshes of the components that object is assembled from, placed by the item's and
+ * the components' transforms.  Only items of objects of type model are parts; support and
+ * other objects are not printed as parts.<p/>
+ *
+ * The document is read with StAX, so only the vertices of the mesh being read are held on
+ * the heap.  Items refer to objects declared before them, so the triangles of every mesh
+ * object are kept in one scratch {@link TriangleBuffer}, and each part is placed into a
+ * scratch buffer of its own before it is passed to the handler.  Vertices and translations
+ * are scaled to millimetres from the unit declared by the model.
+ */
+public class ThreeMfModelParser {
+    private static final int INITIAL_VERTICES = 1024;
+    //Deepest nesting of components followed, the specification forbids cycles but documents may have them
+    private static final int MAX_COMPONENT_DEPTH = 32;
+    //Transforms are 3x4 matrices applied to row vectors, the last row being the translation
+    private static final double[] IDENTITY = { 1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0 };
+
+    /**
+     * Receives the parts of the model in build order.
+     */
+    public interface Handler {
+        /**
+         * Called for each item of the build section with its placed triangles, which can only
+         * be read during the call.  The name is null if the object has none.
+         */
+        void item(String objectId, String name, TriangleSource part) throws IOException;
+    }
+
+    private final File directory;
+    private final Handler handler;
+    private final Map<String, ModelObject> objects = new HashMap<String, ModelObject>();
+    private final TriangleBuffer meshes;
+    private float scale = 1f;
+
+    private ThreeMfModelParser(File directory, Handler handler) throws IOException {
+        this.directory = directory;
+        this.handler = handler;
+        this.meshes = new TriangleBuffer(directory);
+    }
+
+    /**
+     * @param directory The directory scratch files are created in, or null for the default
+     *          temporary directory
+     */
+    public static void parse(InputStream in, File directory, Handler handler) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        //3MF documents have no DTD, refusing one also keeps external entities out
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        XMLStreamReader reader = null;
+        ThreeMfModelParser parser = new ThreeMfModelParser(directory, handler);
+        try {
+            reader = factory.createXMLStreamReader(in);
+            parser.parse(reader);
+        } catch (XMLStreamException e) {
+            throw new StlFormatException("Malformed 3MF model: " + e.getMessage());
+        } finally {
+            try {
+                if (null != reader) {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                //the underlying stream is closed by the caller
+            } finally {
+                parser.meshes.close();
+            }
+        }
+    }
+
+    private void parse(XMLStreamReader reader) throws XMLStreamException, IOException {
+        ModelObject object = null;
+        float[] vertices = new float[3 * INITIAL_VERTICES];
+        int vertexCount = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (XMLStreamConstants.START_ELEMENT == event) {
+                String element = reader.getLocalName();
+                if ("model".equals(element)) {
+                    scale = toMillimetres(reader.getAttributeValue(null, "unit"));
+                } else if ("object".equals(element)) {
+                    object = new ModelObject(reader.getAttributeValue(null, "type"), reader.getAttributeValue(null, "name"));
+                    objects.put(getAttribute(reader, "id"), object);
+                } else if ("mesh".equals(element) && null != object) {
+                    object.from = meshes.getFacetCount();
+                    vertexCount = 0;
+                } else if ("vertex".equals(element) && null != object) {
+                    if (vertices.length < 3 * (vertexCount + 1)) {
+                        vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+                    }
+                    int base = 3 * vertexCount++;
+                    vertices[base] = scale * parseFloat(reader, "x");
+                    vertices[base + 1] = scale * parseFloat(reader, "y");
+                    vertices[base + 2] = scale * parseFloat(reader, "z");
+                } else if ("triangle".equals(element) && null != object) {
+                    int a = 3 * parseIndex(reader, "v1", vertexCount);
+                    int b = 3 * parseIndex(reader, "v2", vertexCount);
+                    int c = 3 * parseIndex(reader, "v3", vertexCount);
+                    meshes.triangle(
+                            vertices[a], vertices[a + 1], vertices[a + 2],
+                            vertices[b], vertices[b + 1], vertices[b + 2],
+                            vertices[c], vertices[c + 1], vertices[c + 2]);
+                } else if ("component".equals(element) && null != object) {
+                    object.components.add(new Component(getAttribute(reader, "objectid"), parseTransform(reader)));
+                } else if ("item".equals(element)) {
+                    item(getAttribute(reader, "objectid"), parseTransform(reader));
+                }
+            } else if (XMLStreamConstants.END_ELEMENT == event) {
+                String element = reader.getLocalName();
+                if ("mesh".equals(element) && null != object) {
+                    object.to = meshes.getFacetCount();
+                } else if ("object".equals(element)) {
+                    object = null;
+                }
+            }
+        }
+    }
+
+    private void item(String objectId, double[] transform) throws IOException {
+        ModelObject object = getObject(objectId);
+        if (!object.isPart()) {
+            return;
+        }
+        try (TriangleBuffer part = new TriangleBuffer(directory)) {
+            place(object, transform, part, 0);
+            handler.item(objectId, object.name, part);
+        }
+    }
+
+    /**
+     * Appends the triangles of the object and its components to the part, placed by the transform.
+     */
+    private void place(ModelObject object, double[] transform, TriangleSink part, int depth) throws StlFormatException {
+        if (depth > MAX_COMPONENT_DEPTH) {
+            throw new StlFormatException("3MF components are nested more than " + MAX_COMPONENT_DEPTH + " deep");
+        }
+        if (object.to > object.from) {
+            meshes.forEach(object.from, object.to, new Placement(transform, part));
+        }
+        for (Component component : object.components) {
+            place(getObject(component.objectId), compose(component.transform, transform), part, depth + 1);
+        }
+    }
+
+    private ModelObject getObject(String id) throws StlFormatException {
+        ModelObject object = objects.get(id);
+        if (null == object) {
+            throw new StlFormatException("3MF object " + id + " is not defined");
+        }
+        return object;
+    }
+
+    /**
+     * Returns the transform applying inner and then outer.
+     */
+    private static double[] compose(double[] inner, double[] outer) {
+        double[] result = new double[12];
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 3; column++) {
+                double sum = 3 == row ? outer[9 + column] : 0.0;
+                for (int k = 0; k < 3; k++) {
+                    sum += inner[3 * row + k] * outer[3 * k + column];
+                }
+                result[3 * row + column] = sum;
+            }
+        }
+        return result;
+    }
+
+    private double[] parseTransform(XMLStreamReader reader) throws StlFormatException {
+        String value = reader.getAttributeValue(null, "transform");
+        if (null == value) {
+            return IDENTITY;
+        }
+        String[] entries = value.trim().split("\\s+");
+        if (entries.length != 12) {
+            throw new StlFormatException("Invalid 3MF transform: " + value);
+        }
+        double[] transform = new double[12];
+        try {
+            for (int i = 0; i < 12; i++) {
+                transform[i] = Double.parseDouble(entries[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new StlFormatException("Invalid 3MF transform: " + value);
+        }
+        //the translation is in the model's unit, like the vertices
+        for (int i = 9; i < 12; i++) {
+            transform[i] *= scale;
+        }
+        return transform;
+    }
+
+    private static float toMillimetres(String unit) throws StlFormatException {
+        if (null == unit || "millimeter".equals(unit)) {
+            return 1f;
+        } else if ("micron".equals(unit)) {
+            return 0.001f;
+        } else if ("centimeter".equals(unit)) {
+            return 10f;
+        } else if ("inch".equals(unit)) {
+            return 25.4f;
+        } else if ("foot".equals(unit)) {
+            return 304.8f;
+        } else if ("meter".equals(unit)) {
+            return 1000f;
+        }
+        throw new StlFormatException("Unsupported 3MF unit: " + unit);
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String attribute) throws StlFormatException {
+        String value = reader.getAttributeValue(null, attribute);
+        if (null == value) {
+            throw new StlFormatException("Missing 3MF attribute " + attribute + " of " + reader.getLocalName());
+        }
+        return value;
+    }
+
+    private static float parseFloat(XMLStreamReader reader, String attribute) throws StlFormatException {
+        String value = reader.getAttributeValue(null, attribute);
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new StlFormatException("Invalid 3MF vertex coordinate " + attribute + ": " + value);
+        }
+    }
+
+    private static int parseIndex(XMLStreamReader reader, String attribute, int vertexCount)
+            throws StlFormatException {
+        String value = reader.getAttributeValue(null, attribute);
+        try {
+            int index = Integer.parseInt(value);
+            if (index >= 0 && index < vertexCount) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            //reported below
+        }
+        throw new StlFormatException("Invalid 3MF triangle vertex " + attribute + ": " + value);
+    }
+
+    /**
+     * A resource object: the range of its mesh in the scratch buffer, if it has one, and its components.
+     */
+    private static class ModelObject {
+        private final String type;
+        private final String name;
+        private final List<Component> components = new ArrayList<Component>();
+        private long from;
+        private long to;
+
+        ModelObject(String type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+
+        boolean isPart() {
+            return null == type || "model".equals(type);
+        }
+    }
+
+    private static class Component {
+        private final String objectId;
+        private final double[] transform;
+
+        Component(String objectId, double[] transform) {
+            this.objectId = objectId;
+            this.transform = transform;
+        }
+    }
+
+    /**
+     * Transforms triangles into a part, reversing their winding if the transform mirrors them
+     * so that they still face outwards.
+     */
+    private static class Placement implements TriangleSink {
+        private final double[] m;
+        private final TriangleSink part;
+        private final boolean mirrored;
+
+        Placement(double[] m, TriangleSink part) {
+            this.m = m;
+            this.part = part;
+            double determinant = m[0] * (m[4] * m[8] - m[5] * m[7]) - m[1] * (m[3] * m[8] - m[5] * m[6])
+                    + m[2] * (m[3] * m[7] - m[4] * m[6]);
+            this.mirrored = determinant < 0;
+        }
+
+        @Override
+        public void triangle(
+                float ax, float ay, float az,
+                float bx, float by, float bz,
+                float cx, float cy, float cz) {
+            float pax = x(ax, ay, az), pay = y(ax, ay, az), paz = z(ax, ay, az);
+            float pbx = x(bx, by, bz), pby = y(bx, by, bz), pbz = z(bx, by, bz);
+            float pcx = x(cx, cy, cz), pcy = y(cx, cy, cz), pcz = z(cx, cy, cz);
+            if (mirrored) {
+                part.triangle(pax, pay, paz, pcx, pcy, pcz, pbx, pby, pbz);
+            } else {
+                part.triangle(pax, pay, paz, pbx, pby, pbz, pcx, pcy, pcz);
+            }
+        }
+
+        private float x(float x, float y, float z) {
+            return (float) (x * m[0] + y * m[3] + z * m[6] + m[9]);
+        }
+
+        private float y(float x, float y, float z) {
+            return (float) (x * m[1] + y * m[4] + z * m[7] + m[10]);
+        }
+
+        private float z(float x, float y, float z) {
+            return (float) (x * m[2] + y * m[5] + z * m[8] + m[11]);
+        }
+    }
+}
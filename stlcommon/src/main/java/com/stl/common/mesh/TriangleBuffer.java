@@ -0,0 +1,138 @@
+package com.stl.common.mesh;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Collects facets outside the Java heap so that meshes of tens of millions of facets can be
+ * held for several passes without growing the old generation.  Facets are appended as 36
+ * byte records of nine floats to fixed size blocks, which are either direct buffers or
+ * regions of a memory mapped scratch file; the heap holds only the table of blocks.  Once
+ * filled the buffer is a {@link TriangleSource}, and may be read by several threads as long
+ * as nothing more is appended.<p/>
+ *
+ * Closing the buffer deletes its scratch file.  As with {@link MappedStlFile}, the memory of
+ * a block is only released once the block is collected, so buffers should not outlive the
+ * request that fills them.
+ */
+public class TriangleBuffer implements TriangleSink, TriangleSource, Closeable {
+    static final int RECORD_SIZE = 36;
+    //Records per block, 2.25MB of facet data
+    static final int BLOCK_RECORDS = 1 << 16;
+    private static final int BLOCK_SIZE = BLOCK_RECORDS * RECORD_SIZE;
+
+    private final File scratch;
+    private final RandomAccessFile file;
+    private ByteBuffer[] blocks = new ByteBuffer[16];
+    private ByteBuffer block;
+    private int position = BLOCK_SIZE;
+    private long facetCount;
+
+    /**
+     * Creates a buffer whose blocks are allocated as direct buffers, which count against the
+     * JVM's direct memory limit.
+     */
+    public TriangleBuffer() {
+        this.scratch = null;
+        this.file = null;
+    }
+
+    /**
+     * Creates a buffer whose blocks are mapped from a scratch file in the given directory,
+     * or in the default temporary directory if it is null, so that only the page cache
+     * limits its size.
+     */
+    public TriangleBuffer(File directory) throws IOException {
+        this.scratch = File.createTempFile("mesh", ".tri", directory);
+        try {
+            this.file = new RandomAccessFile(scratch, "rw");
+        } catch (IOException e) {
+            scratch.delete();
+            throw e;
+        }
+    }
+
+    @Override
+    public void triangle(
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz) {
+        if (position == BLOCK_SIZE) {
+            addBlock();
+        }
+        ByteBuffer b = block;
+        int p = position;
+        b.putFloat(p, ax).putFloat(p + 4, ay).putFloat(p + 8, az)
+                .putFloat(p + 12, bx).putFloat(p + 16, by).putFloat(p + 20, bz)
+                .putFloat(p + 24, cx).putFloat(p + 28, cy).putFloat(p + 32, cz);
+        position = p + RECORD_SIZE;
+        facetCount++;
+    }
+
+    private void addBlock() {
+        int index = (int) (facetCount / BLOCK_RECORDS);
+        if (index == blocks.length) {
+            blocks = Arrays.copyOf(blocks, 2 * blocks.length);
+        }
+        if (null == file) {
+            block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        } else {
+            try {
+                block = file.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) index * BLOCK_SIZE, BLOCK_SIZE);
+            } catch (IOException e) {
+                //TriangleSink cannot throw checked exceptions
+                throw new IllegalStateException("Unable to extend the triangle scratch file", e);
+            }
+        }
+        //native order, since the records never leave this process
+        block.order(ByteOrder.nativeOrder());
+        blocks[index] = block;
+        position = 0;
+    }
+
+    @Override
+    public long getFacetCount() {
+        return facetCount;
+    }
+
+    @Override
+    public void forEach(long fromFacet, long toFacet, TriangleSink sink) {
+        layout().forEach(fromFacet, Math.min(toFacet, facetCount), sink);
+    }
+
+    /**
+     * Feeds every facet in the buffer to the sink.
+     */
+    public void forEach(TriangleSink sink) {
+        forEach(0, facetCount, sink);
+    }
+
+    @Override
+    public TriangleCursor cursor() {
+        return new TriangleCursor(layout(), facetCount);
+    }
+
+    private RecordRegions layout() {
+        return new RecordRegions(blocks, BLOCK_RECORDS, RECORD_SIZE, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        blocks = new ByteBuffer[0];
+        block = null;
+        facetCount = 0;
+        if (null != file) {
+            try {
+                file.close();
+            } finally {
+                scratch.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.stl.common.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A bounding volume hierarchy over the facets of an {@link IndexedMesh}, for casting rays
+ * against the mesh in logarithmic rather than linear time.  Nodes are held in primitive
+ * arrays in depth-first order: a node's left child follows it, and each leaf covers up to
+ * LEAF_SIZE consecutive entries of a permutation of the facets.<p/>
+ *
+ * Each node splits its facets at the median centroid along the longest axis of their
+ * centroids, rounded so that the left child holds a whole number of full leaves.  The
+ * shape of the tree then depends only on the facet count, so every subtree's place in the
+ * node arrays is known before it is built and subtrees are built concurrently on a
+ * fork-join pool.  Once built the hierarchy is read only and may be queried from any thread.
+ */
+public class TriangleBvh {
+    static final int LEAF_SIZE = 4;
+    //Subtrees with fewer facets than this are built on the current thread
+    private static final int PARALLEL_FACETS = 64 * 1024;
+    private static final int MAX_DEPTH = 64;
+
+    private final float[] vertices;
+    private final int[] triangles;
+    private final int[] order;
+    //min x, y, z then max x, y, z of each node
+    private final float[] bounds;
+    //for a leaf the first entry of order it covers, for an internal node its right child
+    private final int[] links;
+    //for a leaf the number of facets it covers, 0 for an internal node
+    private final int[] counts;
+
+    /**
+     * @param pool The pool subtrees are built on, or null to build on the calling thread
+     */
+    public TriangleBvh(IndexedMesh mesh, ForkJoinPool pool) {
+        this.vertices = mesh.vertices;
+        this.triangles = mesh.triangles;
+        int count = mesh.getTriangleCount();
+        this.order = new int[count];
+        int nodes = count == 0 ? 0 : 2 * leaves(count) - 1;
+        this.bounds = new float[6 * nodes];
+        this.links = new int[nodes];
+        this.counts = new int[nodes];
+        if (count == 0) {
+            return;
+        }
+        //centroids are permuted along with order, so partitioning reads them sequentially
+        float[] centroids = new float[3 * count];
+        for (int t = 0; t < count; t++) {
+            order[t] = t;
+            int a = 3 * triangles[3 * t], b = 3 * triangles[3 * t + 1], c = 3 * triangles[3 * t + 2];
+            for (int axis = 0; axis < 3; axis++) {
+                centroids[3 * t + axis] = (vertices[a + axis] + vertices[b + axis] + vertices[c + axis]) / 3f;
+            }
+        }
+        float[] box = { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY };
+        for (int i = 0; i < 3 * count; i++) {
+            box[i % 3] = Math.min(box[i % 3], centroids[i]);
+            box[3 + i % 3] = Math.max(box[3 + i % 3], centroids[i]);
+        }
+        BuildTask root = new BuildTask(centroids, box, 0, 0, count);
+        if (null == pool || count < PARALLEL_FACETS) {
+            root.compute();
+        } else {
+            pool.invoke(root);
+        }
+    }
+
+    private static int leaves(int facets) {
+        return (facets + LEAF_SIZE - 1) / LEAF_SIZE;
+    }
+
+    @SuppressWarnings("serial")
+    private class BuildTask extends RecursiveAction {
+        private final float[] centroids;
+        private final float[] box;
+        private final int node;
+        private final int from;
+        private final int to;
+
+        BuildTask(float[] centroids, float[] box, int node, int from, int to) {
+            this.centroids = centroids;
+            this.box = box;
+            this.node = node;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            build(node, from, to, box, to - from >= PARALLEL_FACETS);
+        }
+
+        /**
+         * @param box A box enclosing the centroids of the facets, min x, y, z then max x, y, z
+         */
+        private void build(int node, int from, int to, float[] box, boolean parallel) {
+            int leaves = leaves(to - from);
+            if (leaves == 1) {
+                links[node] = from;
+                counts[node] = to - from;
+                setLeafBounds(node, from, to);
+                return;
+            }
+            int leftLeaves = (leaves + 1) / 2;
+            int mid = from + leftLeaves * LEAF_SIZE;
+            float x = box[3] - box[0], y = box[4] - box[1], z = box[5] - box[2];
+            int axis = x >= y && x >= z ? 0 : (y >= z ? 1 : 2);
+            select(from, to, mid, axis);
+            //the split plane bounds the children's centroids along the axis, the parent's box the rest
+            float[] leftBox = box.clone(), rightBox = box.clone();
+            leftBox[3 + axis] = centroids[3 * mid + axis];
+            rightBox[axis] = centroids[3 * mid + axis];
+            int left = node + 1, right = node + 2 * leftLeaves;
+            links[node] = right;
+            if (parallel) {
+                invokeAll(new BuildTask(centroids, leftBox, left, from, mid), new BuildTask(centroids, rightBox, right, mid, to));
+            } else {
+                build(left, from, mid, leftBox, false);
+                build(right, mid, to, rightBox, false);
+            }
+            for (int i = 0; i < 3; i++) {
+                bounds[6 * node + i] = Math.min(bounds[6 * left + i], bounds[6 * right + i]);
+                bounds[6 * node + 3 + i] = Math.max(bounds[6 * left + 3 + i], bounds[6 * right + 3 + i]);
+            }
+        }
+
+        /**
+         * Partially sorts order[from, to) by centroid along the axis so that the facet at k is
+         * in its sorted place, with no greater facet before it and no smaller one after.
+         */
+        private void select(int from, int to, int k, int axis) {
+            int lo = from, hi = to - 1;
+            while (lo < hi) {
+                //median of three, which keeps facets exported in sorted runs from degrading the selection
+                float first = centroids[3 * lo + axis], middle = centroids[3 * ((lo + hi) >>> 1) + axis], last = centroids[3 * hi + axis];
+                float pivot = Math.max(Math.min(first, middle), Math.min(Math.max(first, middle), last));
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (centroids[3 * i + axis] < pivot) {
+                        i++;
+                    }
+                    while (centroids[3 * j + axis] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int i, int j) {
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+            for (int axis = 0; axis < 3; axis++) {
+                float c = centroids[3 * i + axis];
+                centroids[3 * i + axis] = centroids[3 * j + axis];
+                centroids[3 * j + axis] = c;
+            }
+        }
+    }
+
+    private void setLeafBounds(int node, int from, int to) {
+        for (int i = 0; i < 3; i++) {
+            bounds[6 * node + i] = Float.POSITIVE_INFINITY;
+            bounds[6 * node + 3 + i] = Float.NEGATIVE_INFINITY;
+        }
+        for (int i = from; i < to; i++) {
+            for (int corner = 0; corner < 3; corner++) {
+                int v = 3 * triangles[3 * order[i] + corner];
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[6 * node + axis] = Math.min(bounds[6 * node + axis], vertices[v + axis]);
+                    bounds[6 * node + 3 + axis] = Math.max(bounds[6 * node + 3 + axis], vertices[v + axis]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a stack for {@link #castToExit}, which each querying thread must have its own of.
+     */
+    public static int[] newStack() {
+        return new int[2 * MAX_DEPTH];
+    }
+
+    /**
+     * Casts a ray from the origin along the direction and returns the distance, in multiples of
+     * the direction's length, to the nearest facet that the ray leaves the solid through,
+     * that is one facing the same way as the ray; facets the ray enters through are passed.
+     * Returns infinity if the ray leaves through no facet beyond minDistance.
+     *
+     * @param skip A facet to ignore, usually the one the ray starts on, or -1
+     */
+    public double castToExit(double ox, double oy, double oz, double dx, double dy, double dz,
+            double minDistance, int skip, int[] stack) {
+        if (counts.length == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double inverseX = 1.0 / dx, inverseY = 1.0 / dy, inverseZ = 1.0 / dz;
+        double nearest = Double.POSITIVE_INFINITY;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!hitsBox(node, ox, oy, oz, inverseX, inverseY, inverseZ, nearest)) {
+                continue;
+            }
+            if (counts[node] == 0) {
+                stack[top++] = links[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            for (int i = links[node], end = i + counts[node]; i < end; i++) {
+                int t = order[i];
+                if (t == skip) {
+                    continue;
+                }
+                double distance = intersectExit(t, ox, oy, oz, dx, dy, dz);
+                if (distance > minDistance && distance < nearest) {
+                    nearest = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private boolean hitsBox(int node, double ox, double oy, double oz, 
+            double inverseX, double inverseY, double inverseZ, double limit) {
+        int b = 6 * node;
+        double t1 = (bounds[b] - ox) * inverseX, t2 = (bounds[b + 3] - ox) * inverseX;
+        double near = Math.min(t1, t2), far = Math.max(t1, t2);
+        t1 = (bounds[b + 1] - oy) * inverseY;
+        t2 = (bounds[b + 4] - oy) * inverseY;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        t1 = (bounds[b + 2] - oz) * inverseZ;
+        t2 = (bounds[b + 5] - oz) * inverseZ;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        //a zero direction component against a zero extent gives NaN, which the negated comparisons let through
+        return !(near > far) && !(far < 0) && !(near > limit);
+    }
+
+    /**
+     * Intersects the ray with a facet it leaves through (Moller-Trumbore), returning the
+     * distance or NaN if it misses or would enter through the facet.
+     */
+    private double intersectExit(int t, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int a = 3 * triangles[3 * t], b = 3 * triangles[3 * t + 1], c = 3 * triangles[3 * t + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+        double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        //det is minus the dot product of the direction and the facet normal e1 x e2
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (!(det < 0)) {
+            return Double.NaN;
+        }
+        double inverse = 1.0 / det;
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (u < 0 || u > 1) {
+            return Double.NaN;
+        }
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (v < 0 || u + v > 1) {
+            return Double.NaN;
+        }
+        return (e2x * qx + e2y * qy + e2z * qz) * inverse;
+    }
+}
@@ -0,0 +1,97 @@
+package com.stl.common.mesh;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Walks the facets of a {@link TriangleSource} in place, reading coordinates straight out
+ * of the underlying buffers, so that passes which need to look at a facet more than once,
+ * or to jump between facets, do so without allocating.  A cursor starts before the first
+ * facet; {@link #next()} moves it on and {@link #seek(long)} moves it anywhere.  Cursors
+ * are cheap to create but not thread safe.
+ */
+public class TriangleCursor {
+    //Facets moved over between cancellation checks, less one
+    private static final long CHECK_MASK = 4096 - 1;
+
+    private final RecordRegions layout;
+    private final long facetCount;
+    private ByteBuffer region;
+    private int recordInRegion;
+    private int base;
+    private long index = -1;
+    private MeshProgress progress;
+
+    TriangleCursor(RecordRegions layout, long facetCount) {
+        this.layout = layout;
+        this.facetCount = facetCount;
+    }
+
+    /**
+     * Makes the cursor throw a {@link java.util.concurrent.CancellationException} from
+     * {@link #next()} once progress is cancelled, checked every few thousand facets, and
+     * returns it.
+     */
+    TriangleCursor watch(MeshProgress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Moves to the next facet, returning false once every facet has been visited.
+     */
+    public boolean next() {
+        if (index + 1 >= facetCount) {
+            index = facetCount;
+            return false;
+        }
+        index++;
+        if (null != progress && 0 == (index & CHECK_MASK)) {
+            progress.checkCancelled();
+        }
+        if (null == region || ++recordInRegion == layout.regionRecords) {
+            locate();
+        } else {
+            base += layout.recordSize;
+        }
+        return true;
+    }
+
+    /**
+     * Positions the cursor so that the next call to {@link #next()} moves to the given facet.
+     */
+    public void seek(long facet) {
+        if (facet < 0 || facet > facetCount) {
+            throw new IndexOutOfBoundsException("Facet " + facet + " of " + facetCount);
+        }
+        index = facet - 1;
+        region = null;
+    }
+
+    private void locate() {
+        region = layout.regions[(int) (index / layout.regionRecords)];
+        recordInRegion = (int) (index % layout.regionRecords);
+        base = recordInRegion * layout.recordSize + layout.vertexOffset;
+    }
+
+    /**
+     * Returns the index of the current facet.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the x coordinate of corner 0, 1 or 2 of the current facet.
+     */
+    public float getX(int corner) {
+        return region.getFloat(base + 12 * corner);
+    }
+
+    public float getY(int corner) {
+        return region.getFloat(base + 12 * corner + 4);
+    }
+
+    public float getZ(int corner) {
+        return region.getFloat(base + 12 * corner + 8);
+    }
+}
@@ -0,0 +1,17 @@
+package com.stl.common.mesh;
+
+/**
+ * Receives the triangles of a mesh one at a time as they are decoded.  Vertex
+ * coordinates are passed as primitives so that parsers can feed a sink without
+ * allocating an object per facet.
+ */
+public interface TriangleSink {
+
+    /**
+     * Called once per facet, with the vertices in the winding order of the source file.
+     */
+    public void triangle(
+            float ax, float ay, float az,
+            float bx, float by, float bz,
+            float cx, float cy, float cz);
+}
@@ -0,0 +1,20 @@
+package com.stl.common.mesh;
+
+/**
+ * A sequence of facets held outside the Java heap that can be visited any number of times,
+ * in any ranges, from any number of threads at once.
+ */
+public interface TriangleSource {
+
+    public long getFacetCount();
+
+    /**
+     * Feeds the facets in [fromFacet, toFacet) to the sink.
+     */
+    public void forEach(long fromFacet, long toFacet, TriangleSink sink);
+
+    /**
+     * Returns a new cursor positioned before the first facet.  Each thread needs its own cursor.
+     */
+    public TriangleCursor cursor();
+}
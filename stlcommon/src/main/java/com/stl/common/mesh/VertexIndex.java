@@ -0,0 +1,115 @@
+package com.stl.common.mesh;
+
+/**
+ * Assigns dense ids to the distinct vertices of a mesh.  Coordinates are quantized to a grid
+ * of the given tolerance, so corners that differ only by noise in the exporter's float
+ * output share an id; without a tolerance only corners with exactly the same coordinates
+ * do, 0 and -0 being the same.  Quantized coordinates are longs, so parts modelled in microns or far
+ * from the origin keep their vertices apart.  The index is an open addressing hash table
+ * over a single long array, three quantized coordinates and an id per slot side by side so
+ * that a probe touches one cache line, and no key is ever boxed; it grows by doubling,
+ * which keeps indexing linear in the number of vertices.
+ */
+public class VertexIndex {
+    private static final int MIN_CAPACITY = 1024;
+    private static final int SLOT_SIZE = 4;
+    //grow once the table is half full, keeping probe sequences short
+    private static final int MAX_LOAD_SHIFT = 1;
+
+    //0 when coordinates are matched exactly
+    private final double inverseTolerance;
+    //x, y, z and id + 1 for each slot, the id is 0 for empty slots
+    private long[] slots;
+    private int mask;
+    private int size;
+
+    /**
+     * @param tolerance The grid spacing coordinates are quantized to, in mesh units, or 0 to
+     *            match coordinates exactly
+     * @param expectedVertices The number of vertices to size the table for
+     */
+    public VertexIndex(double tolerance, int expectedVertices) {
+        //1 / 0 would quantize every coordinate to the same saturated value
+        this.inverseTolerance = tolerance > 0 ? 1.0 / tolerance : 0.0;
+        int capacity = MIN_CAPACITY;
+        while (capacity >> MAX_LOAD_SHIFT < expectedVertices && capacity < 1 << 28) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the id of the vertex, assigning the next id if it has not been seen before.
+     */
+    public int indexOf(float x, float y, float z) {
+        long qx = quantize(x), qy = quantize(y), qz = quantize(z);
+        int slot = hash(qx, qy, qz) & mask;
+        int base;
+        while (0 != slots[(base = SLOT_SIZE * slot) + 3]) {
+            if (slots[base] == qx && slots[base + 1] == qy && slots[base + 2] == qz) {
+                return (int) slots[base + 3] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = size++;
+        insert(slot, qx, qy, qz, id);
+        if (size > (mask + 1) >> MAX_LOAD_SHIFT) {
+            grow();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of distinct vertices indexed.
+     */
+    public int size() {
+        return size;
+    }
+
+    private long quantize(float coordinate) {
+        if (0.0 == inverseTolerance) {
+            //adding 0 turns -0 into 0, NaNs all have the same bits
+            return Float.floatToIntBits(coordinate + 0.0f);
+        }
+        //NaN becomes 0, and only coordinates over 2^63 tolerances out saturate, about 9e13
+        //units at 1e-5, where adjacent floats are already millions of units apart
+        return (long) Math.rint(coordinate * inverseTolerance);
+    }
+
+    private void insert(int slot, long qx, long qy, long qz, int id) {
+        int base = SLOT_SIZE * slot;
+        slots[base] = qx;
+        slots[base + 1] = qy;
+        slots[base + 2] = qz;
+        slots[base + 3] = id + 1;
+    }
+
+    private void grow() {
+        if (mask + 1 >= 1 << 28) {
+            throw new IllegalStateException("Too many vertices to index");
+        }
+        long[] old = slots;
+        allocate(2 * (mask + 1));
+        for (int base = 0; base < old.length; base += SLOT_SIZE) {
+            if (0 != old[base + 3]) {
+                long qx = old[base], qy = old[base + 1], qz = old[base + 2];
+                int slot = hash(qx, qy, qz) & mask;
+                while (0 != slots[SLOT_SIZE * slot + 3]) {
+                    slot = (slot + 1) & mask;
+                }
+                insert(slot, qx, qy, qz, (int) old[base + 3] - 1);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[SLOT_SIZE * capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long x, long y, long z) {
+        long h = x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL + z * 0x165667B19E3779F9L;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return (int) (h ^ (h >>> 33));
+    }
+}
@@ -0,0 +1,131 @@
+package com.stl.common.mesh;
+
+/**
+ * A solid voxel model of a mesh, see {@link Voxelizer}.  The grid is stored as runs: each
+ * row of voxels along X, one per Y and Z, holds the [start, end) X indices of its filled
+ * spans, and all rows' runs share one int array indexed by row offsets.  Solid parts have
+ * a run or two per row, so a grid of 1024 voxels a side takes a few tens of MB rather than
+ * the 128MB of a plain bitset.  Grids are immutable.
+ */
+public class VoxelGrid {
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final double originX;
+    private final double originY;
+    private final double originZ;
+    private final double voxelSize;
+    //runs of row y + sizeY * z are the pairs from runs[2 * rowStart[row]] to runs[2 * rowStart[row + 1]]
+    private final int[] rowStart;
+    private final int[] runs;
+    private final long voxelCount;
+
+    VoxelGrid(int sizeX, int sizeY, int sizeZ, double originX, double originY, double originZ, 
+            double voxelSize, int[] rowStart, int[] runs) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.voxelSize = voxelSize;
+        this.rowStart = rowStart;
+        this.runs = runs;
+        long count = 0;
+        for (int i = 0; i < 2 * rowStart[rowStart.length - 1]; i += 2) {
+            count += runs[i + 1] - runs[i];
+        }
+        this.voxelCount = count;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    /**
+     * Returns the X coordinate of the low face of the first voxel.
+     */
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+
+    public double getOriginZ() {
+        return originZ;
+    }
+
+    /**
+     * Returns the edge length of a voxel, in mesh units.
+     */
+    public double getVoxelSize() {
+        return voxelSize;
+    }
+
+    public long getVoxelCount() {
+        return voxelCount;
+    }
+
+    /**
+     * Returns the volume of the filled voxels.
+     */
+    public double getVolume() {
+        return voxelCount * voxelSize * voxelSize * voxelSize;
+    }
+
+    /**
+     * Returns the number of filled spans in all rows.
+     */
+    public int getRunCount() {
+        return rowStart[rowStart.length - 1];
+    }
+
+    public boolean isFilled(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+            return false;
+        }
+        int row = y + sizeY * z;
+        //runs are sorted and disjoint, so find the last run starting at or before x
+        int lo = rowStart[row], hi = rowStart[row + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (runs[2 * mid] <= x) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return hi >= rowStart[row] && x < runs[2 * hi + 1];
+    }
+
+    /**
+     * Returns the projection of the grid onto the XY plane, as a bitset of sizeX * sizeY bits
+     * in which bit x + sizeX * y is set if any voxel in that column is filled.
+     */
+    public long[] getFootprint() {
+        long[] footprint = new long[(int) (((long) sizeX * sizeY + 63) / 64)];
+        for (int z = 0; z < sizeZ; z++) {
+            for (int y = 0; y < sizeY; y++) {
+                int row = y + sizeY * z;
+                for (int i = rowStart[row]; i < rowStart[row + 1]; i++) {
+                    long base = (long) sizeX * y;
+                    for (int x = runs[2 * i]; x < runs[2 * i + 1]; x++) {
+                        long bit = base + x;
+                        footprint[(int) (bit >>> 6)] |= 1L << bit;
+                    }
+                }
+            }
+        }
+        return footprint;
+    }
+}
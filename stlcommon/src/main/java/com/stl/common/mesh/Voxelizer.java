@@ -0,0 +1,297 @@
+package com.stl.common.mesh;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rasterizes a mesh into a {@link VoxelGrid}.  The grid spans the mesh's bounding box with
+ * cubic voxels sized so that the longest side holds the requested number of them, and a
+ * voxel is filled if its centre is inside the mesh.<p/>
+ *
+ * Facets are first sorted by the lowest Z layer of voxel centres they cross, see
+ * {@link LayerSweep}.  Each layer is then cut through its centre plane, and every row of
+ * the resulting contour is scanned along X: crossings are sorted and the spans between them filled by the non-zero winding rule, each
+ * crossing counting in or out by the direction of its facet's normal.  The rule fills
+ * inside-out meshes too, and a hole in an open mesh only disturbs the rows running through
+ * it, so the voxel volume is a useful cross-check where the signed volume is meaningless.
+ * Ranges of layers are swept independently and filled in parallel on the fork-join pool.<p/>
+ *
+ * Crossings are computed from the shared edge and vertex alone, with fixed half-open rules
+ * for points lying exactly on a plane or row, so neighbouring facets agree exactly and a
+ * closed mesh never leaks.
+ */
+public class Voxelizer {
+    //Fewest layers filled sequentially by each leaf task
+    private static final int LEAF_LAYERS = 8;
+    private static final int MIN_CAPACITY = 1024;
+
+    /**
+     * @param resolution The number of voxels along the longest side of the bounding box
+     * @param pool The pool layers are filled on, or null to fill them on the calling thread
+     * @throws IllegalArgumentException if the resolution is not positive or the mesh is too
+     *          large to sweep
+     */
+    public static VoxelGrid voxelize(TriangleSource source, int resolution, ForkJoinPool pool) {
+        if (resolution < 1) {
+            throw new IllegalArgumentException("Invalid voxel resolution " + resolution);
+        }
+        float[] bounds = getBounds(source);
+        double extent = Math.max(bounds[3] - bounds[0], Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+        if (!(extent > 0)) {
+            return new VoxelGrid(0, 0, 0, 0, 0, 0, 0, new int[1], new int[0]);
+        }
+        double voxelSize = extent / resolution;
+        Layers layers = new Layers(source, bounds, voxelSize, 
+                getSize(bounds[3] - bounds[0], voxelSize, resolution), 
+                getSize(bounds[4] - bounds[1], voxelSize, resolution), 
+                getSize(bounds[5] - bounds[2], voxelSize, resolution), pool);
+        FillTask task = new FillTask(layers, 0, layers.sizeZ);
+        if (null == pool || layers.sizeZ <= layers.leafLayers) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return layers.toGrid();
+    }
+
+    private static int getSize(double extent, double voxelSize, int resolution) {
+        return (int) Math.max(1, Math.min(resolution, Math.ceil(extent / voxelSize)));
+    }
+
+    private static float[] getBounds(TriangleSource source) {
+        float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        TriangleCursor cursor = source.cursor();
+        while (cursor.next()) {
+            for (int k = 0; k < 3; k++) {
+                bounds[0] = Math.min(bounds[0], cursor.getX(k));
+                bounds[1] = Math.min(bounds[1], cursor.getY(k));
+                bounds[2] = Math.min(bounds[2], cursor.getZ(k));
+                bounds[3] = Math.max(bounds[3], cursor.getX(k));
+                bounds[4] = Math.max(bounds[4], cursor.getY(k));
+                bounds[5] = Math.max(bounds[5], cursor.getZ(k));
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * The facets swept through the layers, and the runs found in each.  Layers write only their own rows,
+     * so fill tasks share it without locking.
+     */
+    private static class Layers {
+        final TriangleSource source;
+        final float[] bounds;
+        final double voxelSize;
+        final int sizeX;
+        final int sizeY;
+        final int sizeZ;
+        final LayerSweep sweep;
+        final int leafLayers;
+        //runs per row until the grid is assembled, then row offsets
+        final int[] rowStart;
+        final int[][] layerRuns;
+
+        Layers(TriangleSource source, float[] bounds, double voxelSize, int sizeX, int sizeY, int sizeZ, ForkJoinPool pool) {
+            this.source = source;
+            this.bounds = bounds;
+            this.voxelSize = voxelSize;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.sweep = new LayerSweep(source, bounds[2], voxelSize, sizeZ);
+            this.leafLayers = LayerSweep.getLeafLayers(sizeZ, pool, LEAF_LAYERS);
+            this.rowStart = new int[sizeY * sizeZ + 1];
+            this.layerRuns = new int[sizeZ][];
+        }
+
+        VoxelGrid toGrid() {
+            int runs = 0;
+            for (int row = 0; row < sizeY * sizeZ; row++) {
+                int count = rowStart[row + 1];
+                rowStart[row + 1] = rowStart[row] + count;
+                runs += count;
+            }
+            int[] all = new int[2 * runs];
+            for (int k = 0; k < sizeZ; k++) {
+                int[] layer = layerRuns[k];
+                int start = 2 * rowStart[k * sizeY];
+                System.arraycopy(layer, 0, all, start, 2 * rowStart[(k + 1) * sizeY] - start);
+                layerRuns[k] = null;
+            }
+            return new VoxelGrid(sizeX, sizeY, sizeZ, bounds[0], bounds[1], bounds[2], voxelSize, rowStart, all);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class FillTask extends RecursiveAction {
+        private final Layers layers;
+        private final int from;
+        private final int to;
+        //Crossings of the current layer, see #encode
+        private long[] crossings = new long[0];
+        private int crossingCount;
+        private int[] runs = new int[0];
+        private int runCount;
+        //Corners of the current facet in voxel units, cut points of the current segment
+        private final double[] u = new double[3];
+        private final double[] v = new double[3];
+        private final double[] w = new double[3];
+        private final double[] cut = new double[4];
+
+        FillTask(Layers layers, int from, int to) {
+            this.layers = layers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > layers.leafLayers) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FillTask(layers, from, middle), new FillTask(layers, middle, to));
+                return;
+            }
+            TriangleCursor cursor = layers.source.cursor();
+            LayerSweep.Active active = layers.sweep.sweepFrom(from);
+            for (int k = from; k < to; k++) {
+                fill(cursor, active, active.advance());
+            }
+        }
+
+        private void fill(TriangleCursor cursor, LayerSweep.Active active, int layer) {
+            double plane = layer + 0.5;
+            crossingCount = 0;
+            for (int i = 0; i < active.size(); i++) {
+                cursor.seek(active.getFacet(i));
+                cursor.next();
+                for (int k = 0; k < 3; k++) {
+                    u[k] = (cursor.getX(k) - layers.bounds[0]) / layers.voxelSize;
+                    v[k] = (cursor.getY(k) - layers.bounds[1]) / layers.voxelSize;
+                    w[k] = layers.sweep.toLayerZ(cursor.getZ(k));
+                }
+                //x component of the facet normal, which says whether a ray along +X enters or leaves
+                double normalX = (v[1] - v[0]) * (w[2] - w[0]) - (w[1] - w[0]) * (v[2] - v[0]);
+                if (0 == normalX || !cut(plane)) {
+                    continue;
+                }
+                addCrossings(cut[0], cut[1], cut[2], cut[3], normalX < 0);
+            }
+            Arrays.sort(crossings, 0, crossingCount);
+            scan(layer);
+        }
+
+        /**
+         * Cuts the facet with the plane, a corner above it only if strictly above.  Each cut
+         * point is interpolated from below to above along its edge, so the facets sharing the
+         * edge compute the same point.
+         */
+        private boolean cut(double plane) {
+            int found = 0;
+            for (int k = 0; k < 3; k++) {
+                int a = k, b = (k + 1) % 3;
+                boolean aboveA = w[a] > plane, aboveB = w[b] > plane;
+                if (aboveA == aboveB) {
+                    continue;
+                }
+                if (aboveA) {
+                    a = b;
+                    b = k;
+                }
+                double t = (plane - w[a]) / (w[b] - w[a]);
+                cut[2 * found] = u[a] + t * (u[b] - u[a]);
+                cut[2 * found + 1] = v[a] + t * (v[b] - v[a]);
+                found++;
+            }
+            return 2 == found;
+        }
+
+        /**
+         * Adds a crossing for each row whose centre line the segment crosses, by the same rule
+         * as {@link #cut(double)}.
+         */
+        private void addCrossings(double u0, double v0, double u1, double v1, boolean entering) {
+            if (v0 > v1) {
+                double swap = u0;
+                u0 = u1;
+                u1 = swap;
+                swap = v0;
+                v0 = v1;
+                v1 = swap;
+            }
+            int first = Math.max(0, (int) Math.ceil(v0 - 0.5) - 1);
+            int last = Math.min(layers.sizeY - 1, (int) Math.ceil(v1 - 0.5));
+            for (int row = first; row <= last; row++) {
+                double centre = row + 0.5;
+                if (v0 > centre || v1 <= centre) {
+                    continue;
+                }
+                double crossing = u0 + (centre - v0) / (v1 - v0) * (u1 - u0);
+                if (crossingCount == crossings.length) {
+                    crossings = Arrays.copyOf(crossings, Math.max(MIN_CAPACITY, 2 * crossingCount));
+                }
+                crossings[crossingCount++] = encode(row, (float) crossing, entering);
+            }
+        }
+
+        /**
+         * Packs a crossing into a long that sorts by row, then by position along the row.  The
+         * direction takes the lowest bit of the position, a shift far below a voxel.
+         */
+        private static long encode(int row, float position, boolean entering) {
+            int bits = Float.floatToIntBits(position);
+            int sortable = bits ^ ((bits >> 31) & 0x7fffffff);
+            sortable = entering ? sortable | 1 : sortable & ~1;
+            return ((long) row << 32) | ((sortable ^ 0x80000000) & 0xffffffffL);
+        }
+
+        private static float decodePosition(long crossing) {
+            int sortable = (int) crossing ^ 0x80000000;
+            return Float.intBitsToFloat(sortable ^ ((sortable >> 31) & 0x7fffffff));
+        }
+
+        /**
+         * Walks the sorted crossings of the layer, filling the voxels whose centres lie where
+         * the winding number is not zero.
+         */
+        private void scan(int layer) {
+            runCount = 0;
+            int rowBase = layer * layers.sizeY;
+            int i = 0;
+            while (i < crossingCount) {
+                int row = (int) (crossings[i] >>> 32);
+                int rowRuns = runCount;
+                int winding = 0;
+                double start = 0;
+                for (; i < crossingCount && (int) (crossings[i] >>> 32) == row; i++) {
+                    int previous = winding;
+                    winding += 0 != (crossings[i] & 1) ? 1 : -1;
+                    if (0 == previous) {
+                        start = decodePosition(crossings[i]);
+                    } else if (0 == winding) {
+                        addRun(rowRuns, start, decodePosition(crossings[i]));
+                    }
+                }
+                layers.rowStart[rowBase + row + 1] = (runCount - rowRuns) / 2;
+            }
+            layers.layerRuns[layer] = Arrays.copyOf(runs, runCount);
+        }
+
+        private void addRun(int rowRuns, double start, double end) {
+            int first = Math.max(0, (int) Math.ceil(start - 0.5));
+            int last = Math.min(layers.sizeX, (int) Math.ceil(end - 0.5));
+            if (first >= last) {
+                return;
+            }
+            if (runCount > rowRuns && runs[runCount - 1] >= first) {
+                runs[runCount - 1] = Math.max(runs[runCount - 1], last);
+                return;
+            }
+            if (runCount + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, Math.max(MIN_CAPACITY, 2 * runs.length));
+            }
+            runs[runCount++] = first;
+            runs[runCount++] = last;
+        }
+    }
+}
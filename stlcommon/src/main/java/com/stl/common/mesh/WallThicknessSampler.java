@@ -0,0 +1,122 @@
+package com.stl.common.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates the minimum wall thickness of a closed mesh by casting a ray inwards from the
+ * centroid of each facet, against the facet's outward normal, and measuring how far it
+ * travels through the solid before leaving it, see {@link TriangleBvh}.  The thinnest
+ * distance found is the estimate.<p/>
+ *
+ * Samples are split across the fork-join pool and stop once the time budget is spent, so
+ * huge meshes get an estimate from fewer samples rather than holding up the quote.  Facets
+ * are visited in a strided order, so whichever samples are taken in time are spread over
+ * the whole surface rather than bunched in the part of the file read first.
+ */
+public class WallThicknessSampler {
+    //Samples each leaf task takes between checks of the clock
+    private static final int CLOCK_INTERVAL = 256;
+    //Samples taken sequentially by each leaf task
+    private static final int LEAF_SAMPLES = 16 * 1024;
+    //Rays start this fraction of the mesh's extent away from their facet, past rounding error
+    private static final double RELATIVE_OFFSET = 1e-7;
+    private static final long[] STRIDES = { 1000003L, 999983L, 7919L, 1L };
+
+    /**
+     * Returns the estimated minimum wall thickness, or NaN if no ray left the solid, for
+     * example because the mesh is open or inside-out.
+     *
+     * @param pool The pool samples are taken on, or null to take them on the calling thread
+     * @param budgetMillis How long sampling may take, once the hierarchy is built
+     */
+    public static double sample(IndexedMesh mesh, ForkJoinPool pool, long budgetMillis) {
+        int count = mesh.getTriangleCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        TriangleBvh bvh = new TriangleBvh(mesh, pool);
+        long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        SampleTask task = new SampleTask(mesh, bvh, getStride(count), getOffset(mesh), deadline, 0, count);
+        double thinnest = null == pool || count <= LEAF_SAMPLES ? task.compute() : pool.invoke(task);
+        return Double.isInfinite(thinnest) ? Double.NaN : thinnest;
+    }
+
+    private static long getStride(int count) {
+        for (long stride : STRIDES) {
+            if (count % stride != 0) {
+                return stride % count;
+            }
+        }
+        return 1;
+    }
+
+    private static double getOffset(IndexedMesh mesh) {
+        double extent = 0;
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            extent = Math.max(extent, Math.max(Math.abs(mesh.getX(v)), Math.max(Math.abs(mesh.getY(v)), Math.abs(mesh.getZ(v)))));
+        }
+        return Math.max(extent * RELATIVE_OFFSET, Double.MIN_NORMAL);
+    }
+
+    @SuppressWarnings("serial")
+    private static class SampleTask extends RecursiveTask<Double> {
+        private final IndexedMesh mesh;
+        private final TriangleBvh bvh;
+        private final long stride;
+        private final double offset;
+        private final long deadline;
+        private final int from;
+        private final int to;
+
+        SampleTask(IndexedMesh mesh, TriangleBvh bvh, long stride, double offset, long deadline, int from, int to) {
+            this.mesh = mesh;
+            this.bvh = bvh;
+            this.stride = stride;
+            this.offset = offset;
+            this.deadline = deadline;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > LEAF_SAMPLES) {
+                int mid = (from + to) >>> 1;
+                SampleTask left = new SampleTask(mesh, bvh, stride, offset, deadline, from, mid);
+                left.fork();
+                double right = new SampleTask(mesh, bvh, stride, offset, deadline, mid, to).compute();
+                return Math.min(left.join(), right);
+            }
+            int[] stack = TriangleBvh.newStack();
+            int count = mesh.getTriangleCount();
+            double thinnest = Double.POSITIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                if ((i - from) % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                    break;
+                }
+                int t = (int) (i * stride % count);
+                thinnest = Math.min(thinnest, sample(t, stack));
+            }
+            return thinnest;
+        }
+
+        private double sample(int t, int[] stack) {
+            int a = mesh.getCorner(t, 0), b = mesh.getCorner(t, 1), c = mesh.getCorner(t, 2);
+            double ax = mesh.getX(a), ay = mesh.getY(a), az = mesh.getZ(a);
+            double bx = mesh.getX(b), by = mesh.getY(b), bz = mesh.getZ(b);
+            double cx = mesh.getX(c), cy = mesh.getY(c), cz = mesh.getZ(c);
+            double ux = bx - ax, uy = by - ay, uz = bz - az;
+            double vx = cx - ax, vy = cy - ay, vz = cz - az;
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            //inwards, against the outward normal given by the winding
+            double dx = -nx / length, dy = -ny / length, dz = -nz / length;
+            return bvh.castToExit((ax + bx + cx) / 3, (ay + by + cy) / 3, (az + bz + cz) / 3, 
+                    dx, dy, dz, offset, t, stack);
+        }
+    }
+}
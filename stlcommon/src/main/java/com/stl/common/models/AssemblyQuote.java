@@ -0,0 +1,87 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The quote for an assembly uploaded as an archive.  The assembly's name is the name of the
+ * uploaded archive.  Parts holds a quote for each mesh found in the archive, in archive order,
+ * and total combines them.  Entries that looked like meshes but could not be read, or are not
+ * valid closed meshes, are listed by name in unreadableParts and are not included in the total.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AssemblyQuote extends ApiModel implements Serializable, IApiModel<AssemblyQuote> {
+    private List<ModelQuote> parts;
+    private ModelQuote total;
+    private List<String> unreadableParts;
+
+    public AssemblyQuote() {
+        super();
+    }
+
+    public AssemblyQuote(AssemblyQuote clone) {
+        super(clone);
+        this.parts = clone.parts;
+        this.total = clone.total;
+        this.unreadableParts = clone.unreadableParts;
+    }
+
+    @Override
+    public void mergePropertiesIfNull(AssemblyQuote mergeFrom) {
+        super.mergePropertiesIfNull(mergeFrom);
+        if (mergeFrom == null) { return; }
+        if (null == this.parts) {
+            this.parts = mergeFrom.parts;
+        }
+        if (null == this.total) {
+            this.total = mergeFrom.total;
+        }
+        if (null == this.unreadableParts) {
+            this.unreadableParts = mergeFrom.unreadableParts;
+        }
+    }
+
+    public List<ModelQuote> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<ModelQuote> parts) {
+        this.parts = parts;
+    }
+
+    public ModelQuote getTotal() {
+        return total;
+    }
+
+    public void setTotal(ModelQuote total) {
+        this.total = total;
+    }
+
+    public List<String> getUnreadableParts() {
+        return unreadableParts;
+    }
+
+    public void setUnreadableParts(List<String> unreadableParts) {
+        this.unreadableParts = unreadableParts;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!super.equals(obj)) {
+            return false;
+        }
+        final AssemblyQuote other = (AssemblyQuote) obj;
+        return Objects.equals(this.parts, other.parts)
+                && Objects.equals(this.total, other.total)
+                && Objects.equals(this.unreadableParts, other.unreadableParts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Objects.hash(parts, total, unreadableParts);
+    }
+}
@@ -0,0 +1,58 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The axis aligned box enclosing a mesh, given by its minimum and maximum corners.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BoundingBox implements Serializable {
+    private Point3d min;
+    private Point3d max;
+
+    public BoundingBox() {
+
+    }
+
+    public BoundingBox(Point3d min, Point3d max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    public Point3d getMin() {
+        return min;
+    }
+
+    public void setMin(Point3d min) {
+        this.min = min;
+    }
+
+    public Point3d getMax() {
+        return max;
+    }
+
+    public void setMax(Point3d max) {
+        this.max = max;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final BoundingBox other = (BoundingBox) obj;
+        return Objects.equals(this.min, other.min) && Objects.equals(this.max, other.max);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(min, max);
+    }
+}
@@ -0,0 +1,56 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One build job of a nested order: the parts placed on the plate, and the share of the
+ * plate's area their bounding boxes cover.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BuildPlate implements Serializable {
+    private List<PartPlacement> placements;
+    private Double utilization;
+
+    public BuildPlate() {
+
+    }
+
+    public List<PartPlacement> getPlacements() {
+        return placements;
+    }
+
+    public void setPlacements(List<PartPlacement> placements) {
+        this.placements = placements;
+    }
+
+    public Double getUtilization() {
+        return utilization;
+    }
+
+    public void setUtilization(Double utilization) {
+        this.utilization = utilization;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final BuildPlate other = (BuildPlate) obj;
+        return Objects.equals(this.placements, other.placements)
+                && Objects.equals(this.utilization, other.utilization);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(placements, utilization);
+    }
+}
@@ -1,12 +1,50 @@
 package com.stl.common.models;
 
+import java.io.Serializable;
 import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+/**
+ * The quote for a single mesh.  The name identifies the part when the quote is one of
+ * several, for example the entry name of a part uploaded in an archive.  Metrics that the
+ * configured mesh engine does not compute are left null.<p/>
+ *
+ * Besides the volume, the quote carries the surface area, used to cost finishing, the
+ * bounding box, used to pack the build plate, the triangle count and the centroid of the
+ * enclosed volume.<p/>
+ *
+ * For printability it carries the overhang area needing support when built along +Z, and
+ * the estimated minimum wall thickness.  To estimate machine time it carries the number of
+ * layers the part is built in and the length scanned to build them.<p/>
+ *
+ * For packing it carries the volume of the convex hull and the oriented bounding box of
+ * least volume, which packs tighter than the axis aligned one once the part is turned to
+ * fit it, and the orientation found best to print the part in.<p/>
+ *
+ * Quotes requested for an alloy also carry the mass of one part in grams, and the machine
+ * hours to build and the price of the quantity ordered.  Quotes of repaired meshes are
+ * computed on the repaired mesh and report what the repair changed.
+ */
+@SuppressWarnings("serial")
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class ModelQuote implements IApiModel<ModelQuote> {
+public class ModelQuote extends ApiModel implements Serializable, IApiModel<ModelQuote> {
     protected Double volume;
+    protected Double surfaceArea;
+    protected BoundingBox boundingBox;
+    protected Long triangleCount;
+    protected Point3d centroid;
+    protected Double overhangArea;
+    protected Double minWallThickness;
+    protected Integer layerCount;
+    protected Double scanLength;
+    protected Double hullVolume;
+    protected OrientedBoundingBox orientedBoundingBox;
+    protected PrintOrientation orientation;
+    protected Double mass;
+    protected Double machineHours;
+    protected Double price;
+    protected RepairReport repair;
     
     public ModelQuote() {
         
@@ -18,12 +56,58 @@ public class ModelQuote implements IApiModel<ModelQuote> {
     
     @Override
     public void mergePropertiesIfNull(ModelQuote mergeFrom) {
+        super.mergePropertiesIfNull(mergeFrom);
         if(null == mergeFrom) {
             return;
         }
         if(null == this.volume) {
             this.volume = mergeFrom.volume;
         }
+        if(null == this.surfaceArea) {
+            this.surfaceArea = mergeFrom.surfaceArea;
+        }
+        if(null == this.boundingBox) {
+            this.boundingBox = mergeFrom.boundingBox;
+        }
+        if(null == this.triangleCount) {
+            this.triangleCount = mergeFrom.triangleCount;
+        }
+        if(null == this.centroid) {
+            this.centroid = mergeFrom.centroid;
+        }
+        if(null == this.overhangArea) {
+            this.overhangArea = mergeFrom.overhangArea;
+        }
+        if(null == this.minWallThickness) {
+            this.minWallThickness = mergeFrom.minWallThickness;
+        }
+        if(null == this.layerCount) {
+            this.layerCount = mergeFrom.layerCount;
+        }
+        if(null == this.scanLength) {
+            this.scanLength = mergeFrom.scanLength;
+        }
+        if(null == this.hullVolume) {
+            this.hullVolume = mergeFrom.hullVolume;
+        }
+        if(null == this.orientedBoundingBox) {
+            this.orientedBoundingBox = mergeFrom.orientedBoundingBox;
+        }
+        if(null == this.orientation) {
+            this.orientation = mergeFrom.orientation;
+        }
+        if(null == this.mass) {
+            this.mass = mergeFrom.mass;
+        }
+        if(null == this.machineHours) {
+            this.machineHours = mergeFrom.machineHours;
+        }
+        if(null == this.price) {
+            this.price = mergeFrom.price;
+        }
+        if(null == this.repair) {
+            this.repair = mergeFrom.repair;
+        }
     }
 
     public Double getVolume() {
@@ -34,17 +118,153 @@ public class ModelQuote implements IApiModel<ModelQuote> {
         this.volume = volume;
     }
 
+    public Double getSurfaceArea() {
+        return surfaceArea;
+    }
+
+    public void setSurfaceArea(Double surfaceArea) {
+        this.surfaceArea = surfaceArea;
+    }
+
+    public BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    public void setBoundingBox(BoundingBox boundingBox) {
+        this.boundingBox = boundingBox;
+    }
+
+    public Long getTriangleCount() {
+        return triangleCount;
+    }
+
+    public void setTriangleCount(Long triangleCount) {
+        this.triangleCount = triangleCount;
+    }
+
+    public Point3d getCentroid() {
+        return centroid;
+    }
+
+    public void setCentroid(Point3d centroid) {
+        this.centroid = centroid;
+    }
+
+    public Double getOverhangArea() {
+        return overhangArea;
+    }
+
+    public void setOverhangArea(Double overhangArea) {
+        this.overhangArea = overhangArea;
+    }
+
+    public Double getMinWallThickness() {
+        return minWallThickness;
+    }
+
+    public void setMinWallThickness(Double minWallThickness) {
+        this.minWallThickness = minWallThickness;
+    }
+
+    public Integer getLayerCount() {
+        return layerCount;
+    }
+
+    public void setLayerCount(Integer layerCount) {
+        this.layerCount = layerCount;
+    }
+
+    public Double getScanLength() {
+        return scanLength;
+    }
+
+    public void setScanLength(Double scanLength) {
+        this.scanLength = scanLength;
+    }
+
+    public Double getHullVolume() {
+        return hullVolume;
+    }
+
+    public void setHullVolume(Double hullVolume) {
+        this.hullVolume = hullVolume;
+    }
+
+    public OrientedBoundingBox getOrientedBoundingBox() {
+        return orientedBoundingBox;
+    }
+
+    public void setOrientedBoundingBox(OrientedBoundingBox orientedBoundingBox) {
+        this.orientedBoundingBox = orientedBoundingBox;
+    }
+
+    public PrintOrientation getOrientation() {
+        return orientation;
+    }
+
+    public void setOrientation(PrintOrientation orientation) {
+        this.orientation = orientation;
+    }
+
+    public Double getMass() {
+        return mass;
+    }
+
+    public void setMass(Double mass) {
+        this.mass = mass;
+    }
+
+    public Double getMachineHours() {
+        return machineHours;
+    }
+
+    public void setMachineHours(Double machineHours) {
+        this.machineHours = machineHours;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public RepairReport getRepair() {
+        return repair;
+    }
+
+    public void setRepair(RepairReport repair) {
+        this.repair = repair;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if(! super.equals(obj)) {
             return false;
         }
         final ModelQuote other = (ModelQuote) obj;
-        return Objects.equals(this.volume, other.volume);
+        return Objects.equals(this.volume, other.volume)
+                && Objects.equals(this.surfaceArea, other.surfaceArea)
+                && Objects.equals(this.boundingBox, other.boundingBox)
+                && Objects.equals(this.triangleCount, other.triangleCount)
+                && Objects.equals(this.centroid, other.centroid)
+                && Objects.equals(this.overhangArea, other.overhangArea)
+                && Objects.equals(this.minWallThickness, other.minWallThickness)
+                && Objects.equals(this.layerCount, other.layerCount)
+                && Objects.equals(this.scanLength, other.scanLength)
+                && Objects.equals(this.hullVolume, other.hullVolume)
+                && Objects.equals(this.orientedBoundingBox, other.orientedBoundingBox)
+                && Objects.equals(this.orientation, other.orientation)
+                && Objects.equals(this.mass, other.mass)
+                && Objects.equals(this.machineHours, other.machineHours)
+                && Objects.equals(this.price, other.price)
+                && Objects.equals(this.repair, other.repair);
     }
     
     @Override
     public int hashCode() {
-        return 31 * super.hashCode() + Objects.hash(volume);
+        return 31 * super.hashCode() + Objects.hash(volume, surfaceArea, boundingBox, triangleCount, centroid, overhangArea, minWallThickness,
+                layerCount, scanLength, hullVolume, orientedBoundingBox, orientation, mass, machineHours, price, repair);
     }
 }
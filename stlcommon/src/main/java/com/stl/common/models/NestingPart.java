@@ -0,0 +1,65 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A part to nest on build plates, given by the bounding box from its quote and the number
+ * of copies ordered.  The name identifies the part in the placements.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NestingPart implements Serializable {
+    private String name;
+    private Integer quantity;
+    private BoundingBox boundingBox;
+
+    public NestingPart() {
+
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    public void setBoundingBox(BoundingBox boundingBox) {
+        this.boundingBox = boundingBox;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final NestingPart other = (NestingPart) obj;
+        return Objects.equals(this.name, other.name)
+                && Objects.equals(this.quantity, other.quantity)
+                && Objects.equals(this.boundingBox, other.boundingBox);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, quantity, boundingBox);
+    }
+}
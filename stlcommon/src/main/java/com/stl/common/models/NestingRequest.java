@@ -0,0 +1,86 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The parts of an order to nest on build plates.  The plate size and the spacing kept
+ * between parts are optional and default to those of the configured machine.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NestingRequest implements Serializable {
+    private List<NestingPart> parts;
+    private Double plateWidth;
+    private Double plateDepth;
+    private Double plateHeight;
+    private Double spacing;
+
+    public NestingRequest() {
+
+    }
+
+    public List<NestingPart> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<NestingPart> parts) {
+        this.parts = parts;
+    }
+
+    public Double getPlateWidth() {
+        return plateWidth;
+    }
+
+    public void setPlateWidth(Double plateWidth) {
+        this.plateWidth = plateWidth;
+    }
+
+    public Double getPlateDepth() {
+        return plateDepth;
+    }
+
+    public void setPlateDepth(Double plateDepth) {
+        this.plateDepth = plateDepth;
+    }
+
+    public Double getPlateHeight() {
+        return plateHeight;
+    }
+
+    public void setPlateHeight(Double plateHeight) {
+        this.plateHeight = plateHeight;
+    }
+
+    public Double getSpacing() {
+        return spacing;
+    }
+
+    public void setSpacing(Double spacing) {
+        this.spacing = spacing;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final NestingRequest other = (NestingRequest) obj;
+        return Objects.equals(this.parts, other.parts)
+                && Objects.equals(this.plateWidth, other.plateWidth)
+                && Objects.equals(this.plateDepth, other.plateDepth)
+                && Objects.equals(this.plateHeight, other.plateHeight)
+                && Objects.equals(this.spacing, other.spacing);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parts, plateWidth, plateDepth, plateHeight, spacing);
+    }
+}
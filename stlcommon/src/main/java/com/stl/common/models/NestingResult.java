@@ -0,0 +1,88 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * How the parts of an order are spread over build plates, one plate per build job.  The
+ * utilization is the share of the plates' area covered by part bounding boxes.  Parts too
+ * large for a plate are listed by name in unplacedParts, and candidates counts the part
+ * orderings tried in the search.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NestingResult implements Serializable {
+    private List<BuildPlate> plates;
+    private Integer plateCount;
+    private Double utilization;
+    private List<String> unplacedParts;
+    private Long candidates;
+
+    public NestingResult() {
+
+    }
+
+    public List<BuildPlate> getPlates() {
+        return plates;
+    }
+
+    public void setPlates(List<BuildPlate> plates) {
+        this.plates = plates;
+    }
+
+    public Integer getPlateCount() {
+        return plateCount;
+    }
+
+    public void setPlateCount(Integer plateCount) {
+        this.plateCount = plateCount;
+    }
+
+    public Double getUtilization() {
+        return utilization;
+    }
+
+    public void setUtilization(Double utilization) {
+        this.utilization = utilization;
+    }
+
+    public List<String> getUnplacedParts() {
+        return unplacedParts;
+    }
+
+    public void setUnplacedParts(List<String> unplacedParts) {
+        this.unplacedParts = unplacedParts;
+    }
+
+    public Long getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(Long candidates) {
+        this.candidates = candidates;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final NestingResult other = (NestingResult) obj;
+        return Objects.equals(this.plates, other.plates)
+                && Objects.equals(this.plateCount, other.plateCount)
+                && Objects.equals(this.utilization, other.utilization)
+                && Objects.equals(this.unplacedParts, other.unplacedParts)
+                && Objects.equals(this.candidates, other.candidates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(plates, plateCount, utilization, unplacedParts, candidates);
+    }
+}
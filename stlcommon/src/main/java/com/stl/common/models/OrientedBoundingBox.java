@@ -0,0 +1,74 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The box of least volume enclosing a mesh in any orientation, given by its centre, the
+ * unit vectors along its three edges, longest first, and the edge lengths along them.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrientedBoundingBox implements Serializable {
+    private Point3d center;
+    private List<Point3d> axes;
+    private List<Double> extents;
+    private Double volume;
+
+    public OrientedBoundingBox() {
+
+    }
+
+    public Point3d getCenter() {
+        return center;
+    }
+
+    public void setCenter(Point3d center) {
+        this.center = center;
+    }
+
+    public List<Point3d> getAxes() {
+        return axes;
+    }
+
+    public void setAxes(List<Point3d> axes) {
+        this.axes = axes;
+    }
+
+    public List<Double> getExtents() {
+        return extents;
+    }
+
+    public void setExtents(List<Double> extents) {
+        this.extents = extents;
+    }
+
+    public Double getVolume() {
+        return volume;
+    }
+
+    public void setVolume(Double volume) {
+        this.volume = volume;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final OrientedBoundingBox other = (OrientedBoundingBox) obj;
+        return Objects.equals(this.center, other.center) && Objects.equals(this.axes, other.axes)
+                && Objects.equals(this.extents, other.extents) && Objects.equals(this.volume, other.volume);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(center, axes, extents, volume);
+    }
+}
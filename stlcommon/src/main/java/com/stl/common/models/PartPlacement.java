@@ -0,0 +1,86 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Where one copy of a part is placed on a build plate: the low corner of its bounding box
+ * on the plate, and whether it is turned a quarter turn about Z, swapping its width and
+ * depth.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PartPlacement implements Serializable {
+    private String name;
+    private Integer copy;
+    private Double x;
+    private Double y;
+    private Boolean rotated;
+
+    public PartPlacement() {
+
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getCopy() {
+        return copy;
+    }
+
+    public void setCopy(Integer copy) {
+        this.copy = copy;
+    }
+
+    public Double getX() {
+        return x;
+    }
+
+    public void setX(Double x) {
+        this.x = x;
+    }
+
+    public Double getY() {
+        return y;
+    }
+
+    public void setY(Double y) {
+        this.y = y;
+    }
+
+    public Boolean getRotated() {
+        return rotated;
+    }
+
+    public void setRotated(Boolean rotated) {
+        this.rotated = rotated;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final PartPlacement other = (PartPlacement) obj;
+        return Objects.equals(this.name, other.name)
+                && Objects.equals(this.copy, other.copy)
+                && Objects.equals(this.x, other.x)
+                && Objects.equals(this.y, other.y)
+                && Objects.equals(this.rotated, other.rotated);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, copy, x, y, rotated);
+    }
+}
@@ -0,0 +1,97 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The orientation found best to print a part in.  The direction is the unit vector, in the
+ * coordinates of the upload, that should face up; turning the part by the rotation angle in
+ * degrees about the rotation axis brings it there.  The overhang area, the footprint on the
+ * build plate and the build height are those of the part in that orientation.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PrintOrientation implements Serializable {
+    private Point3d direction;
+    private Point3d rotationAxis;
+    private Double rotationAngle;
+    private Double overhangArea;
+    private Double footprintArea;
+    private Double height;
+
+    public PrintOrientation() {
+
+    }
+
+    public Point3d getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Point3d direction) {
+        this.direction = direction;
+    }
+
+    public Point3d getRotationAxis() {
+        return rotationAxis;
+    }
+
+    public void setRotationAxis(Point3d rotationAxis) {
+        this.rotationAxis = rotationAxis;
+    }
+
+    public Double getRotationAngle() {
+        return rotationAngle;
+    }
+
+    public void setRotationAngle(Double rotationAngle) {
+        this.rotationAngle = rotationAngle;
+    }
+
+    public Double getOverhangArea() {
+        return overhangArea;
+    }
+
+    public void setOverhangArea(Double overhangArea) {
+        this.overhangArea = overhangArea;
+    }
+
+    public Double getFootprintArea() {
+        return footprintArea;
+    }
+
+    public void setFootprintArea(Double footprintArea) {
+        this.footprintArea = footprintArea;
+    }
+
+    public Double getHeight() {
+        return height;
+    }
+
+    public void setHeight(Double height) {
+        this.height = height;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final PrintOrientation other = (PrintOrientation) obj;
+        return Objects.equals(this.direction, other.direction)
+                && Objects.equals(this.rotationAxis, other.rotationAxis)
+                && Objects.equals(this.rotationAngle, other.rotationAngle)
+                && Objects.equals(this.overhangArea, other.overhangArea)
+                && Objects.equals(this.footprintArea, other.footprintArea)
+                && Objects.equals(this.height, other.height);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(direction, rotationAxis, rotationAngle, overhangArea, footprintArea, height);
+    }
+}
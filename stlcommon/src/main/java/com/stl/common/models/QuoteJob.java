@@ -0,0 +1,99 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A quote computed in the background for a large upload.  The job's name is the name of 
+ * the uploaded file.  Progress is the percentage of the mesh analyzed so far, and the quote
+ * is set once the job completes; a failed job carries an error message instead.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QuoteJob extends ApiModel implements Serializable, IApiModel<QuoteJob> {
+    private QuoteJobStatus status;
+    private Double progress;
+    private ModelQuote quote;
+    private String error;
+
+    public QuoteJob() {
+        super();
+    }
+
+    public QuoteJob(QuoteJob clone) {
+        super(clone);
+        this.status = clone.status;
+        this.progress = clone.progress;
+        this.quote = clone.quote;
+        this.error = clone.error;
+    }
+
+    @Override
+    public void mergePropertiesIfNull(QuoteJob mergeFrom) {
+        super.mergePropertiesIfNull(mergeFrom);
+        if (mergeFrom == null) { return; }
+        if (null == this.status) {
+            this.status = mergeFrom.status;
+        }
+        if (null == this.progress) {
+            this.progress = mergeFrom.progress;
+        }
+        if (null == this.quote) {
+            this.quote = mergeFrom.quote;
+        }
+        if (null == this.error) {
+            this.error = mergeFrom.error;
+        }
+    }
+
+    public QuoteJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(QuoteJobStatus status) {
+        this.status = status;
+    }
+
+    public Double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Double progress) {
+        this.progress = progress;
+    }
+
+    public ModelQuote getQuote() {
+        return quote;
+    }
+
+    public void setQuote(ModelQuote quote) {
+        this.quote = quote;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!super.equals(obj)) {
+            return false;
+        }
+        final QuoteJob other = (QuoteJob) obj;
+        return Objects.equals(this.status, other.status)
+                && Objects.equals(this.progress, other.progress)
+                && Objects.equals(this.quote, other.quote)
+                && Objects.equals(this.error, other.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Objects.hash(status, progress, quote, error);
+    }
+}
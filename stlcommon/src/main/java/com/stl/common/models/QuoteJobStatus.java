@@ -0,0 +1,16 @@
+package com.stl.common.models;
+
+/**
+ * The lifecycle of an asynchronous quote job.
+ */
+public enum QuoteJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
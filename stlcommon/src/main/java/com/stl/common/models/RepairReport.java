@@ -0,0 +1,96 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * What was changed when a mesh was repaired before quoting, and the ID under which the
+ * repaired mesh can be downloaded as binary STL.  Holes are counted as closed loops of
+ * open edges; those left unfilled were too large or touch other defects.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RepairReport implements Serializable {
+    private String id;
+    private Integer degenerateFacetsRemoved;
+    private Integer facetsFlipped;
+    private Integer holesFilled;
+    private Integer holesUnfilled;
+    private Integer facetsAdded;
+
+    public RepairReport() {
+
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Integer getDegenerateFacetsRemoved() {
+        return degenerateFacetsRemoved;
+    }
+
+    public void setDegenerateFacetsRemoved(Integer degenerateFacetsRemoved) {
+        this.degenerateFacetsRemoved = degenerateFacetsRemoved;
+    }
+
+    public Integer getFacetsFlipped() {
+        return facetsFlipped;
+    }
+
+    public void setFacetsFlipped(Integer facetsFlipped) {
+        this.facetsFlipped = facetsFlipped;
+    }
+
+    public Integer getHolesFilled() {
+        return holesFilled;
+    }
+
+    public void setHolesFilled(Integer holesFilled) {
+        this.holesFilled = holesFilled;
+    }
+
+    public Integer getHolesUnfilled() {
+        return holesUnfilled;
+    }
+
+    public void setHolesUnfilled(Integer holesUnfilled) {
+        this.holesUnfilled = holesUnfilled;
+    }
+
+    public Integer getFacetsAdded() {
+        return facetsAdded;
+    }
+
+    public void setFacetsAdded(Integer facetsAdded) {
+        this.facetsAdded = facetsAdded;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final RepairReport other = (RepairReport) obj;
+        return Objects.equals(this.id, other.id)
+                && Objects.equals(this.degenerateFacetsRemoved, other.degenerateFacetsRemoved)
+                && Objects.equals(this.facetsFlipped, other.facetsFlipped)
+                && Objects.equals(this.holesFilled, other.holesFilled)
+                && Objects.equals(this.holesUnfilled, other.holesUnfilled)
+                && Objects.equals(this.facetsAdded, other.facetsAdded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, degenerateFacetsRemoved, facetsFlipped, holesFilled, holesUnfilled, facetsAdded);
+    }
+}
@@ -0,0 +1,152 @@
+package com.stl.common.models;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A mesh rasterized into cubic voxels, for checking its volume and for nesting parts on
+ * the build plate.  The voxel volume counts the voxels whose centres are inside the mesh,
+ * and stays meaningful for meshes with small holes, where the mesh volume does not.<p/>
+ *
+ * The footprint is the grid projected onto the build plate: one entry per row of voxels
+ * along Y, from the origin, each holding the [start, end) X indices of its occupied spans
+ * as a flat list of pairs.
+ */
+@SuppressWarnings("serial")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VoxelModel implements Serializable {
+    private Integer resolution;
+    private Double voxelSize;
+    private Integer sizeX;
+    private Integer sizeY;
+    private Integer sizeZ;
+    private Point3d origin;
+    private Long voxelCount;
+    private Double voxelVolume;
+    private Double meshVolume;
+    private Double footprintArea;
+    private int[][] footprint;
+
+    public VoxelModel() {
+
+    }
+
+    public Integer getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(Integer resolution) {
+        this.resolution = resolution;
+    }
+
+    public Double getVoxelSize() {
+        return voxelSize;
+    }
+
+    public void setVoxelSize(Double voxelSize) {
+        this.voxelSize = voxelSize;
+    }
+
+    public Integer getSizeX() {
+        return sizeX;
+    }
+
+    public void setSizeX(Integer sizeX) {
+        this.sizeX = sizeX;
+    }
+
+    public Integer getSizeY() {
+        return sizeY;
+    }
+
+    public void setSizeY(Integer sizeY) {
+        this.sizeY = sizeY;
+    }
+
+    public Integer getSizeZ() {
+        return sizeZ;
+    }
+
+    public void setSizeZ(Integer sizeZ) {
+        this.sizeZ = sizeZ;
+    }
+
+    public Point3d getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(Point3d origin) {
+        this.origin = origin;
+    }
+
+    public Long getVoxelCount() {
+        return voxelCount;
+    }
+
+    public void setVoxelCount(Long voxelCount) {
+        this.voxelCount = voxelCount;
+    }
+
+    public Double getVoxelVolume() {
+        return voxelVolume;
+    }
+
+    public void setVoxelVolume(Double voxelVolume) {
+        this.voxelVolume = voxelVolume;
+    }
+
+    public Double getMeshVolume() {
+        return meshVolume;
+    }
+
+    public void setMeshVolume(Double meshVolume) {
+        this.meshVolume = meshVolume;
+    }
+
+    public Double getFootprintArea() {
+        return footprintArea;
+    }
+
+    public void setFootprintArea(Double footprintArea) {
+        this.footprintArea = footprintArea;
+    }
+
+    public int[][] getFootprint() {
+        return footprint;
+    }
+
+    public void setFootprint(int[][] footprint) {
+        this.footprint = footprint;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final VoxelModel other = (VoxelModel) obj;
+        return Objects.equals(this.resolution, other.resolution)
+                && Objects.equals(this.voxelSize, other.voxelSize)
+                && Objects.equals(this.sizeX, other.sizeX)
+                && Objects.equals(this.sizeY, other.sizeY)
+                && Objects.equals(this.sizeZ, other.sizeZ)
+                && Objects.equals(this.origin, other.origin)
+                && Objects.equals(this.voxelCount, other.voxelCount)
+                && Objects.equals(this.voxelVolume, other.voxelVolume)
+                && Objects.equals(this.meshVolume, other.meshVolume)
+                && Objects.equals(this.footprintArea, other.footprintArea)
+                && Arrays.deepEquals(this.footprint, other.footprint);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(resolution, voxelSize, sizeX, sizeY, sizeZ, origin, voxelCount, 
+                voxelVolume, meshVolume, footprintArea, Arrays.deepHashCode(footprint));
+    }
+}
@@ -0,0 +1,53 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class ConvexHullTest {
+
+    public void testRotatedBox() throws IOException {
+        try (TriangleBuffer box = Meshes.box(0, 0, 0, 10, 20, 30);
+                TriangleBuffer rotated = Meshes.rotate(box, 0.4, 1.1)) {
+            ConvexHull hull = ConvexHull.of(rotated, 1e-5, null);
+            Assert.assertEquals(hull.getVertexCount(), 8);
+            //the rotated corners are rounded to floats
+            Assert.assertEquals(hull.getVolume(), 6000.0, 1e-2);
+            Assert.assertEquals(hull.getArea(), 2200.0, 1e-2);
+            Assert.assertEquals(hull.getSlack(), 0.0);
+        }
+    }
+
+    public void testHullOfSphereEnclosesItsInterior() throws IOException {
+        try (TriangleBuffer sphere = Meshes.sphere(0, 0, 0, 10, 32, 64)) {
+            MeshAccumulator accumulator = new MeshAccumulator();
+            sphere.forEach(accumulator);
+            //a convex mesh is its own hull, and the result must not depend on the pool
+            ConvexHull hull = ConvexHull.of(sphere, 1e-5, null);
+            Assert.assertEquals(hull.getVolume(), accumulator.getVolume(), 1e-6 * accumulator.getVolume());
+            Assert.assertEquals(hull.getVertexCount(), 31 * 64 + 2);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                ConvexHull pooled = ConvexHull.of(sphere, 1e-5, pool);
+                Assert.assertEquals(pooled.getVolume(), hull.getVolume(), 1e-9 * hull.getVolume());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    public void testConcaveMeshHullFillsTheGap() throws IOException {
+        try (TriangleBuffer low = Meshes.box(0, 0, 0, 30, 10, 5); TriangleBuffer high = Meshes.box(0, 0, 5, 5, 10, 30);
+                TriangleBuffer bracket = new TriangleBuffer()) {
+            //an L bracket, whose hull is a prism over the triangle closing the bend
+            low.forEach(bracket);
+            high.forEach(bracket);
+            ConvexHull hull = ConvexHull.of(bracket, 1e-5, null);
+            double section = 30 * 5 + 5 * 25 + 25.0 * 25 / 2;
+            Assert.assertEquals(hull.getVolume(), section * 10, 1e-6);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.stl.common.mesh;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class MappedStlFileTest {
+    private File file;
+
+    @BeforeMethod
+    public void writeSphere() throws IOException {
+        file = File.createTempFile("sphere", ".stl");
+        try (TriangleBuffer sphere = Meshes.sphere(0, 0, 0, 10, 24, 48); OutputStream out = new FileOutputStream(file)) {
+            BinaryStlWriter.write(sphere, "sphere", out);
+        }
+    }
+
+    @AfterMethod
+    public void deleteSphere() {
+        file.delete();
+    }
+
+    public void testMappedFacetsMatchTheStream() throws IOException {
+        MeshAccumulator streamed = new MeshAccumulator();
+        try (InputStream in = new FileInputStream(file)) {
+            StlParser.parse(in, file.length(), streamed);
+        }
+        try (MappedStlFile mapped = MappedStlFile.open(file)) {
+            Assert.assertEquals(mapped.getFacetCount(), 24 * 48 * 2 - 2 * 48);
+            MeshAccumulator fromMap = new MeshAccumulator();
+            mapped.forEach(fromMap);
+            Assert.assertEquals(fromMap.toMetrics(), streamed.toMetrics());
+        }
+    }
+
+    public void testRangesCoverTheFile() throws IOException {
+        try (MappedStlFile mapped = MappedStlFile.open(file)) {
+            MeshAccumulator whole = new MeshAccumulator();
+            mapped.forEach(whole);
+            MeshAccumulator first = new MeshAccumulator();
+            MeshAccumulator second = new MeshAccumulator();
+            long half = mapped.getFacetCount() / 2;
+            mapped.forEach(0, half, first);
+            mapped.forEach(half, mapped.getFacetCount(), second);
+            Assert.assertEquals(first.getVolume() + second.getVolume(), whole.getVolume(), 1e-9);
+        }
+    }
+}
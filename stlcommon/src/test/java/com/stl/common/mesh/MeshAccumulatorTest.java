@@ -0,0 +1,96 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class MeshAccumulatorTest {
+
+    public void testCubeVolumeAndArea() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(5, 5, 5, 10)) {
+            MeshAccumulator accumulator = new MeshAccumulator();
+            cube.forEach(accumulator);
+            MeshMetrics metrics = accumulator.toMetrics();
+            Assert.assertEquals(metrics.getVolume(), 1000.0, 1e-9);
+            Assert.assertEquals(metrics.getSurfaceArea(), 600.0, 1e-9);
+            Assert.assertEquals(metrics.getTriangleCount(), 12);
+            Assert.assertEquals(metrics.getCentroidX(), 10.0, 1e-9);
+            Assert.assertEquals(metrics.getCentroidY(), 10.0, 1e-9);
+            Assert.assertEquals(metrics.getCentroidZ(), 10.0, 1e-9);
+            //the bottom face rests on the plate
+            Assert.assertEquals(metrics.getOverhangArea(), 0.0, 1e-9);
+        }
+    }
+
+    public void testSphereVolumeAndArea() throws IOException {
+        try (TriangleBuffer sphere = Meshes.sphere(100, -50, 20, 10, 90, 180)) {
+            MeshAccumulator accumulator = new MeshAccumulator();
+            sphere.forEach(accumulator);
+            MeshMetrics metrics = accumulator.toMetrics();
+            //the tessellation falls short of the sphere by well under half a percent
+            Assert.assertEquals(metrics.getVolume(), 4.0 / 3 * Math.PI * 1000, 0.005 * 4.0 / 3 * Math.PI * 1000);
+            Assert.assertEquals(metrics.getSurfaceArea(), 4 * Math.PI * 100, 0.005 * 4 * Math.PI * 100);
+            Assert.assertTrue(metrics.getVolume() < 4.0 / 3 * Math.PI * 1000);
+            Assert.assertEquals(metrics.getCentroidX(), 100.0, 1e-6);
+            Assert.assertEquals(metrics.getCentroidY(), -50.0, 1e-6);
+            Assert.assertEquals(metrics.getCentroidZ(), 20.0, 1e-6);
+        }
+    }
+
+    public void testInsideOutMeshHasTheSameVolume() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshAccumulator accumulator = new MeshAccumulator();
+            MeshAccumulator insideOut = new MeshAccumulator();
+            cube.forEach(accumulator);
+            cube.forEach(Meshes.flipped(insideOut));
+            Assert.assertEquals(insideOut.getSignedVolume(), -accumulator.getSignedVolume(), 1e-9);
+            Assert.assertEquals(insideOut.getVolume(), accumulator.getVolume(), 1e-9);
+            Assert.assertEquals(insideOut.getOverhangArea(), accumulator.getOverhangArea(), 1e-9);
+        }
+    }
+
+    public void testMergedRangesMatchOnePass() throws IOException {
+        try (TriangleBuffer sphere = Meshes.sphere(0, 0, 0, 10, 16, 32)) {
+            MeshAccumulator whole = new MeshAccumulator();
+            sphere.forEach(whole);
+            long half = sphere.getFacetCount() / 2;
+            MeshAccumulator low = new MeshAccumulator();
+            MeshAccumulator high = new MeshAccumulator();
+            sphere.forEach(0, half, low);
+            sphere.forEach(half, sphere.getFacetCount(), high);
+            low.merge(high);
+            Assert.assertEquals(low.getVolume(), whole.getVolume(), 1e-9);
+            Assert.assertEquals(low.getTriangleCount(), whole.getTriangleCount());
+            Assert.assertEquals(low.getOverhangArea(), whole.getOverhangArea(), 1e-9);
+        }
+    }
+
+    public void testParallelReductionIsRepeatable() throws IOException {
+        //enough facets to cross the parallel threshold
+        try (TriangleBuffer sphere = Meshes.sphere(0, 0, 0, 10, 300, 460)) {
+            Assert.assertTrue(sphere.getFacetCount() >= ParallelMeshReduction.PARALLEL_THRESHOLD);
+            MeshAccumulator sequential = new MeshAccumulator();
+            sphere.forEach(sequential);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                MeshMetrics first = ParallelMeshReduction.reduce(sphere, pool).toMetrics();
+                Assert.assertEquals(ParallelMeshReduction.reduce(sphere, pool).toMetrics(), first);
+                Assert.assertEquals(first.getTriangleCount(), sphere.getFacetCount());
+                Assert.assertEquals(first.getVolume(), sequential.getVolume(), 1e-9 * sequential.getVolume());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    public void testCompensatedSumKeepsSmallTerms() {
+        CompensatedSum sum = new CompensatedSum();
+        sum.add(1e16);
+        sum.add(1.0);
+        sum.add(-1e16);
+        Assert.assertEquals(sum.getValue(), 1.0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class MeshRepairTest {
+
+    public void testDegenerateFacetsAreRemoved() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            IndexedMeshBuilder builder = index(cube, 0, cube.getFacetCount());
+            //coincident corners, and corners along one line
+            builder.triangle(0f, 0f, 0f, 0f, 0f, 0f, 10f, 0f, 0f);
+            builder.triangle(0f, 0f, 0f, 5f, 0f, 0f, 10f, 0f, 0f);
+            MeshRepair repair = MeshRepair.repair(builder.build(), 8, null);
+            Assert.assertEquals(repair.getDegenerateFacets(), 2);
+            Assert.assertEquals(repair.getMesh().getTriangleCount(), 12);
+            Assert.assertEquals(repair.getFlippedFacets(), 0);
+            Assert.assertEquals(repair.getFilledHoles(), 0);
+            assertClosedCube(repair.getMesh());
+        }
+    }
+
+    public void testInvertedPatchIsFlipped() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            //the first face, whose two facets are the seed of the walk, faces inwards
+            IndexedMeshBuilder builder = new IndexedMeshBuilder(1e-5, cube.getFacetCount());
+            cube.forEach(0, 2, Meshes.flipped(builder));
+            cube.forEach(2, cube.getFacetCount(), builder);
+            Assert.assertFalse(MeshValidator.validate(builder.build()).isValid());
+            MeshRepair repair = MeshRepair.repair(builder.build(), 8, null);
+            Assert.assertEquals(repair.getFlippedFacets(), 2);
+            Assert.assertEquals(repair.getDegenerateFacets(), 0);
+            assertClosedCube(repair.getMesh());
+        }
+    }
+
+    public void testTriangularHoleGetsOneFacet() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshRepair repair = MeshRepair.repair(index(cube, 1, cube.getFacetCount()).build(), 8, null);
+            Assert.assertEquals(repair.getFilledHoles(), 1);
+            Assert.assertEquals(repair.getAddedFacets(), 1);
+            Assert.assertEquals(repair.getUnfilledHoles(), 0);
+            Assert.assertEquals(repair.getMesh().getVertexCount(), 8);
+            assertClosedCube(repair.getMesh());
+        }
+    }
+
+    public void testLargerHoleGetsAFan() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            //without its first face the cube has a square hole
+            IndexedMesh open = index(cube, 2, cube.getFacetCount()).build();
+            MeshRepair repair = MeshRepair.repair(open, 8, null);
+            Assert.assertEquals(repair.getFilledHoles(), 1);
+            Assert.assertEquals(repair.getAddedFacets(), 4);
+            Assert.assertEquals(repair.getUnfilledHoles(), 0);
+            IndexedMesh mesh = repair.getMesh();
+            Assert.assertEquals(mesh.getVertexCount(), 9);
+            Assert.assertEquals(mesh.getX(8), 5f);
+            Assert.assertEquals(mesh.getY(8), 5f);
+            Assert.assertEquals(mesh.getZ(8), 0f);
+            assertClosedCube(mesh);
+            //the source mesh is left as it was
+            Assert.assertEquals(open.getTriangleCount(), 10);
+            Assert.assertEquals(open.getVertexCount(), 8);
+        }
+    }
+
+    public void testHoleOverTheLimitIsLeftOpen() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshRepair repair = MeshRepair.repair(index(cube, 2, cube.getFacetCount()).build(), 3, null);
+            Assert.assertEquals(repair.getFilledHoles(), 0);
+            Assert.assertEquals(repair.getUnfilledHoles(), 1);
+            Assert.assertEquals(repair.getAddedFacets(), 0);
+            Assert.assertEquals(MeshValidator.validate(repair.getMesh()).getOpenEdges(), 4);
+        }
+    }
+
+    public void testTouchingHolesAreLeftOpen() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            //the first facets of the bottom and front faces only share the origin
+            IndexedMeshBuilder builder = new IndexedMeshBuilder(1e-5, cube.getFacetCount());
+            cube.forEach(1, 4, builder);
+            cube.forEach(5, cube.getFacetCount(), builder);
+            MeshRepair repair = MeshRepair.repair(builder.build(), 8, null);
+            Assert.assertEquals(repair.getFilledHoles(), 0);
+            Assert.assertTrue(repair.getUnfilledHoles() >= 2, String.valueOf(repair.getUnfilledHoles()));
+            Assert.assertEquals(repair.getAddedFacets(), 0);
+            Assert.assertEquals(MeshValidator.validate(repair.getMesh()).getOpenEdges(), 6);
+        }
+    }
+
+    private static IndexedMeshBuilder index(TriangleSource source, long from, long to) {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder(1e-5, to - from);
+        source.forEach(from, to, builder);
+        return builder;
+    }
+
+    private static void assertClosedCube(IndexedMesh mesh) {
+        MeshValidity validity = MeshValidator.validate(mesh);
+        Assert.assertTrue(validity.isValid(), validity.toString());
+        MeshAccumulator accumulator = new MeshAccumulator();
+        mesh.forEach(accumulator);
+        Assert.assertEquals(accumulator.getSignedVolume(), 1000.0, 1e-9);
+    }
+}
@@ -0,0 +1,42 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class MeshSlicerTest {
+
+    public void testCylinderLayers() throws IOException {
+        int segments = 256;
+        //the area and perimeter of the polygon the prism is cut into
+        double area = segments / 2.0 * 100 * Math.sin(2 * Math.PI / segments);
+        double perimeter = segments * 2 * 10 * Math.sin(Math.PI / segments);
+        try (TriangleBuffer cylinder = Meshes.cylinder(10, 10, segments)) {
+            MeshSlices slices = MeshSlicer.slice(cylinder, 0.5, null);
+            Assert.assertEquals(slices.getLayerCount(), 20);
+            for (int layer = 0; layer < slices.getLayerCount(); layer++) {
+                Assert.assertEquals(slices.getArea(layer), area, 1e-6 * area);
+                Assert.assertEquals(slices.getPerimeter(layer), perimeter, 1e-6 * perimeter);
+            }
+            Assert.assertEquals(slices.getTotalArea(), 20 * area, 20e-6 * area);
+        }
+    }
+
+    public void testInsideOutAndPooledSlicesAgree() throws IOException {
+        try (TriangleBuffer cylinder = Meshes.cylinder(10, 10, 64); TriangleBuffer insideOut = new TriangleBuffer()) {
+            cylinder.forEach(Meshes.flipped(insideOut));
+            MeshSlices slices = MeshSlicer.slice(cylinder, 0.1, null);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                MeshSlices flipped = MeshSlicer.slice(insideOut, 0.1, pool);
+                Assert.assertEquals(flipped.getLayerCount(), slices.getLayerCount());
+                Assert.assertEquals(Math.abs(flipped.getTotalArea()), slices.getTotalArea(), 1e-9 * slices.getTotalArea());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
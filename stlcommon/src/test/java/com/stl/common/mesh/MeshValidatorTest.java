@@ -0,0 +1,63 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class MeshValidatorTest {
+
+    public void testClosedCubeIsValid() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            Assert.assertEquals(validate(cube, 0, cube.getFacetCount()), new MeshValidity(0, 0, 0, 0));
+        }
+    }
+
+    public void testZeroToleranceMatchesCornersExactly() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshValidator validator = new MeshValidator(0, cube.getFacetCount());
+            cube.forEach(validator);
+            Assert.assertTrue(validator.getValidity().isValid(), validator.getValidity().toString());
+        }
+    }
+
+    public void testMissingFacetLeavesOpenEdges() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshValidity validity = validate(cube, 1, cube.getFacetCount());
+            Assert.assertFalse(validity.isValid());
+            Assert.assertEquals(validity.getOpenEdges(), 3);
+            Assert.assertEquals(validity.getNonManifoldEdges(), 0);
+        }
+    }
+
+    public void testCubesSharingAnEdgeAreNotManifold() throws IOException {
+        try (TriangleBuffer first = Meshes.cube(0, 0, 0, 10); TriangleBuffer second = Meshes.cube(10, 10, 0, 10)) {
+            MeshValidator validator = new MeshValidator(1e-5, 0);
+            first.forEach(validator);
+            second.forEach(validator);
+            MeshValidity validity = validator.getValidity();
+            Assert.assertFalse(validity.isValid());
+            Assert.assertEquals(validity.getOpenEdges(), 0);
+            Assert.assertTrue(validity.getNonManifoldEdges() > 0, validity.toString());
+        }
+    }
+
+    public void testFlippedFacetIsInconsistent() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshValidator validator = new MeshValidator(1e-5, cube.getFacetCount());
+            cube.forEach(0, 1, Meshes.flipped(validator));
+            cube.forEach(1, cube.getFacetCount(), validator);
+            MeshValidity validity = validator.getValidity();
+            Assert.assertFalse(validity.isValid());
+            Assert.assertEquals(validity.getOpenEdges(), 0);
+            Assert.assertEquals(validity.getInconsistentEdges(), 3);
+        }
+    }
+
+    private static MeshValidity validate(TriangleSource source, long from, long to) {
+        MeshValidator validator = new MeshValidator(1e-5, to - from);
+        source.forEach(from, to, validator);
+        return validator.getValidity();
+    }
+}
@@ -0,0 +1,122 @@
+package com.stl.common.mesh;
+
+/**
+ * Builds small meshes with known geometry for tests, wound counter-clockwise seen from outside.
+ */
+class Meshes {
+    //corners of each face of a box, by bit: 1 for high x, 2 for high y, 4 for high z
+    private static final int[][] BOX_FACES = {
+        { 0, 2, 3, 1 }, { 4, 5, 7, 6 }, { 0, 1, 5, 4 }, { 2, 6, 7, 3 }, { 0, 4, 6, 2 }, { 1, 3, 7, 5 } };
+
+    static TriangleBuffer cube(double x, double y, double z, double side) {
+        return box(x, y, z, x + side, y + side, z + side);
+    }
+
+    static TriangleBuffer box(double x0, double y0, double z0, double x1, double y1, double z1) {
+        TriangleBuffer buffer = new TriangleBuffer();
+        double[][] corners = new double[8][];
+        for (int i = 0; i < 8; i++) {
+            corners[i] = new double[] { 0 == (i & 1) ? x0 : x1, 0 == (i & 2) ? y0 : y1, 0 == (i & 4) ? z0 : z1 };
+        }
+        for (int[] face : BOX_FACES) {
+            triangle(buffer, corners[face[0]], corners[face[1]], corners[face[2]]);
+            triangle(buffer, corners[face[0]], corners[face[2]], corners[face[3]]);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a sphere of latitude rings and longitude segments, whose poles are on the Z axis.
+     */
+    static TriangleBuffer sphere(double x, double y, double z, double radius, int rings, int segments) {
+        TriangleBuffer buffer = new TriangleBuffer();
+        double[][][] points = new double[rings + 1][segments][];
+        for (int i = 0; i <= rings; i++) {
+            double polar = Math.PI * i / rings;
+            for (int j = 0; j < segments; j++) {
+                double azimuth = 2 * Math.PI * j / segments;
+                points[i][j] = new double[] { x + radius * Math.sin(polar) * Math.cos(azimuth),
+                    y + radius * Math.sin(polar) * Math.sin(azimuth), z + radius * Math.cos(polar) };
+            }
+        }
+        for (int i = 0; i < rings; i++) {
+            for (int j = 0; j < segments; j++) {
+                int next = (j + 1) % segments;
+                //the poles are a single point, so their rings of quads are fans of triangles
+                if (i > 0) {
+                    triangle(buffer, points[i][j], points[i + 1][j], points[i][next]);
+                }
+                if (i < rings - 1) {
+                    triangle(buffer, points[i][next], points[i + 1][j], points[i + 1][next]);
+                }
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns an upright prism of the given number of sides inscribed in a cylinder whose
+     * base is centred on the origin.
+     */
+    static TriangleBuffer cylinder(double radius, double height, int segments) {
+        TriangleBuffer buffer = new TriangleBuffer();
+        double[] bottom = { 0, 0, 0 }, top = { 0, 0, height };
+        for (int j = 0; j < segments; j++) {
+            double a0 = 2 * Math.PI * j / segments, a1 = 2 * Math.PI * (j + 1) / segments;
+            double[] b0 = { radius * Math.cos(a0), radius * Math.sin(a0), 0 };
+            double[] b1 = { radius * Math.cos(a1), radius * Math.sin(a1), 0 };
+            double[] t0 = { b0[0], b0[1], height }, t1 = { b1[0], b1[1], height };
+            triangle(buffer, bottom, b1, b0);
+            triangle(buffer, top, t0, t1);
+            triangle(buffer, b0, b1, t1);
+            triangle(buffer, b0, t1, t0);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the mesh rotated by the given angles in radians about X and then Z.
+     */
+    static TriangleBuffer rotate(TriangleSource mesh, double aboutX, double aboutZ) {
+        final double[] m = rotation(aboutX, aboutZ);
+        final TriangleBuffer buffer = new TriangleBuffer();
+        mesh.forEach(0, mesh.getFacetCount(), new TriangleSink() {
+            @Override
+            public void triangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+                Meshes.triangle(buffer, apply(ax, ay, az), apply(bx, by, bz), apply(cx, cy, cz));
+            }
+
+            private double[] apply(float x, float y, float z) {
+                return new double[] { m[0] * x + m[1] * y + m[2] * z, m[3] * x + m[4] * y + m[5] * z,
+                    m[6] * x + m[7] * y + m[8] * z };
+            }
+        });
+        return buffer;
+    }
+
+    /**
+     * Returns the rows of the rotation {@link #rotate} applies, about X and then Z.
+     */
+    static double[] rotation(double aboutX, double aboutZ) {
+        double cx = Math.cos(aboutX), sx = Math.sin(aboutX), cz = Math.cos(aboutZ), sz = Math.sin(aboutZ);
+        //Rz * Rx
+        return new double[] { cz, -sz * cx, sz * sx, sz, cz * cx, -cz * sx, 0, sx, cx };
+    }
+
+    static void triangle(TriangleSink sink, double[] a, double[] b, double[] c) {
+        sink.triangle((float) a[0], (float) a[1], (float) a[2], (float) b[0], (float) b[1], (float) b[2],
+                (float) c[0], (float) c[1], (float) c[2]);
+    }
+
+    /**
+     * Returns a sink passing triangles on with their winding reversed, turning the normals inwards.
+     */
+    static TriangleSink flipped(final TriangleSink sink) {
+        return new TriangleSink() {
+            @Override
+            public void triangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+                sink.triangle(ax, ay, az, cx, cy, cz, bx, by, bz);
+            }
+        };
+    }
+}
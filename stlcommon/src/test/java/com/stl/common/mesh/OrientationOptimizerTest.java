@@ -0,0 +1,67 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class OrientationOptimizerTest {
+    private static final OrientationOptimizer OPTIMIZER = new OrientationOptimizer(true, 2, 0.01, 1.0);
+
+    public void testConeRestsOnItsBase() throws IOException {
+        //tipped over less than halfway the base overhangs, further the sides do or the part stands taller
+        double[] rotation = Meshes.rotation(0.4, 1.1);
+        try (TriangleBuffer upright = cone(10, 5, 32); TriangleBuffer cone = Meshes.rotate(upright, 0.4, 1.1)) {
+            BuildOrientation orientation = OPTIMIZER.optimize(cone, ConvexHull.of(cone, 1e-5, null), null);
+            for (int k = 0; k < 3; k++) {
+                //the rotated Z axis, which the apex points along
+                Assert.assertEquals(orientation.getDirection(k), rotation[3 * k + 2], 1e-6);
+            }
+            Assert.assertEquals(orientation.getOverhangArea(), 0.0, 1e-6);
+            Assert.assertEquals(orientation.getHeight(), 5.0, 1e-4);
+            Assert.assertEquals(orientation.getFootprintArea(), 16 * 100 * Math.sin(2 * Math.PI / 32), 1e-3);
+        }
+    }
+
+    public void testUprightConeIsNotTurned() throws IOException {
+        try (TriangleBuffer cone = cone(10, 5, 32)) {
+            BuildOrientation orientation = OPTIMIZER.optimize(cone, ConvexHull.of(cone, 1e-5, null), null);
+            Assert.assertEquals(orientation.getDirection(2), 1.0, 1e-9);
+            Assert.assertEquals(orientation.getRotationAngle(), 0.0, 1e-6);
+        }
+    }
+
+    public void testSearchIsDeterministic() throws IOException {
+        try (TriangleBuffer sphere = Meshes.sphere(0, 0, 0, 10, 16, 32);
+                TriangleBuffer rotated = Meshes.rotate(sphere, 0.3, 0.7)) {
+            ConvexHull hull = ConvexHull.of(rotated, 1e-5, null);
+            BuildOrientation orientation = OPTIMIZER.optimize(rotated, hull, null);
+            Assert.assertEquals(OPTIMIZER.optimize(rotated, hull, null), orientation);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                Assert.assertEquals(OPTIMIZER.optimize(rotated, hull, pool), orientation);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns an upright pyramid of the given number of sides inscribed in a cone whose base
+     * is centred on the origin.
+     */
+    private static TriangleBuffer cone(double radius, double height, int segments) {
+        TriangleBuffer buffer = new TriangleBuffer();
+        double[] centre = { 0, 0, 0 }, apex = { 0, 0, height };
+        for (int j = 0; j < segments; j++) {
+            double a0 = 2 * Math.PI * j / segments, a1 = 2 * Math.PI * (j + 1) / segments;
+            double[] b0 = { radius * Math.cos(a0), radius * Math.sin(a0), 0 };
+            double[] b1 = { radius * Math.cos(a1), radius * Math.sin(a1), 0 };
+            Meshes.triangle(buffer, centre, b1, b0);
+            Meshes.triangle(buffer, b0, b1, apex);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,53 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class OrientedBoxTest {
+
+    public void testRotatedBoxIsFittedExactly() throws IOException {
+        double[] rotation = Meshes.rotation(0.4, 1.1);
+        try (TriangleBuffer box = Meshes.box(0, 0, 0, 10, 20, 30);
+                TriangleBuffer rotated = Meshes.rotate(box, 0.4, 1.1)) {
+            OrientedBox fitted = OrientedBox.fit(ConvexHull.of(rotated, 1e-5, null), null);
+            //the rotated corners are rounded to floats
+            Assert.assertEquals(fitted.getVolume(), 6000.0, 1e-2);
+            //the axes are ordered by descending extent, the longest along the box's Z
+            double[] extents = { 30, 20, 10 };
+            int[] column = { 2, 1, 0 };
+            for (int axis = 0; axis < 3; axis++) {
+                Assert.assertEquals(fitted.getExtent(axis), extents[axis], 1e-4);
+                double dot = 0;
+                for (int k = 0; k < 3; k++) {
+                    dot += fitted.getAxis(axis, k) * rotation[3 * k + column[axis]];
+                }
+                Assert.assertEquals(Math.abs(dot), 1.0, 1e-6);
+            }
+            //the centre is the rotated centre of the box
+            double[] centre = { 5, 10, 15 };
+            for (int k = 0; k < 3; k++) {
+                double expected = 0;
+                for (int j = 0; j < 3; j++) {
+                    expected += rotation[3 * k + j] * centre[j];
+                }
+                Assert.assertEquals(fitted.getCenter(k), expected, 1e-4);
+            }
+        }
+    }
+
+    public void testEncloseKeepsTheAxes() throws IOException {
+        try (TriangleBuffer box = Meshes.box(0, 0, 0, 10, 20, 30); TriangleBuffer cube = Meshes.cube(-5, -5, -5, 50)) {
+            OrientedBox fitted = OrientedBox.fit(ConvexHull.of(box, 1e-5, null), null);
+            OrientedBox enclosing = fitted.enclose(cube);
+            for (int axis = 0; axis < 3; axis++) {
+                Assert.assertEquals(enclosing.getExtent(axis), 50.0, 1e-4);
+                for (int k = 0; k < 3; k++) {
+                    Assert.assertEquals(enclosing.getAxis(axis, k), fitted.getAxis(axis, k));
+                }
+            }
+        }
+    }
+}
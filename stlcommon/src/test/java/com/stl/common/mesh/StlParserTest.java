@@ -0,0 +1,86 @@
+package com.stl.common.mesh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class StlParserTest {
+
+    public void testAsciiAndBinaryGiveTheSameMetrics() throws IOException {
+        try (TriangleBuffer sphere = Meshes.sphere(12.5, -3, 40, 10, 24, 48)) {
+            //a binary header beginning with solid must still be read as binary
+            ByteArrayOutputStream binary = new ByteArrayOutputStream();
+            BinaryStlWriter.write(sphere, "solid sphere", binary);
+            byte[] ascii = toAscii(sphere).getBytes(StandardCharsets.US_ASCII);
+
+            MeshAccumulator fromBinary = new MeshAccumulator();
+            MeshAccumulator fromAscii = new MeshAccumulator();
+            Assert.assertEquals(StlParser.parse(new ByteArrayInputStream(binary.toByteArray()), binary.size(), fromBinary),
+                    sphere.getFacetCount());
+            Assert.assertEquals(StlParser.parse(new ByteArrayInputStream(ascii), ascii.length, fromAscii),
+                    sphere.getFacetCount());
+            Assert.assertEquals(fromAscii.toMetrics(), fromBinary.toMetrics());
+            Assert.assertTrue(fromBinary.toMetrics().getVolume() > 0);
+        }
+    }
+
+    public void testAsciiOfUnknownSize() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            MeshAccumulator accumulator = new MeshAccumulator();
+            byte[] ascii = toAscii(cube).getBytes(StandardCharsets.US_ASCII);
+            Assert.assertEquals(StlParser.parse(new ByteArrayInputStream(ascii), StlParser.UNKNOWN_SIZE, accumulator), 12);
+            Assert.assertEquals(accumulator.getVolume(), 1000.0, 1e-9);
+        }
+    }
+
+    @Test(expectedExceptions = StlFormatException.class)
+    public void testTruncatedBinaryIsRejected() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10)) {
+            ByteArrayOutputStream binary = new ByteArrayOutputStream();
+            BinaryStlWriter.write(cube, "cube", binary);
+            byte[] truncated = Arrays.copyOf(binary.toByteArray(), binary.size() - 10);
+            StlParser.parse(new ByteArrayInputStream(truncated), truncated.length, new MeshAccumulator());
+        }
+    }
+
+    public void testNonFiniteCoordinatesAreRejected() throws IOException {
+        for (String token : new String[] { "nan", "NaN", "inf", "-Infinity", "1e39" }) {
+            byte[] ascii = ("solid bad\n facet normal 0 0 0\n  outer loop\n   vertex 0 0 0\n   vertex 1 0 0\n"
+                    + "   vertex 0 " + token + " 0\n  endloop\n endfacet\nendsolid bad\n").getBytes(StandardCharsets.US_ASCII);
+            try {
+                StlParser.parse(new ByteArrayInputStream(ascii), ascii.length, new MeshAccumulator());
+                Assert.fail(token + " was accepted");
+            } catch (StlFormatException e) {
+                Assert.assertTrue(e.getMessage().contains(token), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the facets as ASCII STL, with coordinates that read back as the same floats.
+     */
+    private static String toAscii(TriangleSource source) {
+        final StringBuilder text = new StringBuilder("solid test\n");
+        source.forEach(0, source.getFacetCount(), new TriangleSink() {
+            @Override
+            public void triangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+                text.append("  facet normal 0 0 0\n    outer loop\n");
+                vertex(ax, ay, az);
+                vertex(bx, by, bz);
+                vertex(cx, cy, cz);
+                text.append("    endloop\n  endfacet\n");
+            }
+
+            private void vertex(float x, float y, float z) {
+                text.append("      vertex ").append(x).append(' ').append(y).append(' ').append(z).append('\n');
+            }
+        });
+        return text.append("endsolid test\n").toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class VertexIndexTest {
+
+    public void testCornersWithinToleranceShareAVertex() {
+        VertexIndex index = new VertexIndex(1e-5, 0);
+        Assert.assertEquals(index.indexOf(1f, 2f, 3f), 0);
+        Assert.assertEquals(index.indexOf(1.000001f, 2f, 3f), 0);
+        Assert.assertEquals(index.indexOf(1.0001f, 2f, 3f), 1);
+        Assert.assertEquals(index.size(), 2);
+    }
+
+    public void testZeroToleranceMatchesExactly() {
+        VertexIndex index = new VertexIndex(0, 0);
+        Assert.assertEquals(index.indexOf(1f, 2f, 3f), 0);
+        Assert.assertEquals(index.indexOf(1.000001f, 2f, 3f), 1);
+        Assert.assertEquals(index.indexOf(-0f, 0f, 0f), 2);
+        Assert.assertEquals(index.indexOf(0f, -0f, 0f), 2);
+        Assert.assertEquals(index.indexOf(1f, 2f, 3f), 0);
+        Assert.assertEquals(index.size(), 3);
+    }
+
+    public void testOffsetCoordinatesStayDistinct() {
+        //beyond 2^31 tolerances from the origin, where int keys used to saturate
+        VertexIndex index = new VertexIndex(1e-5, 0);
+        Assert.assertEquals(index.indexOf(30000f, 0f, 0f), 0);
+        Assert.assertEquals(index.indexOf(40000f, 0f, 0f), 1);
+        Assert.assertEquals(index.indexOf(-30000f, -50000f, 0f), 2);
+        Assert.assertEquals(index.indexOf(-30000f, -60000f, 0f), 3);
+        Assert.assertEquals(index.indexOf(40000f, 0f, 0f), 1);
+        Assert.assertEquals(index.size(), 4);
+    }
+
+    public void testMicronModelFarFromOrigin() throws IOException {
+        //a 10mm cube modelled in microns, 100mm from the origin
+        try (TriangleBuffer cube = Meshes.cube(100000, 100000, 100000, 10000)) {
+            MeshValidator validator = new MeshValidator(1e-5, cube.getFacetCount());
+            cube.forEach(validator);
+            Assert.assertTrue(validator.getValidity().isValid(), validator.getValidity().toString());
+            ConvexHull hull = ConvexHull.of(cube, 1e-5, null);
+            Assert.assertNotNull(hull);
+            Assert.assertEquals(hull.getVertexCount(), 8);
+            Assert.assertEquals(hull.getVolume(), 1e12, 1e3);
+        }
+    }
+
+    public void testGrowthKeepsIds() {
+        VertexIndex index = new VertexIndex(1e-5, 0);
+        for (int i = 0; i < 5000; i++) {
+            Assert.assertEquals(index.indexOf(i, -i, 50000f + i), i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            Assert.assertEquals(index.indexOf(i, -i, 50000f + i), i);
+        }
+        Assert.assertEquals(index.size(), 5000);
+    }
+}
@@ -0,0 +1,45 @@
+package com.stl.common.mesh;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups = { "unit" })
+public class VoxelizerTest {
+
+    public void testCubeFillsEveryVoxel() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(3, -7, 11, 10)) {
+            VoxelGrid grid = Voxelizer.voxelize(cube, 20, null);
+            Assert.assertEquals(grid.getSizeX(), 20);
+            Assert.assertEquals(grid.getSizeY(), 20);
+            Assert.assertEquals(grid.getSizeZ(), 20);
+            Assert.assertEquals(grid.getVoxelSize(), 0.5, 1e-9);
+            Assert.assertEquals(grid.getVoxelCount(), 8000);
+            Assert.assertEquals(grid.getVolume(), 1000.0, 1e-6);
+        }
+    }
+
+    public void testSphereVolumeConverges() throws IOException {
+        try (TriangleBuffer sphere = Meshes.sphere(0, 0, 0, 10, 64, 128)) {
+            MeshAccumulator accumulator = new MeshAccumulator();
+            sphere.forEach(accumulator);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                VoxelGrid grid = Voxelizer.voxelize(sphere, 128, pool);
+                Assert.assertEquals(grid.getVolume(), accumulator.getVolume(), 0.01 * accumulator.getVolume());
+                Assert.assertEquals(Voxelizer.voxelize(sphere, 128, null).getVoxelCount(), grid.getVoxelCount());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    public void testInsideOutCubeIsFilledToo() throws IOException {
+        try (TriangleBuffer cube = Meshes.cube(0, 0, 0, 10); TriangleBuffer insideOut = new TriangleBuffer()) {
+            cube.forEach(Meshes.flipped(insideOut));
+            Assert.assertEquals(Voxelizer.voxelize(insideOut, 10, null).getVoxelCount(), 1000);
+        }
+    }
+}